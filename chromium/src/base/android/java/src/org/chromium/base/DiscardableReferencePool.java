@@ -21,8 +21,8 @@ import java.util.WeakHashMap;
  * payloads to be garbage collected regularly when the last reference goes away before the pool is
  * drained.
  *
- * <p>This class and its references are not thread-safe and should not be used simultaneously by
- * multiple threads.
+ * <p>This class and its references are thread-safe. For a cache that is trimmed gradually rather
+ * than drained at once, see {@link org.chromium.base.memory.MemoryBudgetedCache}.
  */
 @NullMarked
 public class DiscardableReferencePool {
@@ -42,7 +42,7 @@ public class DiscardableReferencePool {
      * @param <T> The type of the object.
      */
     public static class DiscardableReference<T> {
-        private @Nullable T mPayload;
+        private volatile @Nullable T mPayload;
 
         private DiscardableReference(T payload) {
             assert payload != null;
@@ -68,7 +68,7 @@ public class DiscardableReferencePool {
      * @param payload The payload to add to the pool.
      * @return A new reference to the {@code payload}.
      */
-    public <T> DiscardableReference<T> put(T payload) {
+    public synchronized <T> DiscardableReference<T> put(T payload) {
         assert payload != null;
         DiscardableReference<T> reference = new DiscardableReference<>(payload);
         mPool.add(reference);
@@ -80,7 +80,7 @@ public class DiscardableReferencePool {
      *
      * @param ref The discardable reference to remove.
      */
-    public void remove(DiscardableReference<?> ref) {
+    public synchronized void remove(DiscardableReference<?> ref) {
         assert ref != null;
         if (!mPool.contains(ref)) return;
         assert ref.get() != null;
@@ -93,7 +93,7 @@ public class DiscardableReferencePool {
      * Drains the pool, removing all references to objects in the pool and therefore allowing them
      * to be garbage collected.
      */
-    public void drain() {
+    public synchronized void drain() {
         for (DiscardableReference<?> ref : mPool) {
             ref.discard();
         }
@@ -21,6 +21,7 @@ import org.chromium.build.annotations.Nullable;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.annotation.concurrent.GuardedBy;
@@ -38,6 +39,10 @@ import javax.annotation.concurrent.GuardedBy;
  * when tracing is enabled from the native side. At this point, buffered events are flushed to the
  * native side and then early tracing is permanently disabled after dumping the events.
  *
+ * <p>Begin and end events are the bulk of early tracing, so they are recorded without locking or
+ * allocating: each thread appends to its own {@link ThreadEventBuffer} of primitive arrays, and
+ * {@link #sLock} is only taken the first time a thread records an event.
+ *
  * <p>Like the TraceEvent, the event name of the trace events must be a string literal or a |static
  * final String| class member. Otherwise NoDynamicStringsInTraceEventCheck error will be thrown.
  */
@@ -54,13 +59,182 @@ public class EarlyTraceEvent {
         final long mTimeNanos;
         final long mThreadTimeMillis;
 
-        Event(String name, boolean isStart, boolean isToplevel) {
+        Event(
+                String name,
+                boolean isStart,
+                boolean isToplevel,
+                int threadId,
+                long timeNanos,
+                long threadTimeMillis) {
             mIsStart = isStart;
             mIsToplevel = isToplevel;
             mName = name;
-            mThreadId = Process.myTid();
-            mTimeNanos = System.nanoTime(); // Same timebase as TimeTicks::Now().
-            mThreadTimeMillis = SystemClock.currentThreadTimeMillis();
+            mThreadId = threadId;
+            mTimeNanos = timeNanos;
+            mThreadTimeMillis = threadTimeMillis;
+        }
+    }
+
+    /**
+     * Begin and end events recorded by a single thread, stored in parallel arrays.
+     *
+     * <p>Only the owning thread appends. Other threads may read the events concurrently: {@link
+     * #mCount} is published after the event is written, and the arrays are only ever replaced by
+     * larger copies, so a reader that loads {@link #mCount} before {@link #mStorage} always sees
+     * complete events.
+     *
+     * <p>Once the tracing session ends, the arrays are released so that the thread's {@link
+     * #sThreadBuffer}, which outlives the session, doesn't keep them alive.
+     */
+    @VisibleForTesting
+    static final class ThreadEventBuffer {
+        /** Number of events a buffer can hold before it first has to grow. */
+        private static final int INITIAL_CAPACITY = 256;
+
+        /**
+         * Maximum number of events kept per thread. Further events are dropped rather than letting
+         * a thread that is never flushed grow without limit.
+         */
+        @VisibleForTesting static final int MAX_CAPACITY = 64 * 1024;
+
+        private static final byte FLAG_START = 1;
+        private static final byte FLAG_TOPLEVEL = 2;
+
+        /** Arrays holding the events, replaced as a whole when the buffer grows. */
+        private static final class Storage {
+            // Event names are string literals, so keeping the references doesn't retain anything.
+            final String[] mNames;
+            final byte[] mFlags;
+            final long[] mTimeNanos;
+            final long[] mThreadTimeMillis;
+
+            Storage(int capacity) {
+                mNames = new String[capacity];
+                mFlags = new byte[capacity];
+                mTimeNanos = new long[capacity];
+                mThreadTimeMillis = new long[capacity];
+            }
+
+            Storage(Storage other, int capacity) {
+                mNames = Arrays.copyOf(other.mNames, capacity);
+                mFlags = Arrays.copyOf(other.mFlags, capacity);
+                mTimeNanos = Arrays.copyOf(other.mTimeNanos, capacity);
+                mThreadTimeMillis = Arrays.copyOf(other.mThreadTimeMillis, capacity);
+            }
+        }
+
+        final int mThreadId = Process.myTid();
+
+        /** Value of {@link #sGeneration} when this buffer was created. */
+        final int mGeneration;
+
+        /** Null once the buffer was released. */
+        private volatile @Nullable Storage mStorage = new Storage(INITIAL_CAPACITY);
+
+        private volatile int mCount;
+
+        /**
+         * Number of events dropped because {@link #MAX_CAPACITY} was reached. Written by the owning
+         * thread only, and read by the thread dumping the events.
+         */
+        private volatile int mDroppedCount;
+
+        ThreadEventBuffer(int generation) {
+            mGeneration = generation;
+        }
+
+        /** Appends an event. Must only be called on the thread that created this buffer. */
+        void add(String name, boolean isStart, boolean isToplevel) {
+            long timeNanos = System.nanoTime(); // Same timebase as TimeTicks::Now().
+            long threadTimeMillis = SystemClock.currentThreadTimeMillis();
+            int count = mCount;
+            Storage storage = mStorage;
+            // Events recorded while the session ends are dropped.
+            if (storage == null) return;
+            if (count == storage.mNames.length) {
+                if (count == MAX_CAPACITY) {
+                    mDroppedCount++;
+                    return;
+                }
+                storage = new Storage(storage, Math.min(count * 2, MAX_CAPACITY));
+                mStorage = storage;
+            }
+            storage.mNames[count] = name;
+            storage.mFlags[count] =
+                    (byte) ((isStart ? FLAG_START : 0) | (isToplevel ? FLAG_TOPLEVEL : 0));
+            storage.mTimeNanos[count] = timeNanos;
+            storage.mThreadTimeMillis[count] = threadTimeMillis;
+            mCount = count + 1;
+        }
+
+        /**
+         * Drops the recorded events, and their arrays. If the owning thread grows the buffer
+         * concurrently, the grown arrays stay referenced until the thread records an event in a
+         * later session.
+         */
+        void release() {
+            mStorage = null;
+            mCount = 0;
+        }
+
+        @VisibleForTesting
+        boolean isReleased() {
+            return mStorage == null;
+        }
+
+        /** Sends all events recorded so far to the native side. */
+        void dump() {
+            int count = mCount;
+            Storage storage = mStorage;
+            if (storage == null) return;
+            for (int i = 0; i < count; i++) {
+                String name = storage.mNames[i];
+                byte flags = storage.mFlags[i];
+                long timeNanos = storage.mTimeNanos[i];
+                long threadTimeMillis = storage.mThreadTimeMillis[i];
+                if ((flags & FLAG_START) != 0) {
+                    if ((flags & FLAG_TOPLEVEL) != 0) {
+                        EarlyTraceEventJni.get()
+                                .recordEarlyToplevelBeginEvent(
+                                        name, timeNanos, mThreadId, threadTimeMillis);
+                    } else {
+                        EarlyTraceEventJni.get()
+                                .recordEarlyBeginEvent(
+                                        name, timeNanos, mThreadId, threadTimeMillis);
+                    }
+                } else {
+                    if ((flags & FLAG_TOPLEVEL) != 0) {
+                        EarlyTraceEventJni.get()
+                                .recordEarlyToplevelEndEvent(
+                                        name, timeNanos, mThreadId, threadTimeMillis);
+                    } else {
+                        EarlyTraceEventJni.get()
+                                .recordEarlyEndEvent(name, timeNanos, mThreadId, threadTimeMillis);
+                    }
+                }
+            }
+            if (mDroppedCount > 0) {
+                Log.w(TAG, "Dropped %d early trace events on thread %d", mDroppedCount, mThreadId);
+            }
+        }
+
+        /** Appends the recorded events called {@code name} to {@code out}. */
+        void collectMatchingEvents(String name, List<Event> out) {
+            int count = mCount;
+            Storage storage = mStorage;
+            if (storage == null) return;
+            for (int i = 0; i < count; i++) {
+                if (!storage.mNames[i].equals(name)) continue;
+                byte flags = storage.mFlags[i];
+                out.add(
+                        new Event(
+                                name,
+                                (flags & FLAG_START) != 0,
+                                (flags & FLAG_TOPLEVEL) != 0,
+                                mThreadId,
+                                storage.mTimeNanos[i],
+                                storage.mThreadTimeMillis[i]));
+            }
         }
     }
 
@@ -135,13 +309,15 @@ public class EarlyTraceEvent {
     // ChildProcessLauncherHelperImpl.
     public static final String TRACE_EARLY_JAVA_IN_CHILD_SWITCH = "trace-early-java-in-child";
 
+    private static final String TAG = "EarlyTraceEvent";
+
     // Protects the fields below.
     @VisibleForTesting static final Object sLock = new Object();
 
     // Not final because in many configurations these objects are not used.
     @GuardedBy("sLock")
     @VisibleForTesting
-    static @Nullable List<Event> sEvents;
+    static @Nullable List<ThreadEventBuffer> sThreadBuffers;
 
     @GuardedBy("sLock")
     @VisibleForTesting
@@ -157,6 +333,14 @@ public class EarlyTraceEvent {
     static final List<ActivityLaunchCauseEvent> sActivityLaunchCauseEvents =
             new ArrayList<ActivityLaunchCauseEvent>();
 
+    /**
+     * Incremented each time {@link #sThreadBuffers} is replaced, so that threads stop using
+     * buffers from a previous tracing session.
+     */
+    private static volatile int sGeneration;
+
+    private static final ThreadLocal<ThreadEventBuffer> sThreadBuffer = new ThreadLocal<>();
+
     /** @see TraceEvent#maybeEnableEarlyTracing(boolean) */
     static void maybeEnableInBrowserProcess() {
         ThreadUtils.assertOnUiThread();
@@ -232,7 +416,8 @@ public class EarlyTraceEvent {
     public static void enable() {
         synchronized (sLock) {
             if (sState != STATE_DISABLED) return;
-            sEvents = new ArrayList<Event>();
+            sThreadBuffers = new ArrayList<ThreadEventBuffer>();
+            sGeneration++;
             sAsyncEvents = new ArrayList<AsyncEvent>();
             sState = STATE_ENABLED;
         }
@@ -247,17 +432,19 @@ public class EarlyTraceEvent {
         synchronized (sLock) {
             if (!enabled()) return;
 
-            if (!sEvents.isEmpty()) {
-                dumpEvents(sEvents);
-                sEvents.clear();
+            // Flip the state first so that threads stop appending while their buffers are read.
+            // Events recorded concurrently with this may be dropped, like events recorded after
+            // disable().
+            sState = STATE_FINISHED;
+            for (ThreadEventBuffer buffer : sThreadBuffers) {
+                buffer.dump();
             }
             if (!sAsyncEvents.isEmpty()) {
                 dumpAsyncEvents(sAsyncEvents);
                 sAsyncEvents.clear();
             }
 
-            sState = STATE_FINISHED;
-            sEvents = null;
+            releaseThreadBuffers();
             sAsyncEvents = null;
         }
     }
@@ -270,12 +457,25 @@ public class EarlyTraceEvent {
     public static void reset() {
         synchronized (sLock) {
             sState = STATE_DISABLED;
-            sEvents = null;
+            releaseThreadBuffers();
             sAsyncEvents = null;
         }
     }
 
-    @EnsuresNonNullIf({"sEvents", "sAsyncEvents"})
+    /**
+     * Releases the arrays of all thread buffers. The buffers themselves stay referenced by their
+     * threads until those record an event in a later session.
+     */
+    @GuardedBy("sLock")
+    private static void releaseThreadBuffers() {
+        if (sThreadBuffers == null) return;
+        for (ThreadEventBuffer buffer : sThreadBuffers) {
+            buffer.release();
+        }
+        sThreadBuffers = null;
+    }
+
+    @EnsuresNonNullIf({"sThreadBuffers", "sAsyncEvents"})
     @SuppressWarnings("NullAway")
     public static boolean enabled() {
         return sState == STATE_ENABLED;
@@ -309,21 +509,37 @@ public class EarlyTraceEvent {
         // begin() and end() are going to be called once per TraceEvent, this avoids entering a
         // synchronized block at each and every call.
         if (!enabled()) return;
-        Event event = new Event(name, /* isStart= */ true, isToplevel);
-        synchronized (sLock) {
-            if (!enabled()) return;
-            sEvents.add(event);
-        }
+        ThreadEventBuffer buffer = getThreadBuffer();
+        if (buffer == null) return;
+        buffer.add(name, /* isStart= */ true, isToplevel);
     }
 
     /** @see TraceEvent#end */
     public static void end(String name, boolean isToplevel) {
         if (!enabled()) return;
-        Event event = new Event(name, /* isStart= */ false, isToplevel);
+        ThreadEventBuffer buffer = getThreadBuffer();
+        if (buffer == null) return;
+        buffer.add(name, /* isStart= */ false, isToplevel);
+    }
+
+    /**
+     * Returns the current thread's buffer for the current tracing session, registering a new one
+     * if needed. Returns null if early tracing got disabled concurrently.
+     */
+    private static @Nullable ThreadEventBuffer getThreadBuffer() {
+        ThreadEventBuffer buffer = sThreadBuffer.get();
+        if (buffer != null) {
+            if (buffer.mGeneration == sGeneration) return buffer;
+            // The buffer belongs to a previous session.
+            sThreadBuffer.remove();
+        }
         synchronized (sLock) {
-            if (!enabled()) return;
-            sEvents.add(event);
+            if (!enabled()) return null;
+            buffer = new ThreadEventBuffer(sGeneration);
+            sThreadBuffers.add(buffer);
         }
+        sThreadBuffer.set(buffer);
+        return buffer;
     }
 
     /** @see TraceEvent#startAsync */
@@ -370,41 +586,13 @@ public class EarlyTraceEvent {
         synchronized (sLock) {
             List<Event> matchingEvents = new ArrayList<Event>();
             if (!enabled()) return matchingEvents;
-            for (Event evt : EarlyTraceEvent.sEvents) {
-                if (evt.mName.equals(eventName)) {
-                    matchingEvents.add(evt);
-                }
+            for (ThreadEventBuffer buffer : EarlyTraceEvent.sThreadBuffers) {
+                buffer.collectMatchingEvents(eventName, matchingEvents);
             }
             return matchingEvents;
         }
     }
 
-    private static void dumpEvents(List<Event> events) {
-        for (Event e : events) {
-            if (e.mIsStart) {
-                if (e.mIsToplevel) {
-                    EarlyTraceEventJni.get()
-                            .recordEarlyToplevelBeginEvent(
-                                    e.mName, e.mTimeNanos, e.mThreadId, e.mThreadTimeMillis);
-                } else {
-                    EarlyTraceEventJni.get()
-                            .recordEarlyBeginEvent(
-                                    e.mName, e.mTimeNanos, e.mThreadId, e.mThreadTimeMillis);
-                }
-            } else {
-                if (e.mIsToplevel) {
-                    EarlyTraceEventJni.get()
-                            .recordEarlyToplevelEndEvent(
-                                    e.mName, e.mTimeNanos, e.mThreadId, e.mThreadTimeMillis);
-                } else {
-                    EarlyTraceEventJni.get()
-                            .recordEarlyEndEvent(
-                                    e.mName, e.mTimeNanos, e.mThreadId, e.mThreadTimeMillis);
-                }
-            }
-        }
-    }
-
     private static void dumpAsyncEvents(List<AsyncEvent> events) {
         for (AsyncEvent e : events) {
             if (e.mIsStart) {
@@ -0,0 +1,261 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.chromium.base.metrics.RecordHistogram;
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Low-overhead profiler of the tasks run by the UI thread's Looper, meant to stay enabled on
+ * production devices.
+ *
+ * <p>Hooks into the same {@code Looper.setMessageLogging()} printer that {@link TraceEvent} uses,
+ * so it works without tracing. Every task's duration goes into a fixed-size histogram with
+ * power-of-two millisecond buckets. Tasks slower than {@link #SLOW_TASK_THRESHOLD_MS} are also
+ * attributed to their origin, the Handler and Runnable classes parsed from the Looper's log line,
+ * in a table of at most {@link #MAX_ORIGIN_COUNT} entries. Only slow tasks pay for parsing the log
+ * line.
+ *
+ * <p>Task origins are the Looper dispatch targets rather than {@link
+ * org.chromium.base.task.Location}s, as locations are only captured while tracing.
+ */
+@NullMarked
+public final class LooperJankProfiler {
+    /** Tasks taking at least this long are attributed to their origin. One 60 FPS frame. */
+    @VisibleForTesting static final long SLOW_TASK_THRESHOLD_MS = 16;
+
+    /** Maximum number of slow task origins tracked at the same time. */
+    @VisibleForTesting static final int MAX_ORIGIN_COUNT = 64;
+
+    /**
+     * Number of duration buckets. Bucket {@code i > 0} holds durations in {@code [2^(i-1),
+     * 2^i)} ms, bucket 0 holds tasks shorter than a millisecond and the last bucket is unbounded.
+     */
+    @VisibleForTesting static final int BUCKET_COUNT = 13;
+
+    private static final String HISTOGRAM_PREFIX = "Android.LooperJankProfiler.";
+
+    /** Aggregated statistics for one origin of slow tasks. */
+    public static final class TaskOriginStats {
+        /** Handler and Runnable of the task, as formatted in the Looper's log line. */
+        public final String origin;
+
+        /** Number of slow tasks seen from this origin. */
+        public final int slowTaskCount;
+
+        /** Total duration of the slow tasks seen from this origin. */
+        public final long totalDurationMs;
+
+        /** Duration of the slowest task seen from this origin. */
+        public final long maxDurationMs;
+
+        TaskOriginStats(
+                String origin, int slowTaskCount, long totalDurationMs, long maxDurationMs) {
+            this.origin = origin;
+            this.slowTaskCount = slowTaskCount;
+            this.totalDurationMs = totalDurationMs;
+            this.maxDurationMs = maxDurationMs;
+        }
+
+        @Override
+        public String toString() {
+            return origin + ": " + slowTaskCount + " slow tasks, max " + maxDurationMs + "ms";
+        }
+    }
+
+    /** Mutable counterpart of {@link TaskOriginStats}. */
+    private static final class OriginEntry {
+        int mSlowTaskCount;
+        long mTotalDurationMs;
+        long mMaxDurationMs;
+    }
+
+    private static @Nullable LooperJankProfiler sInstance;
+
+    @GuardedBy("this")
+    private final int[] mDurationBuckets = new int[BUCKET_COUNT];
+
+    @GuardedBy("this")
+    private final Map<String, OriginEntry> mOrigins = new HashMap<>();
+
+    @GuardedBy("this")
+    private int mTaskCount;
+
+    @GuardedBy("this")
+    private int mSlowTaskCount;
+
+    @GuardedBy("this")
+    private long mMaxDurationMs;
+
+    // Only accessed on the UI thread. -1 when no task is running.
+    private long mTaskStartedAtMs = -1;
+
+    @VisibleForTesting
+    LooperJankProfiler() {}
+
+    /** Starts profiling the UI thread's Looper. Must be called on the UI thread. */
+    public static void start() {
+        ThreadUtils.assertOnUiThread();
+        if (sInstance != null) return;
+        sInstance = new LooperJankProfiler();
+        TraceEvent.setLooperJankProfiler(sInstance);
+    }
+
+    /** Stops profiling and drops the collected statistics. */
+    public static void stop() {
+        ThreadUtils.assertOnUiThread();
+        if (sInstance == null) return;
+        sInstance = null;
+        TraceEvent.setLooperJankProfiler(null);
+    }
+
+    /** Returns the running profiler, or null if {@link #start()} hasn't been called. */
+    public static @Nullable LooperJankProfiler getInstance() {
+        return sInstance;
+    }
+
+    /** Called by the Looper printer on the UI thread before a task is dispatched. */
+    void onTaskStarted() {
+        mTaskStartedAtMs = TimeUtils.uptimeMillis();
+    }
+
+    /**
+     * Called by the Looper printer on the UI thread after a task has finished.
+     *
+     * @param line the Looper's "finished" log line, only parsed if the task was slow.
+     */
+    void onTaskFinished(String line) {
+        if (mTaskStartedAtMs == -1) return;
+        long durationMs = TimeUtils.uptimeMillis() - mTaskStartedAtMs;
+        mTaskStartedAtMs = -1;
+        recordTask(
+                durationMs,
+                durationMs >= SLOW_TASK_THRESHOLD_MS
+                        ? TraceEvent.BasicLooperMonitor.getTaskOrigin(line)
+                        : null);
+    }
+
+    @VisibleForTesting
+    synchronized void recordTask(long durationMs, @Nullable String origin) {
+        mTaskCount++;
+        mDurationBuckets[getBucket(durationMs)]++;
+        if (durationMs > mMaxDurationMs) mMaxDurationMs = durationMs;
+        if (origin == null) return;
+
+        mSlowTaskCount++;
+        OriginEntry entry = mOrigins.get(origin);
+        if (entry == null) {
+            if (mOrigins.size() >= MAX_ORIGIN_COUNT && !evictFasterOriginThan(durationMs)) return;
+            entry = new OriginEntry();
+            mOrigins.put(origin, entry);
+        }
+        entry.mSlowTaskCount++;
+        entry.mTotalDurationMs += durationMs;
+        if (durationMs > entry.mMaxDurationMs) entry.mMaxDurationMs = durationMs;
+    }
+
+    /**
+     * Makes room for a new origin by removing the origin with the fastest slowest task, if that is
+     * faster than {@code durationMs}.
+     *
+     * @return whether an origin was removed.
+     */
+    @GuardedBy("this")
+    private boolean evictFasterOriginThan(long durationMs) {
+        @Nullable String fastestOrigin = null;
+        long fastestDurationMs = durationMs;
+        for (Map.Entry<String, OriginEntry> entry : mOrigins.entrySet()) {
+            if (entry.getValue().mMaxDurationMs < fastestDurationMs) {
+                fastestOrigin = entry.getKey();
+                fastestDurationMs = entry.getValue().mMaxDurationMs;
+            }
+        }
+        if (fastestOrigin == null) return false;
+        mOrigins.remove(fastestOrigin);
+        return true;
+    }
+
+    @VisibleForTesting
+    static int getBucket(long durationMs) {
+        if (durationMs <= 0) return 0;
+        int bucket = 64 - Long.numberOfLeadingZeros(durationMs);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Returns the origins of slow tasks, slowest first.
+     *
+     * @param maxCount maximum number of origins to return.
+     */
+    public synchronized List<TaskOriginStats> getSlowestTaskOrigins(int maxCount) {
+        List<TaskOriginStats> origins = new ArrayList<>(mOrigins.size());
+        for (Map.Entry<String, OriginEntry> entry : mOrigins.entrySet()) {
+            OriginEntry value = entry.getValue();
+            origins.add(
+                    new TaskOriginStats(
+                            entry.getKey(),
+                            value.mSlowTaskCount,
+                            value.mTotalDurationMs,
+                            value.mMaxDurationMs));
+        }
+        Collections.sort(origins, (a, b) -> Long.compare(b.maxDurationMs, a.maxDurationMs));
+        return origins.size() > maxCount ? origins.subList(0, maxCount) : origins;
+    }
+
+    /**
+     * Returns a copy of the task duration histogram. See {@link #BUCKET_COUNT} for the bucket
+     * boundaries.
+     */
+    public synchronized int[] getTaskDurationBuckets() {
+        return mDurationBuckets.clone();
+    }
+
+    /** Returns the number of tasks seen since the last reset. */
+    public synchronized int getTaskCount() {
+        return mTaskCount;
+    }
+
+    /**
+     * Records a summary of the statistics collected since the last call to UMA, then resets them.
+     * Does nothing if no task was seen.
+     */
+    public void recordHistogramsAndReset() {
+        int taskCount;
+        int slowTaskCount;
+        long maxDurationMs;
+        synchronized (this) {
+            taskCount = mTaskCount;
+            slowTaskCount = mSlowTaskCount;
+            maxDurationMs = mMaxDurationMs;
+            resetLocked();
+        }
+        if (taskCount == 0) return;
+        RecordHistogram.recordCount100000Histogram(HISTOGRAM_PREFIX + "TaskCount", taskCount);
+        RecordHistogram.recordPercentageHistogram(
+                HISTOGRAM_PREFIX + "SlowTaskPercentage", slowTaskCount * 100 / taskCount);
+        RecordHistogram.recordMediumTimesHistogram(
+                HISTOGRAM_PREFIX + "MaxTaskDuration", maxDurationMs);
+    }
+
+    @GuardedBy("this")
+    private void resetLocked() {
+        for (int i = 0; i < BUCKET_COUNT; i++) mDurationBuckets[i] = 0;
+        mOrigins.clear();
+        mTaskCount = 0;
+        mSlowTaskCount = 0;
+        mMaxDurationMs = 0;
+    }
+}
@@ -49,6 +49,7 @@ public class TraceEvent implements AutoCloseable {
     private static volatile boolean sEnabled; // True when tracing into Chrome's tracing service.
     private static volatile boolean sUiThreadReady;
     private static boolean sEventNameFilteringEnabled;
+    private static volatile @Nullable LooperJankProfiler sLooperJankProfiler;
 
     @VisibleForTesting
     static class BasicLooperMonitor implements Printer {
@@ -62,10 +63,13 @@ public class TraceEvent implements AutoCloseable {
 
         @Override
         public void println(final String line) {
+            LooperJankProfiler profiler = sLooperJankProfiler;
             if (line.startsWith(">")) {
                 beginHandling(line);
+                if (profiler != null) profiler.onTaskStarted();
             } else {
                 assert line.startsWith("<");
+                if (profiler != null) profiler.onTaskFinished(line);
                 endHandling(line);
             }
         }
@@ -103,7 +107,12 @@ public class TraceEvent implements AutoCloseable {
             if (sEventNameFilteringEnabled) {
                 return FILTERED_EVENT_NAME;
             }
-            return LOOPER_TASK_PREFIX + getTarget(line) + "(" + getTargetName(line) + ")";
+            return LOOPER_TASK_PREFIX + getTaskOrigin(line);
+        }
+
+        /** Returns "TARGET(TARGET_NAME)" for a Looper log line, regardless of filtering. */
+        static String getTaskOrigin(String line) {
+            return getTarget(line) + "(" + getTargetName(line) + ")";
         }
 
         /**
@@ -320,7 +329,7 @@ public class TraceEvent implements AutoCloseable {
         if (sEnabled != enabled) {
             sEnabled = enabled;
             // UI Thread may not be set by this point.
-            if (sUiThreadReady) {
+            if (sUiThreadReady && (enabled || sLooperJankProfiler == null)) {
                 ThreadUtils.getUiThreadLooper()
                         .setMessageLogging(enabled ? LooperMonitorHolder.sInstance : null);
             }
@@ -374,7 +383,23 @@ public class TraceEvent implements AutoCloseable {
         sUiThreadReady = true;
         if (sEnabled) {
             ViewHierarchyDumper.updateEnabledState();
+        }
+        if (sEnabled || sLooperJankProfiler != null) {
+            ThreadUtils.getUiThreadLooper().setMessageLogging(LooperMonitorHolder.sInstance);
+        }
+    }
+
+    /**
+     * Installs or removes the profiler notified of each task run by the UI thread's Looper. The
+     * Looper monitor stays installed while either tracing or a profiler is active.
+     */
+    static void setLooperJankProfiler(@Nullable LooperJankProfiler profiler) {
+        sLooperJankProfiler = profiler;
+        if (!sUiThreadReady) return;
+        if (profiler != null) {
             ThreadUtils.getUiThreadLooper().setMessageLogging(LooperMonitorHolder.sInstance);
+        } else if (!sEnabled && !EarlyTraceEvent.enabled()) {
+            ThreadUtils.getUiThreadLooper().setMessageLogging(null);
         }
     }
 
@@ -0,0 +1,238 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base.memory;
+
+import org.chromium.base.MemoryPressureLevel;
+import org.chromium.base.MemoryPressureListener;
+import org.chromium.base.ThreadUtils;
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A thread-safe cache holding values up to a total size budget, in bytes, evicting least recently
+ * used entries first.
+ *
+ * <p>The cache shrinks under memory pressure once registered with {@link
+ * #registerForMemoryPressure()}: {@link MemoryPressureLevel#MODERATE} halves its current size and
+ * {@link MemoryPressureLevel#CRITICAL} empties it. Signals are throttled by {@link
+ * MemoryPressureMonitor}.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+@NullMarked
+public class MemoryBudgetedCache<K, V> {
+    /** Computes the size of an entry. */
+    @FunctionalInterface
+    public interface SizeCalculator<K, V> {
+        /**
+         * @return the approximate number of bytes retained by the entry. Must not change while the
+         *     entry is in the cache.
+         */
+        long getSizeInBytes(K key, V value);
+    }
+
+    /**
+     * Notified of entries evicted to fit the budget or to relieve memory pressure, but not of
+     * entries removed or replaced by the cache's user.
+     */
+    @FunctionalInterface
+    public interface EvictionListener<K, V> {
+        /** Called without holding the cache's lock, so it may call back into the cache. */
+        void onEntryEvicted(K key, V value);
+    }
+
+    private static final class Entry<V> {
+        final V mValue;
+        final long mSizeInBytes;
+
+        Entry(V value, long sizeInBytes) {
+            mValue = value;
+            mSizeInBytes = sizeInBytes;
+        }
+    }
+
+    private final SizeCalculator<K, V> mSizeCalculator;
+    private final @Nullable EvictionListener<K, V> mEvictionListener;
+
+    // Iterates from least to most recently used.
+    @GuardedBy("this")
+    private final LinkedHashMap<K, Entry<V>> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @GuardedBy("this")
+    private long mMaxSizeInBytes;
+
+    @GuardedBy("this")
+    private long mSizeInBytes;
+
+    // Only accessed on the UI thread.
+    private @Nullable MemoryPressureCallback mMemoryPressureCallback;
+
+    /**
+     * @param maxSizeInBytes The size budget of the cache.
+     * @param sizeCalculator Computes the size of each entry when it is added.
+     * @param evictionListener Notified of evicted entries, e.g. to recycle them. May be null.
+     */
+    public MemoryBudgetedCache(
+            long maxSizeInBytes,
+            SizeCalculator<K, V> sizeCalculator,
+            @Nullable EvictionListener<K, V> evictionListener) {
+        assert maxSizeInBytes > 0;
+        mMaxSizeInBytes = maxSizeInBytes;
+        mSizeCalculator = sizeCalculator;
+        mEvictionListener = evictionListener;
+    }
+
+    /** @return the value for |key|, marking it most recently used, or null if there is none. */
+    public synchronized @Nullable V get(K key) {
+        Entry<V> entry = mEntries.get(key);
+        return entry == null ? null : entry.mValue;
+    }
+
+    /**
+     * Adds |value| to the cache as the most recently used entry, evicting entries as needed. A
+     * value larger than the whole budget isn't cached.
+     *
+     * @return the value previously cached for |key|, or null.
+     */
+    public @Nullable V put(K key, V value) {
+        long sizeInBytes = mSizeCalculator.getSizeInBytes(key, value);
+        assert sizeInBytes >= 0;
+        List<Map.Entry<K, V>> evicted = new ArrayList<>();
+        Entry<V> previous;
+        synchronized (this) {
+            previous = mEntries.remove(key);
+            if (previous != null) mSizeInBytes -= previous.mSizeInBytes;
+            if (sizeInBytes <= mMaxSizeInBytes) {
+                mEntries.put(key, new Entry<>(value, sizeInBytes));
+                mSizeInBytes += sizeInBytes;
+                trimToSizeLocked(mMaxSizeInBytes, evicted);
+            }
+        }
+        notifyEvicted(evicted);
+        return previous == null ? null : previous.mValue;
+    }
+
+    /**
+     * Removes the entry for |key|. The eviction listener isn't notified.
+     *
+     * @return the removed value, or null if there was none.
+     */
+    public synchronized @Nullable V remove(K key) {
+        Entry<V> entry = mEntries.remove(key);
+        if (entry == null) return null;
+        mSizeInBytes -= entry.mSizeInBytes;
+        return entry.mValue;
+    }
+
+    /** Evicts least recently used entries until the cache fits in |sizeInBytes|. */
+    public void trimToSize(long sizeInBytes) {
+        assert sizeInBytes >= 0;
+        trimToSizeInternal(sizeInBytes);
+    }
+
+    /** Evicts all entries. */
+    public void evictAll() {
+        // Also evicts entries of size 0.
+        trimToSizeInternal(-1);
+    }
+
+    private void trimToSizeInternal(long sizeInBytes) {
+        List<Map.Entry<K, V>> evicted = new ArrayList<>();
+        synchronized (this) {
+            trimToSizeLocked(sizeInBytes, evicted);
+        }
+        notifyEvicted(evicted);
+    }
+
+    /** Changes the size budget, evicting entries if the cache no longer fits in it. */
+    public void setMaxSize(long maxSizeInBytes) {
+        assert maxSizeInBytes > 0;
+        List<Map.Entry<K, V>> evicted = new ArrayList<>();
+        synchronized (this) {
+            mMaxSizeInBytes = maxSizeInBytes;
+            trimToSizeLocked(maxSizeInBytes, evicted);
+        }
+        notifyEvicted(evicted);
+    }
+
+    /**
+     * Shrinks the cache according to |pressure|: by half of its current size for {@link
+     * MemoryPressureLevel#MODERATE}, entirely for {@link MemoryPressureLevel#CRITICAL}.
+     */
+    public void onMemoryPressure(@MemoryPressureLevel int pressure) {
+        if (pressure == MemoryPressureLevel.CRITICAL) {
+            evictAll();
+        } else if (pressure == MemoryPressureLevel.MODERATE) {
+            List<Map.Entry<K, V>> evicted = new ArrayList<>();
+            synchronized (this) {
+                trimToSizeLocked(mSizeInBytes / 2, evicted);
+            }
+            notifyEvicted(evicted);
+        }
+    }
+
+    /** Starts shrinking the cache on memory pressure signals. Must be called on the UI thread. */
+    public void registerForMemoryPressure() {
+        ThreadUtils.assertOnUiThread();
+        if (mMemoryPressureCallback != null) return;
+        mMemoryPressureCallback = this::onMemoryPressure;
+        MemoryPressureListener.addCallback(mMemoryPressureCallback);
+    }
+
+    /** Stops shrinking the cache on memory pressure signals. Must be called on the UI thread. */
+    public void unregisterForMemoryPressure() {
+        ThreadUtils.assertOnUiThread();
+        if (mMemoryPressureCallback == null) return;
+        MemoryPressureListener.removeCallback(mMemoryPressureCallback);
+        mMemoryPressureCallback = null;
+    }
+
+    /** @return the number of entries in the cache. */
+    public synchronized int getEntryCount() {
+        return mEntries.size();
+    }
+
+    /** @return the total size of the entries in the cache, in bytes. */
+    public synchronized long getSizeInBytes() {
+        return mSizeInBytes;
+    }
+
+    /** @return the size budget of the cache, in bytes. */
+    public synchronized long getMaxSizeInBytes() {
+        return mMaxSizeInBytes;
+    }
+
+    @GuardedBy("this")
+    private void trimToSizeLocked(long sizeInBytes, List<Map.Entry<K, V>> evicted) {
+        Iterator<Map.Entry<K, Entry<V>>> it = mEntries.entrySet().iterator();
+        while (mSizeInBytes > sizeInBytes && it.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = it.next();
+            it.remove();
+            mSizeInBytes -= eldest.getValue().mSizeInBytes;
+            if (mEvictionListener != null) {
+                evicted.add(
+                        new AbstractMap.SimpleImmutableEntry<>(
+                                eldest.getKey(), eldest.getValue().mValue));
+            }
+        }
+    }
+
+    private void notifyEvicted(List<Map.Entry<K, V>> evicted) {
+        if (mEvictionListener == null) return;
+        for (Map.Entry<K, V> entry : evicted) {
+            mEvictionListener.onEntryEvicted(entry.getKey(), entry.getValue());
+        }
+    }
+}
@@ -20,9 +20,8 @@ import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -42,7 +41,8 @@ final class CachingUmaRecorder implements UmaRecorder {
      * <p>
      * Each sample uses 4 bytes, each histogram uses approx. 12 references (at least 4 bytes each).
      * With {@code MAX_HISTOGRAM_COUNT = 256} and {@code MAX_SAMPLE_COUNT = 256} this limits cache
-     * size to 270KiB. Changing either value by one, adds or removes approx. 1KiB.
+     * size to 270KiB. Changing either value by one, adds or removes approx. 1KiB. Sample storage
+     * grows on demand, so histograms with few samples use much less than the limit.
      */
     private static final int MAX_HISTOGRAM_COUNT = 256;
 
@@ -61,6 +61,12 @@ final class CachingUmaRecorder implements UmaRecorder {
          */
         @VisibleForTesting static final int MAX_SAMPLE_COUNT = 256;
 
+        /**
+         * Initial capacity of {@link #mSamples}. Most histograms recorded before native is loaded
+         * only get a handful of samples, so storage starts small and doubles as needed.
+         */
+        private static final int INITIAL_SAMPLE_CAPACITY = 4;
+
         /** Identifies the type of the histogram. */
         @IntDef({
             Type.BOOLEAN,
@@ -90,8 +96,15 @@ final class CachingUmaRecorder implements UmaRecorder {
         private final int mMax;
         private final int mNumBuckets;
 
+        /**
+         * Cached sample values. Only the first {@link #mSampleCount} elements are valid. Samples
+         * are stored unboxed to avoid allocating an {@link Integer} per sample.
+         */
+        @GuardedBy("this")
+        private int[] mSamples;
+
         @GuardedBy("this")
-        private final List<Integer> mSamples;
+        private int mSampleCount;
 
         /**
          * Constructs a {@code Histogram} with the specified definition and no samples.
@@ -114,7 +127,7 @@ final class CachingUmaRecorder implements UmaRecorder {
             mMax = max;
             mNumBuckets = numBuckets;
 
-            mSamples = new ArrayList<>(/* initialCapacity= */ 1);
+            mSamples = new int[INITIAL_SAMPLE_CAPACITY];
         }
 
         /**
@@ -138,15 +151,38 @@ final class CachingUmaRecorder implements UmaRecorder {
             assert mMin == min;
             assert mMax == max;
             assert mNumBuckets == numBuckets;
-            if (mSamples.size() >= MAX_SAMPLE_COUNT) {
+            if (mSampleCount >= MAX_SAMPLE_COUNT) {
                 // A cache filling up is most likely an indication of a bug.
                 assert false : "Histogram exceeded sample cache size limit";
                 return false;
             }
-            mSamples.add(sample);
+            if (mSampleCount == mSamples.length) {
+                mSamples =
+                        Arrays.copyOf(mSamples, Math.min(mSamples.length * 2, MAX_SAMPLE_COUNT));
+            }
+            mSamples[mSampleCount++] = sample;
             return true;
         }
 
+        /** Returns the number of cached samples equal to {@code sample}. */
+        synchronized int getSampleCount(int sample) {
+            int count = 0;
+            for (int i = 0; i < mSampleCount; i++) {
+                if (mSamples[i] == sample) count++;
+            }
+            return count;
+        }
+
+        /** Returns the total number of cached samples. */
+        synchronized int getTotalCount() {
+            return mSampleCount;
+        }
+
+        /** Returns a copy of the cached samples. */
+        synchronized int[] copySamples() {
+            return Arrays.copyOf(mSamples, mSampleCount);
+        }
+
         /**
          * Writes all histogram samples to {@code recorder}, clears the cache.
          *
@@ -154,36 +190,11 @@ final class CachingUmaRecorder implements UmaRecorder {
          * @return number of flushed histogram samples.
          */
         synchronized int flushTo(UmaRecorder recorder) {
-            switch (mType) {
-                case Type.BOOLEAN:
-                    for (int i = 0; i < mSamples.size(); i++) {
-                        final int sample = mSamples.get(i);
-                        recorder.recordBooleanHistogram(mName, sample != 0);
-                    }
-                    break;
-                case Type.EXPONENTIAL:
-                    for (int i = 0; i < mSamples.size(); i++) {
-                        final int sample = mSamples.get(i);
-                        recorder.recordExponentialHistogram(mName, sample, mMin, mMax, mNumBuckets);
-                    }
-                    break;
-                case Type.LINEAR:
-                    for (int i = 0; i < mSamples.size(); i++) {
-                        final int sample = mSamples.get(i);
-                        recorder.recordLinearHistogram(mName, sample, mMin, mMax, mNumBuckets);
-                    }
-                    break;
-                case Type.SPARSE:
-                    for (int i = 0; i < mSamples.size(); i++) {
-                        final int sample = mSamples.get(i);
-                        recorder.recordSparseHistogram(mName, sample);
-                    }
-                    break;
-                default:
-                    assert false : "Unknown histogram type " + mType;
+            final int count = mSampleCount;
+            for (int i = 0; i < count; i++) {
+                recordSample(recorder, mType, mName, mSamples[i], mMin, mMax, mNumBuckets);
             }
-            int count = mSamples.size();
-            mSamples.clear();
+            mSampleCount = 0;
             return count;
         }
     }
@@ -213,9 +224,21 @@ final class CachingUmaRecorder implements UmaRecorder {
      */
     private final ReentrantReadWriteLock mRwLock = new ReentrantReadWriteLock(/* fair= */ false);
 
-    /** Cached histograms keyed by histogram name. */
+    /**
+     * Cached histograms keyed by histogram name.
+     *
+     * <p>Histograms are looked up and inserted with a read lock held: the map itself is
+     * thread-safe, so threads caching samples for different histograms never wait on each other.
+     * The write lock is only needed to swap out the whole map in {@link #setDelegate}.
+     */
     @GuardedBy("mRwLock")
-    private Map<String, Histogram> mHistogramByName = new HashMap<>();
+    private ConcurrentHashMap<String, Histogram> mHistogramByName = new ConcurrentHashMap<>();
+
+    /**
+     * Number of entries in {@link #mHistogramByName}, maintained separately so that {@link
+     * #MAX_HISTOGRAM_COUNT} can be enforced with a compare-and-set rather than a lock.
+     */
+    private final AtomicInteger mHistogramCount = new AtomicInteger();
 
     /**
      * Number of histogram samples that couldn't be cached, because some limit of cache size been
@@ -256,7 +279,7 @@ final class CachingUmaRecorder implements UmaRecorder {
      */
     public @Nullable UmaRecorder setDelegate(@Nullable final UmaRecorder recorder) {
         UmaRecorder previous;
-        Map<String, Histogram> histogramCache = null;
+        ConcurrentHashMap<String, Histogram> histogramCache = null;
         int droppedHistogramSampleCount = 0;
         List<UserAction> userActionCache = null;
         int droppedUserActionCount = 0;
@@ -273,7 +296,8 @@ final class CachingUmaRecorder implements UmaRecorder {
             }
             if (!mHistogramByName.isEmpty()) {
                 histogramCache = mHistogramByName;
-                mHistogramByName = new HashMap<>();
+                mHistogramByName = new ConcurrentHashMap<>();
+                mHistogramCount.set(0);
                 droppedHistogramSampleCount = mDroppedHistogramSampleCount.getAndSet(0);
             }
             if (!mUserActions.isEmpty()) {
@@ -311,7 +335,7 @@ final class CachingUmaRecorder implements UmaRecorder {
      */
     @GuardedBy("mRwLock")
     private void flushHistogramsAlreadyLocked(
-            Map<String, Histogram> cache, int droppedHistogramSampleCount) {
+            ConcurrentHashMap<String, Histogram> cache, int droppedHistogramSampleCount) {
         assert mDelegate != null : "Unexpected: cache is flushed, but delegate is null";
         assert mRwLock.getReadHoldCount() > 0;
         int flushedHistogramSampleCount = 0;
@@ -352,44 +376,8 @@ final class CachingUmaRecorder implements UmaRecorder {
      * Forwards or stores a histogram sample. Stores samples iff there is no delegate {@link
      * UmaRecorder} set.
      *
-     * @param type histogram type.
-     * @param name histogram name.
-     * @param sample sample value.
-     * @param min histogram min value.
-     * @param max histogram max value.
-     * @param numBuckets number of histogram buckets.
-     */
-    private void cacheOrRecordHistogramSample(
-            @Histogram.Type int type, String name, int sample, int min, int max, int numBuckets) {
-        // Optimistic attempt without creating a Histogram.
-        if (tryAppendOrRecordSample(type, name, sample, min, max, numBuckets)) {
-            return;
-        }
-
-        mRwLock.writeLock().lock();
-        try {
-            if (mDelegate == null) {
-                cacheHistogramSampleAlreadyWriteLocked(type, name, sample, min, max, numBuckets);
-                return; // Skip the lock downgrade.
-            }
-            // Downgrade by acquiring read lock before releasing write lock
-            mRwLock.readLock().lock();
-        } finally {
-            mRwLock.writeLock().unlock();
-        }
-
-        // Downgraded to read lock.
-        // See base/android/java/src/org/chromium/base/metrics/forwarding_synchronization.md
-        try {
-            assert mDelegate != null;
-            recordHistogramSampleAlreadyLocked(type, name, sample, min, max, numBuckets);
-        } finally {
-            mRwLock.readLock().unlock();
-        }
-    }
-
-    /**
-     * Tries to cache or record a histogram sample without creating a new {@link Histogram}.
+     * <p>Unlike user actions, histogram samples never need the write lock: new histograms are
+     * added to {@link #mHistogramByName} with a read lock held.
      *
      * @param type histogram type.
      * @param name histogram name.
@@ -397,64 +385,70 @@ final class CachingUmaRecorder implements UmaRecorder {
      * @param min histogram min value.
      * @param max histogram max value.
      * @param numBuckets number of histogram buckets.
-     * @return {@code false} if the sample needs to be recorded with a write lock.
      */
-    private boolean tryAppendOrRecordSample(
+    private void cacheOrRecordHistogramSample(
             @Histogram.Type int type, String name, int sample, int min, int max, int numBuckets) {
         mRwLock.readLock().lock();
         try {
             if (mDelegate != null) {
-                recordHistogramSampleAlreadyLocked(type, name, sample, min, max, numBuckets);
-                return true;
-            }
-            Histogram histogram = mHistogramByName.get(name);
-            if (histogram == null) {
-                return false;
+                recordSample(mDelegate, type, name, sample, min, max, numBuckets);
+                return;
             }
-            if (!histogram.addSample(type, name, sample, min, max, numBuckets)) {
+            Histogram histogram =
+                    getOrCreateHistogramAlreadyLocked(type, name, min, max, numBuckets);
+            if (histogram == null
+                    || !histogram.addSample(type, name, sample, min, max, numBuckets)) {
                 mDroppedHistogramSampleCount.incrementAndGet();
             }
-            return true;
         } finally {
             mRwLock.readLock().unlock();
         }
     }
 
     /**
-     * Appends a histogram {@code sample} to a cached {@link Histogram}. Creates the {@code
-     * Histogram} if needed. Assumes that the <b>write lock</b> is held by the current thread.
+     * Returns the cached {@link Histogram} called {@code name}, creating it if needed. Assumes that
+     * a read lock is held by the current thread.
      *
      * @param type histogram type.
      * @param name histogram name.
-     * @param sample sample value.
      * @param min histogram min value.
      * @param max histogram max value.
      * @param numBuckets number of histogram buckets.
+     * @return the histogram, or {@code null} if {@link #MAX_HISTOGRAM_COUNT} has been reached.
      */
     @GuardedBy("mRwLock")
-    private void cacheHistogramSampleAlreadyWriteLocked(
-            @Histogram.Type int type, String name, int sample, int min, int max, int numBuckets) {
-        assert mRwLock.isWriteLockedByCurrentThread();
+    private @Nullable Histogram getOrCreateHistogramAlreadyLocked(
+            @Histogram.Type int type, String name, int min, int max, int numBuckets) {
+        assert mRwLock.getReadHoldCount() > 0;
         Histogram histogram = mHistogramByName.get(name);
-        if (histogram == null) {
-            if (mHistogramByName.size() >= MAX_HISTOGRAM_COUNT) {
+        if (histogram != null) return histogram;
+
+        // Reserve a slot before inserting, so that racing threads can't exceed the limit.
+        int count;
+        do {
+            count = mHistogramCount.get();
+            if (count >= MAX_HISTOGRAM_COUNT) {
                 // A cache filling up is most likely an indication of a bug.
                 assert false : "Too many histograms in cache";
-                mDroppedHistogramSampleCount.incrementAndGet();
-                return;
+                return null;
             }
-            histogram = new Histogram(type, name, min, max, numBuckets);
-            mHistogramByName.put(name, histogram);
-        }
-        if (!histogram.addSample(type, name, sample, min, max, numBuckets)) {
-            mDroppedHistogramSampleCount.incrementAndGet();
+        } while (!mHistogramCount.compareAndSet(count, count + 1));
+
+        histogram = new Histogram(type, name, min, max, numBuckets);
+        Histogram existing = mHistogramByName.putIfAbsent(name, histogram);
+        if (existing != null) {
+            // Another thread created the same histogram first, give back the reserved slot.
+            mHistogramCount.decrementAndGet();
+            return existing;
         }
+        return histogram;
     }
 
     /**
-     * Forwards a histogram sample to the delegate. Assumes that a read lock is held by the current
-     * thread. Shouldn't be called with a write lock held.
+     * Forwards a histogram sample to {@code recorder}. When {@code recorder} is the delegate, a
+     * read lock must be held by the current thread, and not the write lock.
      *
+     * @param recorder destination {@link UmaRecorder}.
      * @param type histogram type.
      * @param name histogram name.
      * @param sample sample value.
@@ -462,24 +456,26 @@ final class CachingUmaRecorder implements UmaRecorder {
      * @param max histogram max value.
      * @param numBuckets number of histogram buckets.
      */
-    @GuardedBy("mRwLock")
-    private void recordHistogramSampleAlreadyLocked(
-            @Histogram.Type int type, String name, int sample, int min, int max, int numBuckets) {
-        assert mRwLock.getReadHoldCount() > 0;
-        assert !mRwLock.isWriteLockedByCurrentThread();
-        assert mDelegate != null : "recordSampleAlreadyLocked called with no delegate to record to";
+    private static void recordSample(
+            UmaRecorder recorder,
+            @Histogram.Type int type,
+            String name,
+            int sample,
+            int min,
+            int max,
+            int numBuckets) {
         switch (type) {
             case Histogram.Type.BOOLEAN:
-                mDelegate.recordBooleanHistogram(name, sample != 0);
+                recorder.recordBooleanHistogram(name, sample != 0);
                 break;
             case Histogram.Type.EXPONENTIAL:
-                mDelegate.recordExponentialHistogram(name, sample, min, max, numBuckets);
+                recorder.recordExponentialHistogram(name, sample, min, max, numBuckets);
                 break;
             case Histogram.Type.LINEAR:
-                mDelegate.recordLinearHistogram(name, sample, min, max, numBuckets);
+                recorder.recordLinearHistogram(name, sample, min, max, numBuckets);
                 break;
             case Histogram.Type.SPARSE:
-                mDelegate.recordSparseHistogram(name, sample);
+                recorder.recordSparseHistogram(name, sample);
                 break;
             default:
                 throw new UnsupportedOperationException("Unknown histogram type " + type);
@@ -568,13 +564,7 @@ final class CachingUmaRecorder implements UmaRecorder {
 
             Histogram histogram = mHistogramByName.get(name);
             if (histogram == null) return 0;
-            int sampleCount = 0;
-            synchronized (histogram) {
-                for (int i = 0; i < histogram.mSamples.size(); i++) {
-                    if (histogram.mSamples.get(i) == sample) sampleCount++;
-                }
-            }
-            return sampleCount;
+            return histogram.getSampleCount(sample);
         } finally {
             mRwLock.readLock().unlock();
         }
@@ -589,9 +579,7 @@ final class CachingUmaRecorder implements UmaRecorder {
 
             Histogram histogram = mHistogramByName.get(name);
             if (histogram == null) return 0;
-            synchronized (histogram) {
-                return histogram.mSamples.size();
-            }
+            return histogram.getTotalCount();
         } finally {
             mRwLock.readLock().unlock();
         }
@@ -606,10 +594,7 @@ final class CachingUmaRecorder implements UmaRecorder {
 
             Histogram histogram = mHistogramByName.get(name);
             if (histogram == null) return Collections.emptyList();
-            Integer[] samplesCopy;
-            synchronized (histogram) {
-                samplesCopy = histogram.mSamples.toArray(new Integer[0]);
-            }
+            int[] samplesCopy = histogram.copySamples();
             Arrays.sort(samplesCopy);
             List<HistogramBucket> buckets = new ArrayList<>();
             for (int i = 0; i < samplesCopy.length; ) {
@@ -0,0 +1,165 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base.metrics;
+
+import static org.chromium.build.NullUtil.assumeNonNull;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Buffer of histogram samples waiting to be sent to native code. Samples are stored in parallel
+ * primitive arrays, so buffering a sample only allocates when the arrays have to grow.
+ *
+ * <p>Each thread that records batched histograms through a {@link NativeUmaRecorder} owns one
+ * batch, so the monitor is only contended when a flush runs on another thread. Flushing swaps the
+ * arrays out under the monitor and sends the samples to native after releasing it, so the owner
+ * never waits for the JNI calls. The batch only holds its thread weakly, so that batches of threads
+ * that died can be dropped.
+ */
+@NullMarked
+/* package */ final class HistogramSampleBatch {
+    /** Number of samples a batch can hold before its arrays grow. */
+    @VisibleForTesting static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Maximum number of samples buffered between two flushes. Further samples are dropped rather
+     * than flushed from the recording thread.
+     */
+    @VisibleForTesting static final int MAX_SAMPLE_COUNT = 4096;
+
+    private final WeakReference<Thread> mOwner;
+
+    @GuardedBy("this")
+    private @Nullable String[] mNames = new String[INITIAL_CAPACITY];
+
+    @GuardedBy("this")
+    private int[] mTypes = new int[INITIAL_CAPACITY];
+
+    @GuardedBy("this")
+    private int[] mSamples = new int[INITIAL_CAPACITY];
+
+    @GuardedBy("this")
+    private int[] mMins = new int[INITIAL_CAPACITY];
+
+    @GuardedBy("this")
+    private int[] mMaxs = new int[INITIAL_CAPACITY];
+
+    @GuardedBy("this")
+    private int[] mNumBuckets = new int[INITIAL_CAPACITY];
+
+    @GuardedBy("this")
+    private int mCount;
+
+    /** @param owner the only thread that adds samples to this batch. */
+    HistogramSampleBatch(Thread owner) {
+        mOwner = new WeakReference<>(owner);
+    }
+
+    /**
+     * Returns whether the thread owning this batch may still add samples. Once this returns {@code
+     * false} it never returns {@code true} again.
+     */
+    boolean isOwnerAlive() {
+        Thread owner = mOwner.get();
+        return owner != null && owner.isAlive();
+    }
+
+    /**
+     * Appends a sample to this batch, unless it is full. Never sends samples to native: batches are
+     * only flushed by {@link NativeUmaRecorder#flushBatchedSamples()}.
+     *
+     * @param type histogram type, one of {@link CachingUmaRecorder.Histogram.Type}.
+     * @param name histogram name.
+     * @param sample sample value.
+     * @param min histogram min value. Must be {@code 0} for boolean or sparse histograms.
+     * @param max histogram max value. Must be {@code 0} for boolean or sparse histograms.
+     * @param numBuckets number of histogram buckets. Must be {@code 0} for boolean or sparse
+     *     histograms.
+     * @return true if the sample was buffered.
+     */
+    synchronized boolean add(
+            @CachingUmaRecorder.Histogram.Type int type,
+            String name,
+            int sample,
+            int min,
+            int max,
+            int numBuckets) {
+        if (mCount >= MAX_SAMPLE_COUNT) return false;
+        if (mCount == mTypes.length) {
+            int capacity = Math.min(mCount * 2, MAX_SAMPLE_COUNT);
+            mNames = Arrays.copyOf(mNames, capacity);
+            mTypes = Arrays.copyOf(mTypes, capacity);
+            mSamples = Arrays.copyOf(mSamples, capacity);
+            mMins = Arrays.copyOf(mMins, capacity);
+            mMaxs = Arrays.copyOf(mMaxs, capacity);
+            mNumBuckets = Arrays.copyOf(mNumBuckets, capacity);
+        }
+        mNames[mCount] = name;
+        mTypes[mCount] = type;
+        mSamples[mCount] = sample;
+        mMins[mCount] = min;
+        mMaxs[mCount] = max;
+        mNumBuckets[mCount] = numBuckets;
+        mCount++;
+        return true;
+    }
+
+    /** Returns the number of buffered samples. */
+    synchronized int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Sends all buffered samples to native and clears this batch.
+     *
+     * <p>There is no native entry point that takes a whole batch yet, so each sample is still
+     * recorded with its own JNI call. Buffering keeps those calls, and the native hint lookups, off
+     * the thread recording the samples.
+     *
+     * @param recorder recorder that sends the samples to native.
+     * @return number of flushed samples.
+     */
+    int flushTo(NativeUmaRecorder recorder) {
+        final int count;
+        final @Nullable String[] names;
+        final int[] types;
+        final int[] samples;
+        final int[] mins;
+        final int[] maxs;
+        final int[] numBuckets;
+        synchronized (this) {
+            count = mCount;
+            if (count == 0) return 0;
+            names = mNames;
+            types = mTypes;
+            samples = mSamples;
+            mins = mMins;
+            maxs = mMaxs;
+            numBuckets = mNumBuckets;
+            // Start over with arrays of the initial size, which also drops the references to
+            // histogram names so they aren't retained by an idle thread.
+            mNames = new String[INITIAL_CAPACITY];
+            mTypes = new int[INITIAL_CAPACITY];
+            mSamples = new int[INITIAL_CAPACITY];
+            mMins = new int[INITIAL_CAPACITY];
+            mMaxs = new int[INITIAL_CAPACITY];
+            mNumBuckets = new int[INITIAL_CAPACITY];
+            mCount = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            recorder.recordSampleNow(
+                    types[i], assumeNonNull(names[i]), samples[i], mins[i], maxs[i], numBuckets[i]);
+        }
+        return count;
+    }
+}
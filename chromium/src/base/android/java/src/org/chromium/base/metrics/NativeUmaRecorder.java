@@ -4,12 +4,16 @@
 
 package org.chromium.base.metrics;
 
+import androidx.annotation.VisibleForTesting;
+
 import org.jni_zero.JNINamespace;
 import org.jni_zero.JniType;
 import org.jni_zero.NativeMethods;
 
 import org.chromium.base.Callback;
 import org.chromium.base.TimeUtils;
+import org.chromium.base.task.PostTask;
+import org.chromium.base.task.TaskTraits;
 import org.chromium.build.annotations.NullMarked;
 import org.chromium.build.annotations.Nullable;
 
@@ -18,16 +22,26 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.concurrent.GuardedBy;
 
 /**
  * An implementation of {@link UmaRecorder} which forwards all calls through JNI.
  *
  * Note: the JNI calls are relatively costly - avoid calling these methods in performance-critical
- * code.
+ * code, or opt the histogram into batching with {@link UmaRecorderHolder#addBatchedHistogram}.
+ * Samples of batched histograms are buffered per thread in a {@link HistogramSampleBatch} and sent
+ * to native by a best effort task posted {@link #FLUSH_DELAY_MS} after the first buffered sample,
+ * never from the recording call itself.
  */
 @NullMarked
 @JNINamespace("base::android")
 /* package */ final class NativeUmaRecorder implements UmaRecorder {
+    /** Delay of the task sending the samples of batched histograms to native. */
+    @VisibleForTesting static final long FLUSH_DELAY_MS = 1000;
+
     /**
      * Internally, histograms objects are cached on the Java side by their pointer
      * values (converted to long). This is safe to do because C++ Histogram objects
@@ -39,39 +53,185 @@ import java.util.Map;
 
     private @Nullable Map<Callback<String>, Long> mUserActionTestingCallbackNativePtrs;
 
+    /**
+     * Names of the histograms whose samples are batched. Owned by {@link UmaRecorderHolder}, which
+     * may add names at any time.
+     */
+    private final Set<String> mBatchedHistograms;
+
+    /** Per-thread sample buffers for batched histograms. */
+    private final ThreadLocal<HistogramSampleBatch> mThreadBatch = new ThreadLocal<>();
+
+    /**
+     * Batches of the threads that recorded batched histograms, so they can be flushed together.
+     * Batches whose thread died are dropped after their last flush.
+     */
+    @GuardedBy("mAllBatches")
+    private final List<HistogramSampleBatch> mAllBatches = new ArrayList<>();
+
+    /** Whether a task that flushes all batches has been posted and hasn't run yet. */
+    private final AtomicBoolean mFlushTaskPosted = new AtomicBoolean();
+
+    /** Creates a recorder that makes one JNI call per sample. */
+    NativeUmaRecorder() {
+        this(Collections.emptySet());
+    }
+
+    /**
+     * @param batchedHistograms names of the histograms whose samples should be buffered per thread
+     *     and sent to native in batches. Other histograms are recorded right away.
+     */
+    NativeUmaRecorder(Set<String> batchedHistograms) {
+        mBatchedHistograms = batchedHistograms;
+    }
+
     @Override
     public void recordBooleanHistogram(String name, boolean sample) {
-        long oldHint = getNativeHint(name);
-        long newHint = NativeUmaRecorderJni.get().recordBooleanHistogram(name, oldHint, sample);
-        maybeUpdateNativeHint(name, oldHint, newHint);
+        recordSample(CachingUmaRecorder.Histogram.Type.BOOLEAN, name, sample ? 1 : 0, 0, 0, 0);
     }
 
     @Override
     public void recordExponentialHistogram(
             String name, int sample, int min, int max, int numBuckets) {
-        long oldHint = getNativeHint(name);
-        long newHint =
-                NativeUmaRecorderJni.get()
-                        .recordExponentialHistogram(name, oldHint, sample, min, max, numBuckets);
-        maybeUpdateNativeHint(name, oldHint, newHint);
+        recordSample(
+                CachingUmaRecorder.Histogram.Type.EXPONENTIAL, name, sample, min, max, numBuckets);
     }
 
     @Override
     public void recordLinearHistogram(String name, int sample, int min, int max, int numBuckets) {
-        long oldHint = getNativeHint(name);
-        long newHint =
-                NativeUmaRecorderJni.get()
-                        .recordLinearHistogram(name, oldHint, sample, min, max, numBuckets);
-        maybeUpdateNativeHint(name, oldHint, newHint);
+        recordSample(CachingUmaRecorder.Histogram.Type.LINEAR, name, sample, min, max, numBuckets);
     }
 
     @Override
     public void recordSparseHistogram(String name, int sample) {
+        recordSample(CachingUmaRecorder.Histogram.Type.SPARSE, name, sample, 0, 0, 0);
+    }
+
+    /**
+     * Buffers the sample in the current thread's batch if {@code name} is a batched histogram,
+     * records it right away otherwise.
+     */
+    private void recordSample(
+            @CachingUmaRecorder.Histogram.Type int type,
+            String name,
+            int sample,
+            int min,
+            int max,
+            int numBuckets) {
+        if (mBatchedHistograms.isEmpty() || !mBatchedHistograms.contains(name)) {
+            recordSampleNow(type, name, sample, min, max, numBuckets);
+            return;
+        }
+        HistogramSampleBatch batch = mThreadBatch.get();
+        if (batch == null) {
+            batch = new HistogramSampleBatch(Thread.currentThread());
+            mThreadBatch.set(batch);
+            synchronized (mAllBatches) {
+                mAllBatches.add(batch);
+            }
+        }
+        if (batch.add(type, name, sample, min, max, numBuckets)) maybePostFlushTask();
+    }
+
+    /**
+     * Sends a histogram sample to native with one JNI call.
+     *
+     * @param type histogram type, one of {@link CachingUmaRecorder.Histogram.Type}.
+     * @param name histogram name.
+     * @param sample sample value.
+     * @param min histogram min value. Ignored for boolean or sparse histograms.
+     * @param max histogram max value. Ignored for boolean or sparse histograms.
+     * @param numBuckets number of histogram buckets. Ignored for boolean or sparse histograms.
+     */
+    /* package */ void recordSampleNow(
+            @CachingUmaRecorder.Histogram.Type int type,
+            String name,
+            int sample,
+            int min,
+            int max,
+            int numBuckets) {
         long oldHint = getNativeHint(name);
-        long newHint = NativeUmaRecorderJni.get().recordSparseHistogram(name, oldHint, sample);
+        long newHint;
+        switch (type) {
+            case CachingUmaRecorder.Histogram.Type.BOOLEAN:
+                newHint =
+                        NativeUmaRecorderJni.get()
+                                .recordBooleanHistogram(name, oldHint, sample != 0);
+                break;
+            case CachingUmaRecorder.Histogram.Type.EXPONENTIAL:
+                newHint =
+                        NativeUmaRecorderJni.get()
+                                .recordExponentialHistogram(
+                                        name, oldHint, sample, min, max, numBuckets);
+                break;
+            case CachingUmaRecorder.Histogram.Type.LINEAR:
+                newHint =
+                        NativeUmaRecorderJni.get()
+                                .recordLinearHistogram(name, oldHint, sample, min, max, numBuckets);
+                break;
+            case CachingUmaRecorder.Histogram.Type.SPARSE:
+                newHint = NativeUmaRecorderJni.get().recordSparseHistogram(name, oldHint, sample);
+                break;
+            default:
+                throw new UnsupportedOperationException("Unknown histogram type " + type);
+        }
         maybeUpdateNativeHint(name, oldHint, newHint);
     }
 
+    /**
+     * Sends the samples buffered by all threads to native, and drops the batches of threads that
+     * died.
+     *
+     * @return number of flushed samples.
+     */
+    /* package */ int flushBatchedSamples() {
+        List<HistogramSampleBatch> batches;
+        synchronized (mAllBatches) {
+            if (mAllBatches.isEmpty()) return 0;
+            batches = new ArrayList<>(mAllBatches);
+        }
+        int flushed = 0;
+        List<HistogramSampleBatch> deadBatches = null;
+        for (int i = 0; i < batches.size(); i++) {
+            HistogramSampleBatch batch = batches.get(i);
+            // Check before flushing: a thread that is dead now can't add samples after the flush.
+            boolean ownerAlive = batch.isOwnerAlive();
+            flushed += batch.flushTo(this);
+            if (!ownerAlive) {
+                if (deadBatches == null) deadBatches = new ArrayList<>();
+                deadBatches.add(batch);
+            }
+        }
+        if (deadBatches != null) {
+            synchronized (mAllBatches) {
+                mAllBatches.removeAll(deadBatches);
+            }
+        }
+        return flushed;
+    }
+
+    /** Returns the number of batches that haven't been dropped. */
+    /* package */ int getBatchCountForTesting() {
+        synchronized (mAllBatches) {
+            return mAllBatches.size();
+        }
+    }
+
+    /**
+     * Makes sure samples don't stay buffered indefinitely on threads that stop recording: posts a
+     * task flushing all batches unless one is already pending.
+     */
+    private void maybePostFlushTask() {
+        if (!mFlushTaskPosted.compareAndSet(false, true)) return;
+        PostTask.postDelayedTask(
+                TaskTraits.BEST_EFFORT,
+                () -> {
+                    mFlushTaskPosted.set(false);
+                    flushBatchedSamples();
+                },
+                FLUSH_DELAY_MS);
+    }
+
     @Override
     public void recordUserAction(String name, long elapsedRealtimeMillis) {
         // Java and native code use different clocks. We need a relative elapsed time.
@@ -81,16 +241,19 @@ import java.util.Map;
 
     @Override
     public int getHistogramValueCountForTesting(String name, int sample) {
+        flushBatchedSamples();
         return NativeUmaRecorderJni.get().getHistogramValueCountForTesting(name, sample, 0);
     }
 
     @Override
     public int getHistogramTotalCountForTesting(String name) {
+        flushBatchedSamples();
         return NativeUmaRecorderJni.get().getHistogramTotalCountForTesting(name, 0);
     }
 
     @Override
     public List<HistogramBucket> getHistogramSamplesForTesting(String name) {
+        flushBatchedSamples();
         long[] samplesArray = NativeUmaRecorderJni.get().getHistogramSamplesForTesting(name);
         List<HistogramBucket> buckets = new ArrayList<>(samplesArray.length);
         for (int i = 0; i < samplesArray.length; i += 3) {
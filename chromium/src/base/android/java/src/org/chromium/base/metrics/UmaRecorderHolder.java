@@ -6,6 +6,9 @@ package org.chromium.base.metrics;
 
 import org.chromium.build.annotations.NullMarked;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /** Holds the {@link CachingUmaRecorder} used by {@link RecordHistogram}. */
 @NullMarked
 public class UmaRecorderHolder {
@@ -20,6 +23,9 @@ public class UmaRecorderHolder {
     /** Whether onLibraryLoaded() was called. */
     private static boolean sNativeInitialized;
 
+    /** Names of the histograms whose samples the native UMA Recorder batches. */
+    private static final Set<String> sBatchedHistograms = ConcurrentHashMap.newKeySet();
+
     /** Returns the held {@link UmaRecorder}. */
     public static UmaRecorder get() {
         return sRecorder;
@@ -49,13 +55,25 @@ public class UmaRecorderHolder {
         sSetUpNativeUmaRecorder = setUpNativeUmaRecorder;
     }
 
+    /**
+     * Makes the native UMA Recorder buffer samples of {@code histogramName} per thread and send
+     * them to native in batches. Meant for histograms recorded on hot paths, like once per frame.
+     * Batched samples reach native about a second later, and a thread recording thousands of
+     * samples within that time drops the excess ones. Can be called at any time.
+     *
+     * @param histogramName name of the histogram to batch.
+     */
+    public static void addBatchedHistogram(String histogramName) {
+        sBatchedHistograms.add(histogramName);
+    }
+
     /** Starts forwarding metrics to the native code. Returns after the cache has been flushed. */
     public static void onLibraryLoaded() {
         if (!sSetUpNativeUmaRecorder) return;
 
         assert !sNativeInitialized;
         sNativeInitialized = true;
-        sRecorder.setDelegate(new NativeUmaRecorder());
+        sRecorder.setDelegate(new NativeUmaRecorder(sBatchedHistograms));
     }
 
     /** Reset globals for tests. */
@@ -66,5 +84,6 @@ public class UmaRecorderHolder {
         if (!sNativeInitialized) {
             sRecorder = new CachingUmaRecorder();
         }
+        sBatchedHistograms.clear();
     }
 }
@@ -24,9 +24,14 @@ import org.chromium.base.ChildBindingState;
 import org.chromium.base.ContextUtils;
 import org.chromium.base.JavaUtils;
 import org.chromium.base.Log;
+import org.chromium.base.MemoryPressureLevel;
+import org.chromium.base.MemoryPressureListener;
 import org.chromium.base.PackageUtils;
 import org.chromium.base.ResettersForTesting;
 import org.chromium.base.SysUtils;
+import org.chromium.base.ThreadUtils;
+import org.chromium.base.TimeUtils;
+import org.chromium.base.memory.MemoryPressureCallback;
 import org.chromium.build.annotations.NullMarked;
 import org.chromium.build.annotations.Nullable;
 
@@ -91,17 +96,88 @@ public abstract class ChildConnectionAllocator {
     // Delay between the call to freeConnection and the connection actually beeing freed.
     private static final long FREE_CONNECTION_DELAY_MILLIS = 1;
 
+    /**
+     * A connection bound ahead of time by the spare pool. Once handed out by allocate(), forwards
+     * the callbacks of the connection to the caller's callback.
+     */
+    private final class SpareConnection implements ChildProcessConnection.ServiceCallback {
+        private @Nullable ChildProcessConnection mConnection;
+
+        // True once the service has started.
+        private boolean mReady;
+
+        // Set once the connection has been handed out.
+        private ChildProcessConnection.@Nullable ServiceCallback mClaimedCallback;
+
+        @Override
+        public void onChildStarted() {
+            assert isRunningOnLauncherThread();
+            mReady = true;
+            if (mClaimedCallback != null) {
+                mClaimedCallback.onChildStarted();
+                // The launch that claimed this connection is done, so bind a replacement.
+                postRefillSparePool();
+            }
+        }
+
+        @Override
+        public void onChildStartFailed(ChildProcessConnection connection) {
+            assert isRunningOnLauncherThread();
+            if (mClaimedCallback != null) {
+                mClaimedCallback.onChildStartFailed(connection);
+                postRefillSparePool();
+            } else {
+                Log.w(TAG, "Failed to warm up a spare connection, name: %s", mServiceClassName);
+                mSpareConnections.remove(this);
+            }
+        }
+
+        @Override
+        public void onChildProcessDied(ChildProcessConnection connection) {
+            assert isRunningOnLauncherThread();
+            if (mClaimedCallback != null) {
+                mClaimedCallback.onChildProcessDied(connection);
+            } else {
+                // Not refilled: spare processes mostly die when the system reclaims memory.
+                mSpareConnections.remove(this);
+            }
+        }
+    }
+
     // Max number of connections allocated for variable allocator.
     // Android allocates 100 UIDs for a zygote, but unbinding and killing a service is not
     // synchronous. So leave 2 to leave some time for ActivityManager to respond.
     private static final int MAX_VARIABLE_ALLOCATED = 98;
 
+    // How long the spare pool stays empty after critical memory pressure. Matches the throttling
+    // interval of MemoryPressureMonitor, which repeats the signal at most this often while the
+    // pressure lasts.
+    @VisibleForTesting static final long SPARE_POOL_PRESSURE_BACKOFF_MS = 60 * 1000;
+
+    private static final long NO_CRITICAL_PRESSURE = -1;
+
     // Runnable which will be called when allocator wants to allocate a new connection, but does
     // not have any more free slots. May be null.
     private final @Nullable Runnable mFreeSlotCallback;
 
     private final Queue<Runnable> mPendingAllocations = new ArrayDeque<>();
 
+    // Connections bound ahead of time and not yet handed out, oldest first.
+    private final ArrayDeque<SpareConnection> mSpareConnections = new ArrayDeque<>();
+
+    // Number of spare connections to keep bound. 0 when the spare pool is disabled.
+    private int mSparePoolSize;
+
+    private @Nullable Context mSpareContext;
+    private @Nullable Bundle mSpareServiceBundle;
+    private @Nullable MemoryPressureCallback mMemoryPressureCallback;
+
+    // Uptime of the last critical pressure signal, or NO_CRITICAL_PRESSURE. The pool isn't
+    // refilled until the pressure is reported gone or SPARE_POOL_PRESSURE_BACKOFF_MS have passed.
+    private long mCriticalPressureTimeMs = NO_CRITICAL_PRESSURE;
+
+    private boolean mRefillSparePoolPosted;
+
     // The handler of the thread on which all interations should happen.
     private final Handler mLauncherHandler;
 
@@ -325,7 +401,17 @@ public abstract class ChildConnectionAllocator {
             final ChildProcessConnection.ServiceCallback serviceCallback,
             @ChildBindingState int initialBindingState) {
         assert isRunningOnLauncherThread();
+        ChildProcessConnection connection =
+                takeSpareConnection(serviceCallback, initialBindingState);
+        if (connection != null) return connection;
+        return allocateAndStart(context, serviceBundle, serviceCallback, initialBindingState);
+    }
 
+    private @Nullable ChildProcessConnection allocateAndStart(
+            Context context,
+            Bundle serviceBundle,
+            final ChildProcessConnection.ServiceCallback serviceCallback,
+            @ChildBindingState int initialBindingState) {
         // Wrap the service callbacks so that:
         // - we can intercept onChildProcessDied and clean-up connections
         // - the callbacks are actually posted so that this method will return before the callbacks
@@ -398,6 +484,144 @@ public abstract class ChildConnectionAllocator {
         return doAllocate(context, serviceBundle, serviceCallbackWrapper, initialBindingState);
     }
 
+    /**
+     * Keeps up to |poolSize| connections bound ahead of time, so that allocate() can hand out a
+     * connection whose service is already started. Spare connections are bound at visible
+     * priority, replaced after each launch that uses one, and dropped under memory pressure. They
+     * take slots like any other connection and are only bound while no allocation is queued.
+     *
+     * @param context the context used to bind spare connections.
+     * @param serviceBundle the bundle spare connections are bound with. allocate() hands out spare
+     *     connections regardless of the bundle it is given, so all connections from this allocator
+     *     must use an equivalent bundle.
+     * @param poolSize the number of spare connections. 0 disables the pool and stops the spare
+     *     connections.
+     */
+    public void setSparePoolSize(Context context, Bundle serviceBundle, int poolSize) {
+        assert isRunningOnLauncherThread();
+        assert poolSize >= 0;
+        mSparePoolSize = poolSize;
+        if (poolSize == 0) {
+            mSpareContext = null;
+            mSpareServiceBundle = null;
+            dropSpareConnections();
+            if (mMemoryPressureCallback != null) {
+                final MemoryPressureCallback callback = mMemoryPressureCallback;
+                ThreadUtils.postOnUiThread(() -> MemoryPressureListener.removeCallback(callback));
+                mMemoryPressureCallback = null;
+            }
+            return;
+        }
+        mSpareContext = context;
+        mSpareServiceBundle = serviceBundle;
+        if (mMemoryPressureCallback == null) {
+            final MemoryPressureCallback callback =
+                    pressure -> mLauncherHandler.post(() -> onMemoryPressure(pressure));
+            ThreadUtils.postOnUiThread(() -> MemoryPressureListener.addCallback(callback));
+            mMemoryPressureCallback = callback;
+        }
+        while (mSpareConnections.size() > poolSize) {
+            stopSpareConnection(mSpareConnections.removeLast());
+        }
+        postRefillSparePool();
+    }
+
+    /** @return the number of spare connections that have not been handed out. */
+    public int getSpareConnectionCount() {
+        assert isRunningOnLauncherThread();
+        return mSpareConnections.size();
+    }
+
+    private @Nullable ChildProcessConnection takeSpareConnection(
+            ChildProcessConnection.ServiceCallback serviceCallback,
+            @ChildBindingState int requestedBindingState) {
+        SpareConnection spare = mSpareConnections.poll();
+        if (spare == null) return null;
+        ChildProcessConnection connection = assumeNonNull(spare.mConnection);
+        spare.mClaimedCallback = serviceCallback;
+
+        // Spare connections are bound visible. Adjust if needed.
+        if (requestedBindingState != ChildBindingState.VISIBLE) {
+            if (requestedBindingState == ChildBindingState.STRONG) {
+                connection.addStrongBinding();
+            } else if (requestedBindingState == ChildBindingState.NOT_PERCEPTIBLE) {
+                connection.addNotPerceptibleBinding();
+            }
+            connection.removeVisibleBinding();
+        }
+
+        if (spare.mReady) {
+            // Post so that the caller gets the connection before the callback runs.
+            mLauncherHandler.post(serviceCallback::onChildStarted);
+            postRefillSparePool();
+        }
+        Log.d(TAG, "Allocator handed out a spare connection, name: %s", mServiceClassName);
+        return connection;
+    }
+
+    private void postRefillSparePool() {
+        if (mRefillSparePoolPosted || mSparePoolSize == 0) return;
+        mRefillSparePoolPosted = true;
+        mLauncherHandler.post(this::refillSparePool);
+    }
+
+    /** Binds one spare connection per task, so that launches can run in between. */
+    private void refillSparePool() {
+        assert isRunningOnLauncherThread();
+        mRefillSparePoolPosted = false;
+        if (mSpareConnections.size() >= mSparePoolSize
+                || isUnderCriticalPressure()
+                || !mPendingAllocations.isEmpty()) {
+            return;
+        }
+        SpareConnection spare = new SpareConnection();
+        spare.mConnection =
+                allocateAndStart(
+                        assumeNonNull(mSpareContext),
+                        assumeNonNull(mSpareServiceBundle),
+                        spare,
+                        ChildBindingState.VISIBLE);
+        // Out of slots. The pool is refilled after the next launch.
+        if (spare.mConnection == null) return;
+        mSpareConnections.add(spare);
+        postRefillSparePool();
+    }
+
+    private void onMemoryPressure(@MemoryPressureLevel int pressure) {
+        assert isRunningOnLauncherThread();
+        if (pressure == MemoryPressureLevel.CRITICAL) {
+            mCriticalPressureTimeMs = TimeUtils.uptimeMillis();
+            dropSpareConnections();
+            // No NONE signal is sent if the pressure just stops being reported, so check again
+            // once the backoff is over.
+            mLauncherHandler.postDelayed(this::postRefillSparePool, SPARE_POOL_PRESSURE_BACKOFF_MS);
+        } else if (pressure == MemoryPressureLevel.NONE) {
+            mCriticalPressureTimeMs = NO_CRITICAL_PRESSURE;
+            postRefillSparePool();
+        }
+        // Moderate pressure is frequent and doesn't warrant giving up the warm connections.
+    }
+
+    private boolean isUnderCriticalPressure() {
+        if (mCriticalPressureTimeMs == NO_CRITICAL_PRESSURE) return false;
+        if (TimeUtils.uptimeMillis() - mCriticalPressureTimeMs < SPARE_POOL_PRESSURE_BACKOFF_MS) {
+            return true;
+        }
+        mCriticalPressureTimeMs = NO_CRITICAL_PRESSURE;
+        return false;
+    }
+
+    private void dropSpareConnections() {
+        while (!mSpareConnections.isEmpty()) {
+            stopSpareConnection(mSpareConnections.removeFirst());
+        }
+    }
+
+    private void stopSpareConnection(SpareConnection spare) {
+        // Stopping notifies onChildProcessDied(), which frees the slot.
+        assumeNonNull(spare.mConnection).stop();
+    }
+
     /** Free connection allocated by this allocator. */
     private void free(ChildProcessConnection connection) {
         assert isRunningOnLauncherThread();
@@ -17,6 +17,8 @@ import org.jni_zero.JniType;
 
 import org.chromium.base.ContextUtils;
 import org.chromium.base.ResettersForTesting;
+import org.chromium.base.task.PostTask;
+import org.chromium.base.task.TaskTraits;
 import org.chromium.build.BuildConfig;
 import org.chromium.build.annotations.Contract;
 import org.chromium.build.annotations.NullMarked;
@@ -27,6 +29,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 /** Layer over android {@link SharedPreferences}. */
 @JNINamespace("base::android")
@@ -110,6 +113,7 @@ public class SharedPreferencesManager {
 
         @Override
         public boolean commit() {
+            recordSyncCommit();
             return mWrappedEditor.commit();
         }
 
@@ -119,6 +123,129 @@ public class SharedPreferencesManager {
         }
     }
 
+    /**
+     * A set of writes to SharedPreferences, across any number of keys, that is published with a
+     * single Editor.
+     *
+     * <p>{@link #apply()} doesn't open an Editor itself: its writes are merged with those of other
+     * transactions applied since, and all of them are applied together at the end of the current UI
+     * thread task. Reads and writes through the {@link SharedPreferencesManager} see coalesced
+     * writes right away, while direct readers of the app's SharedPreferences only see them once
+     * they are applied. {@link #commit()} acts as a sync barrier.
+     *
+     * <p>A transaction must not be shared between threads.
+     */
+    public final class Transaction {
+        private final Map<String, Object> mWrites = new HashMap<>();
+
+        private Transaction() {}
+
+        public Transaction writeInt(String key, int value) {
+            return put(key, value);
+        }
+
+        public Transaction writeLong(String key, long value) {
+            return put(key, value);
+        }
+
+        public Transaction writeFloat(String key, float value) {
+            return put(key, value);
+        }
+
+        public Transaction writeDouble(String key, double value) {
+            // Matches the conversion used in writeDouble().
+            return put(key, Double.doubleToRawLongBits(value));
+        }
+
+        public Transaction writeBoolean(String key, boolean value) {
+            return put(key, value);
+        }
+
+        public Transaction writeString(String key, @Nullable String value) {
+            return put(key, value == null ? REMOVED : value);
+        }
+
+        public Transaction writeStringSet(String key, Set<String> values) {
+            // Copy so that later changes to |values| don't leak into the transaction.
+            return put(key, new HashSet<>(values));
+        }
+
+        public Transaction removeKey(String key) {
+            return put(key, REMOVED);
+        }
+
+        private Transaction put(String key, Object value) {
+            checkIsKeyInUse(key);
+            mWrites.put(key, value);
+            return this;
+        }
+
+        /**
+         * Queues the writes of this transaction, to be applied together with those of other
+         * transactions at the end of the current UI thread task.
+         */
+        public void apply() {
+            if (mWrites.isEmpty()) return;
+            boolean postFlushTask;
+            synchronized (mPendingWritesLock) {
+                mPendingWrites.putAll(mWrites);
+                mHasPendingWrites = true;
+                postFlushTask = !mFlushTaskPosted;
+                mFlushTaskPosted = true;
+            }
+            mWrites.clear();
+            if (postFlushTask) {
+                PostTask.postTask(TaskTraits.UI_DEFAULT, SharedPreferencesManager.this::flush);
+                ResettersForTesting.register(SharedPreferencesManager.this::dropPendingWrites);
+            }
+        }
+
+        /**
+         * Applies the writes of this transaction along with all coalesced writes, then commits them
+         * to disk with a single file write.
+         *
+         * @return Whether the operation succeeded.
+         */
+        public boolean commit() {
+            synchronized (mPendingWritesLock) {
+                mPendingWrites.putAll(mWrites);
+                mHasPendingWrites = true;
+            }
+            mWrites.clear();
+            return syncBarrier();
+        }
+    }
+
+    /** Marks a key removed by a {@link Transaction}. */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * Maximum number of callers counted in {@link #sSyncCommitCounts}. Commits of further callers
+     * are counted under {@link #OTHER_SYNC_COMMIT_CALLERS}.
+     */
+    @VisibleForTesting static final int MAX_SYNC_COMMIT_CALLERS = 64;
+
+    @VisibleForTesting static final String OTHER_SYNC_COMMIT_CALLERS = "Other";
+
+    /**
+     * Number of synchronous commits, keyed by the caller's class and method name. Only counted in
+     * builds with asserts enabled, since finding the caller walks the stack.
+     */
+    @GuardedBy("sSyncCommitCounts")
+    private static final Map<String, Integer> sSyncCommitCounts = new HashMap<>();
+
+    private final Object mPendingWritesLock = new Object();
+
+    /** Writes of applied {@link Transaction}s waiting to be published with one Editor. */
+    @GuardedBy("mPendingWritesLock")
+    private final Map<String, Object> mPendingWrites = new HashMap<>();
+
+    @GuardedBy("mPendingWritesLock")
+    private boolean mFlushTaskPosted;
+
+    // Allows reads to skip taking the lock when nothing is pending.
+    private volatile boolean mHasPendingWrites;
+
     private @Nullable PreferenceKeyChecker mKeyChecker;
 
     protected SharedPreferencesManager(@Nullable PreferenceKeyRegistry registry) {
@@ -157,7 +284,131 @@ public class SharedPreferencesManager {
      * @return an Editor to write multiple values to SharedPreferences.
      */
     public SharedPreferences.Editor getEditor() {
-        return new CheckingEditor(ContextUtils.getAppSharedPreferences().edit());
+        return new CheckingEditor(getSharedPreferences().edit());
+    }
+
+    /**
+     * @return a {@link Transaction} to write multiple values to SharedPreferences, coalescing them
+     *     with other transactions applied within the same UI thread task.
+     */
+    public Transaction beginTransaction() {
+        return new Transaction();
+    }
+
+    /**
+     * Applies all writes coalesced by {@link Transaction#apply()}, then blocks until they and all
+     * previously applied writes are on disk. Costs at most one file write, however many writes
+     * are pending.
+     *
+     * @return Whether the operation succeeded.
+     */
+    public boolean syncBarrier() {
+        flush();
+        recordSyncCommit();
+        // An empty commit writes the current in-memory state once the writes queued before it are
+        // done, and skips the file write entirely when the disk is already up to date.
+        return ContextUtils.getAppSharedPreferences().edit().commit();
+    }
+
+    /**
+     * Returns the app's SharedPreferences, after applying coalesced writes so that the caller sees
+     * them and so that they are ordered before the caller's own writes.
+     */
+    private SharedPreferences getSharedPreferences() {
+        if (mHasPendingWrites) flush();
+        return ContextUtils.getAppSharedPreferences();
+    }
+
+    /** Applies all writes coalesced by {@link Transaction#apply()} with a single Editor. */
+    private void flush() {
+        synchronized (mPendingWritesLock) {
+            mFlushTaskPosted = false;
+            if (!mHasPendingWrites) return;
+            SharedPreferences.Editor ed = ContextUtils.getAppSharedPreferences().edit();
+            for (Map.Entry<String, Object> write : mPendingWrites.entrySet()) {
+                putValue(ed, write.getKey(), write.getValue());
+            }
+            mPendingWrites.clear();
+            mHasPendingWrites = false;
+            // Applied under the lock so that later writes can't be overwritten by these ones.
+            ed.apply();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void putValue(SharedPreferences.Editor ed, String key, Object value) {
+        if (value == REMOVED) {
+            ed.remove(key);
+        } else if (value instanceof Integer intValue) {
+            ed.putInt(key, intValue);
+        } else if (value instanceof Long longValue) {
+            ed.putLong(key, longValue);
+        } else if (value instanceof Float floatValue) {
+            ed.putFloat(key, floatValue);
+        } else if (value instanceof Boolean booleanValue) {
+            ed.putBoolean(key, booleanValue);
+        } else if (value instanceof String stringValue) {
+            ed.putString(key, stringValue);
+        } else {
+            ed.putStringSet(key, (Set<String>) value);
+        }
+    }
+
+    private void dropPendingWrites() {
+        synchronized (mPendingWritesLock) {
+            mPendingWrites.clear();
+            mHasPendingWrites = false;
+            mFlushTaskPosted = false;
+        }
+    }
+
+    /** Counts a synchronous commit against the first caller outside of this class. */
+    private static void recordSyncCommit() {
+        if (!BuildConfig.ENABLE_ASSERTS) return;
+        String caller = "Unknown";
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            if (!frame.getClassName().startsWith(SharedPreferencesManager.class.getName())) {
+                caller = frame.getClassName() + "#" + frame.getMethodName();
+                break;
+            }
+        }
+        countSyncCommit(caller);
+    }
+
+    @VisibleForTesting
+    static void countSyncCommit(String caller) {
+        synchronized (sSyncCommitCounts) {
+            if (sSyncCommitCounts.isEmpty()) {
+                ResettersForTesting.register(SharedPreferencesManager::resetSyncCommitCounts);
+            }
+            Integer count = sSyncCommitCounts.get(caller);
+            if (count == null && sSyncCommitCounts.size() >= MAX_SYNC_COMMIT_CALLERS - 1) {
+                // Keep one slot for the callers that don't fit.
+                caller = OTHER_SYNC_COMMIT_CALLERS;
+                count = sSyncCommitCounts.get(caller);
+            }
+            sSyncCommitCounts.put(caller, count == null ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * Returns the number of synchronous commits to disk made through any manager since startup,
+     * keyed by the calling class and method. Each is a full rewrite of the preferences file, so
+     * callers with high counts are candidates for {@link Transaction#apply()}.
+     *
+     * <p>Always empty in builds without asserts. At most {@link #MAX_SYNC_COMMIT_CALLERS} callers
+     * are listed, the commits of the others are counted together.
+     */
+    public static Map<String, Integer> getSyncCommitCountsByCaller() {
+        synchronized (sSyncCommitCounts) {
+            return new TreeMap<>(sSyncCommitCounts);
+        }
+    }
+
+    private static void resetSyncCommitCounts() {
+        synchronized (sSyncCommitCounts) {
+            sSyncCommitCounts.clear();
+        }
     }
 
     public void disableKeyCheckerForTesting() {
@@ -199,7 +450,7 @@ public class SharedPreferencesManager {
     @Contract("_, !null -> !null")
     public @Nullable Set<String> readStringSet(String key, @Nullable Set<String> defaultValue) {
         checkIsKeyInUse(key);
-        Set<String> values = ContextUtils.getAppSharedPreferences().getStringSet(key, defaultValue);
+        Set<String> values = getSharedPreferences().getStringSet(key, defaultValue);
         if (values != null) {
             return Collections.unmodifiableSet(values);
         }
@@ -211,9 +462,7 @@ public class SharedPreferencesManager {
         checkIsKeyInUse(key);
         // Construct a new set so it can be modified safely. See crbug.com/568369.
         Set<String> values =
-                new HashSet<>(
-                        ContextUtils.getAppSharedPreferences()
-                                .getStringSet(key, Collections.emptySet()));
+                new HashSet<>(getSharedPreferences().getStringSet(key, Collections.emptySet()));
         values.add(value);
         writeStringSetUnchecked(key, values);
     }
@@ -223,9 +472,7 @@ public class SharedPreferencesManager {
         checkIsKeyInUse(key);
         // Construct a new set so it can be modified safely. See crbug.com/568369.
         Set<String> values =
-                new HashSet<>(
-                        ContextUtils.getAppSharedPreferences()
-                                .getStringSet(key, Collections.emptySet()));
+                new HashSet<>(getSharedPreferences().getStringSet(key, Collections.emptySet()));
         if (values.remove(value)) {
             writeStringSetUnchecked(key, values);
         }
@@ -239,7 +486,7 @@ public class SharedPreferencesManager {
 
     /** Writes string set to shared preferences. */
     private void writeStringSetUnchecked(String key, Set<String> values) {
-        SharedPreferences.Editor ed = ContextUtils.getAppSharedPreferences().edit();
+        SharedPreferences.Editor ed = getSharedPreferences().edit();
         ed.putStringSet(key, values);
         ed.apply();
     }
@@ -269,7 +516,7 @@ public class SharedPreferencesManager {
     }
 
     private void writeIntUnchecked(String key, int value) {
-        SharedPreferences.Editor ed = ContextUtils.getAppSharedPreferences().edit();
+        SharedPreferences.Editor ed = getSharedPreferences().edit();
         ed.putInt(key, value);
         ed.apply();
     }
@@ -306,7 +553,7 @@ public class SharedPreferencesManager {
     @CalledByNative
     public int readInt(@JniType("std::string") String key, int defaultValue) {
         checkIsKeyInUse(key);
-        return ContextUtils.getAppSharedPreferences().getInt(key, defaultValue);
+        return getSharedPreferences().getInt(key, defaultValue);
     }
 
     /**
@@ -375,7 +622,7 @@ public class SharedPreferencesManager {
      */
     public long readLong(String key, long defaultValue) {
         checkIsKeyInUse(key);
-        return ContextUtils.getAppSharedPreferences().getLong(key, defaultValue);
+        return getSharedPreferences().getLong(key, defaultValue);
     }
 
     /**
@@ -422,7 +669,7 @@ public class SharedPreferencesManager {
      */
     public float readFloat(String key, float defaultValue) {
         checkIsKeyInUse(key);
-        return ContextUtils.getAppSharedPreferences().getFloat(key, defaultValue);
+        return getSharedPreferences().getFloat(key, defaultValue);
     }
 
     /**
@@ -458,7 +705,7 @@ public class SharedPreferencesManager {
      */
     public Double readDouble(String key, double defaultValue) {
         checkIsKeyInUse(key);
-        SharedPreferences prefs = ContextUtils.getAppSharedPreferences();
+        SharedPreferences prefs = getSharedPreferences();
         if (!prefs.contains(key)) {
             return defaultValue;
         }
@@ -519,7 +766,7 @@ public class SharedPreferencesManager {
     @CalledByNative
     public boolean readBoolean(@JniType("std::string") String key, boolean defaultValue) {
         checkIsKeyInUse(key);
-        return ContextUtils.getAppSharedPreferences().getBoolean(key, defaultValue);
+        return getSharedPreferences().getBoolean(key, defaultValue);
     }
 
     /**
@@ -572,7 +819,7 @@ public class SharedPreferencesManager {
             @JniType("std::string") String key,
             @JniType("std::string") @Nullable String defaultValue) {
         checkIsKeyInUse(key);
-        return ContextUtils.getAppSharedPreferences().getString(key, defaultValue);
+        return getSharedPreferences().getString(key, defaultValue);
     }
 
     /**
@@ -626,7 +873,7 @@ public class SharedPreferencesManager {
 
     private void removeKeysWithPrefixInternal(KeyPrefix prefix) {
         SharedPreferences.Editor ed = getEditor();
-        Map<String, ?> allPrefs = ContextUtils.getAppSharedPreferences().getAll();
+        Map<String, ?> allPrefs = getSharedPreferences().getAll();
         for (Map.Entry<String, ?> pref : allPrefs.entrySet()) {
             String key = pref.getKey();
             if (prefix.hasGenerated(key)) {
@@ -645,12 +892,12 @@ public class SharedPreferencesManager {
     @CalledByNative
     public boolean contains(@JniType("std::string") String key) {
         checkIsKeyInUse(key);
-        return ContextUtils.getAppSharedPreferences().contains(key);
+        return getSharedPreferences().contains(key);
     }
 
     private <T> Map<String, T> readAllWithPrefix(KeyPrefix prefix) {
         checkIsPrefixInUse(prefix);
-        Map<String, ?> allPrefs = ContextUtils.getAppSharedPreferences().getAll();
+        Map<String, ?> allPrefs = getSharedPreferences().getAll();
         Map<String, T> allPrefsWithPrefix = new HashMap<>();
         for (Map.Entry<String, ?> pref : allPrefs.entrySet()) {
             String key = pref.getKey();
@@ -27,7 +27,7 @@ class ChromeThreadPoolExecutor extends ThreadPoolExecutor {
     // Core pool is still used despite allowCoreThreadTimeOut(true) being called - while the core
     // pool can still timeout, the thread pool will still start up threads more aggressively while
     // under the CORE_POOL_SIZE.
-    private static final int CORE_POOL_SIZE = Math.max(2, Math.min(CPU_COUNT - 1, 4));
+    static final int CORE_POOL_SIZE = Math.max(2, Math.min(CPU_COUNT - 1, 4));
     private static final int MAXIMUM_POOL_SIZE = CPU_COUNT * 2 + 1;
     private static final int KEEP_ALIVE_SECONDS = 30;
 
@@ -398,6 +398,7 @@ public class PostTask {
                     taskCount += taskRunner.clearTaskQueueForTesting();
                 }
             }
+            PreNativeTaskScheduler.clearForTesting();
             sTestIterationForTesting++;
         }
         sPrenativeThreadPoolExecutorForTesting = null;
@@ -0,0 +1,137 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base.task;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+
+import java.util.ArrayDeque;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Runs pre-native thread pool tasks of all {@link TaskRunnerImpl}s, in order of their {@link
+ * TaskTraits} priority.
+ *
+ * <p>Each request to run a task goes into the lane matching the runner's traits. A small number of
+ * workers is posted to the pre-native thread pool executor, and each worker keeps running tasks
+ * from the highest priority non-empty lane until all lanes are empty. Posting a task therefore
+ * only wakes up the executor if fewer than {@link #MAX_WORKERS} workers are active, rather than
+ * queueing one executor runnable per task.
+ */
+@NullMarked
+/* package */ final class PreNativeTaskScheduler {
+    // Lanes, from highest to lowest priority.
+    @VisibleForTesting static final int LANE_USER_BLOCKING = 0;
+    @VisibleForTesting static final int LANE_USER_VISIBLE = 1;
+    @VisibleForTesting static final int LANE_BEST_EFFORT = 2;
+    private static final int LANE_COUNT = 3;
+
+    /** Matches the number of threads the pre-native executor runs before it starts queueing. */
+    @VisibleForTesting
+    static final int MAX_WORKERS = ChromeThreadPoolExecutor.CORE_POOL_SIZE;
+
+    private static final Object sLock = new Object();
+
+    /** Task runners with a pending task, one entry per task to be run. */
+    @GuardedBy("sLock")
+    private static final ArrayDeque<TaskRunnerImpl>[] sLanes = createLanes();
+
+    @GuardedBy("sLock")
+    private static int sActiveWorkers;
+
+    private static final Runnable sWorker = PreNativeTaskScheduler::runWorker;
+
+    private PreNativeTaskScheduler() {}
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArrayDeque<TaskRunnerImpl>[] createLanes() {
+        ArrayDeque<TaskRunnerImpl>[] lanes = new ArrayDeque[LANE_COUNT];
+        for (int i = 0; i < LANE_COUNT; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+        return lanes;
+    }
+
+    @VisibleForTesting
+    static int getLane(@TaskTraits int taskTraits) {
+        switch (taskTraits) {
+            case TaskTraits.USER_BLOCKING:
+            case TaskTraits.USER_BLOCKING_MAY_BLOCK:
+                return LANE_USER_BLOCKING;
+            case TaskTraits.BEST_EFFORT:
+            case TaskTraits.BEST_EFFORT_MAY_BLOCK:
+                return LANE_BEST_EFFORT;
+            default:
+                return LANE_USER_VISIBLE;
+        }
+    }
+
+    /**
+     * Requests one call to {@link TaskRunnerImpl#runPreNativeTask()} on the pre-native thread
+     * pool, ordered by the priority of the runner's traits.
+     */
+    static void schedule(TaskRunnerImpl taskRunner) {
+        synchronized (sLock) {
+            sLanes[getLane(taskRunner.mTaskTraits)].add(taskRunner);
+            if (sActiveWorkers >= MAX_WORKERS) return;
+            sActiveWorkers++;
+        }
+        PostTask.getPrenativeThreadPoolExecutor().execute(sWorker);
+    }
+
+    private static void runWorker() {
+        boolean lanesEmpty = false;
+        try {
+            while (true) {
+                TaskRunnerImpl taskRunner;
+                synchronized (sLock) {
+                    taskRunner = pollHighestPriority();
+                    if (taskRunner == null) {
+                        lanesEmpty = true;
+                        sActiveWorkers--;
+                        return;
+                    }
+                }
+                taskRunner.runPreNativeTask();
+            }
+        } finally {
+            // A task threw: release the worker slot so that later tasks can still be run.
+            if (!lanesEmpty) {
+                synchronized (sLock) {
+                    sActiveWorkers--;
+                }
+            }
+        }
+    }
+
+    @GuardedBy("sLock")
+    private static @Nullable TaskRunnerImpl pollHighestPriority() {
+        for (int i = 0; i < LANE_COUNT; i++) {
+            TaskRunnerImpl taskRunner = sLanes[i].poll();
+            if (taskRunner != null) return taskRunner;
+        }
+        return null;
+    }
+
+    /**
+     * Drops all pending requests.
+     *
+     * @return the number of dropped requests.
+     */
+    static int clearForTesting() {
+        synchronized (sLock) {
+            int count = 0;
+            for (int i = 0; i < LANE_COUNT; i++) {
+                count += sLanes[i].size();
+                sLanes[i].clear();
+            }
+            sActiveWorkers = 0;
+            return count;
+        }
+    }
+}
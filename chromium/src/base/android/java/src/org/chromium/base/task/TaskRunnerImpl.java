@@ -114,10 +114,6 @@ public class TaskRunnerImpl implements TaskRunner {
                 mRunnable.run();
             }
         }
-
-        void queueToNative(long nativeTaskRunnerAndroid) {
-            queueDelayedTaskToNative(nativeTaskRunnerAndroid, mRunnable, mDelay, mLocation);
-        }
     }
 
     private static class TaskRunnerCleaner extends WeakReference<TaskRunnerImpl> {
@@ -234,10 +230,11 @@ public class TaskRunnerImpl implements TaskRunner {
 
     /**
      * Must be overridden in subclasses, schedules a call to runPreNativeTask() at an appropriate
-     * time.
+     * time. By default, the call is made by {@link PreNativeTaskScheduler}, which runs higher
+     * priority task runners first.
      */
     protected void schedulePreNativeTask() {
-        PostTask.getPrenativeThreadPoolExecutor().execute(mRunPreNativeTaskClosure);
+        PreNativeTaskScheduler.schedule(this);
     }
 
     /**
@@ -268,6 +265,8 @@ public class TaskRunnerImpl implements TaskRunner {
                 if (mPreNativeTasks == null) return;
                 task = mPreNativeTasks.poll();
             }
+            // The queue may have been cleared by a test since this call was scheduled.
+            if (task == null) return;
             // Wait, what about thread priorities?
             //
             // You may expect that thread priorities are set according to the task traits. We don't,
@@ -286,18 +285,17 @@ public class TaskRunnerImpl implements TaskRunner {
     /* package */ void initNativeTaskRunner() {
         long nativeTaskRunnerAndroid = TaskRunnerImplJni.get().init(mTaskRunnerType, mTaskTraits);
         synchronized (mPreNativeTaskLock) {
-            if (mPreNativeTasks != null) {
-                for (PreNativeTask task : mPreNativeTasks) {
-                    task.queueToNative(nativeTaskRunnerAndroid);
-                }
-                mPreNativeTasks = null;
-            }
-            if (mPreNativeDelayedTasks != null) {
-                for (PreNativeTask task : mPreNativeDelayedTasks) {
-                    task.queueToNative(nativeTaskRunnerAndroid);
-                }
-                mPreNativeDelayedTasks = null;
+            int taskCount =
+                    (mPreNativeTasks != null ? mPreNativeTasks.size() : 0)
+                            + (mPreNativeDelayedTasks != null ? mPreNativeDelayedTasks.size() : 0);
+            if (taskCount > 0) {
+                List<PreNativeTask> tasks = new ArrayList<>(taskCount);
+                if (mPreNativeTasks != null) tasks.addAll(mPreNativeTasks);
+                if (mPreNativeDelayedTasks != null) tasks.addAll(mPreNativeDelayedTasks);
+                queueTasksToNative(nativeTaskRunnerAndroid, tasks);
             }
+            mPreNativeTasks = null;
+            mPreNativeDelayedTasks = null;
 
             // mNativeTaskRunnerAndroid is volatile and setting this indicates we've have migrated
             // all pre-native tasks and are ready to use the native Task Runner.
@@ -318,6 +316,35 @@ public class TaskRunnerImpl implements TaskRunner {
             long nativeTaskRunnerAndroid, Runnable task, long delay, @Nullable Location location) {
         // If there's no delay, then try to store it in the table. Otherwise use the map.
         int taskIndex = queueTask(task, /* useTable= */ delay == 0);
+        postQueuedTaskToNative(nativeTaskRunnerAndroid, delay, taskIndex, location);
+    }
+
+    /**
+     * Hands all {@code tasks} to the native task runner, preserving their order. The tasks are
+     * registered in the pending task table under a single lock acquisition.
+     *
+     * <p>Each task is still posted with its own JNI call. There is no native entry point that
+     * takes several tasks yet.
+     */
+    private static void queueTasksToNative(
+            long nativeTaskRunnerAndroid, List<PreNativeTask> tasks) {
+        int count = tasks.size();
+        int[] taskIndices = new int[count];
+        synchronized (sPendingTaskLock) {
+            for (int i = 0; i < count; i++) {
+                PreNativeTask task = tasks.get(i);
+                taskIndices[i] = queueTaskAlreadyLocked(task.mRunnable, task.mDelay == 0);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            PreNativeTask task = tasks.get(i);
+            postQueuedTaskToNative(
+                    nativeTaskRunnerAndroid, task.mDelay, taskIndices[i], task.mLocation);
+        }
+    }
+
+    private static void postQueuedTaskToNative(
+            long nativeTaskRunnerAndroid, long delay, int taskIndex, @Nullable Location location) {
         if (location != null) {
             TaskRunnerImplJni.get()
                     .postDelayedTaskWithLocation(
@@ -341,20 +368,25 @@ public class TaskRunnerImpl implements TaskRunner {
 
     private static int queueTask(Runnable task, boolean useTable) {
         synchronized (sPendingTaskLock) {
-            for (int i = 0; useTable && i < sPendingTaskTable.length; i++) {
-                if (sPendingTaskTable[i] == null) {
-                    sPendingTaskTable[i] = task;
-                    return i;
-                }
+            return queueTaskAlreadyLocked(task, useTable);
+        }
+    }
+
+    @GuardedBy("sPendingTaskLock")
+    private static int queueTaskAlreadyLocked(Runnable task, boolean useTable) {
+        for (int i = 0; useTable && i < sPendingTaskTable.length; i++) {
+            if (sPendingTaskTable[i] == null) {
+                sPendingTaskTable[i] = task;
+                return i;
             }
+        }
 
-            int taskIndex = sPendingTaskMapNextIndex++;
-            // Overflow is highly unlikely here.
-            assert taskIndex < Integer.MAX_VALUE;
-            sPendingTaskMap.put(taskIndex, task);
+        int taskIndex = sPendingTaskMapNextIndex++;
+        // Overflow is highly unlikely here.
+        assert taskIndex < Integer.MAX_VALUE;
+        sPendingTaskMap.put(taskIndex, task);
 
-            return taskIndex;
-        }
+        return taskIndex;
     }
 
     private static Runnable dequeueTask(int taskIndex) {
@@ -151,7 +151,30 @@ public class EarlyTraceEventTest {
             // Required comment to pass presubmit checks.
         }
         synchronized (EarlyTraceEvent.sLock) {
-            Assert.assertNull(EarlyTraceEvent.sEvents);
+            Assert.assertNull(EarlyTraceEvent.sThreadBuffers);
+        }
+    }
+
+    @Test
+    @SmallTest
+    @Feature({"Android-AppBase"})
+    public void testCanRecordEventsBeyondInitialCapacity() {
+        EarlyTraceEvent.enable();
+        final int eventCount = 1000;
+        for (int i = 0; i < eventCount; i++) {
+            EarlyTraceEvent.begin(EVENT_NAME, /* isToplevel= */ false);
+            EarlyTraceEvent.end(EVENT_NAME, /* isToplevel= */ false);
+        }
+
+        List<Event> matchingEvents =
+                EarlyTraceEvent.getMatchingCompletedEventsForTesting(EVENT_NAME);
+        Assert.assertEquals(2 * eventCount, matchingEvents.size());
+        for (int i = 0; i < matchingEvents.size(); i++) {
+            Assert.assertEquals(i % 2 == 0, matchingEvents.get(i).mIsStart);
+            if (i > 0) {
+                Assert.assertTrue(
+                        matchingEvents.get(i - 1).mTimeNanos <= matchingEvents.get(i).mTimeNanos);
+            }
         }
     }
 
@@ -241,6 +264,22 @@ public class EarlyTraceEventTest {
         EarlyTraceEvent.setBackgroundStartupTracingFlag(false);
     }
 
+    @Test
+    @SmallTest
+    @Feature({"Android-AppBase"})
+    public void testResetReleasesThreadBuffers() {
+        EarlyTraceEvent.enable();
+        EarlyTraceEvent.begin(EVENT_NAME, /* isToplevel= */ false);
+        EarlyTraceEvent.ThreadEventBuffer buffer;
+        synchronized (EarlyTraceEvent.sLock) {
+            buffer = EarlyTraceEvent.sThreadBuffers.get(0);
+        }
+        Assert.assertFalse(buffer.isReleased());
+
+        EarlyTraceEvent.reset();
+        Assert.assertTrue(buffer.isReleased());
+    }
+
     @Test
     @SmallTest
     @Feature({"Android-AppBase"})
@@ -267,7 +306,7 @@ public class EarlyTraceEventTest {
         EarlyTraceEvent.onCommandLineAvailableInChildProcess();
         Assert.assertFalse(EarlyTraceEvent.enabled());
         synchronized (EarlyTraceEvent.sLock) {
-            Assert.assertNull(EarlyTraceEvent.sEvents);
+            Assert.assertNull(EarlyTraceEvent.sThreadBuffers);
         }
     }
 }
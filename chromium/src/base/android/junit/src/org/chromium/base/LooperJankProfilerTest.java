@@ -0,0 +1,117 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.LooperJankProfiler.TaskOriginStats;
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+import java.util.List;
+
+/** Unit tests for {@link LooperJankProfiler}. */
+@RunWith(BaseRobolectricTestRunner.class)
+public class LooperJankProfilerTest {
+    private static final String DISPATCHING_LINE =
+            ">>>>> Dispatching to (android.os.Handler) {1234} org.chromium.Foo$1: 0";
+    private static final String FINISHED_LINE =
+            "<<<<< Finished to (android.os.Handler) {1234} org.chromium.Foo$1";
+
+    @Rule public FakeTimeTestRule mFakeTime = new FakeTimeTestRule();
+
+    @Test
+    @SmallTest
+    public void testGetBucket() {
+        assertEquals(0, LooperJankProfiler.getBucket(0));
+        assertEquals(1, LooperJankProfiler.getBucket(1));
+        assertEquals(2, LooperJankProfiler.getBucket(2));
+        assertEquals(2, LooperJankProfiler.getBucket(3));
+        assertEquals(5, LooperJankProfiler.getBucket(16));
+        assertEquals(
+                LooperJankProfiler.BUCKET_COUNT - 1, LooperJankProfiler.getBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    @SmallTest
+    public void testOnlySlowTasksAreAttributed() {
+        LooperJankProfiler profiler = new LooperJankProfiler();
+        TraceEvent.BasicLooperMonitor monitor = new TraceEvent.BasicLooperMonitor();
+
+        TraceEvent.setLooperJankProfiler(profiler);
+        try {
+            monitor.println(DISPATCHING_LINE);
+            mFakeTime.advanceMillis(2);
+            monitor.println(FINISHED_LINE);
+
+            monitor.println(DISPATCHING_LINE);
+            mFakeTime.advanceMillis(LooperJankProfiler.SLOW_TASK_THRESHOLD_MS);
+            monitor.println(FINISHED_LINE);
+        } finally {
+            TraceEvent.setLooperJankProfiler(null);
+        }
+
+        assertEquals(2, profiler.getTaskCount());
+        int[] expectedBuckets = new int[LooperJankProfiler.BUCKET_COUNT];
+        expectedBuckets[LooperJankProfiler.getBucket(2)] = 1;
+        expectedBuckets[LooperJankProfiler.getBucket(LooperJankProfiler.SLOW_TASK_THRESHOLD_MS)] =
+                1;
+        assertArrayEquals(expectedBuckets, profiler.getTaskDurationBuckets());
+
+        List<TaskOriginStats> origins = profiler.getSlowestTaskOrigins(10);
+        assertEquals(1, origins.size());
+        assertEquals("android.os.Handler(org.chromium.Foo$1)", origins.get(0).origin);
+        assertEquals(1, origins.get(0).slowTaskCount);
+        assertEquals(LooperJankProfiler.SLOW_TASK_THRESHOLD_MS, origins.get(0).maxDurationMs);
+    }
+
+    @Test
+    @SmallTest
+    public void testSlowestOriginsAreKept() {
+        LooperJankProfiler profiler = new LooperJankProfiler();
+        for (int i = 0; i < LooperJankProfiler.MAX_ORIGIN_COUNT; i++) {
+            profiler.recordTask(100 + i, "Origin" + i);
+        }
+        // Faster than all tracked origins: dropped.
+        profiler.recordTask(50, "TooFast");
+        // Slower than the fastest tracked origin: replaces it.
+        profiler.recordTask(1000, "Slowest");
+        profiler.recordTask(20, "Origin1");
+
+        List<TaskOriginStats> origins =
+                profiler.getSlowestTaskOrigins(LooperJankProfiler.MAX_ORIGIN_COUNT + 2);
+        assertEquals(LooperJankProfiler.MAX_ORIGIN_COUNT, origins.size());
+        assertEquals("Slowest", origins.get(0).origin);
+        for (TaskOriginStats stats : origins) {
+            assertTrue(!stats.origin.equals("TooFast") && !stats.origin.equals("Origin0"));
+            if (stats.origin.equals("Origin1")) {
+                assertEquals(2, stats.slowTaskCount);
+                assertEquals(121, stats.totalDurationMs);
+                assertEquals(101, stats.maxDurationMs);
+            }
+        }
+        assertEquals(3, profiler.getSlowestTaskOrigins(3).size());
+    }
+
+    @Test
+    @SmallTest
+    public void testRecordHistogramsResets() {
+        LooperJankProfiler profiler = new LooperJankProfiler();
+        profiler.recordTask(30, "Origin");
+        profiler.recordTask(1, null);
+
+        profiler.recordHistogramsAndReset();
+
+        assertEquals(0, profiler.getTaskCount());
+        assertEquals(0, profiler.getSlowestTaskOrigins(10).size());
+    }
+}
@@ -0,0 +1,106 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.MemoryPressureLevel;
+import org.chromium.base.MemoryPressureListener;
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Unit tests for {@link MemoryBudgetedCache}. */
+@RunWith(BaseRobolectricTestRunner.class)
+public class MemoryBudgetedCacheTest {
+    private final List<String> mEvictedKeys = new ArrayList<>();
+
+    private MemoryBudgetedCache<String, Integer> createCache(long maxSizeInBytes) {
+        // Each value is its own size.
+        return new MemoryBudgetedCache<>(
+                maxSizeInBytes, (key, value) -> value, (key, value) -> mEvictedKeys.add(key));
+    }
+
+    @Test
+    @SmallTest
+    public void testEvictsLeastRecentlyUsed() {
+        MemoryBudgetedCache<String, Integer> cache = createCache(10);
+        cache.put("a", 4);
+        cache.put("b", 4);
+        // Makes "a" the most recently used entry.
+        assertEquals(Integer.valueOf(4), cache.get("a"));
+
+        cache.put("c", 4);
+
+        assertEquals(List.of("b"), mEvictedKeys);
+        assertNull(cache.get("b"));
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(8, cache.getSizeInBytes());
+    }
+
+    @Test
+    @SmallTest
+    public void testReplaceAndRemove() {
+        MemoryBudgetedCache<String, Integer> cache = createCache(10);
+        cache.put("a", 4);
+
+        assertEquals(Integer.valueOf(4), cache.put("a", 6));
+        assertEquals(6, cache.getSizeInBytes());
+        assertEquals(Integer.valueOf(6), cache.remove("a"));
+        assertEquals(0, cache.getSizeInBytes());
+
+        // Larger than the whole budget.
+        cache.put("b", 11);
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, mEvictedKeys.size());
+    }
+
+    @Test
+    @SmallTest
+    public void testSetMaxSize() {
+        MemoryBudgetedCache<String, Integer> cache = createCache(10);
+        cache.put("a", 3);
+        cache.put("b", 3);
+        cache.put("c", 3);
+
+        cache.setMaxSize(5);
+
+        assertEquals(List.of("a", "b"), mEvictedKeys);
+        assertEquals(5, cache.getMaxSizeInBytes());
+        assertEquals(3, cache.getSizeInBytes());
+    }
+
+    @Test
+    @SmallTest
+    public void testMemoryPressure() {
+        MemoryBudgetedCache<String, Integer> cache = createCache(100);
+        cache.put("a", 10);
+        cache.put("b", 10);
+        cache.put("c", 10);
+        cache.put("d", 10);
+        cache.put("empty", 0);
+        cache.registerForMemoryPressure();
+
+        MemoryPressureListener.notifyMemoryPressure(MemoryPressureLevel.MODERATE);
+        assertEquals(List.of("a", "b"), mEvictedKeys);
+        assertEquals(20, cache.getSizeInBytes());
+
+        MemoryPressureListener.notifyMemoryPressure(MemoryPressureLevel.CRITICAL);
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSizeInBytes());
+
+        cache.unregisterForMemoryPressure();
+        cache.put("e", 10);
+        MemoryPressureListener.notifyMemoryPressure(MemoryPressureLevel.CRITICAL);
+        assertEquals(1, cache.getEntryCount());
+    }
+}
@@ -149,6 +149,83 @@ public final class CachingUmaRecorderTest {
                 .recordSparseHistogram("cachingUmaRecorderTest.recordSparseHistogram", 72);
     }
 
+    @Test
+    public void testRecordManySamplesGetsFlushed() {
+        CachingUmaRecorder cachingUmaRecorder = new CachingUmaRecorder();
+        final int numSamples = CachingUmaRecorder.Histogram.MAX_SAMPLE_COUNT;
+
+        for (int i = 0; i < numSamples; i++) {
+            cachingUmaRecorder.recordSparseHistogram(
+                    "cachingUmaRecorderTest.recordManySamples", i % 3);
+        }
+
+        assertEquals(
+                numSamples,
+                cachingUmaRecorder.getHistogramTotalCountForTesting(
+                        "cachingUmaRecorderTest.recordManySamples"));
+        assertEquals(
+                (numSamples + 2) / 3,
+                cachingUmaRecorder.getHistogramValueCountForTesting(
+                        "cachingUmaRecorderTest.recordManySamples", 0));
+        List<HistogramBucket> buckets =
+                cachingUmaRecorder.getHistogramSamplesForTesting(
+                        "cachingUmaRecorderTest.recordManySamples");
+        assertEquals(3, buckets.size());
+
+        cachingUmaRecorder.setDelegate(mUmaRecorder);
+
+        verify(mUmaRecorder, times((numSamples + 2) / 3))
+                .recordSparseHistogram("cachingUmaRecorderTest.recordManySamples", 0);
+        verify(mUmaRecorder, times((numSamples + 1) / 3))
+                .recordSparseHistogram("cachingUmaRecorderTest.recordManySamples", 1);
+        verify(mUmaRecorder, times(numSamples / 3))
+                .recordSparseHistogram("cachingUmaRecorderTest.recordManySamples", 2);
+        verifyNoMoreInteractions(mUmaRecorder);
+    }
+
+    @Test
+    public void testGrowingSampleArraysFlushWithBucketParameters() {
+        CachingUmaRecorder cachingUmaRecorder = new CachingUmaRecorder();
+
+        // Enough samples to grow the sample arrays past their initial capacity a few times.
+        for (int i = 0; i < 20; i++) {
+            int exponentialSample = i % 2 == 0 ? 10 : 500;
+            cachingUmaRecorder.recordExponentialHistogram(
+                    "cachingUmaRecorderTest.growingExponential", exponentialSample, 1, 1000, 50);
+            cachingUmaRecorder.recordLinearHistogram(
+                    "cachingUmaRecorderTest.growingLinear", i % 4, 1, 100, 101);
+            cachingUmaRecorder.recordBooleanHistogram(
+                    "cachingUmaRecorderTest.growingBoolean", i % 5 == 0);
+        }
+        assertEquals(
+                20,
+                cachingUmaRecorder.getHistogramTotalCountForTesting(
+                        "cachingUmaRecorderTest.growingExponential"));
+        assertEquals(
+                5,
+                cachingUmaRecorder.getHistogramValueCountForTesting(
+                        "cachingUmaRecorderTest.growingLinear", 3));
+
+        cachingUmaRecorder.setDelegate(mUmaRecorder);
+
+        verify(mUmaRecorder, times(10))
+                .recordExponentialHistogram(
+                        "cachingUmaRecorderTest.growingExponential", 10, 1, 1000, 50);
+        verify(mUmaRecorder, times(10))
+                .recordExponentialHistogram(
+                        "cachingUmaRecorderTest.growingExponential", 500, 1, 1000, 50);
+        for (int sample = 0; sample < 4; sample++) {
+            verify(mUmaRecorder, times(5))
+                    .recordLinearHistogram(
+                            "cachingUmaRecorderTest.growingLinear", sample, 1, 100, 101);
+        }
+        verify(mUmaRecorder, times(4))
+                .recordBooleanHistogram("cachingUmaRecorderTest.growingBoolean", true);
+        verify(mUmaRecorder, times(16))
+                .recordBooleanHistogram("cachingUmaRecorderTest.growingBoolean", false);
+        verifyNoMoreInteractions(mUmaRecorder);
+    }
+
     @Test
     public void testRecordUserActionGetsFlushed() {
         CachingUmaRecorder cachingUmaRecorder = new CachingUmaRecorder();
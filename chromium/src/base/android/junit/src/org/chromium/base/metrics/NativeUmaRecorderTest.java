@@ -0,0 +1,131 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+import java.util.Set;
+
+/** Unit tests for {@link NativeUmaRecorder}. */
+@RunWith(BaseRobolectricTestRunner.class)
+public final class NativeUmaRecorderTest {
+    private static final String BATCHED_BOOLEAN = "NativeUmaRecorderTest.BatchedBoolean";
+    private static final String BATCHED_LINEAR = "NativeUmaRecorderTest.BatchedLinear";
+    private static final String BATCHED_SPARSE = "NativeUmaRecorderTest.BatchedSparse";
+
+    @Mock NativeUmaRecorder.Natives mNativeMock;
+
+    private NativeUmaRecorder mBatchingRecorder;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        NativeUmaRecorderJni.setInstanceForTesting(mNativeMock);
+        mBatchingRecorder =
+                new NativeUmaRecorder(Set.of(BATCHED_BOOLEAN, BATCHED_LINEAR, BATCHED_SPARSE));
+    }
+
+    @Test
+    @SmallTest
+    public void testUnbatchedRecordsImmediately() {
+        NativeUmaRecorder recorder = new NativeUmaRecorder();
+
+        recorder.recordSparseHistogram("NativeUmaRecorderTest.Unbatched", 72);
+
+        verify(mNativeMock).recordSparseHistogram("NativeUmaRecorderTest.Unbatched", 0, 72);
+        assertEquals(0, recorder.flushBatchedSamples());
+    }
+
+    @Test
+    @SmallTest
+    public void testOnlyOptedInHistogramsAreBatched() {
+        mBatchingRecorder.recordSparseHistogram("NativeUmaRecorderTest.Unbatched", 72);
+        mBatchingRecorder.recordSparseHistogram(BATCHED_SPARSE, 72);
+
+        verify(mNativeMock).recordSparseHistogram("NativeUmaRecorderTest.Unbatched", 0, 72);
+        verify(mNativeMock, never()).recordSparseHistogram(eq(BATCHED_SPARSE), anyLong(), anyInt());
+    }
+
+    @Test
+    @SmallTest
+    public void testBatchedRecordsOnFlush() {
+        mBatchingRecorder.recordBooleanHistogram(BATCHED_BOOLEAN, true);
+        mBatchingRecorder.recordLinearHistogram(BATCHED_LINEAR, 5, 1, 10, 11);
+        mBatchingRecorder.recordSparseHistogram(BATCHED_SPARSE, 72);
+
+        verify(mNativeMock, never())
+                .recordBooleanHistogram(eq(BATCHED_BOOLEAN), anyLong(), eq(true));
+
+        assertEquals(3, mBatchingRecorder.flushBatchedSamples());
+        verify(mNativeMock).recordBooleanHistogram(BATCHED_BOOLEAN, 0, true);
+        verify(mNativeMock).recordLinearHistogram(BATCHED_LINEAR, 0, 5, 1, 10, 11);
+        verify(mNativeMock).recordSparseHistogram(BATCHED_SPARSE, 0, 72);
+        assertEquals(0, mBatchingRecorder.flushBatchedSamples());
+    }
+
+    @Test
+    @SmallTest
+    public void testBatchedNeverFlushesInline() {
+        for (int i = 0; i < HistogramSampleBatch.MAX_SAMPLE_COUNT; i++) {
+            mBatchingRecorder.recordSparseHistogram(BATCHED_SPARSE, 1);
+        }
+
+        verify(mNativeMock, never()).recordSparseHistogram(eq(BATCHED_SPARSE), anyLong(), anyInt());
+        assertEquals(
+                HistogramSampleBatch.MAX_SAMPLE_COUNT, mBatchingRecorder.flushBatchedSamples());
+        verify(mNativeMock, times(HistogramSampleBatch.MAX_SAMPLE_COUNT))
+                .recordSparseHistogram(BATCHED_SPARSE, 0, 1);
+    }
+
+    @Test
+    @SmallTest
+    public void testBatchedDropsSamplesWhenFull() {
+        for (int i = 0; i <= HistogramSampleBatch.MAX_SAMPLE_COUNT; i++) {
+            mBatchingRecorder.recordSparseHistogram(BATCHED_SPARSE, 1);
+        }
+
+        assertEquals(
+                HistogramSampleBatch.MAX_SAMPLE_COUNT, mBatchingRecorder.flushBatchedSamples());
+    }
+
+    @Test
+    @SmallTest
+    public void testBatchOfDeadThreadIsFlushedThenDropped() throws InterruptedException {
+        Thread thread =
+                new Thread(() -> mBatchingRecorder.recordSparseHistogram(BATCHED_SPARSE, 7));
+        thread.start();
+        thread.join();
+        assertEquals(1, mBatchingRecorder.getBatchCountForTesting());
+
+        assertEquals(1, mBatchingRecorder.flushBatchedSamples());
+        verify(mNativeMock).recordSparseHistogram(BATCHED_SPARSE, 0, 7);
+        assertEquals(0, mBatchingRecorder.getBatchCountForTesting());
+    }
+
+    @Test
+    @SmallTest
+    public void testBatchOfLiveThreadIsKept() {
+        mBatchingRecorder.recordSparseHistogram(BATCHED_SPARSE, 7);
+
+        assertEquals(1, mBatchingRecorder.flushBatchedSamples());
+        assertEquals(1, mBatchingRecorder.getBatchCountForTesting());
+    }
+}
@@ -37,11 +37,16 @@ import org.robolectric.annotation.LooperMode;
 import org.robolectric.shadows.ShadowLooper;
 
 import org.chromium.base.ChildBindingState;
+import org.chromium.base.MemoryPressureLevel;
+import org.chromium.base.MemoryPressureListener;
 import org.chromium.base.test.BaseRobolectricTestRunner;
 import org.chromium.base.test.util.Feature;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /** Unit tests for the ChildConnectionAllocator class. */
 @Config(manifest = Config.NONE)
@@ -347,6 +352,133 @@ public class ChildConnectionAllocatorTest {
         assertNotNull(newConnection[1]);
     }
 
+    @Test
+    @Feature({"ProcessManagement"})
+    public void testSparePool() {
+        final List<ChildProcessConnection> connections = new ArrayList<>();
+        final List<ChildProcessConnection.ServiceCallback> callbacks = new ArrayList<>();
+        setSparePoolConnectionFactory(connections, callbacks);
+        Context context = mock(Context.class);
+        Bundle serviceBundle = new Bundle();
+
+        mAllocator.setSparePoolSize(context, serviceBundle, 1);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(1, mAllocator.getSpareConnectionCount());
+        assertEquals(1, mAllocator.allocatedConnectionsCountForTesting());
+        callbacks.get(0).onChildStarted();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        // The started spare connection is handed out, and a replacement is bound.
+        ChildProcessConnection connection =
+                mAllocator.allocate(
+                        context, serviceBundle, mServiceCallback, ChildBindingState.STRONG);
+        assertEquals(connections.get(0), connection);
+        verify(connection).addStrongBinding();
+        verify(connection).removeVisibleBinding();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        verify(mServiceCallback).onChildStarted();
+        assertEquals(1, mAllocator.getSpareConnectionCount());
+        assertEquals(2, mAllocator.allocatedConnectionsCountForTesting());
+
+        // The spare connection is dropped under critical memory pressure.
+        MemoryPressureListener.notifyMemoryPressure(MemoryPressureLevel.CRITICAL);
+        ShadowLooper.runUiThreadTasks();
+        verify(connections.get(1)).stop();
+        assertEquals(0, mAllocator.getSpareConnectionCount());
+
+        mAllocator.setSparePoolSize(context, serviceBundle, 0);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    @Test
+    @Feature({"ProcessManagement"})
+    public void testSparePoolRefillsAfterPressureBackoff() {
+        final List<ChildProcessConnection> connections = new ArrayList<>();
+        final List<ChildProcessConnection.ServiceCallback> callbacks = new ArrayList<>();
+        setSparePoolConnectionFactory(connections, callbacks);
+        Context context = mock(Context.class);
+        Bundle serviceBundle = new Bundle();
+
+        mAllocator.setSparePoolSize(context, serviceBundle, 1);
+        ShadowLooper.runUiThreadTasks();
+        assertEquals(1, mAllocator.getSpareConnectionCount());
+
+        // Moderate pressure keeps the pool.
+        MemoryPressureListener.notifyMemoryPressure(MemoryPressureLevel.MODERATE);
+        ShadowLooper.runUiThreadTasks();
+        verify(connections.get(0), never()).stop();
+        assertEquals(1, mAllocator.getSpareConnectionCount());
+
+        // Critical pressure drops the pool, and it isn't refilled until the backoff is over.
+        MemoryPressureListener.notifyMemoryPressure(MemoryPressureLevel.CRITICAL);
+        ShadowLooper.runUiThreadTasks();
+        verify(connections.get(0)).stop();
+        callbacks.get(0).onChildProcessDied(connections.get(0));
+        ShadowLooper.idleMainLooper(
+                ChildConnectionAllocator.SPARE_POOL_PRESSURE_BACKOFF_MS - 1, TimeUnit.MILLISECONDS);
+        assertEquals(0, mAllocator.getSpareConnectionCount());
+        assertEquals(0, mAllocator.allocatedConnectionsCountForTesting());
+
+        // No further signal comes, so the pool is refilled once the backoff is over.
+        ShadowLooper.idleMainLooper(1, TimeUnit.MILLISECONDS);
+        assertEquals(1, mAllocator.getSpareConnectionCount());
+        assertEquals(2, connections.size());
+
+        mAllocator.setSparePoolSize(context, serviceBundle, 0);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    @Test
+    @Feature({"ProcessManagement"})
+    public void testSparePoolRefillsWhenPressureSubsides() {
+        final List<ChildProcessConnection> connections = new ArrayList<>();
+        final List<ChildProcessConnection.ServiceCallback> callbacks = new ArrayList<>();
+        setSparePoolConnectionFactory(connections, callbacks);
+        Context context = mock(Context.class);
+        Bundle serviceBundle = new Bundle();
+
+        mAllocator.setSparePoolSize(context, serviceBundle, 1);
+        ShadowLooper.runUiThreadTasks();
+        MemoryPressureListener.notifyMemoryPressure(MemoryPressureLevel.CRITICAL);
+        ShadowLooper.runUiThreadTasks();
+        assertEquals(0, mAllocator.getSpareConnectionCount());
+
+        // The pool is refilled as soon as the pressure is reported gone.
+        MemoryPressureListener.notifyMemoryPressure(MemoryPressureLevel.NONE);
+        ShadowLooper.runUiThreadTasks();
+        assertEquals(1, mAllocator.getSpareConnectionCount());
+        assertEquals(2, connections.size());
+
+        mAllocator.setSparePoolSize(context, serviceBundle, 0);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    private void setSparePoolConnectionFactory(
+            List<ChildProcessConnection> connections,
+            List<ChildProcessConnection.ServiceCallback> callbacks) {
+        mAllocator.setConnectionFactoryForTesting(
+                (context,
+                        serviceName,
+                        fallbackServiceName,
+                        bindToCaller,
+                        bindAsExternalService,
+                        serviceBundle,
+                        instanceName,
+                        independentFallback,
+                        isSandboxedForHistograms) -> {
+                    ChildProcessConnection connection = mock(ChildProcessConnection.class);
+                    doAnswer(
+                                    invocation -> {
+                                        callbacks.add(invocation.getArgument(1));
+                                        return null;
+                                    })
+                            .when(connection)
+                            .start(anyInt(), any(ChildProcessConnection.ServiceCallback.class));
+                    connections.add(connection);
+                    return connection;
+                });
+    }
+
     /**
      * Tests that the connection is created with the useStrongBinding parameter specified in the
      * allocator.
@@ -11,8 +11,10 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.robolectric.Shadows.shadowOf;
 
 import android.content.SharedPreferences;
+import android.os.Looper;
 
 import androidx.test.filters.SmallTest;
 
@@ -22,6 +24,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import org.chromium.base.ContextUtils;
 import org.chromium.base.test.BaseRobolectricTestRunner;
 
 import java.util.Arrays;
@@ -619,4 +622,71 @@ public class SharedPreferencesManagerTest {
         ed.remove("some_key");
         verify(mChecker).checkIsKeyInUse(eq("some_key"));
     }
+
+    @Test
+    @SmallTest
+    public void testTransactionApplyIsCoalesced() {
+        SharedPreferences prefs = ContextUtils.getAppSharedPreferences();
+        mSubject.writeString("string_key", "to_remove");
+
+        mSubject.beginTransaction().writeInt("int_key", 1).writeBoolean("bool_key", true).apply();
+        mSubject.beginTransaction().writeInt("int_key", 2).removeKey("string_key").apply();
+        verify(mChecker, times(2)).checkIsKeyInUse(eq("int_key"));
+
+        // Not applied to SharedPreferences until the end of the UI thread task.
+        assertFalse(prefs.contains("int_key"));
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(2, prefs.getInt("int_key", 0));
+        assertTrue(prefs.getBoolean("bool_key", false));
+        assertFalse(prefs.contains("string_key"));
+    }
+
+    @Test
+    @SmallTest
+    public void testTransactionWritesAreVisibleToManager() {
+        mSubject.beginTransaction()
+                .writeLong("long_key", 5L)
+                .writeDouble("double_key", 2.5)
+                .apply();
+
+        assertEquals(5L, mSubject.readLong("long_key"));
+        assertEquals(2.5, mSubject.readDouble("double_key", 0), 0.001);
+
+        // Direct writes are ordered after coalesced ones.
+        mSubject.beginTransaction().writeLong("long_key", 6L).apply();
+        mSubject.writeLong("long_key", 7L);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(7L, mSubject.readLong("long_key"));
+    }
+
+    @Test
+    @SmallTest
+    public void testSyncCommitsAreCountedPerCaller() {
+        String caller = getClass().getName() + "#testSyncCommitsAreCountedPerCaller";
+
+        mSubject.writeIntSync("int_key", 1);
+        mSubject.writeBooleanSync("bool_key", true);
+        mSubject.beginTransaction().writeString("string_key", "foo").commit();
+
+        Map<String, Integer> counts = SharedPreferencesManager.getSyncCommitCountsByCaller();
+        assertEquals(Integer.valueOf(3), counts.get(caller));
+        assertEquals("foo", ContextUtils.getAppSharedPreferences().getString("string_key", null));
+    }
+
+    @Test
+    @SmallTest
+    public void testSyncCommitCallersAreCapped() {
+        int callerCount = SharedPreferencesManager.MAX_SYNC_COMMIT_CALLERS + 10;
+        for (int i = 0; i < callerCount; i++) {
+            SharedPreferencesManager.countSyncCommit("Caller" + i);
+        }
+        SharedPreferencesManager.countSyncCommit("Caller0");
+
+        Map<String, Integer> counts = SharedPreferencesManager.getSyncCommitCountsByCaller();
+        assertEquals(SharedPreferencesManager.MAX_SYNC_COMMIT_CALLERS, counts.size());
+        assertEquals(Integer.valueOf(2), counts.get("Caller0"));
+        assertEquals(
+                Integer.valueOf(11),
+                counts.get(SharedPreferencesManager.OTHER_SYNC_COMMIT_CALLERS));
+    }
 }
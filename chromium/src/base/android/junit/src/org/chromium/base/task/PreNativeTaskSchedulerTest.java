@@ -0,0 +1,118 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.base.task;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Unit tests for {@link PreNativeTaskScheduler} and the pre-native to native task handoff. */
+@RunWith(BaseRobolectricTestRunner.class)
+public class PreNativeTaskSchedulerTest {
+    private final List<Runnable> mExecutorQueue = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        PostTask.setPrenativeThreadPoolExecutorForTesting(mExecutorQueue::add);
+    }
+
+    @After
+    public void tearDown() {
+        PreNativeTaskScheduler.clearForTesting();
+    }
+
+    private void runExecutorQueue() {
+        while (!mExecutorQueue.isEmpty()) {
+            mExecutorQueue.remove(0).run();
+        }
+    }
+
+    @Test
+    public void testHigherPriorityTasksRunFirst() {
+        List<String> order = new ArrayList<>();
+        TaskRunnerImpl bestEffort = new TaskRunnerImpl(TaskTraits.BEST_EFFORT);
+        TaskRunnerImpl userVisible = new TaskRunnerImpl(TaskTraits.USER_VISIBLE);
+        TaskRunnerImpl userBlocking = new TaskRunnerImpl(TaskTraits.USER_BLOCKING);
+
+        bestEffort.execute(() -> order.add("best_effort"));
+        userVisible.execute(() -> order.add("user_visible"));
+        userBlocking.execute(() -> order.add("user_blocking"));
+        runExecutorQueue();
+
+        Assert.assertEquals(List.of("user_blocking", "user_visible", "best_effort"), order);
+    }
+
+    @Test
+    public void testWakeupsAreCoalesced() {
+        TaskRunnerImpl taskRunner = new TaskRunnerImpl(TaskTraits.USER_VISIBLE);
+        int[] runCount = new int[1];
+        final int taskCount = 100;
+
+        for (int i = 0; i < taskCount; i++) {
+            taskRunner.execute(() -> runCount[0]++);
+        }
+
+        Assert.assertEquals(PreNativeTaskScheduler.MAX_WORKERS, mExecutorQueue.size());
+        runExecutorQueue();
+        Assert.assertEquals(taskCount, runCount[0]);
+    }
+
+    @Test
+    public void testQueuedTasksMigrateToNativeInOrder() {
+        FakeTaskRunnerImplNatives natives = new FakeTaskRunnerImplNatives();
+        TaskRunnerImplJni.setInstanceForTesting(natives);
+        TaskRunnerImpl taskRunner = new TaskRunnerImpl(TaskTraits.USER_VISIBLE);
+        List<Integer> order = new ArrayList<>();
+
+        taskRunner.execute(() -> order.add(1));
+        taskRunner.execute(() -> order.add(2));
+        taskRunner.execute(() -> order.add(3));
+        taskRunner.initNativeTaskRunner();
+
+        Assert.assertEquals(3, natives.mTaskIndices.size());
+        // Workers posted before native was initialized find nothing left to run.
+        runExecutorQueue();
+        Assert.assertTrue(order.isEmpty());
+        for (int taskIndex : natives.mTaskIndices) {
+            TaskRunnerImpl.runTask(taskIndex);
+        }
+        Assert.assertEquals(List.of(1, 2, 3), order);
+    }
+
+    private static class FakeTaskRunnerImplNatives implements TaskRunnerImpl.Natives {
+        final List<Integer> mTaskIndices = new ArrayList<>();
+
+        @Override
+        public long init(int taskRunnerType, int taskTraits) {
+            return 1;
+        }
+
+        @Override
+        public void destroy(long nativeTaskRunnerAndroid) {}
+
+        @Override
+        public void postDelayedTask(long nativeTaskRunnerAndroid, long delay, int taskIndex) {
+            mTaskIndices.add(taskIndex);
+        }
+
+        @Override
+        public void postDelayedTaskWithLocation(
+                long nativeTaskRunnerAndroid,
+                long delay,
+                int taskIndex,
+                String fileName,
+                String functionName,
+                int lineNumber) {
+            mTaskIndices.add(taskIndex);
+        }
+    }
+}
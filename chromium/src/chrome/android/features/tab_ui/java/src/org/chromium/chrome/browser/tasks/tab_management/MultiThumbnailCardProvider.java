@@ -412,7 +412,7 @@ public class MultiThumbnailCardProvider implements ThumbnailProvider {
             mThumbnailBasePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
             mCanvas.drawBitmap(thumbnail, m, mThumbnailBasePaint);
             mCanvas.restore();
-            thumbnail.recycle();
+            // The thumbnail may be shared with other callers, so it is not recycled.
         }
 
         private void drawFaviconDrawableOnCanvasWithFrame(Drawable favicon, int index) {
@@ -481,9 +481,16 @@ public class StripLayoutHelper
     // Internal State
     private StripLayoutView[] mStripViews = new StripLayoutView[0];
     private StripLayoutTab[] mStripTabs = new StripLayoutTab[0];
-    private StripLayoutTab[] mStripTabsToRender = new StripLayoutTab[0];
     private StripLayoutGroupTitle[] mStripGroupTitles = new StripLayoutGroupTitle[0];
+
+    // Render lists, reused across layout passes. Only the first *RenderCount entries are valid.
+    private StripLayoutTab[] mStripTabsToRender = new StripLayoutTab[0];
+    private int mStripTabsToRenderCount;
     private StripLayoutGroupTitle[] mStripGroupTitlesToRender = new StripLayoutGroupTitle[0];
+    private int mStripGroupTitlesToRenderCount;
+
+    // Scratch array of the views that aren't dragged off the strip, reused across layout passes.
+    private StripLayoutView[] mViewsOnStrip = new StripLayoutView[0];
     private @Nullable StripLayoutTab mTabAtPositionForTesting;
     private final StripTabEventHandler mStripTabEventHandler = new StripTabEventHandler();
     private final TabLoadTrackerCallback mTabLoadTrackerHost = new TabLoadTrackerCallbackImpl();
@@ -935,16 +942,34 @@ public class StripLayoutHelper
         return mTouchableRect;
     }
 
-    /** Returns the visually ordered list of visible {@link StripLayoutTab}s. */
+    /**
+     * Returns the visually ordered list of visible {@link StripLayoutTab}s. The array is reused
+     * across layout passes, and only its first {@link #getStripLayoutTabsToRenderCount()} entries
+     * are valid.
+     */
     public StripLayoutTab[] getStripLayoutTabsToRender() {
         return mStripTabsToRender;
     }
 
-    /** Returns the visually ordered list of visible {@link StripLayoutGroupTitle}s. */
+    /** Returns the number of valid entries of {@link #getStripLayoutTabsToRender()}. */
+    public int getStripLayoutTabsToRenderCount() {
+        return mStripTabsToRenderCount;
+    }
+
+    /**
+     * Returns the visually ordered list of visible {@link StripLayoutGroupTitle}s. The array is
+     * reused across layout passes, and only its first {@link
+     * #getStripLayoutGroupTitlesToRenderCount()} entries are valid.
+     */
     public StripLayoutGroupTitle[] getStripLayoutGroupTitlesToRender() {
         return mStripGroupTitlesToRender;
     }
 
+    /** Returns the number of valid entries of {@link #getStripLayoutGroupTitlesToRender()}. */
+    public int getStripLayoutGroupTitlesToRenderCount() {
+        return mStripGroupTitlesToRenderCount;
+    }
+
     /**
      * Returns a {@link TintedCompositorButton} that represents the positioning of the new tab
      * button.
@@ -2052,6 +2077,9 @@ public class StripLayoutHelper
         boolean anyVisibilityChange = false;
 
         final int count = mStripTabs.length;
+        // The bounds sum the widths of the pinned tabs, so they are only computed once.
+        final float visibleLeftBound = getVisibleLeftBound(/* clampToUnpinnedViews= */ true);
+        final float visibleRightBound = getVisibleRightBound(/* clampToUnpinnedViews= */ true);
 
         for (int i = 0; i < count; i++) {
             final StripLayoutTab tab = mStripTabs[i];
@@ -2062,8 +2090,8 @@ public class StripLayoutHelper
                             isLastTab,
                             mLeftFadeWidth,
                             mRightFadeWidth,
-                            getVisibleLeftBound(/* clampToUnpinnedViews= */ true),
-                            getVisibleRightBound(/* clampToUnpinnedViews= */ true),
+                            visibleLeftBound,
+                            visibleRightBound,
                             mNewTabButton,
                             mIsFirstLayoutPass);
         }
@@ -2085,8 +2113,12 @@ public class StripLayoutHelper
     private void updateTabContainersAndDividers() {
         int hoveredId = mLastHoveredTab != null ? mLastHoveredTab.getTabId() : Tab.INVALID_TAB_ID;
 
-        StripLayoutView[] viewsOnStrip = StripLayoutUtils.getViewsOnStrip(mStripViews);
-        for (int i = 0; i < viewsOnStrip.length; ++i) {
+        if (mViewsOnStrip.length < mStripViews.length) {
+            mViewsOnStrip = new StripLayoutView[mStripViews.length];
+        }
+        final StripLayoutView[] viewsOnStrip = mViewsOnStrip;
+        final int viewsOnStripCount = StripLayoutUtils.getViewsOnStrip(mStripViews, viewsOnStrip);
+        for (int i = 0; i < viewsOnStripCount; ++i) {
             if (!(viewsOnStrip[i] instanceof StripLayoutTab currTab)) continue;
 
             // 1. Set container visibility. Handled in a separate animation for hovered tabs.
@@ -2114,7 +2146,7 @@ public class StripLayoutHelper
             if (currTab.shouldForceHideEndDivider()) {
                 currTab.setEndDividerVisible(/* visible= */ false);
             } else {
-                boolean isLastTab = i == (viewsOnStrip.length - 1);
+                boolean isLastTab = i == (viewsOnStripCount - 1);
                 boolean endDividerVisible =
                         (isLastTab || viewsOnStrip[i + 1] instanceof StripLayoutGroupTitle)
                                 && currContainerHidden
@@ -3788,16 +3820,21 @@ public class StripLayoutHelper
         // 1. Finish animations.
         finishAnimations();
 
-        // 2. Figure out which tabs need to be closed.
-        ArrayList<StripLayoutTab> tabsToRemove = new ArrayList<>();
+        // 2. Figure out which tabs need to be closed. Most calls don't close any tab, so the list
+        // is only allocated when needed.
+        @Nullable ArrayList<StripLayoutTab> tabsToRemove = null;
         for (StripLayoutTab tab : mStripTabs) {
-            if (tab.isDying() && !tab.shouldSkipAsyncClosure()) tabsToRemove.add(tab);
+            if (tab.isDying() && !tab.shouldSkipAsyncClosure()) {
+                if (tabsToRemove == null) tabsToRemove = new ArrayList<>();
+                tabsToRemove.add(tab);
+            }
         }
 
-        if (tabsToRemove.isEmpty()) return;
+        if (tabsToRemove == null) return;
+        final List<StripLayoutTab> closingTabs = tabsToRemove;
 
         // 3. Mark all StripLayoutTabs to remove as "closed".
-        for (StripLayoutTab tab : tabsToRemove) {
+        for (StripLayoutTab tab : closingTabs) {
             tab.setIsClosed(true);
         }
 
@@ -3810,7 +3847,7 @@ public class StripLayoutHelper
                 TaskTraits.UI_DEFAULT,
                 () -> {
                     if (mModel == null) return;
-                    for (StripLayoutTab stripTab : tabsToRemove) {
+                    for (StripLayoutTab stripTab : closingTabs) {
                         @Nullable Tab tab = mModel.getTabById(stripTab.getTabId());
                         if (tab == null) continue;
                         // Tab group closure related dialogs are handled elsewhere and any logic
@@ -3823,7 +3860,7 @@ public class StripLayoutHelper
                                                 .build());
                     }
 
-                    if (!tabsToRemove.isEmpty()) mUpdateHost.requestUpdate();
+                    if (!closingTabs.isEmpty()) mUpdateHost.requestUpdate();
                 });
     }
 
@@ -4090,44 +4127,46 @@ public class StripLayoutHelper
      * direction based on {@link ChromeFeatureList#TAB_STRIP_AUTO_SELECT_ON_CLOSE_CHANGE}.
      */
     private int getNearbyTabIndex(Collection<StripLayoutTab> excludedTabs) {
-        // Have to create a copy of the list, so that the reverse doesn't affect the original array.
-        List<StripLayoutTab> allTabs = new ArrayList<>(Arrays.asList(mStripTabs));
-        if (ChromeFeatureList.isEnabled(ChromeFeatureList.TAB_STRIP_AUTO_SELECT_ON_CLOSE_CHANGE)) {
-            // If the flag is enabled, reverse the order of tabs to prefer picking a nearby tab
-            // after (as opposed to before) the excluded tabs.
-            Collections.reverse(allTabs);
-        }
-        return getNearbyTabIndex(allTabs, excludedTabs);
+        // If the flag is enabled, walk the tabs in reverse order to prefer picking a nearby tab
+        // after (as opposed to before) the excluded tabs.
+        boolean reverse =
+                ChromeFeatureList.isEnabled(ChromeFeatureList.TAB_STRIP_AUTO_SELECT_ON_CLOSE_CHANGE);
+        return getNearbyTabIndex(mStripTabs, reverse, excludedTabs);
     }
 
     /**
-     * Wrapper for {@link #getNearbyTabIndex(Collection, Collection, boolean)}. Prioritizes expanded
-     * tabs, if possible.
+     * Wrapper for {@link #getNearbyTabIndex(StripLayoutTab[], boolean, Collection, boolean)}.
+     * Prioritizes expanded tabs, if possible.
      */
     private int getNearbyTabIndex(
-            Collection<StripLayoutTab> allTabs, Collection<StripLayoutTab> excludedTabs) {
-        int nearbyIndex = getNearbyTabIndex(allTabs, excludedTabs, /* ignoreCollapsedTabs= */ true);
+            StripLayoutTab[] allTabs, boolean reverse, Collection<StripLayoutTab> excludedTabs) {
+        int nearbyIndex =
+                getNearbyTabIndex(
+                        allTabs, reverse, excludedTabs, /* ignoreCollapsedTabs= */ true);
         if (nearbyIndex != TabModel.INVALID_TAB_INDEX) return nearbyIndex;
-        return getNearbyTabIndex(allTabs, excludedTabs, /* ignoreCollapsedTabs= */ false);
+        return getNearbyTabIndex(allTabs, reverse, excludedTabs, /* ignoreCollapsedTabs= */ false);
     }
 
     /**
      * Returns The index of a tab nearest to the excluded tabs. Can include or ignore collapsed
-     * tabs. Prioritizes tabs before the {@code excludedTabs} in {@code allTabs}, though the
-     * ordering of {@param allTabs} does not necessarily reflect that of the {@link TabModel}.
+     * tabs. Prioritizes tabs before the {@code excludedTabs} in the order {@code allTabs} are
+     * walked in, though that order does not necessarily reflect that of the {@link TabModel}.
      *
-     * @param allTabs All of the {@link StripLayoutTab}s. Ordered to either prefer picking tabs
-     *     before or after the excluded tabs, in the {@link TabModel}.
+     * @param allTabs All of the {@link StripLayoutTab}s.
+     * @param reverse Whether to walk {@code allTabs} in reverse order, to prefer picking tabs after
+     *     rather than before the excluded tabs, in the {@link TabModel}.
      * @param excludedTabs The excluded {@link StripLayoutTab}s.
      * @param ignoreCollapsedTabs Whether we should include collapsed tabs or not.
      */
     private int getNearbyTabIndex(
-            Collection<StripLayoutTab> allTabs,
+            StripLayoutTab[] allTabs,
+            boolean reverse,
             Collection<StripLayoutTab> excludedTabs,
             boolean ignoreCollapsedTabs) {
         StripLayoutTab nearbyTab = null;
         boolean seenExcludedTab = false;
-        for (StripLayoutTab tab : allTabs) {
+        for (int i = 0; i < allTabs.length; i++) {
+            final StripLayoutTab tab = allTabs[reverse ? allTabs.length - 1 - i : i];
             // 1. If we encounter an excluded tab and already have a nearby tab, return its index.
             if (excludedTabs.contains(tab)) {
                 if (nearbyTab != null) return findIndexForTab(nearbyTab.getTabId());
@@ -4457,9 +4496,8 @@ public class StripLayoutHelper
         mStripViews[viewIndex] = mStripTabs[mStripTabs.length - 1];
 
         // Destroy TabBubbler for removed group titles.
-        List<StripLayoutGroupTitle> newGroupTitles = new ArrayList<>(Arrays.asList(groupTitles));
         for (StripLayoutGroupTitle groupTitle : mStripGroupTitles) {
-            if (!newGroupTitles.contains(groupTitle)) {
+            if (!StripLayoutUtils.arrayContains(groupTitles, groupTitle)) {
                 groupTitle.setTabBubbler(null);
             }
         }
@@ -4961,38 +4999,37 @@ public class StripLayoutHelper
         return view.isVisible() && !view.isDraggedOffStrip();
     }
 
-    private int getVisibleViewCount(StripLayoutView[] views) {
-        int renderCount = 0;
-        for (int i = 0; i < views.length; ++i) {
-            if (shouldRenderView(views[i])) renderCount++;
-        }
-        return renderCount;
-    }
-
-    private void populateVisibleViews(StripLayoutView[] allViews, StripLayoutView[] viewsToRender) {
+    /**
+     * Copies the views of {@code allViews} that should be rendered to {@code viewsToRender}, which
+     * must be at least as long as {@code allViews}. Clears the rest of {@code viewsToRender}, so
+     * that it doesn't keep views removed from the strip alive.
+     *
+     * @return The number of views to render.
+     */
+    private int populateVisibleViews(StripLayoutView[] allViews, StripLayoutView[] viewsToRender) {
         int renderIndex = 0;
         for (int i = 0; i < allViews.length; ++i) {
             final StripLayoutView view = allViews[i];
             if (shouldRenderView(view)) viewsToRender[renderIndex++] = view;
         }
+        Arrays.fill(viewsToRender, renderIndex, viewsToRender.length, null);
+        return renderIndex;
     }
 
     private void createRenderList() {
-        // 1. Figure out how many tabs will need to be rendered.
-        int tabRenderCount = getVisibleViewCount(mStripTabs);
-        int groupTitleRenderCount = getVisibleViewCount(mStripGroupTitles);
-
-        // 2. Reallocate the render list if necessary.
-        if (mStripTabsToRender.length != tabRenderCount) {
-            mStripTabsToRender = new StripLayoutTab[tabRenderCount];
+        // 1. Grow the render lists if necessary. They are only reallocated when the strip gets
+        // more views than ever before, not whenever views get in or out of the visible area.
+        if (mStripTabsToRender.length < mStripTabs.length) {
+            mStripTabsToRender = new StripLayoutTab[mStripTabs.length];
         }
-        if (mStripGroupTitlesToRender.length != groupTitleRenderCount) {
-            mStripGroupTitlesToRender = new StripLayoutGroupTitle[groupTitleRenderCount];
+        if (mStripGroupTitlesToRender.length < mStripGroupTitles.length) {
+            mStripGroupTitlesToRender = new StripLayoutGroupTitle[mStripGroupTitles.length];
         }
 
-        // 3. Populate it with the visible tabs.
-        populateVisibleViews(mStripTabs, mStripTabsToRender);
-        populateVisibleViews(mStripGroupTitles, mStripGroupTitlesToRender);
+        // 2. Populate them with the visible views.
+        mStripTabsToRenderCount = populateVisibleViews(mStripTabs, mStripTabsToRender);
+        mStripGroupTitlesToRenderCount =
+                populateVisibleViews(mStripGroupTitles, mStripGroupTitlesToRender);
     }
 
     /**
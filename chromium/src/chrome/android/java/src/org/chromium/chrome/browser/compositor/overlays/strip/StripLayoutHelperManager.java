@@ -860,7 +860,9 @@ public class StripLayoutHelperManager
                 mLayerTitleCacheSupplier.get(),
                 resourceManager,
                 getActiveStripLayoutHelper().getStripLayoutTabsToRender(),
+                getActiveStripLayoutHelper().getStripLayoutTabsToRenderCount(),
                 getActiveStripLayoutHelper().getStripLayoutGroupTitlesToRender(),
+                getActiveStripLayoutHelper().getStripLayoutGroupTitlesToRenderCount(),
                 yOffset,
                 selectedTabId,
                 hoveredTabId,
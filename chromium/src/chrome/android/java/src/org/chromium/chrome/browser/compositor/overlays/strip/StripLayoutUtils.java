@@ -26,6 +26,7 @@ import org.chromium.components.tab_group_sync.TabGroupSyncService;
 import org.chromium.ui.base.LocalizationUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Supplier;
@@ -341,6 +342,25 @@ public class StripLayoutUtils {
         return viewsOnStrip;
     }
 
+    /**
+     * Allocation-free version of {@link #getViewsOnStrip(StripLayoutView[])}, for the layout pass.
+     *
+     * @param views The list of {@link StripLayoutView}.
+     * @param viewsOnStrip Receives the views that have not been dragged off the strip. Must be at
+     *     least as long as {@code views}. Its remaining entries are cleared.
+     * @return The number of views written to {@code viewsOnStrip}.
+     */
+    public static int getViewsOnStrip(StripLayoutView[] views, StripLayoutView[] viewsOnStrip) {
+        assert viewsOnStrip.length >= views.length;
+        int index = 0;
+        for (int i = 0; i < views.length; ++i) {
+            final StripLayoutView view = views[i];
+            if (!view.isDraggedOffStrip()) viewsOnStrip[index++] = view;
+        }
+        Arrays.fill(viewsOnStrip, index, viewsOnStrip.length, null);
+        return index;
+    }
+
     // ============================================================================================
     // Array helpers
     // ============================================================================================
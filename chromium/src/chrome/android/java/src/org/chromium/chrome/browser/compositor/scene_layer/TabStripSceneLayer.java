@@ -95,6 +95,10 @@ public class TabStripSceneLayer extends SceneOverlayLayer {
      * @param layerTitleCache A layer title cache.
      * @param resourceManager A resource manager.
      * @param stripLayoutTabsToRender Array of strip layout tabs.
+     * @param stripLayoutTabsToRenderCount Number of tabs to render, at the start of the array.
+     * @param stripLayoutGroupTitlesToRender Array of strip layout group titles.
+     * @param stripLayoutGroupTitlesToRenderCount Number of group titles to render, at the start
+     *     of the array.
      * @param yOffset Current browser controls offset in dp.
      * @param selectedTabId The ID of the selected tab.
      * @param hoveredTabId The ID of the hovered tab, if any. If no tab is hovered on, this ID will
@@ -107,7 +111,9 @@ public class TabStripSceneLayer extends SceneOverlayLayer {
             LayerTitleCache layerTitleCache,
             ResourceManager resourceManager,
             StripLayoutTab[] stripLayoutTabsToRender,
+            int stripLayoutTabsToRenderCount,
             StripLayoutGroupTitle[] stripLayoutGroupTitlesToRender,
+            int stripLayoutGroupTitlesToRenderCount,
             float yOffset,
             @TabId int selectedTabId,
             @TabId int hoveredTabId,
@@ -139,8 +145,16 @@ public class TabStripSceneLayer extends SceneOverlayLayer {
                     leftPaddingPx,
                     rightPaddingPx,
                     topPaddingPx);
-            pushGroupIndicators(stripLayoutGroupTitlesToRender, layerTitleCache);
-            pushStripTabs(layoutHelper, layerTitleCache, stripLayoutTabsToRender, selectedTabId);
+            pushGroupIndicators(
+                    stripLayoutGroupTitlesToRender,
+                    stripLayoutGroupTitlesToRenderCount,
+                    layerTitleCache);
+            pushStripTabs(
+                    layoutHelper,
+                    layerTitleCache,
+                    stripLayoutTabsToRender,
+                    stripLayoutTabsToRenderCount,
+                    selectedTabId);
         }
         TabStripSceneLayerJni.get().finishBuildingFrame(mNativePtr);
     }
@@ -235,8 +249,8 @@ public class TabStripSceneLayer extends SceneOverlayLayer {
             StripLayoutHelperManager layoutHelper,
             LayerTitleCache layerTitleCache,
             StripLayoutTab[] stripTabs,
+            int tabsCount,
             @TabId int selectedTabId) {
-        final int tabsCount = stripTabs != null ? stripTabs.length : 0;
         final float widthToHideTabTitle =
                 StripLayoutUtils.shouldApplyMoreDensity() ? StripLayoutUtils.MIN_TAB_WIDTH_DP : 0.f;
 
@@ -319,8 +333,7 @@ public class TabStripSceneLayer extends SceneOverlayLayer {
     }
 
     /* package */ void pushGroupIndicators(
-            StripLayoutGroupTitle[] groupTitles, LayerTitleCache layerTitleCache) {
-        final int titlesCount = groupTitles != null ? groupTitles.length : 0;
+            StripLayoutGroupTitle[] groupTitles, int titlesCount, LayerTitleCache layerTitleCache) {
 
         for (int i = 0; i < titlesCount; i++) {
             final StripLayoutGroupTitle gt = groupTitles[i];
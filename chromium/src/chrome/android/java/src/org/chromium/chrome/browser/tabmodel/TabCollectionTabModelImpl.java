@@ -35,10 +35,12 @@ import org.chromium.build.annotations.Nullable;
 import org.chromium.chrome.browser.flags.ActivityType;
 import org.chromium.chrome.browser.flags.ChromeFeatureList;
 import org.chromium.chrome.browser.profiles.Profile;
+import org.chromium.chrome.browser.tab.EmptyTabObserver;
 import org.chromium.chrome.browser.tab.Tab;
 import org.chromium.chrome.browser.tab.TabCreationState;
 import org.chromium.chrome.browser.tab.TabId;
 import org.chromium.chrome.browser.tab.TabLaunchType;
+import org.chromium.chrome.browser.tab.TabObserver;
 import org.chromium.chrome.browser.tab.TabSelectionType;
 import org.chromium.chrome.browser.tab.TabUtils;
 import org.chromium.chrome.browser.tab_group_sync.TabGroupSyncFeatures;
@@ -187,6 +189,7 @@ public class TabCollectionTabModelImpl extends TabModelJniBridge
                                     tabGroupId,
                                     restoredTabGroup,
                                     tab.getIsPinned());
+            mTabListIndex = null;
 
             if (restoredTabGroup) {
                 assumeNonNull(tabGroupId);
@@ -196,6 +199,7 @@ public class TabCollectionTabModelImpl extends TabModelJniBridge
             tab.onAddedToTabModel(
                     mCurrentTabSupplier, TabCollectionTabModelImpl.this::isTabMultiSelected);
             mTabIdToTabs.put(tab.getId(), tab);
+            tab.addObserver(mTabUrlObserver);
             mTabCountSupplier.set(assumeNonNull(mTabCountSupplier.get()) + 1);
 
             WebContents webContents = tab.getWebContents();
@@ -290,6 +294,17 @@ public class TabCollectionTabModelImpl extends TabModelJniBridge
     // counterparts.
     private final Map<Integer, Tab> mTabIdToTabs = new HashMap<>();
 
+    // Lookups of tab indices by id and URL, built from a single getAllTabs() call on demand. Any
+    // call that adds, removes or moves tabs in the native collection must drop it afterwards.
+    private @Nullable TabListIndex mTabListIndex;
+    private final TabObserver mTabUrlObserver =
+            new EmptyTabObserver() {
+                @Override
+                public void onUrlUpdated(Tab tab) {
+                    if (mTabListIndex != null) mTabListIndex.invalidateUrls();
+                }
+            };
+
     private final boolean mIsArchivedTabModel;
     private final TabCreator mRegularTabCreator;
     private final TabCreator mIncognitoTabCreator;
@@ -369,8 +384,10 @@ public class TabCollectionTabModelImpl extends TabModelJniBridge
             TabCollectionTabModelImplJni.get().destroy(mNativeTabCollectionTabModelImplPtr);
             mNativeTabCollectionTabModelImplPtr = 0;
         }
+        mTabListIndex = null;
 
         for (Tab tab : tabs) {
+            tab.removeObserver(mTabUrlObserver);
             if (mModelDelegate.isReparentingInProgress()
                     && mAsyncTabParamsManager.hasParamsForTabId(tab.getId())) {
                 continue;
@@ -431,6 +448,15 @@ public class TabCollectionTabModelImpl extends TabModelJniBridge
                 .getIndexOfTabRecursive(mNativeTabCollectionTabModelImplPtr, tab);
     }
 
+    @Override
+    public @Nullable TabListIndex getTabListIndex() {
+        assertOnUiThread();
+        if (mNativeTabCollectionTabModelImplPtr == 0) return null;
+        if (mTabListIndex == null) mTabListIndex = new TabListIndex(getAllTabs());
+        assert mTabListIndex.getCount() == getCount() : "Stale TabListIndex.";
+        return mTabListIndex;
+    }
+
     @Override
     public Iterator<Tab> iterator() {
         return getAllTabs().iterator();
@@ -741,6 +767,7 @@ public class TabCollectionTabModelImpl extends TabModelJniBridge
                                 tabGroupId,
                                 createNewGroup,
                                 tab.getIsPinned());
+        mTabListIndex = null;
 
         // When adding the first background tab make sure to select it.
         if (!isActiveModel() && !hasAnyTabs && !selectTab) {
@@ -749,6 +776,7 @@ public class TabCollectionTabModelImpl extends TabModelJniBridge
 
         tab.onAddedToTabModel(mCurrentTabSupplier, this::isTabMultiSelected);
         mTabIdToTabs.put(tab.getId(), tab);
+        tab.addObserver(mTabUrlObserver);
         mTabCountSupplier.set(getCount());
 
         if (tabGroupId != null && getTabsInGroup(tabGroupId).size() == 1) {
@@ -1039,6 +1067,7 @@ public class TabCollectionTabModelImpl extends TabModelJniBridge
         int finalIndex =
                 TabCollectionTabModelImplJni.get()
                         .moveTabGroupTo(mNativeTabCollectionTabModelImplPtr, tabGroupId, newIndex);
+        mTabListIndex = null;
 
         if (finalIndex == curIndex) return;
 
@@ -1712,7 +1741,9 @@ public class TabCollectionTabModelImpl extends TabModelJniBridge
             // collection in a single pass.
             TabCollectionTabModelImplJni.get()
                     .removeTabRecursive(mNativeTabCollectionTabModelImplPtr, tab);
+            mTabListIndex = null;
             tab.onRemovedFromTabModel(mCurrentTabSupplier);
+            tab.removeObserver(mTabUrlObserver);
             mTabIdToTabs.remove(tab.getId());
         }
         mTabCountSupplier.set(getCount());
@@ -2084,6 +2115,7 @@ public class TabCollectionTabModelImpl extends TabModelJniBridge
                                 newIndex,
                                 newTabGroupId,
                                 isPinned);
+        mTabListIndex = null;
 
         // Ensure the current tab is always the last shown tab in its group.
         Tab currentTab = mCurrentTabSupplier.get();
@@ -0,0 +1,355 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.compositor.overlays.strip;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import android.app.Activity;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.Robolectric;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.annotation.LooperMode.Mode;
+
+import org.chromium.base.Callback;
+import org.chromium.base.CallbackUtils;
+import org.chromium.base.Log;
+import org.chromium.base.test.BaseRobolectricTestRunner;
+import org.chromium.base.test.util.DisabledTest;
+import org.chromium.base.test.util.Features.DisableFeatures;
+import org.chromium.chrome.R;
+import org.chromium.chrome.browser.collaboration.CollaborationServiceFactory;
+import org.chromium.chrome.browser.collaboration.messaging.MessagingBackendServiceFactory;
+import org.chromium.chrome.browser.compositor.LayerTitleCache;
+import org.chromium.chrome.browser.compositor.layouts.LayoutManagerHost;
+import org.chromium.chrome.browser.compositor.layouts.LayoutRenderHost;
+import org.chromium.chrome.browser.compositor.layouts.LayoutUpdateHost;
+import org.chromium.chrome.browser.compositor.layouts.components.CompositorButton;
+import org.chromium.chrome.browser.compositor.overlays.strip.reorder.TabStripDragHandler;
+import org.chromium.chrome.browser.data_sharing.DataSharingServiceFactory;
+import org.chromium.chrome.browser.data_sharing.DataSharingTabManager;
+import org.chromium.chrome.browser.flags.ChromeFeatureList;
+import org.chromium.chrome.browser.layouts.animation.CompositorAnimationHandler;
+import org.chromium.chrome.browser.multiwindow.MultiInstanceManager;
+import org.chromium.chrome.browser.profiles.Profile;
+import org.chromium.chrome.browser.share.ShareDelegate;
+import org.chromium.chrome.browser.tab.Tab;
+import org.chromium.chrome.browser.tab_group_sync.TabGroupSyncServiceFactory;
+import org.chromium.chrome.browser.tab_ui.ActionConfirmationManager;
+import org.chromium.chrome.browser.tabmodel.TabClosureParams;
+import org.chromium.chrome.browser.tabmodel.TabCreator;
+import org.chromium.chrome.browser.tabmodel.TabGroupModelFilter;
+import org.chromium.chrome.browser.tabmodel.TabModelActionListener;
+import org.chromium.chrome.browser.tabmodel.TabRemover;
+import org.chromium.chrome.browser.tasks.tab_management.TabGroupListBottomSheetCoordinatorFactory;
+import org.chromium.components.browser_ui.bottomsheet.BottomSheetController;
+import org.chromium.components.collaboration.CollaborationService;
+import org.chromium.components.collaboration.ServiceStatus;
+import org.chromium.components.collaboration.messaging.MessagingBackendService;
+import org.chromium.components.data_sharing.DataSharingService;
+import org.chromium.components.tab_group_sync.TabGroupSyncService;
+import org.chromium.ui.base.LocalizationUtils;
+import org.chromium.ui.base.WindowAndroid;
+import org.chromium.ui.shadows.ShadowAppCompatResources;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+
+/**
+ * Allocation checks and benchmarks of {@link StripLayoutHelper#updateLayout(long)} while the strip
+ * is scrolled.
+ *
+ * <p>Allocations are only measured on JVMs exposing per-thread allocation counters, and include
+ * the ones made by the test doubles of the visible tabs. The timing benchmarks are disabled, and
+ * are meant to be run manually.
+ */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(
+        manifest = Config.NONE,
+        qualifiers = "sw600dp",
+        shadows = {ShadowAppCompatResources.class})
+@LooperMode(Mode.LEGACY)
+@DisableFeatures({
+    ChromeFeatureList.DATA_SHARING,
+    ChromeFeatureList.TAB_STRIP_MOUSE_CLOSE_RESIZE_DELAY
+})
+public class StripLayoutHelperBenchmarkTest {
+    private static final float SCREEN_WIDTH = 1200.f;
+    private static final float SCREEN_HEIGHT = 40.f;
+    private static final float SCROLL_STEP = 12.f;
+    private static final int SCROLL_STEPS = 100;
+    private static final int WARMUP_PASSES = 200;
+    private static final int MEASURED_PASSES = 500;
+    private static final int ALLOCATION_WARMUP_PASSES = 50;
+    private static final int ALLOCATION_MEASURED_PASSES = 100;
+    private static final long TIMESTAMP = 5000;
+    private static final String TAG = "StripBenchmark";
+
+    // Both strips overflow the screen, so they show the same tabs at a given scroll offset.
+    private static final int SMALL_STRIP_TAB_COUNT = 50;
+    private static final int LARGE_STRIP_TAB_COUNT = 200;
+
+    // Slack for the allocations that depend on the JIT state rather than on the strip.
+    private static final long MAX_EXTRA_BYTES_PER_PASS = 64;
+
+    @Rule public MockitoRule mMockitoRule = MockitoJUnit.rule();
+
+    @Mock private View mInteractingTabView;
+    @Mock private CompositorButton mModelSelectorBtn;
+    @Mock private TabGroupModelFilter mTabGroupModelFilter;
+    @Mock private View mToolbarContainerView;
+    @Mock private Profile mProfile;
+    @Mock private TabStripDragHandler mTabStripDragHandler;
+    @Mock private WindowAndroid mWindowAndroid;
+    @Mock private LayerTitleCache mLayerTitleCache;
+    @Mock private ActionConfirmationManager mActionConfirmationManager;
+    @Mock private DataSharingTabManager mDataSharingTabManager;
+    @Mock private BottomSheetController mBottomSheetController;
+    @Mock private MultiInstanceManager mMultiInstanceManager;
+    @Mock private ShareDelegate mShareDelegate;
+    @Mock private TabGroupListBottomSheetCoordinatorFactory mBottomSheetCoordinatorFactory;
+    @Mock private TabCreator mTabCreator;
+    @Mock private TabGroupSyncService mTabGroupSyncService;
+    @Mock private DataSharingService mDataSharingService;
+    @Mock private CollaborationService mCollaborationService;
+    @Mock private MessagingBackendService mMessagingBackendService;
+    @Mock private ServiceStatus mServiceStatus;
+    @Mock private TabStripIphController mController;
+
+    // The hosts are called on every layout pass, so they don't record their invocations.
+    private final StripLayoutHelperManager mManager =
+            mock(StripLayoutHelperManager.class, withSettings().stubOnly());
+    private final LayoutManagerHost mManagerHost =
+            mock(LayoutManagerHost.class, withSettings().stubOnly());
+    private final LayoutUpdateHost mUpdateHost =
+            mock(LayoutUpdateHost.class, withSettings().stubOnly());
+    private final LayoutRenderHost mRenderHost =
+            mock(LayoutRenderHost.class, withSettings().stubOnly());
+
+    private final TestTabModel mModel = spy(new TestTabModel());
+    private Activity mActivity;
+    private StripLayoutHelper mStripLayoutHelper;
+
+    @Before
+    public void setUp() {
+        when(mTabGroupModelFilter.isTabInTabGroup(any())).thenReturn(false);
+        when(mTabGroupModelFilter.getTabModel()).thenReturn(mModel);
+        mModel.setTabRemover(new TestTabRemover());
+
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mActivity.setTheme(R.style.Theme_BrowserUI_DayNight);
+        when(mWindowAndroid.getActivity()).thenReturn(new WeakReference<>(mActivity));
+        CompositorAnimationHandler.setTestingMode(true);
+        when(mUpdateHost.getAnimationHandler())
+                .thenReturn(new CompositorAnimationHandler(CallbackUtils.emptyRunnable()));
+        when(mModel.getProfile()).thenReturn(mProfile);
+        DataSharingServiceFactory.setForTesting(mDataSharingService);
+        TabGroupSyncServiceFactory.setForTesting(mTabGroupSyncService);
+        CollaborationServiceFactory.setForTesting(mCollaborationService);
+        MessagingBackendServiceFactory.setForTesting(mMessagingBackendService);
+        when(mCollaborationService.getServiceStatus()).thenReturn(mServiceStatus);
+        when(mServiceStatus.isAllowedToJoin()).thenReturn(false);
+    }
+
+    @After
+    public void tearDown() {
+        CompositorAnimationHandler.setTestingMode(false);
+        if (mStripLayoutHelper != null) {
+            mStripLayoutHelper.setRunningAnimatorForTesting(null);
+        }
+    }
+
+    @Test
+    public void testUpdateLayout_doesNotAllocatePerTab() {
+        assumeAllocatedBytesSupported();
+
+        long smallStripBytesPerPass = measureBytesPerPass(SMALL_STRIP_TAB_COUNT);
+        long largeStripBytesPerPass = measureBytesPerPass(LARGE_STRIP_TAB_COUNT);
+
+        assertTrue(
+                String.format(
+                        Locale.US,
+                        "%d tabs: %d B/pass, %d tabs: %d B/pass",
+                        SMALL_STRIP_TAB_COUNT,
+                        smallStripBytesPerPass,
+                        LARGE_STRIP_TAB_COUNT,
+                        largeStripBytesPerPass),
+                largeStripBytesPerPass <= smallStripBytesPerPass + MAX_EXTRA_BYTES_PER_PASS);
+    }
+
+    @Test
+    @DisabledTest(message = "Benchmark, only run manually.")
+    public void testUpdateLayout_10Tabs() {
+        runUpdateLayoutBenchmark(10);
+    }
+
+    @Test
+    @DisabledTest(message = "Benchmark, only run manually.")
+    public void testUpdateLayout_100Tabs() {
+        runUpdateLayoutBenchmark(100);
+    }
+
+    @Test
+    @DisabledTest(message = "Benchmark, only run manually.")
+    public void testUpdateLayout_500Tabs() {
+        runUpdateLayoutBenchmark(500);
+    }
+
+    /** Returns the bytes allocated per layout pass of a strip of |numTabs| tabs. */
+    private long measureBytesPerPass(int numTabs) {
+        initializeStrip(numTabs);
+        for (int i = 0; i < ALLOCATION_WARMUP_PASSES; i++) {
+            scrollAndUpdateLayout(i);
+        }
+
+        // The render list is reused while tabs scroll in and out of the visible area.
+        StripLayoutTab[] tabsToRender = mStripLayoutHelper.getStripLayoutTabsToRender();
+        long allocatedBytes = getAllocatedBytes();
+        for (int i = 0; i < ALLOCATION_MEASURED_PASSES; i++) {
+            scrollAndUpdateLayout(i);
+        }
+        long bytesPerPass = (getAllocatedBytes() - allocatedBytes) / ALLOCATION_MEASURED_PASSES;
+
+        assertSame(tabsToRender, mStripLayoutHelper.getStripLayoutTabsToRender());
+        assertTrue(mStripLayoutHelper.getStripLayoutTabsToRenderCount() > 0);
+        return bytesPerPass;
+    }
+
+    private void runUpdateLayoutBenchmark(int numTabs) {
+        initializeStrip(numTabs);
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            scrollAndUpdateLayout(i);
+        }
+
+        long allocatedBytes = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_PASSES; i++) {
+            scrollAndUpdateLayout(i);
+        }
+        long nanosPerPass = (System.nanoTime() - start) / MEASURED_PASSES;
+        long bytesPerPass =
+                allocatedBytes < 0 ? -1 : (getAllocatedBytes() - allocatedBytes) / MEASURED_PASSES;
+
+        Log.i(
+                TAG,
+                "StripLayoutHelper#updateLayout, %d tabs: %d ns/pass, %s B/pass",
+                numTabs,
+                nanosPerPass,
+                bytesPerPass < 0 ? "n/a" : Long.toString(bytesPerPass));
+    }
+
+    private void scrollAndUpdateLayout(int pass) {
+        mStripLayoutHelper.setScrollOffsetForTesting(-(pass % SCROLL_STEPS) * SCROLL_STEP);
+        mStripLayoutHelper.updateLayout(TIMESTAMP + pass);
+    }
+
+    /** Creates a strip of |numTabs| tabs, growing the tab model of a previous strip if any. */
+    private void initializeStrip(int numTabs) {
+        LocalizationUtils.setRtlForTesting(false);
+        if (mStripLayoutHelper != null) {
+            mStripLayoutHelper.setRunningAnimatorForTesting(null);
+        }
+        mStripLayoutHelper =
+                new StripLayoutHelper(
+                        mActivity,
+                        mManager,
+                        mManagerHost,
+                        mUpdateHost,
+                        mRenderHost,
+                        /* incognito= */ false,
+                        mModelSelectorBtn,
+                        mTabStripDragHandler,
+                        mToolbarContainerView,
+                        mWindowAndroid,
+                        mActionConfirmationManager,
+                        mDataSharingTabManager,
+                        () -> true,
+                        mBottomSheetController,
+                        mMultiInstanceManager,
+                        () -> mShareDelegate,
+                        mBottomSheetCoordinatorFactory);
+        for (int i = mModel.getCount(); i < numTabs; i++) {
+            mModel.addTab("Tab " + i);
+            when(mModel.getTabAt(i).isHidden()).thenReturn(i != 0);
+            when(mModel.getTabAt(i).getView()).thenReturn(mInteractingTabView);
+            when(mModel.getTabAt(i).getRootId()).thenReturn(i);
+        }
+        mModel.setIndex(0);
+        mStripLayoutHelper.tabModelSelected(/* selected= */ true);
+        mStripLayoutHelper.setTabModel(mModel, mTabCreator, true);
+        mStripLayoutHelper.setTabStripIphControllerForTesting(mController);
+        mStripLayoutHelper.setLayerTitleCache(mLayerTitleCache);
+        mStripLayoutHelper.setTabGroupModelFilter(mTabGroupModelFilter);
+        mStripLayoutHelper.tabSelected(0, 0, 0);
+        mStripLayoutHelper.onSizeChanged(
+                SCREEN_WIDTH, SCREEN_HEIGHT, false, TIMESTAMP, 0.f, 0.f, 0.f);
+        mStripLayoutHelper.finishAnimationsAndPushTabUpdates();
+    }
+
+    private static void assumeAllocatedBytesSupported() {
+        assumeTrue("Per-thread allocation counters are not available.", getAllocatedBytes() >= 0);
+    }
+
+    /** Returns the bytes allocated by the current thread so far, or -1 if unknown. */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean sunThreadBean =
+                (com.sun.management.ThreadMXBean) threadBean;
+        if (!sunThreadBean.isThreadAllocatedMemorySupported()) return -1;
+        return sunThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private final class TestTabRemover implements TabRemover {
+        @Override
+        public void closeTabs(
+                @NonNull TabClosureParams tabClosureParams,
+                boolean allowDialog,
+                @Nullable TabModelActionListener listener) {
+            forceCloseTabs(tabClosureParams);
+        }
+
+        @Override
+        public void prepareCloseTabs(
+                @NonNull TabClosureParams tabClosureParams,
+                boolean allowDialog,
+                @Nullable TabModelActionListener listener,
+                @NonNull Callback<TabClosureParams> onPreparedCallback) {
+            onPreparedCallback.onResult(tabClosureParams);
+        }
+
+        @Override
+        public void forceCloseTabs(@NonNull TabClosureParams tabClosureParams) {
+            mModel.closeTabs(tabClosureParams);
+        }
+
+        @Override
+        public void removeTab(
+                @NonNull Tab tab, boolean allowDialog, @Nullable TabModelActionListener listener) {
+            throw new AssertionError("Not reached.");
+        }
+    }
+}
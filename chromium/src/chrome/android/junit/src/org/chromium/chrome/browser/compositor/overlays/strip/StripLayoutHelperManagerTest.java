@@ -746,7 +746,9 @@ public class StripLayoutHelperManagerTest {
                         any(),
                         any(),
                         any(),
+                        anyInt(),
                         any(),
+                        anyInt(),
                         eq(0f),
                         eq(selectedTabId),
                         eq(hoveredTabId),
@@ -805,7 +807,9 @@ public class StripLayoutHelperManagerTest {
                         any(),
                         any(),
                         any(),
+                        anyInt(),
                         any(),
+                        anyInt(),
                         /* yOffset= */ eq(0f),
                         anyInt(),
                         anyInt(),
@@ -826,7 +830,9 @@ public class StripLayoutHelperManagerTest {
                         any(),
                         any(),
                         any(),
+                        anyInt(),
                         any(),
+                        anyInt(),
                         /* yOffset= */ eq(yOffset - TAB_STRIP_HEIGHT_PX),
                         anyInt(),
                         anyInt(),
@@ -984,7 +990,9 @@ public class StripLayoutHelperManagerTest {
                         any(),
                         any(),
                         any(),
+                        anyInt(),
                         any(),
+                        anyInt(),
                         /* yOffset= */ eq(yOffset - TAB_STRIP_HEIGHT_PX),
                         anyInt(),
                         anyInt(),
@@ -1011,7 +1019,9 @@ public class StripLayoutHelperManagerTest {
                         any(),
                         any(),
                         any(),
+                        anyInt(),
                         any(),
+                        anyInt(),
                         /* yOffset= */ eq(0f),
                         anyInt(),
                         anyInt(),
@@ -1032,7 +1042,9 @@ public class StripLayoutHelperManagerTest {
                         any(),
                         any(),
                         any(),
+                        anyInt(),
                         any(),
+                        anyInt(),
                         /* yOffset= */ eq(0f),
                         anyInt(),
                         anyInt(),
@@ -1497,7 +1509,9 @@ public class StripLayoutHelperManagerTest {
                         any(),
                         any(),
                         any(),
+                        anyInt(),
                         any(),
+                        anyInt(),
                         /* yOffset= */ eq(0f),
                         anyInt(),
                         anyInt(),
@@ -1518,7 +1532,9 @@ public class StripLayoutHelperManagerTest {
                         any(),
                         any(),
                         any(),
+                        anyInt(),
                         any(),
+                        anyInt(),
                         /* yOffset= */ eq(yOffset),
                         anyInt(),
                         anyInt(),
@@ -174,7 +174,9 @@ public class TabStripSceneLayerTest {
                 mLayerTitleCache,
                 mResourceManager,
                 mStripLayoutTabs,
-                null,
+                mStripLayoutTabs.length,
+                new StripLayoutGroupTitle[0],
+                0,
                 1.f,
                 0,
                 -1,
@@ -246,6 +248,7 @@ public class TabStripSceneLayerTest {
                 mStripLayoutHelperManager,
                 mLayerTitleCache,
                 new StripLayoutTab[] {mStripLayoutTab},
+                1,
                 0);
         verify(mTabStripSceneMock, times(1))
                 .putStripTabLayer(
@@ -313,6 +316,7 @@ public class TabStripSceneLayerTest {
                 mStripLayoutHelperManager,
                 mLayerTitleCache,
                 new StripLayoutTab[] {mStripLayoutTab},
+                1,
                 0);
         verify(mTabStripSceneMock, times(1))
                 .putStripTabLayer(
@@ -378,6 +382,7 @@ public class TabStripSceneLayerTest {
                 mStripLayoutHelperManager,
                 mLayerTitleCache,
                 new StripLayoutTab[] {mStripLayoutTab},
+                1,
                 mStripLayoutTab.getTabId());
         verify(mTabStripSceneMock, times(1))
                 .putStripTabLayer(
@@ -444,6 +449,7 @@ public class TabStripSceneLayerTest {
                 mStripLayoutHelperManager,
                 mLayerTitleCache,
                 new StripLayoutTab[] {mStripLayoutTab},
+                1,
                 0);
         verify(mTabStripSceneMock, times(1))
                 .putStripTabLayer(
@@ -506,7 +512,8 @@ public class TabStripSceneLayerTest {
     @Test
     public void testUpdateStrip_tabGroup_keyboardFocused() {
         when(mStripGroupTitle.isKeyboardFocused()).thenReturn(true);
-        mTabStripSceneLayer.pushGroupIndicators(mStripGroupTitles, mLayerTitleCache);
+        mTabStripSceneLayer.pushGroupIndicators(
+                mStripGroupTitles, mStripGroupTitles.length, mLayerTitleCache);
         verify(mTabStripSceneMock, times(1))
                 .putGroupIndicatorLayer(
                         eq(1L),
@@ -10,7 +10,6 @@ import static java.lang.Math.min;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.os.SystemClock;
@@ -108,6 +107,12 @@ public class TabContentManager {
     private final Context mContext;
     private final TabWindowManager mTabWindowManager;
 
+    /** Decoded JPEG thumbnails, shared by all the UI components showing thumbnails. */
+    private final TabThumbnailBitmapCache mThumbnailBitmapCache = new TabThumbnailBitmapCache();
+
+    /** The size thumbnails were last requested at, which visible thumbnails are prefetched at. */
+    private @Nullable Size mLastThumbnailSize;
+
     /** The Java interface for listening to thumbnail changes. */
     public interface ThumbnailChangeListener {
         /**
@@ -199,6 +204,7 @@ public class TabContentManager {
 
     /** Destroy the native component. */
     public void destroy() {
+        mThumbnailBitmapCache.destroy();
         if (mNativeTabContentManager != 0) {
             TabContentManagerJni.get().destroy(mNativeTabContentManager);
             mNativeTabContentManager = 0;
@@ -325,7 +331,8 @@ public class TabContentManager {
 
     /**
      * Call to get a thumbnail for a given tab through a {@link Callback}. If there is no up-to-date
-     * thumbnail on disk for the given tab, callback returns null.
+     * thumbnail on disk for the given tab, callback returns null. The thumbnail may be shared with
+     * other callers, so it must neither be recycled nor modified.
      *
      * @param tabId The ID of the tab to get the thumbnail for.
      * @param thumbnailSize Desired size of thumbnail received by callback.
@@ -338,6 +345,7 @@ public class TabContentManager {
             return;
         }
 
+        mLastThumbnailSize = thumbnailSize;
         getTabThumbnailFromDisk(tabId, thumbnailSize, callback);
     }
 
@@ -359,46 +367,7 @@ public class TabContentManager {
 
     @VisibleForTesting
     public static @Nullable Bitmap getJpegForTab(int tabId, Size thumbnailSize) {
-        File file = getTabThumbnailFileJpeg(tabId);
-        if (!file.isFile()) return null;
-        if (thumbnailSize.getWidth() <= 0 || thumbnailSize.getHeight() <= 0) {
-            return BitmapFactory.decodeFile(file.getPath());
-        }
-        return resizeJpeg(file.getPath(), thumbnailSize);
-    }
-
-    /**
-     * See https://developer.android.com/topic/performance/graphics/load-bitmap#load-bitmap.
-     * @param path Path of jpeg file.
-     * @param thumbnailSize Desired thumbnail size to resize to.
-     * @return Resized bitmap.
-     */
-    private static Bitmap resizeJpeg(String path, Size thumbnailSize) {
-        BitmapFactory.Options options = new BitmapFactory.Options();
-        options.inJustDecodeBounds = true;
-        BitmapFactory.decodeFile(path, options);
-
-        // Raw height and width of image.
-        final int height = options.outHeight;
-        final int width = options.outWidth;
-        int inSampleSize = 1;
-
-        if (height > thumbnailSize.getHeight() || width > thumbnailSize.getWidth()) {
-            final int halfHeight = height / 2;
-            final int halfWidth = width / 2;
-
-            // Calculate the largest inSampleSize value that is a power of 2 and keeps both
-            // height and width larger than the requested height and width.
-            while ((halfHeight / inSampleSize) >= thumbnailSize.getHeight()
-                    && (halfWidth / inSampleSize) >= thumbnailSize.getWidth()) {
-                inSampleSize *= 2;
-            }
-        }
-        options.inSampleSize = inSampleSize;
-
-        // Decode bitmap with inSampleSize set.
-        options.inJustDecodeBounds = false;
-        return BitmapFactory.decodeFile(path, options);
+        return TabThumbnailBitmapCache.decodeJpeg(getTabThumbnailFileJpeg(tabId), thumbnailSize);
     }
 
     private void getTabThumbnailFromDisk(
@@ -435,7 +404,7 @@ public class TabContentManager {
         PostTask.postDelayedTask(
                 TaskTraits.USER_VISIBLE_MAY_BLOCK,
                 () -> {
-                    Bitmap bitmap = getJpegForTab(tabId, thumbnailSize);
+                    Bitmap bitmap = mThumbnailBitmapCache.get(tabId, thumbnailSize);
                     PostTask.postTask(
                             TaskTraits.UI_USER_VISIBLE,
                             () -> onBitmapRead(tabId, thumbnailSize, attempts, bitmap, callback));
@@ -456,7 +425,7 @@ public class TabContentManager {
         PostTask.postTask(
                 TaskTraits.USER_VISIBLE_MAY_BLOCK,
                 () -> {
-                    Bitmap bitmap = getJpegForTab(tabId, thumbnailSize);
+                    Bitmap bitmap = mThumbnailBitmapCache.get(tabId, thumbnailSize);
                     PostTask.postTask(
                             TaskTraits.UI_USER_VISIBLE,
                             () -> {
@@ -588,6 +557,9 @@ public class TabContentManager {
             return;
         }
 
+        // The JPEG on disk is about to be replaced.
+        mThumbnailBitmapCache.invalidate(tab.getId());
+
         long startTime = SystemClock.elapsedRealtime();
         if (tab.getNativePage() != null || isNativeViewShowing(tab)) {
             // If we use readbackNativeBitmap() with a downsampled scale and not saving it through
@@ -646,6 +618,8 @@ public class TabContentManager {
      * @param url The current URL of the {@link Tab}.
      */
     public void invalidateIfChanged(int tabId, GURL url) {
+        // Only native knows whether the thumbnail changed, so the decoded one is always dropped.
+        mThumbnailBitmapCache.invalidate(tabId);
         if (mNativeTabContentManager != 0) {
             TabContentManagerJni.get().invalidateIfChanged(mNativeTabContentManager, tabId, url);
         }
@@ -662,24 +636,46 @@ public class TabContentManager {
      *     list.
      */
     public void updateVisibleIds(List<Integer> priority, int primaryTabId) {
-        if (mNativeTabContentManager == 0) return;
-
         int idsSize = min(mFullResThumbnailsMaxSize, priority.size());
         int[] priorityIds = new int[idsSize];
         for (int i = 0; i < idsSize; i++) {
             priorityIds[i] = priority.get(i);
         }
+        prefetchThumbnails(priorityIds, primaryTabId);
 
+        if (mNativeTabContentManager == 0) return;
         TabContentManagerJni.get()
                 .updateVisibleIds(mNativeTabContentManager, priorityIds, primaryTabId);
     }
 
+    /**
+     * Decodes the JPEG thumbnails of visible tabs ahead of their requests, at the size thumbnails
+     * were last requested at. Nothing is prefetched until a thumbnail has been requested.
+     */
+    private void prefetchThumbnails(int[] tabIds, int primaryTabId) {
+        Size thumbnailSize = mLastThumbnailSize;
+        if (!mSnapshotsEnabled || thumbnailSize == null || tabIds.length == 0) return;
+
+        PostTask.postTask(
+                TaskTraits.USER_VISIBLE_MAY_BLOCK,
+                () -> {
+                    TraceEvent.begin("TabContentManager.prefetchThumbnails");
+                    for (int tabId : tabIds) {
+                        // The primary tab isn't loaded either, as it has a live layer.
+                        if (tabId == primaryTabId) continue;
+                        mThumbnailBitmapCache.prefetch(tabId, thumbnailSize);
+                    }
+                    TraceEvent.end("TabContentManager.prefetchThumbnails");
+                });
+    }
+
     /**
      * Removes a thumbnail of the tab whose id is |tabId|.
      *
      * @param tabId The Id of the tab whose thumbnail is being removed.
      */
     public void removeTabThumbnail(int tabId) {
+        mThumbnailBitmapCache.invalidate(tabId);
         if (!mTabWindowManager.canTabThumbnailBeDeleted(tabId)) return;
 
         if (mNativeTabContentManager != 0) {
@@ -700,6 +696,7 @@ public class TabContentManager {
 
     @CalledByNative
     protected void notifyListenersOfThumbnailChange(int tabId) {
+        mThumbnailBitmapCache.invalidate(tabId);
         for (ThumbnailChangeListener listener : mListeners) {
             listener.onThumbnailChange(tabId);
         }
@@ -0,0 +1,219 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tab_ui;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Size;
+import android.util.SparseIntArray;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.chromium.base.FileUtils;
+import org.chromium.base.MemoryPressureLevel;
+import org.chromium.base.MemoryPressureListener;
+import org.chromium.base.ThreadUtils;
+import org.chromium.base.memory.MemoryBudgetedCache;
+import org.chromium.base.memory.MemoryPressureCallback;
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Memory cache of the JPEG thumbnails of tabs, decoded at the size they were last requested at.
+ * Thumbnails are decoded off the UI thread.
+ *
+ * <p>The cache hands out the bitmaps it holds, so a cache hit doesn't allocate. The users of
+ * thumbnails must neither recycle nor modify the bitmaps they get, which may be shared with other
+ * users. Evicted bitmaps are left to the garbage collector.
+ */
+@NullMarked
+class TabThumbnailBitmapCache {
+    /** The cache never grows over this size, nor over a sixteenth of the Java heap. */
+    private static final long MAX_SIZE_BYTES = 32L * 1024 * 1024;
+
+    /** A decoded thumbnail, and the size it was requested at. */
+    private static final class Entry {
+        final Size mSize;
+        final Bitmap mBitmap;
+
+        Entry(Size size, Bitmap bitmap) {
+            mSize = size;
+            mBitmap = bitmap;
+        }
+    }
+
+    // Cached bitmaps are only accessed while holding the lock of the cache. Bitmaps that are being
+    // decoded are not in the cache.
+    @GuardedBy("this")
+    private final MemoryBudgetedCache<Integer, Entry> mCache;
+
+    private final MemoryPressureCallback mMemoryPressureCallback = this::onMemoryPressure;
+
+    // Incremented on each invalidation of a tab, by tab id, so that thumbnails of the tab decoded
+    // before it aren't cached. Decodes of other tabs aren't affected.
+    @GuardedBy("this")
+    private final SparseIntArray mGenerations = new SparseIntArray();
+
+    /** Creates a cache, which must be destroyed on the UI thread. */
+    TabThumbnailBitmapCache() {
+        this(Math.min(MAX_SIZE_BYTES, Runtime.getRuntime().maxMemory() / 16));
+    }
+
+    @VisibleForTesting
+    TabThumbnailBitmapCache(long maxSizeInBytes) {
+        mCache =
+                new MemoryBudgetedCache<>(
+                        maxSizeInBytes,
+                        (tabId, entry) -> entry.mBitmap.getAllocationByteCount(),
+                        /* evictionListener= */ null);
+        ThreadUtils.assertOnUiThread();
+        MemoryPressureListener.addCallback(mMemoryPressureCallback);
+    }
+
+    /** Empties the cache and stops listening to memory pressure. */
+    void destroy() {
+        ThreadUtils.assertOnUiThread();
+        MemoryPressureListener.removeCallback(mMemoryPressureCallback);
+        synchronized (this) {
+            mCache.evictAll();
+        }
+    }
+
+    /**
+     * Returns the thumbnail of a tab at |thumbnailSize|, decoding it from disk on a cache miss.
+     * Must be called off the UI thread.
+     *
+     * @param tabId The id of the tab.
+     * @param thumbnailSize The size the thumbnail is shown at, or an empty size for the full size.
+     * @return The thumbnail, which must neither be recycled nor modified, or null if there is no
+     *     JPEG thumbnail on disk for the tab.
+     */
+    @Nullable Bitmap get(int tabId, Size thumbnailSize) {
+        int generation;
+        synchronized (this) {
+            Entry cached = getCachedEntryLocked(tabId, thumbnailSize);
+            if (cached != null) return cached.mBitmap;
+            generation = mGenerations.get(tabId);
+        }
+
+        Bitmap bitmap = decodeJpeg(TabContentManager.getTabThumbnailFileJpeg(tabId), thumbnailSize);
+        if (bitmap == null) return null;
+        synchronized (this) {
+            // The thumbnail may have changed on disk while it was decoded, in which case it isn't
+            // cached.
+            if (generation == mGenerations.get(tabId)) putLocked(tabId, thumbnailSize, bitmap);
+            return bitmap;
+        }
+    }
+
+    /**
+     * Decodes the thumbnail of a tab at |thumbnailSize|, unless it is already cached. Must be
+     * called off the UI thread.
+     */
+    void prefetch(int tabId, Size thumbnailSize) {
+        int generation;
+        synchronized (this) {
+            if (getCachedEntryLocked(tabId, thumbnailSize) != null) return;
+            generation = mGenerations.get(tabId);
+        }
+
+        Bitmap bitmap = decodeJpeg(TabContentManager.getTabThumbnailFileJpeg(tabId), thumbnailSize);
+        if (bitmap == null) return;
+        synchronized (this) {
+            if (generation == mGenerations.get(tabId)) putLocked(tabId, thumbnailSize, bitmap);
+        }
+    }
+
+    /** Drops the thumbnail of a tab, which is decoded again the next time it is requested. */
+    void invalidate(int tabId) {
+        synchronized (this) {
+            mGenerations.put(tabId, mGenerations.get(tabId) + 1);
+            mCache.remove(tabId);
+        }
+    }
+
+    /** Adds a decoded thumbnail to the cache, which takes ownership of |bitmap|. */
+    @VisibleForTesting
+    synchronized void put(int tabId, Size thumbnailSize, Bitmap bitmap) {
+        putLocked(tabId, thumbnailSize, bitmap);
+    }
+
+    @VisibleForTesting
+    synchronized boolean contains(int tabId, Size thumbnailSize) {
+        return getCachedEntryLocked(tabId, thumbnailSize) != null;
+    }
+
+    void onMemoryPressureForTesting(@MemoryPressureLevel int pressure) {
+        onMemoryPressure(pressure);
+    }
+
+    @GuardedBy("this")
+    private @Nullable Entry getCachedEntryLocked(int tabId, Size thumbnailSize) {
+        Entry entry = mCache.get(tabId);
+        return entry != null && entry.mSize.equals(thumbnailSize) ? entry : null;
+    }
+
+    @GuardedBy("this")
+    private void putLocked(int tabId, Size thumbnailSize, Bitmap bitmap) {
+        mCache.put(tabId, new Entry(thumbnailSize, bitmap));
+    }
+
+    private synchronized void onMemoryPressure(@MemoryPressureLevel int pressure) {
+        mCache.onMemoryPressure(pressure);
+    }
+
+    /**
+     * Decodes a JPEG thumbnail, downsampled to be at least as large as |thumbnailSize|. The file is
+     * only read once.
+     *
+     * @param file The JPEG file.
+     * @param thumbnailSize The size to downsample to, or an empty size for the full size.
+     * @return The decoded bitmap, or null if the file couldn't be read or decoded.
+     */
+    static @Nullable Bitmap decodeJpeg(File file, Size thumbnailSize) {
+        if (!file.isFile()) return null;
+        byte[] data;
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            data = FileUtils.readStream(inputStream);
+        } catch (IOException e) {
+            return null;
+        }
+
+        // See https://developer.android.com/topic/performance/graphics/load-bitmap#load-bitmap.
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) return null;
+        options.inSampleSize =
+                computeSampleSize(options.outWidth, options.outHeight, thumbnailSize);
+        options.inJustDecodeBounds = false;
+        return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+
+    /**
+     * Returns the largest power of 2 downsampling a |width|x|height| image while keeping it at
+     * least as large as |thumbnailSize|.
+     */
+    @VisibleForTesting
+    static int computeSampleSize(int width, int height, Size thumbnailSize) {
+        if (thumbnailSize.getWidth() <= 0 || thumbnailSize.getHeight() <= 0) return 1;
+        int sampleSize = 1;
+        if (height > thumbnailSize.getHeight() || width > thumbnailSize.getWidth()) {
+            final int halfHeight = height / 2;
+            final int halfWidth = width / 2;
+            while ((halfHeight / sampleSize) >= thumbnailSize.getHeight()
+                    && (halfWidth / sampleSize) >= thumbnailSize.getWidth()) {
+                sampleSize *= 2;
+            }
+        }
+        return sampleSize;
+    }
+}
@@ -0,0 +1,112 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tab_ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.util.Size;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import org.chromium.base.MemoryPressureLevel;
+import org.chromium.base.test.BaseRobolectricTestRunner;
+
+/** Unit tests for {@link TabThumbnailBitmapCache}. */
+@RunWith(BaseRobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class TabThumbnailBitmapCacheUnitTest {
+    private static final int TAB_ID_1 = 1;
+    private static final int TAB_ID_2 = 2;
+    private static final int TAB_ID_3 = 3;
+    private static final Size THUMBNAIL_SIZE = new Size(100, 100);
+    private static final int THUMBNAIL_BYTES = 100 * 100 * 4;
+
+    private TabThumbnailBitmapCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new TabThumbnailBitmapCache(/* maxSizeInBytes= */ 2 * THUMBNAIL_BYTES);
+    }
+
+    @After
+    public void tearDown() {
+        mCache.destroy();
+    }
+
+    private static Bitmap newBitmap() {
+        return Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888);
+    }
+
+    @Test
+    public void testGet_returnsCachedThumbnail() {
+        Bitmap bitmap = newBitmap();
+        mCache.put(TAB_ID_1, THUMBNAIL_SIZE, bitmap);
+
+        assertSame(bitmap, mCache.get(TAB_ID_1, THUMBNAIL_SIZE));
+        assertSame(bitmap, mCache.get(TAB_ID_1, THUMBNAIL_SIZE));
+        assertTrue(mCache.contains(TAB_ID_1, THUMBNAIL_SIZE));
+    }
+
+    @Test
+    public void testInvalidate_dropsOnlyThatTab() {
+        Bitmap bitmap = newBitmap();
+        mCache.put(TAB_ID_1, THUMBNAIL_SIZE, bitmap);
+        mCache.put(TAB_ID_2, THUMBNAIL_SIZE, newBitmap());
+        assertSame(bitmap, mCache.get(TAB_ID_1, THUMBNAIL_SIZE));
+
+        mCache.invalidate(TAB_ID_1);
+        assertFalse(mCache.contains(TAB_ID_1, THUMBNAIL_SIZE));
+        assertTrue(mCache.contains(TAB_ID_2, THUMBNAIL_SIZE));
+        assertFalse(bitmap.isRecycled());
+    }
+
+    @Test
+    public void testMemoryPressure_doesNotRecycleHandedOutBitmap() {
+        Bitmap bitmap = newBitmap();
+        mCache.put(TAB_ID_1, THUMBNAIL_SIZE, bitmap);
+        assertSame(bitmap, mCache.get(TAB_ID_1, THUMBNAIL_SIZE));
+
+        mCache.onMemoryPressureForTesting(MemoryPressureLevel.CRITICAL);
+        assertFalse(mCache.contains(TAB_ID_1, THUMBNAIL_SIZE));
+        assertFalse(bitmap.isRecycled());
+    }
+
+    @Test
+    public void testContains_otherSize() {
+        mCache.put(TAB_ID_1, THUMBNAIL_SIZE, newBitmap());
+
+        assertTrue(mCache.contains(TAB_ID_1, THUMBNAIL_SIZE));
+        assertFalse(mCache.contains(TAB_ID_1, new Size(50, 50)));
+        assertFalse(mCache.contains(TAB_ID_2, THUMBNAIL_SIZE));
+    }
+
+    @Test
+    public void testPut_evictsLeastRecentlyUsed() {
+        mCache.put(TAB_ID_1, THUMBNAIL_SIZE, newBitmap());
+        mCache.put(TAB_ID_2, THUMBNAIL_SIZE, newBitmap());
+        mCache.put(TAB_ID_3, THUMBNAIL_SIZE, newBitmap());
+
+        assertFalse(mCache.contains(TAB_ID_1, THUMBNAIL_SIZE));
+        assertTrue(mCache.contains(TAB_ID_2, THUMBNAIL_SIZE));
+        assertTrue(mCache.contains(TAB_ID_3, THUMBNAIL_SIZE));
+    }
+
+    @Test
+    public void testComputeSampleSize() {
+        assertEquals(1, TabThumbnailBitmapCache.computeSampleSize(400, 600, new Size(0, 0)));
+        assertEquals(1, TabThumbnailBitmapCache.computeSampleSize(400, 600, new Size(400, 600)));
+        assertEquals(2, TabThumbnailBitmapCache.computeSampleSize(400, 600, new Size(200, 300)));
+        assertEquals(2, TabThumbnailBitmapCache.computeSampleSize(400, 600, new Size(150, 250)));
+        assertEquals(4, TabThumbnailBitmapCache.computeSampleSize(400, 600, new Size(100, 150)));
+    }
+}
@@ -239,6 +239,11 @@ class IncognitoTabModelImpl implements IncognitoTabModelInternal {
         return mDelegateModel.indexOf(tab);
     }
 
+    @Override
+    public @Nullable TabListIndex getTabListIndex() {
+        return mDelegateModel.getTabListIndex();
+    }
+
     @Override
     public Iterator<Tab> iterator() {
         // The underlying model already returns a read-only iterator.
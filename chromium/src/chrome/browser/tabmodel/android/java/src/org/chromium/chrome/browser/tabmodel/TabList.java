@@ -76,4 +76,13 @@ public interface TabList extends Iterable<Tab> {
      * #INVALID_TAB_INDEX} if the tab is not found.
      */
     int indexOf(@Nullable Tab tab);
+
+    /**
+     * Returns a {@link TabListIndex} to find tabs by id or URL without walking the list, or {@code
+     * null} if lookups have to iterate the list. The index is only valid until the list changes,
+     * so don't hold on to it.
+     */
+    default @Nullable TabListIndex getTabListIndex() {
+        return null;
+    }
 }
@@ -0,0 +1,73 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tabmodel;
+
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+import org.chromium.chrome.browser.tab.Tab;
+import org.chromium.chrome.browser.tab.TabId;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A snapshot of the tabs in a {@link TabList} that finds tabs by id or URL without walking the
+ * list. The {@link TabList} that hands out the index owns it, and must drop it whenever a tab is
+ * added, removed or moved, so callers should not hold on to it.
+ */
+@NullMarked
+public final class TabListIndex {
+    private final List<Tab> mTabs;
+    private final Map<Integer, Integer> mTabIdToIndex;
+    // Built on first use, and dropped when a tab navigates.
+    private @Nullable Map<String, Integer> mUrlToIndex;
+
+    /**
+     * @param tabs The tabs of the {@link TabList}, in order. The list must not be modified
+     *     afterwards.
+     */
+    public TabListIndex(List<Tab> tabs) {
+        mTabs = tabs;
+        mTabIdToIndex = new HashMap<>(tabs.size() * 2);
+        for (int i = 0; i < tabs.size(); i++) {
+            mTabIdToIndex.put(tabs.get(i).getId(), i);
+        }
+    }
+
+    /** Returns the number of tabs in the index. */
+    public int getCount() {
+        return mTabs.size();
+    }
+
+    /**
+     * Returns the index of the tab with the given id, or {@link TabList#INVALID_TAB_INDEX} if there
+     * is no such tab.
+     */
+    public int indexOf(@TabId int tabId) {
+        Integer index = mTabIdToIndex.get(tabId);
+        return index == null ? TabList.INVALID_TAB_INDEX : index;
+    }
+
+    /**
+     * Returns the index of the first tab whose URL spec is {@code url}, or {@link
+     * TabList#INVALID_TAB_INDEX} if there is no such tab.
+     */
+    public int indexOfUrl(String url) {
+        if (mUrlToIndex == null) {
+            mUrlToIndex = new HashMap<>(mTabs.size() * 2);
+            for (int i = 0; i < mTabs.size(); i++) {
+                mUrlToIndex.putIfAbsent(mTabs.get(i).getUrl().getSpec(), i);
+            }
+        }
+        Integer index = mUrlToIndex.get(url);
+        return index == null ? TabList.INVALID_TAB_INDEX : index;
+    }
+
+    /** Drops the URL lookups, so they are rebuilt after a tab in the list navigated. */
+    public void invalidateUrls() {
+        mUrlToIndex = null;
+    }
+}
@@ -0,0 +1,82 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.tabmodel;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import org.chromium.base.test.BaseRobolectricTestRunner;
+import org.chromium.chrome.browser.tab.Tab;
+import org.chromium.url.JUnitTestGURLs;
+
+import java.util.List;
+
+/** Unit tests for {@link TabListIndex}. */
+@RunWith(BaseRobolectricTestRunner.class)
+public class TabListIndexUnitTest {
+    private static final int TAB_ID_1 = 1;
+    private static final int TAB_ID_2 = 2;
+    private static final int TAB_ID_3 = 3;
+    private static final int UNUSED_TAB_ID = 9;
+
+    @Rule public MockitoRule mMockitoRule = MockitoJUnit.rule();
+
+    @Mock private Tab mTab1;
+    @Mock private Tab mTab2;
+    @Mock private Tab mTab3;
+
+    private TabListIndex mTabListIndex;
+
+    @Before
+    public void setUp() {
+        when(mTab1.getId()).thenReturn(TAB_ID_1);
+        when(mTab1.getUrl()).thenReturn(JUnitTestGURLs.URL_1);
+        when(mTab2.getId()).thenReturn(TAB_ID_2);
+        when(mTab2.getUrl()).thenReturn(JUnitTestGURLs.URL_2);
+        when(mTab3.getId()).thenReturn(TAB_ID_3);
+        when(mTab3.getUrl()).thenReturn(JUnitTestGURLs.URL_1);
+        mTabListIndex = new TabListIndex(List.of(mTab1, mTab2, mTab3));
+    }
+
+    @Test
+    public void testIndexOf() {
+        assertEquals(3, mTabListIndex.getCount());
+        assertEquals(0, mTabListIndex.indexOf(TAB_ID_1));
+        assertEquals(1, mTabListIndex.indexOf(TAB_ID_2));
+        assertEquals(2, mTabListIndex.indexOf(TAB_ID_3));
+        assertEquals(TabList.INVALID_TAB_INDEX, mTabListIndex.indexOf(UNUSED_TAB_ID));
+    }
+
+    @Test
+    public void testIndexOfUrl_returnsFirstMatch() {
+        assertEquals(0, mTabListIndex.indexOfUrl(JUnitTestGURLs.URL_1.getSpec()));
+        assertEquals(1, mTabListIndex.indexOfUrl(JUnitTestGURLs.URL_2.getSpec()));
+        assertEquals(
+                TabList.INVALID_TAB_INDEX,
+                mTabListIndex.indexOfUrl(JUnitTestGURLs.URL_3.getSpec()));
+    }
+
+    @Test
+    public void testInvalidateUrls() {
+        assertEquals(
+                TabList.INVALID_TAB_INDEX,
+                mTabListIndex.indexOfUrl(JUnitTestGURLs.URL_3.getSpec()));
+
+        when(mTab2.getUrl()).thenReturn(JUnitTestGURLs.URL_3);
+        mTabListIndex.invalidateUrls();
+        assertEquals(1, mTabListIndex.indexOfUrl(JUnitTestGURLs.URL_3.getSpec()));
+        assertEquals(
+                TabList.INVALID_TAB_INDEX,
+                mTabListIndex.indexOfUrl(JUnitTestGURLs.URL_2.getSpec()));
+    }
+}
@@ -44,6 +44,9 @@ public class TabModelUtils {
      *     is not found
      */
     public static int getTabIndexById(TabList model, int tabId) {
+        TabListIndex tabListIndex = model.getTabListIndex();
+        if (tabListIndex != null) return tabListIndex.indexOf(tabId);
+
         int index = 0;
         for (Tab tab : model) {
             assert tab != null : "getTabAt() shouldn't return a null Tab from TabModel.";
@@ -62,6 +65,9 @@ public class TabModelUtils {
      * @return Specified {@link Tab} or {@code null} if the {@link Tab} is not found
      */
     public static int getTabIndexByUrl(TabList model, String url) {
+        TabListIndex tabListIndex = model.getTabListIndex();
+        if (tabListIndex != null) return tabListIndex.indexOfUrl(url);
+
         int index = 0;
         for (Tab tab : model) {
             if (tab.getUrl().getSpec().contentEquals(url)) return index;
@@ -12,17 +12,17 @@ import android.graphics.BitmapFactory;
 import android.text.TextUtils;
 
 import androidx.annotation.VisibleForTesting;
-import androidx.core.util.AtomicFile;
 import androidx.core.util.Pair;
 
 import com.google.protobuf.ByteString;
 
 import org.chromium.base.ContextUtils;
 import org.chromium.base.Log;
-import org.chromium.base.StreamUtil;
 import org.chromium.base.ThreadUtils;
 import org.chromium.base.task.AsyncTask;
 import org.chromium.base.task.BackgroundOnlyAsyncTask;
+import org.chromium.base.task.PostTask;
+import org.chromium.base.task.TaskTraits;
 import org.chromium.build.annotations.NullMarked;
 import org.chromium.build.annotations.Nullable;
 import org.chromium.chrome.browser.thumbnail.generator.ThumbnailCacheEntry.ContentId;
@@ -31,21 +31,25 @@ import org.chromium.components.browser_ui.util.ConversionUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This class is a LRU cache of thumbnails on the disk and calls back to
  * {@link ThumbnailProviderImpl}. Thumbnails are shared across all
  * {@link ThumbnailProviderDiskStorage}s. There can be multiple
- * {@link ThumbnailProvider.ThumbnailRequest} being processed at a time, but all AsyncTasks are
+ * {@link ThumbnailProvider.ThumbnailRequest} being processed at a time. Thumbnails are read
+ * concurrently once the cache is initialized, but all the AsyncTasks modifying the cache are
  * executed serially. Missing thumbnails are retrieved by {@link ThumbnailProviderGenerator}.
  *
+ * Thumbnails are stored in a single pack file by {@link ThumbnailPackStore}. Its index is written
+ * once for each batch of changes, and the pack is compacted in the background once enough of it is
+ * garbage.
+ *
  * The caller should use {@link ThumbnailDiskStorage#create()} to create an instance.
  *
  * This class removes thumbnails from disk only if the file was removed in Download Home. It relies
@@ -58,10 +62,13 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
     private static final int MAX_CACHE_BYTES =
             5 * ConversionUtils.BYTES_PER_MEGABYTE; // Max disk cache size is 5MB.
 
+    // Delay before changes to the cache are flushed to disk, so that a batch of changes is flushed
+    // at once.
+    private static final long FLUSH_DELAY_MS = 2000;
+
     // LRU cache of a pair of thumbnail's contentID and size. The order is based on the sequence of
     // add and get with the most recent at the end. The order at initialization (i.e. browser
-    // restart) is based on the order of files in the directory. It is accessed only on the
-    // background thread.
+    // restart) is restored from the index of the pack. It is accessed only by the serial tasks.
     // It is static because cached thumbnails are shared across all instances of the class.
     @VisibleForTesting
     static final LinkedHashSet<Pair<String, Integer>> sDiskLruCache = new LinkedHashSet<>();
@@ -71,10 +78,17 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
     @VisibleForTesting
     static final HashMap<String, HashSet<Integer>> sIconSizesMap = new HashMap<>();
 
+    // The store of the cached thumbnails, opened by the first instance to be initialized. It is
+    // static for the same reason as the state above.
+    private static volatile @Nullable ThumbnailPackStore sPackStore;
+
+    // Whether a flush of the pack store is pending.
+    private static final AtomicBoolean sFlushScheduled = new AtomicBoolean();
+
     @VisibleForTesting final ThumbnailGenerator mThumbnailGenerator;
 
-    // This should be initialized once.
-    private @Nullable File mDirectory;
+    // This should be initialized once. Read on the UI thread to pick the executor of reads.
+    private volatile @Nullable File mDirectory;
 
     private final ThumbnailStorageDelegate mDelegate;
 
@@ -114,6 +128,23 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
         }
     }
 
+    /** Writes the pending changes to the index of the pack, and compacts the pack if needed. */
+    private static class FlushTask extends BackgroundOnlyAsyncTask<Void> {
+        @Override
+        protected Void doInBackground() {
+            sFlushScheduled.set(false);
+            ThumbnailPackStore packStore = sPackStore;
+            if (packStore == null) return null;
+            try {
+                packStore.flushIndex();
+                if (packStore.shouldCompact()) packStore.compact();
+            } catch (IOException e) {
+                Log.e(TAG, "Error while flushing to disk.", e);
+            }
+            return null;
+        }
+    }
+
     /** Writes to disk cache. */
     private class CacheThumbnailTask extends BackgroundOnlyAsyncTask<Void> {
         private final String mContentId;
@@ -133,6 +164,27 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
         }
     }
 
+    /**
+     * Marks a thumbnail read from disk as the most recently used one. The thumbnail is already on
+     * disk, so it isn't written again: the recency is only kept in memory.
+     */
+    private class TouchThumbnailTask extends BackgroundOnlyAsyncTask<Void> {
+        private final String mContentId;
+        private final int mIconSizePx;
+
+        public TouchThumbnailTask(String contentId, int iconSizePx) {
+            mContentId = contentId;
+            mIconSizePx = iconSizePx;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            Pair<String, Integer> key = Pair.create(mContentId, mIconSizePx);
+            if (sDiskLruCache.remove(key)) sDiskLruCache.add(key);
+            return null;
+        }
+    }
+
     /** Reads from disk cache. If missing, fetch from {@link ThumbnailGenerator}. */
     private class GetThumbnailTask extends AsyncTask<@Nullable Bitmap> {
         private final ThumbnailProvider.ThumbnailRequest mRequest;
@@ -143,17 +195,13 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
 
         @Override
         protected @Nullable Bitmap doInBackground() {
-            if (sDiskLruCache.contains(
-                    Pair.create(mRequest.getContentId(), mRequest.getIconSize()))) {
-                return getFromDisk(mRequest.getContentId(), mRequest.getIconSize());
-            }
-            return null;
+            return getFromDisk(mRequest.getContentId(), mRequest.getIconSize());
         }
 
         @Override
         protected void onPostExecute(@Nullable Bitmap bitmap) {
             if (bitmap != null) {
-                onThumbnailRetrieved(
+                onThumbnailReadFromDisk(
                         assumeNonNull(mRequest.getContentId()), bitmap, mRequest.getIconSize());
                 return;
             }
@@ -227,8 +275,13 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
         ThreadUtils.assertOnUiThread();
         if (mDestroyed || TextUtils.isEmpty(request.getContentId())) return;
 
+        // Reads don't need to be serialized, but they have to wait for the cache to be initialized.
         mLastGetThumbnailTask =
-                new GetThumbnailTask(request).executeOnExecutor(AsyncTask.SERIAL_EXECUTOR);
+                new GetThumbnailTask(request)
+                        .executeOnExecutor(
+                                isInitialized()
+                                        ? AsyncTask.THREAD_POOL_EXECUTOR
+                                        : AsyncTask.SERIAL_EXECUTOR);
     }
 
     /**
@@ -253,6 +306,17 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
         mDelegate.onThumbnailRetrieved(contentId, bitmap, iconSizePx);
     }
 
+    /** Called when a thumbnail is read from disk, which unlike a generated one isn't cached. */
+    private void onThumbnailReadFromDisk(String contentId, Bitmap bitmap, int iconSizePx) {
+        if (mDestroyed) return;
+
+        ThreadUtils.assertOnUiThread();
+        mLastCacheThumbnailTask =
+                new TouchThumbnailTask(contentId, iconSizePx)
+                        .executeOnExecutor(AsyncTask.SERIAL_EXECUTOR);
+        mDelegate.onThumbnailRetrieved(contentId, bitmap, iconSizePx);
+    }
+
     /**
      * Read previously cached thumbnail-related info from disk. Initialize only once. Invoked on
      * background thread.
@@ -262,44 +326,31 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
         if (isInitialized()) return;
 
         ThreadUtils.assertOnBackgroundThread();
-        mDirectory = getDiskCacheDir(ContextUtils.getApplicationContext(), "thumbnails");
-        if (!mDirectory.exists()) {
+        File directory = getDiskCacheDir(ContextUtils.getApplicationContext(), "thumbnails");
+        if (!directory.exists()) {
             boolean dirCreated = false;
             try {
-                dirCreated = mDirectory.mkdir();
+                dirCreated = directory.mkdir();
             } catch (SecurityException se) {
                 Log.e(TAG, "Error while creating thumbnails directory.", se);
             }
             if (!dirCreated) return;
         }
-        File[] cachedFiles = mDirectory.listFiles();
-        if (cachedFiles == null) return;
 
-        for (File file : cachedFiles) {
-            AtomicFile atomicFile = new AtomicFile(file);
+        if (sPackStore == null) {
+            ThumbnailPackStore packStore = new ThumbnailPackStore(directory);
             try {
-                ThumbnailEntry entry = ThumbnailEntry.parseFrom(atomicFile.readFully());
-                if (!entry.hasContentId()) continue;
-
-                String contentId = entry.getContentId().getId();
-                if (!entry.hasSizePx()) continue;
-
-                int iconSizePx = entry.getSizePx();
-
-                // Update internal cache state.
-                sDiskLruCache.add(Pair.create(contentId, iconSizePx));
-                if (sIconSizesMap.containsKey(contentId)) {
-                    sIconSizesMap.get(contentId).add(iconSizePx);
-                } else {
-                    HashSet<Integer> iconSizes = new HashSet<>();
-                    iconSizes.add(iconSizePx);
-                    sIconSizesMap.put(contentId, iconSizes);
+                for (ThumbnailPackStore.Record record : packStore.open()) {
+                    addToCacheState(record.mContentId, record.mIconSizePx);
                 }
-                mSizeBytes += file.length();
             } catch (IOException e) {
                 Log.e(TAG, "Error while reading from disk.", e);
+                return;
             }
+            sPackStore = packStore;
         }
+        mSizeBytes = getPackStore().getLiveBytes();
+        mDirectory = directory;
     }
 
     /**
@@ -309,8 +360,6 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
      * @param bitmap The thumbnail to cache.
      * @param iconSizePx Requested size (maximum required dimension (pixel) of the smaller side) of
      * the thumbnail.
-     *
-     * TODO(angelashao): Use a DB to store thumbnail-related data. (crbug.com/747555)
      */
     @VisibleForTesting
     void addToDisk(String contentId, Bitmap bitmap, int iconSizePx) {
@@ -321,8 +370,6 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
             removeFromDiskHelper(Pair.create(contentId, iconSizePx));
         }
 
-        FileOutputStream fos = null;
-        AtomicFile atomicFile = null;
         try {
             // Compress bitmap to PNG.
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -337,38 +384,51 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
                             .setCompressedPng(ByteString.copyFrom(compressedBitmapBytes))
                             .build();
 
-            // Write proto to disk.
-            File newFile = new File(getThumbnailFilePath(contentId, iconSizePx));
-            atomicFile = new AtomicFile(newFile);
-            fos = atomicFile.startWrite();
-            fos.write(newEntry.toByteArray());
-            atomicFile.finishWrite(fos);
+            // Append proto to the pack.
+            ThumbnailPackStore.Record record =
+                    getPackStore().append(contentId, iconSizePx, newEntry.toByteArray());
 
             // Update internal cache state.
-            sDiskLruCache.add(Pair.create(contentId, iconSizePx));
-            if (sIconSizesMap.containsKey(contentId)) {
-                sIconSizesMap.get(contentId).add(iconSizePx);
-            } else {
-                HashSet<Integer> iconSizes = new HashSet<>();
-                iconSizes.add(iconSizePx);
-                sIconSizesMap.put(contentId, iconSizes);
-            }
-            mSizeBytes += newFile.length();
+            addToCacheState(contentId, iconSizePx);
+            mSizeBytes += record.mLength;
 
             trim();
         } catch (IOException e) {
             Log.e(TAG, "Error while writing to disk.", e);
-            atomicFile.failWrite(fos);
         }
+        scheduleFlush();
     }
 
     private boolean isInitialized() {
         return mDirectory != null;
     }
 
+    private static ThumbnailPackStore getPackStore() {
+        return assumeNonNull(sPackStore);
+    }
+
+    private static void addToCacheState(String contentId, int iconSizePx) {
+        sDiskLruCache.add(Pair.create(contentId, iconSizePx));
+        HashSet<Integer> iconSizes = sIconSizesMap.get(contentId);
+        if (iconSizes == null) {
+            iconSizes = new HashSet<>();
+            sIconSizesMap.put(contentId, iconSizes);
+        }
+        iconSizes.add(iconSizePx);
+    }
+
+    /** Flushes the changes to the cache once the current batch of changes is over. */
+    private static void scheduleFlush() {
+        if (!sFlushScheduled.compareAndSet(false, true)) return;
+        PostTask.postDelayedTask(
+                TaskTraits.BEST_EFFORT_MAY_BLOCK,
+                () -> new FlushTask().executeOnExecutor(AsyncTask.SERIAL_EXECUTOR),
+                FLUSH_DELAY_MS);
+    }
+
     /**
      * Retrieves bitmap with {@code contentId} and {@code iconSizePx} from cache. Invoked on
-     * background thread.
+     * background thread, possibly concurrently with other reads and with the serial tasks.
      * @param contentId The content ID of the requested thumbnail.
      * @param iconSizePx Requested size (maximum required dimension (pixel) of the smaller side) of
      * the requested thumbnail.
@@ -379,57 +439,50 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
         ThreadUtils.assertOnBackgroundThread();
         if (!isInitialized()) return null;
 
-        if (!sDiskLruCache.contains(Pair.create(contentId, iconSizePx))) return null;
-
-        Bitmap bitmap = null;
-        FileInputStream fis = null;
         try {
-            String thumbnailFilePath = getThumbnailFilePath(contentId, iconSizePx);
-            File file = new File(thumbnailFilePath);
-            // If file doesn't exist, {@link mSizeBytes} cannot be updated to account for the
-            // removal but this is fine in the long-run when trim happens.
-            if (!file.exists()) return null;
-
-            AtomicFile atomicFile = new AtomicFile(file);
-            fis = atomicFile.openRead();
-            ThumbnailEntry entry = ThumbnailEntry.parseFrom(atomicFile.readFully());
+            byte[] data = getPackStore().read(contentId, iconSizePx);
+            if (data == null) return null;
+
+            ThumbnailEntry entry = ThumbnailEntry.parseFrom(data);
             if (!entry.hasCompressedPng()) return null;
 
-            bitmap =
-                    BitmapFactory.decodeByteArray(
-                            entry.getCompressedPng().toByteArray(),
-                            0,
-                            entry.getCompressedPng().size());
+            return BitmapFactory.decodeByteArray(
+                    entry.getCompressedPng().toByteArray(), 0, entry.getCompressedPng().size());
         } catch (IOException e) {
             Log.e(TAG, "Error while reading from disk.", e);
-        } finally {
-            StreamUtil.closeQuietly(fis);
+            return null;
         }
-
-        return bitmap;
     }
 
     /** Trim the cache to stay under the max cache size by removing the oldest entries. */
     @VisibleForTesting
     void trim() {
         ThreadUtils.assertOnBackgroundThread();
-        while (mSizeBytes > mMaxCacheBytes) {
+        while (mSizeBytes > mMaxCacheBytes && !sDiskLruCache.isEmpty()) {
             removeFromDiskHelper(sDiskLruCache.iterator().next());
         }
     }
 
-    /** Clear all files in the disk cache. */
+    /** Clear all thumbnails in the disk cache. */
     @VisibleForTesting
     void clearDiskCache() {
         ThreadUtils.assertOnBackgroundThread();
-        while (mSizeBytes > 0) {
+        if (!isInitialized()) return;
+
+        while (!sDiskLruCache.isEmpty()) {
             removeFromDiskHelper(sDiskLruCache.iterator().next());
         }
+        try {
+            getPackStore().clear();
+        } catch (IOException e) {
+            Log.e(TAG, "Error while clearing the disk.", e);
+        }
+        mSizeBytes = 0;
     }
 
     /**
-     * Remove thumbnail identified by {@code contentIdSizePair}. If out of sync with disk, rely on
-     * restart or trim (in the long-run) to be in sync.
+     * Remove thumbnail identified by {@code contentIdSizePair}. Its data is only removed from disk
+     * by the next compaction of the pack.
      * @param contentIdSizePair Pair of the content ID and requested size (maximum required
      * dimension of the smaller side) of the thumbnail to remove.
      */
@@ -439,28 +492,21 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
 
         String contentId = contentIdSizePair.first;
         int iconSizePx = contentIdSizePair.second;
-        File file = new File(getThumbnailFilePath(contentId, iconSizePx));
-        if (!file.exists()) {
-            Log.e(TAG, "Error while removing from disk. File does not exist.");
-            return;
+        ThumbnailPackStore.Record record = getPackStore().remove(contentId, iconSizePx);
+        if (record == null) {
+            Log.e(TAG, "Error while removing from disk. Entry does not exist.");
+        } else {
+            mSizeBytes -= record.mLength;
         }
 
-        long fileSizeBytes = 0;
-        try {
-            fileSizeBytes = file.length();
-        } catch (SecurityException se) {
-            Log.e(TAG, "Error while removing from disk. File denied read access.", se);
-        }
-        AtomicFile atomicFile = new AtomicFile(file);
-        atomicFile.delete();
-
         // Update internal cache state.
         sDiskLruCache.remove(contentIdSizePair);
-        assumeNonNull(sIconSizesMap.get(contentId)).remove(iconSizePx);
-        if (sIconSizesMap.get(contentId).size() == 0) {
-            sIconSizesMap.remove(contentId);
+        HashSet<Integer> iconSizes = sIconSizesMap.get(contentId);
+        if (iconSizes != null) {
+            iconSizes.remove(iconSizePx);
+            if (iconSizes.isEmpty()) sIconSizesMap.remove(contentId);
         }
-        mSizeBytes -= fileSizeBytes;
+        scheduleFlush();
     }
 
     /**
@@ -477,18 +523,6 @@ public class ThumbnailDiskStorage implements ThumbnailGeneratorCallback {
                 new RemoveThumbnailTask(contentId).executeOnExecutor(AsyncTask.SERIAL_EXECUTOR);
     }
 
-    /**
-     * Gets the file path for a thumbnail with the given content ID and size.
-     * @param contentId Content ID for the thumbnail.
-     * @param iconSizePx Requested size (maximum dimension (pixel) of the smaller side) of
-     * thumbnail.
-     * @return File path.
-     */
-    private String getThumbnailFilePath(@Nullable String contentId, int iconSizePx) {
-        assumeNonNull(mDirectory);
-        return mDirectory.getPath() + File.separator + contentId + iconSizePx + ".entry";
-    }
-
     /**
      * Get directory for thumbnail entries in the designated app (internal) cache directory.
      * The directory's name must be unique.
@@ -0,0 +1,461 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.thumbnail.generator;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.core.util.AtomicFile;
+import androidx.core.util.Pair;
+
+import org.chromium.base.Log;
+import org.chromium.base.StreamUtil;
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Stores the thumbnail entries of {@link ThumbnailDiskStorage} in a single append-only pack file,
+ * instead of one file per thumbnail. An index file maps each (content ID, icon size) to the
+ * location of its entry in the pack; it is memory-mapped and parsed once when the store is
+ * opened, so that no directory scan nor per-thumbnail file open is needed.
+ *
+ * <p>Entries are only ever appended to the pack: replaced and removed entries leave garbage behind,
+ * which {@link #compact()} reclaims by copying the live entries to a new pack. Each compaction
+ * bumps the generation of the pack, which is part of its file name and recorded in the index, so a
+ * crash at any point leaves the index pointing at a consistent pack. The index itself is only
+ * written by {@link #flushIndex()}, so that it can be written once for a batch of changes; changes
+ * that are not flushed are lost on restart, which only costs regenerating their thumbnails.
+ *
+ * <p>Reads may run on any thread, concurrently with each other and with appends. Writes,
+ * removals, flushes and compactions must be serialized by the caller.
+ */
+@NullMarked
+class ThumbnailPackStore {
+    private static final String TAG = "ThumbnailPack";
+
+    private static final String INDEX_FILE_NAME = "thumbnails.index";
+    private static final String PACK_FILE_PREFIX = "thumbnails.";
+    private static final String PACK_FILE_SUFFIX = ".pack";
+    private static final String LEGACY_ENTRY_FILE_SUFFIX = ".entry";
+
+    private static final int INDEX_MAGIC = 0x54485058; // "THPX"
+    private static final int INDEX_VERSION = 1;
+
+    /** Garbage under this size is never worth a compaction. */
+    private static final long MIN_COMPACTION_GARBAGE_BYTES = 256 * 1024;
+
+    /** The location of an entry in the pack. */
+    static final class Record {
+        final String mContentId;
+        final int mIconSizePx;
+        final long mOffset;
+        final int mLength;
+
+        Record(String contentId, int iconSizePx, long offset, int length) {
+            mContentId = contentId;
+            mIconSizePx = iconSizePx;
+            mOffset = offset;
+            mLength = length;
+        }
+    }
+
+    private final File mDirectory;
+    private final AtomicFile mIndexFile;
+
+    // Held for reading to access the pack, and for writing to switch to a new pack.
+    private final ReentrantReadWriteLock mPackLock = new ReentrantReadWriteLock();
+
+    // Records of the live entries, from least to most recently added.
+    @GuardedBy("mRecords")
+    private final LinkedHashMap<Pair<String, Integer>, Record> mRecords = new LinkedHashMap<>();
+
+    @GuardedBy("mPackLock")
+    private @Nullable FileChannel mPackChannel;
+
+    // Only accessed by the serialized writes, or while holding mPackLock for writing.
+    private long mGeneration;
+    private long mPackLength;
+    private long mLiveBytes;
+    private boolean mIndexDirty;
+
+    // Whether entries were appended to the pack since it was last synced to disk.
+    private boolean mPackDirty;
+
+    /**
+     * @param directory The directory of the store, which must exist.
+     */
+    ThumbnailPackStore(File directory) {
+        mDirectory = directory;
+        mIndexFile = new AtomicFile(new File(directory, INDEX_FILE_NAME));
+    }
+
+    /**
+     * Opens the pack and reads the index. Files that don't belong to the store, such as the
+     * thumbnail files of older versions, are deleted. If the index can't be read, the store starts
+     * empty.
+     *
+     * @return The records of the stored entries, from least to most recently added.
+     */
+    List<Record> open() throws IOException {
+        List<Record> records = new ArrayList<>();
+        if (!readIndex(records)) {
+            records.clear();
+            mGeneration = 0;
+        }
+        deleteStaleFiles();
+
+        RandomAccessFile packFile = new RandomAccessFile(getPackFile(mGeneration), "rw");
+        FileChannel channel = packFile.getChannel();
+        mPackLength = channel.size();
+        mPackLock.writeLock().lock();
+        try {
+            mPackChannel = channel;
+        } finally {
+            mPackLock.writeLock().unlock();
+        }
+
+        List<Record> validRecords = new ArrayList<>(records.size());
+        synchronized (mRecords) {
+            for (Record record : records) {
+                // Entries may be missing from the pack after a crash.
+                if (record.mOffset + record.mLength > mPackLength) continue;
+                Record previous =
+                        mRecords.put(Pair.create(record.mContentId, record.mIconSizePx), record);
+                if (previous != null) mLiveBytes -= previous.mLength;
+                mLiveBytes += record.mLength;
+            }
+            validRecords.addAll(mRecords.values());
+        }
+        return validRecords;
+    }
+
+    /**
+     * Appends an entry to the pack, replacing any entry with the same key.
+     *
+     * @return The record of the entry.
+     */
+    Record append(String contentId, int iconSizePx, byte[] data) throws IOException {
+        Record record = new Record(contentId, iconSizePx, mPackLength, data.length);
+        mPackLock.readLock().lock();
+        try {
+            FileChannel channel = getPackChannelLocked();
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long position = record.mOffset;
+            while (buffer.hasRemaining()) position += channel.write(buffer, position);
+        } finally {
+            mPackLock.readLock().unlock();
+        }
+        mPackLength += data.length;
+        mPackDirty = true;
+
+        synchronized (mRecords) {
+            Pair<String, Integer> key = Pair.create(contentId, iconSizePx);
+            Record previous = mRecords.remove(key);
+            if (previous != null) mLiveBytes -= previous.mLength;
+            mRecords.put(key, record);
+        }
+        mLiveBytes += data.length;
+        mIndexDirty = true;
+        return record;
+    }
+
+    /**
+     * Reads an entry. May be called on any thread.
+     *
+     * @return The data of the entry, or null if there is none.
+     */
+    byte @Nullable [] read(@Nullable String contentId, int iconSizePx) throws IOException {
+        // The pack can't be switched while the record is looked up and read.
+        mPackLock.readLock().lock();
+        try {
+            Record record;
+            synchronized (mRecords) {
+                record = mRecords.get(Pair.create(contentId, iconSizePx));
+            }
+            if (record == null) return null;
+
+            FileChannel channel = getPackChannelLocked();
+            ByteBuffer buffer = ByteBuffer.allocate(record.mLength);
+            long position = record.mOffset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) return null;
+                position += read;
+            }
+            return buffer.array();
+        } finally {
+            mPackLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an entry. Its data stays in the pack until the next compaction.
+     *
+     * @return The record of the removed entry, or null if there was none.
+     */
+    @Nullable Record remove(String contentId, int iconSizePx) {
+        Record record;
+        synchronized (mRecords) {
+            record = mRecords.remove(Pair.create(contentId, iconSizePx));
+        }
+        if (record == null) return null;
+        mLiveBytes -= record.mLength;
+        mIndexDirty = true;
+        return record;
+    }
+
+    /** Removes all the entries, and empties the pack. */
+    void clear() throws IOException {
+        synchronized (mRecords) {
+            mRecords.clear();
+        }
+        mLiveBytes = 0;
+        mIndexDirty = true;
+        // The index must not point past the end of the pack once it is truncated.
+        flushIndex();
+        mPackLock.readLock().lock();
+        try {
+            getPackChannelLocked().truncate(0);
+        } finally {
+            mPackLock.readLock().unlock();
+        }
+        mPackLength = 0;
+    }
+
+    /**
+     * Writes the index, if it changed since it was last written. The appended entries are synced
+     * to disk first, so that the index never points at data that a crash could lose.
+     */
+    void flushIndex() throws IOException {
+        if (!mIndexDirty) return;
+        if (mPackDirty) {
+            mPackLock.readLock().lock();
+            try {
+                getPackChannelLocked().force(false);
+            } finally {
+                mPackLock.readLock().unlock();
+            }
+            mPackDirty = false;
+        }
+        writeIndex(mGeneration);
+        mIndexDirty = false;
+    }
+
+    /** Returns whether enough of the pack is garbage for a compaction to be worth it. */
+    boolean shouldCompact() {
+        long garbageBytes = mPackLength - mLiveBytes;
+        return garbageBytes >= MIN_COMPACTION_GARBAGE_BYTES && garbageBytes > mLiveBytes;
+    }
+
+    /**
+     * Copies the live entries to a new pack, and deletes the current one. Reads are only blocked
+     * while switching packs.
+     */
+    void compact() throws IOException {
+        List<Record> records;
+        synchronized (mRecords) {
+            records = new ArrayList<>(mRecords.values());
+        }
+
+        long generation = mGeneration + 1;
+        File newPackFile = getPackFile(generation);
+        List<Record> newRecords = new ArrayList<>(records.size());
+        long newLength = 0;
+        RandomAccessFile newPack = new RandomAccessFile(newPackFile, "rw");
+        FileChannel newChannel = newPack.getChannel();
+        try {
+            newChannel.truncate(0);
+            mPackLock.readLock().lock();
+            try {
+                FileChannel channel = getPackChannelLocked();
+                for (Record record : records) {
+                    long copied = 0;
+                    while (copied < record.mLength) {
+                        long transferred =
+                                channel.transferTo(
+                                        record.mOffset + copied,
+                                        record.mLength - copied,
+                                        newChannel);
+                        if (transferred <= 0) throw new IOException("Truncated thumbnail pack.");
+                        copied += transferred;
+                    }
+                    newRecords.add(
+                            new Record(
+                                    record.mContentId,
+                                    record.mIconSizePx,
+                                    newLength,
+                                    record.mLength));
+                    newLength += record.mLength;
+                }
+            } finally {
+                mPackLock.readLock().unlock();
+            }
+            newChannel.force(false);
+        } catch (IOException e) {
+            StreamUtil.closeQuietly(newPack);
+            newPackFile.delete();
+            throw e;
+        }
+
+        FileChannel oldChannel;
+        mPackLock.writeLock().lock();
+        try {
+            oldChannel = mPackChannel;
+            mPackChannel = newChannel;
+            synchronized (mRecords) {
+                mRecords.clear();
+                for (Record record : newRecords) {
+                    mRecords.put(Pair.create(record.mContentId, record.mIconSizePx), record);
+                }
+            }
+            mGeneration = generation;
+            mPackLength = newLength;
+            mLiveBytes = newLength;
+            // The new pack was synced once written.
+            mPackDirty = false;
+        } finally {
+            mPackLock.writeLock().unlock();
+        }
+
+        // Until the index names the new pack, the old one is still the one used after a restart.
+        mIndexDirty = true;
+        flushIndex();
+        StreamUtil.closeQuietly(oldChannel);
+        getPackFile(generation - 1).delete();
+    }
+
+    /** Returns the total size of the live entries, in bytes. */
+    long getLiveBytes() {
+        return mLiveBytes;
+    }
+
+    @VisibleForTesting
+    long getPackLength() {
+        return mPackLength;
+    }
+
+    @GuardedBy("mPackLock")
+    private FileChannel getPackChannelLocked() throws IOException {
+        if (mPackChannel == null) throw new IOException("The thumbnail pack isn't open.");
+        return mPackChannel;
+    }
+
+    private File getPackFile(long generation) {
+        return new File(
+                mDirectory,
+                String.format(Locale.US, "%s%d%s", PACK_FILE_PREFIX, generation, PACK_FILE_SUFFIX));
+    }
+
+    /**
+     * Parses the memory-mapped index into |records|, and sets the current generation. An index
+     * with a record that can't point into a pack is rejected as a whole.
+     *
+     * @return Whether the index was read.
+     */
+    private boolean readIndex(List<Record> records) {
+        if (!mIndexFile.getBaseFile().exists()) return false;
+        FileInputStream stream = null;
+        try {
+            stream = mIndexFile.openRead();
+            FileChannel channel = stream.getChannel();
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != INDEX_MAGIC || buffer.getInt() != INDEX_VERSION) return false;
+            long generation = buffer.getLong();
+            int count = buffer.getInt();
+            if (generation < 0 || count < 0) return false;
+            for (int i = 0; i < count; i++) {
+                long offset = buffer.getLong();
+                int length = buffer.getInt();
+                if (offset < 0 || length < 0 || offset > Long.MAX_VALUE - length) {
+                    Log.e(TAG, "Invalid record in the thumbnail index.");
+                    return false;
+                }
+                int iconSizePx = buffer.getInt();
+                byte[] contentId = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(contentId);
+                records.add(
+                        new Record(
+                                new String(contentId, StandardCharsets.UTF_8),
+                                iconSizePx,
+                                offset,
+                                length));
+            }
+            mGeneration = generation;
+            return true;
+        } catch (IOException | BufferUnderflowException e) {
+            Log.e(TAG, "Error while reading the thumbnail index.", e);
+            return false;
+        } finally {
+            StreamUtil.closeQuietly(stream);
+        }
+    }
+
+    private void writeIndex(long generation) throws IOException {
+        List<Record> records;
+        synchronized (mRecords) {
+            records = new ArrayList<>(mRecords.values());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(INDEX_MAGIC);
+        output.writeInt(INDEX_VERSION);
+        output.writeLong(generation);
+        output.writeInt(records.size());
+        for (Record record : records) {
+            byte[] contentId = record.mContentId.getBytes(StandardCharsets.UTF_8);
+            // Content IDs are much shorter than this in practice.
+            if (contentId.length > 0xFFFF) throw new IOException("Content ID too long.");
+            output.writeLong(record.mOffset);
+            output.writeInt(record.mLength);
+            output.writeInt(record.mIconSizePx);
+            output.writeShort(contentId.length);
+            output.write(contentId);
+        }
+        output.flush();
+
+        FileOutputStream stream = mIndexFile.startWrite();
+        try {
+            bytes.writeTo(stream);
+            mIndexFile.finishWrite(stream);
+        } catch (IOException e) {
+            mIndexFile.failWrite(stream);
+            throw e;
+        }
+    }
+
+    /** Deletes the packs of other generations and the files of the previous storage format. */
+    private void deleteStaleFiles() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) return;
+        String packFileName = getPackFile(mGeneration).getName();
+        for (File file : files) {
+            String name = file.getName();
+            boolean isStalePack =
+                    name.startsWith(PACK_FILE_PREFIX)
+                            && name.endsWith(PACK_FILE_SUFFIX)
+                            && !name.equals(packFileName);
+            if (isStalePack || name.endsWith(LEGACY_ENTRY_FILE_SUFFIX)) file.delete();
+        }
+    }
+}
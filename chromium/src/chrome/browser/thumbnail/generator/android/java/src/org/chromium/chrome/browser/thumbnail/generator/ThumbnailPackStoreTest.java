@@ -0,0 +1,184 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.chrome.browser.thumbnail.generator;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.util.Batch;
+import org.chromium.chrome.test.ChromeJUnit4ClassRunner;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/** Unit test for {@link ThumbnailPackStore}. */
+@RunWith(ChromeJUnit4ClassRunner.class)
+@Batch(Batch.UNIT_TESTS)
+public class ThumbnailPackStoreTest {
+    private static final String CONTENT_ID1 = "contentId1";
+    private static final String CONTENT_ID2 = "contentId2";
+    private static final String CONTENT_ID3 = "contentId3";
+    private static final int ICON_SIZE1 = 50;
+    private static final int ICON_SIZE2 = 70;
+    private static final byte[] DATA1 = new byte[] {1, 2, 3};
+    private static final byte[] DATA2 = new byte[] {4, 5, 6, 7};
+    private static final byte[] DATA3 = new byte[] {8, 9};
+
+    @Rule public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mDirectory;
+    private ThumbnailPackStore mStore;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = mTemporaryFolder.newFolder();
+        mStore = new ThumbnailPackStore(mDirectory);
+        Assert.assertTrue(mStore.open().isEmpty());
+    }
+
+    /** Verify that appended entries can be read, and that a new entry replaces an old one. */
+    @Test
+    @SmallTest
+    public void testAppendAndRead() throws IOException {
+        mStore.append(CONTENT_ID1, ICON_SIZE1, DATA1);
+        mStore.append(CONTENT_ID1, ICON_SIZE2, DATA2);
+        Assert.assertArrayEquals(DATA1, mStore.read(CONTENT_ID1, ICON_SIZE1));
+        Assert.assertArrayEquals(DATA2, mStore.read(CONTENT_ID1, ICON_SIZE2));
+        Assert.assertNull(mStore.read(CONTENT_ID2, ICON_SIZE1));
+
+        mStore.append(CONTENT_ID1, ICON_SIZE1, DATA3);
+        Assert.assertArrayEquals(DATA3, mStore.read(CONTENT_ID1, ICON_SIZE1));
+        Assert.assertEquals(DATA3.length + DATA2.length, mStore.getLiveBytes());
+        Assert.assertEquals(DATA1.length + DATA2.length + DATA3.length, mStore.getPackLength());
+    }
+
+    /** Verify that removed entries can't be read anymore. */
+    @Test
+    @SmallTest
+    public void testRemove() throws IOException {
+        mStore.append(CONTENT_ID1, ICON_SIZE1, DATA1);
+
+        ThumbnailPackStore.Record record = mStore.remove(CONTENT_ID1, ICON_SIZE1);
+        Assert.assertNotNull(record);
+        Assert.assertEquals(DATA1.length, record.mLength);
+        Assert.assertNull(mStore.read(CONTENT_ID1, ICON_SIZE1));
+        Assert.assertNull(mStore.remove(CONTENT_ID1, ICON_SIZE1));
+        Assert.assertEquals(0, mStore.getLiveBytes());
+    }
+
+    /** Verify that flushed entries are restored in the order they were added. */
+    @Test
+    @SmallTest
+    public void testReopenRestoresFlushedEntries() throws IOException {
+        mStore.append(CONTENT_ID1, ICON_SIZE1, DATA1);
+        mStore.append(CONTENT_ID2, ICON_SIZE1, DATA2);
+        mStore.append(CONTENT_ID3, ICON_SIZE1, DATA3);
+        mStore.remove(CONTENT_ID2, ICON_SIZE1);
+        // Re-adding an entry makes it the most recent one.
+        mStore.append(CONTENT_ID1, ICON_SIZE1, DATA1);
+        mStore.flushIndex();
+        // Entries that aren't flushed are lost.
+        mStore.append(CONTENT_ID2, ICON_SIZE2, DATA2);
+
+        ThumbnailPackStore store = new ThumbnailPackStore(mDirectory);
+        assertRecords(store.open(), CONTENT_ID3, CONTENT_ID1);
+        Assert.assertArrayEquals(DATA3, store.read(CONTENT_ID3, ICON_SIZE1));
+        Assert.assertArrayEquals(DATA1, store.read(CONTENT_ID1, ICON_SIZE1));
+        Assert.assertNull(store.read(CONTENT_ID2, ICON_SIZE2));
+        Assert.assertEquals(DATA3.length + DATA1.length, store.getLiveBytes());
+    }
+
+    /** Verify that compaction drops the garbage, and keeps the entries readable. */
+    @Test
+    @SmallTest
+    public void testCompact() throws IOException {
+        mStore.append(CONTENT_ID1, ICON_SIZE1, DATA1);
+        mStore.append(CONTENT_ID2, ICON_SIZE1, DATA2);
+        mStore.append(CONTENT_ID3, ICON_SIZE1, DATA3);
+        mStore.remove(CONTENT_ID2, ICON_SIZE1);
+
+        mStore.compact();
+        Assert.assertEquals(DATA1.length + DATA3.length, mStore.getPackLength());
+        Assert.assertArrayEquals(DATA1, mStore.read(CONTENT_ID1, ICON_SIZE1));
+        Assert.assertArrayEquals(DATA3, mStore.read(CONTENT_ID3, ICON_SIZE1));
+        Assert.assertNull(mStore.read(CONTENT_ID2, ICON_SIZE1));
+        // Only the pack of the new generation is left.
+        Assert.assertEquals(2, mDirectory.listFiles().length);
+
+        ThumbnailPackStore store = new ThumbnailPackStore(mDirectory);
+        assertRecords(store.open(), CONTENT_ID1, CONTENT_ID3);
+        Assert.assertArrayEquals(DATA3, store.read(CONTENT_ID3, ICON_SIZE1));
+    }
+
+    /** Verify that clearing empties the pack. */
+    @Test
+    @SmallTest
+    public void testClear() throws IOException {
+        mStore.append(CONTENT_ID1, ICON_SIZE1, DATA1);
+        mStore.flushIndex();
+
+        mStore.clear();
+        Assert.assertNull(mStore.read(CONTENT_ID1, ICON_SIZE1));
+        Assert.assertEquals(0, mStore.getPackLength());
+        Assert.assertTrue(new ThumbnailPackStore(mDirectory).open().isEmpty());
+    }
+
+    /** Verify that the thumbnail files of the previous storage format are deleted. */
+    @Test
+    @SmallTest
+    public void testOpenDeletesLegacyFiles() throws IOException {
+        File legacyFile = new File(mDirectory, CONTENT_ID1 + ICON_SIZE1 + ".entry");
+        Assert.assertTrue(legacyFile.createNewFile());
+
+        new ThumbnailPackStore(mDirectory).open();
+        Assert.assertFalse(legacyFile.exists());
+    }
+
+    /** Verify that an index with a record that can't point into the pack is ignored. */
+    @Test
+    @SmallTest
+    public void testOpenRejectsInvalidIndex() throws IOException {
+        mStore.append(CONTENT_ID1, ICON_SIZE1, DATA1);
+        mStore.flushIndex();
+
+        try (DataOutputStream output =
+                new DataOutputStream(
+                        new FileOutputStream(new File(mDirectory, "thumbnails.index")))) {
+            output.writeInt(0x54485058);
+            output.writeInt(1);
+            output.writeLong(0);
+            output.writeInt(1);
+            output.writeLong(0);
+            output.writeInt(-1);
+            output.writeInt(ICON_SIZE1);
+            output.writeShort(CONTENT_ID1.length());
+            output.write(CONTENT_ID1.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ThumbnailPackStore store = new ThumbnailPackStore(mDirectory);
+        Assert.assertTrue(store.open().isEmpty());
+        Assert.assertNull(store.read(CONTENT_ID1, ICON_SIZE1));
+    }
+
+    private static void assertRecords(
+            List<ThumbnailPackStore.Record> records, String... contentIds) {
+        String[] actualContentIds = new String[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            actualContentIds[i] = records.get(i).mContentId;
+        }
+        Assert.assertEquals(Arrays.asList(contentIds), Arrays.asList(actualContentIds));
+    }
+}
@@ -0,0 +1,39 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link RequestFinishedInfo.Listener} that receives finished requests in batches.
+ *
+ * <p>Engines that support batching queue the requests finishing while a batch is pending rather
+ * than posting a task per request: the executor runs at most one delivery task at a time per
+ * listener, and the batch grows with the executor's backlog. Requests are delivered in the order
+ * they finished, without any added delay.
+ *
+ * <p>Engines that don't batch deliver each request in a batch of its own.
+ */
+public abstract class BatchedRequestFinishedListener extends RequestFinishedInfo.Listener {
+    /** @param executor The executor to deliver batches on. */
+    protected BatchedRequestFinishedListener(Executor executor) {
+        super(executor);
+    }
+
+    /**
+     * Invoked with the requests that finished since the previous batch, in order. Called in a task
+     * submitted to the {@link Executor} returned by {@link #getExecutor}.
+     *
+     * @param requestInfos The finished requests. Never empty; only valid during the call.
+     */
+    public abstract void onRequestsFinished(List<RequestFinishedInfo> requestInfos);
+
+    @Override
+    public final void onRequestFinished(RequestFinishedInfo requestInfo) {
+        onRequestsFinished(Collections.singletonList(requestInfo));
+    }
+}
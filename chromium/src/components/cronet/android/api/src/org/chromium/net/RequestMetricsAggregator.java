@@ -0,0 +1,223 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net;
+
+import android.net.Uri;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Aggregates the metrics of finished requests per host, in fixed memory.
+ *
+ * <p>Time to first byte, total time and received bytes are recorded in log-linear histograms with
+ * four buckets per power of two, so percentiles are reported within 25% of the recorded values.
+ * Only the most recently active hosts are kept; the least recently active one is dropped when a
+ * new host would exceed {@code maxHosts}.
+ */
+public final class RequestMetricsAggregator extends BatchedRequestFinishedListener {
+    private static final int DEFAULT_MAX_HOSTS = 32;
+
+    private final int mMaxHosts;
+
+    // Guarded by itself.
+    private final LinkedHashMap<String, HostHistograms> mHostHistograms;
+
+    /** Percentiles of the metrics of the finished requests to a host. */
+    public static final class HostMetrics {
+        private final long mRequestCount;
+        private final Histogram mTtfbMs;
+        private final Histogram mTotalTimeMs;
+        private final Histogram mReceivedBytes;
+
+        private HostMetrics(HostHistograms histograms) {
+            mRequestCount = histograms.mRequestCount;
+            mTtfbMs = histograms.mTtfbMs.copy();
+            mTotalTimeMs = histograms.mTotalTimeMs.copy();
+            mReceivedBytes = histograms.mReceivedBytes.copy();
+        }
+
+        /** Returns the number of finished requests, including those without metrics. */
+        public long getRequestCount() {
+            return mRequestCount;
+        }
+
+        /**
+         * Returns the {@code percentile}th percentile of the time to first byte in milliseconds,
+         * or -1 if no request reported it.
+         */
+        public long getTtfbMsPercentile(double percentile) {
+            return mTtfbMs.getPercentile(percentile);
+        }
+
+        /**
+         * Returns the {@code percentile}th percentile of the total request time in milliseconds,
+         * or -1 if no request reported it.
+         */
+        public long getTotalTimeMsPercentile(double percentile) {
+            return mTotalTimeMs.getPercentile(percentile);
+        }
+
+        /**
+         * Returns the {@code percentile}th percentile of the received byte count, or -1 if no
+         * request reported it.
+         */
+        public long getReceivedBytesPercentile(double percentile) {
+            return mReceivedBytes.getPercentile(percentile);
+        }
+    }
+
+    /** @param executor The executor to aggregate finished requests on. */
+    public RequestMetricsAggregator(Executor executor) {
+        this(executor, DEFAULT_MAX_HOSTS);
+    }
+
+    /**
+     * @param executor The executor to aggregate finished requests on.
+     * @param maxHosts The maximum number of hosts to keep metrics for.
+     */
+    public RequestMetricsAggregator(Executor executor, int maxHosts) {
+        super(executor);
+        if (maxHosts <= 0) {
+            throw new IllegalArgumentException("maxHosts must be positive");
+        }
+        mMaxHosts = maxHosts;
+        mHostHistograms =
+                new LinkedHashMap<String, HostHistograms>(
+                        /* initialCapacity= */ 16,
+                        /* loadFactor= */ 0.75f,
+                        /* accessOrder= */ true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, HostHistograms> eldest) {
+                        return size() > mMaxHosts;
+                    }
+                };
+    }
+
+    @Override
+    public void onRequestsFinished(List<RequestFinishedInfo> requestInfos) {
+        synchronized (mHostHistograms) {
+            for (RequestFinishedInfo requestInfo : requestInfos) {
+                String host = Uri.parse(requestInfo.getUrl()).getHost();
+                if (host == null) continue;
+                HostHistograms histograms = mHostHistograms.get(host);
+                if (histograms == null) {
+                    histograms = new HostHistograms();
+                    mHostHistograms.put(host, histograms);
+                }
+                histograms.record(requestInfo.getMetrics());
+            }
+        }
+    }
+
+    /** Returns a snapshot of the metrics of {@code host}, or null if none are kept. */
+    public @Nullable HostMetrics getHostMetrics(String host) {
+        synchronized (mHostHistograms) {
+            HostHistograms histograms = mHostHistograms.get(host);
+            return histograms == null ? null : new HostMetrics(histograms);
+        }
+    }
+
+    /** Returns the hosts metrics are kept for, least recently active first. */
+    public List<String> getHosts() {
+        synchronized (mHostHistograms) {
+            return new ArrayList<>(mHostHistograms.keySet());
+        }
+    }
+
+    /** Drops the metrics of all hosts. */
+    public void reset() {
+        synchronized (mHostHistograms) {
+            mHostHistograms.clear();
+        }
+    }
+
+    private static final class HostHistograms {
+        long mRequestCount;
+        final Histogram mTtfbMs = new Histogram();
+        final Histogram mTotalTimeMs = new Histogram();
+        final Histogram mReceivedBytes = new Histogram();
+
+        void record(@Nullable RequestFinishedInfo.Metrics metrics) {
+            mRequestCount++;
+            if (metrics == null) return;
+            Long ttfbMs = metrics.getTtfbMs();
+            if (ttfbMs != null) mTtfbMs.record(ttfbMs);
+            Long totalTimeMs = metrics.getTotalTimeMs();
+            if (totalTimeMs != null) mTotalTimeMs.record(totalTimeMs);
+            Long receivedBytes = metrics.getReceivedByteCount();
+            if (receivedBytes != null) mReceivedBytes.record(receivedBytes);
+        }
+    }
+
+    /**
+     * A histogram of non-negative values with four buckets per power of two. Values below 4 get a
+     * bucket each; values past the last bucket are counted in it.
+     */
+    @VisibleForTesting
+    static final class Histogram {
+        static final int BUCKET_COUNT = 128;
+
+        private final long[] mCounts;
+        private long mTotalCount;
+
+        Histogram() {
+            mCounts = new long[BUCKET_COUNT];
+        }
+
+        private Histogram(Histogram other) {
+            mCounts = other.mCounts.clone();
+            mTotalCount = other.mTotalCount;
+        }
+
+        Histogram copy() {
+            return new Histogram(this);
+        }
+
+        void record(long value) {
+            mCounts[getBucketIndex(Math.max(0, value))]++;
+            mTotalCount++;
+        }
+
+        long getTotalCount() {
+            return mTotalCount;
+        }
+
+        /** Returns the lower bound of the bucket holding the percentile, or -1 if empty. */
+        long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be within [0, 100]");
+            }
+            if (mTotalCount == 0) return -1;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * mTotalCount));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += mCounts[i];
+                if (seen >= rank) return getBucketLowerBound(i);
+            }
+            return getBucketLowerBound(BUCKET_COUNT - 1);
+        }
+
+        static int getBucketIndex(long value) {
+            if (value < 4) return (int) value;
+            int octave = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (octave - 2)) & 3;
+            return Math.min(BUCKET_COUNT - 1, 4 * octave + subBucket - 4);
+        }
+
+        static long getBucketLowerBound(int index) {
+            if (index < 4) return index;
+            int octave = (index + 4) / 4;
+            int subBucket = (index + 4) % 4;
+            return (4L + subBucket) << (octave - 2);
+        }
+    }
+}
@@ -11,6 +11,18 @@ import org.chromium.net.UrlResponseInfo;
  * without any interpretation.
  */
 public abstract class ByteArrayCronetCallback extends InMemoryTransformCronetCallback<byte[]> {
+    /** Creates a callback reading into buffers from {@link ByteBufferPool#getDefault()}. */
+    public ByteArrayCronetCallback() {}
+
+    /**
+     * Creates a callback reading into buffers from the given pool.
+     *
+     * @param bufferPool The pool to take read buffers from and give them back to.
+     */
+    protected ByteArrayCronetCallback(ByteBufferPool bufferPool) {
+        super(bufferPool);
+    }
+
     @Override // Override to return the subtype
     public ByteArrayCronetCallback addCompletionListener(
             CronetRequestCompletionListener<? super byte[]> listener) {
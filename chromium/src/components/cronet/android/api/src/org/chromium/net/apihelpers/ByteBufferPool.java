@@ -0,0 +1,127 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net.apihelpers;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A thread-safe pool of direct {@link ByteBuffer}s to read response bodies into, saving the
+ * allocation of a direct buffer per request or per read.
+ *
+ * <p>Buffers come in power-of-two size classes from {@link #MIN_BUFFER_SIZE} to {@link
+ * #MAX_BUFFER_SIZE} bytes. Released buffers are retained for reuse until the pool holds {@code
+ * maxRetainedBytes}; further released buffers are left to the garbage collector.
+ *
+ * <p>A buffer must not be used after it has been released, and must be released at most once.
+ */
+public final class ByteBufferPool {
+    /** Capacity of the smallest buffers handed out by the pool. */
+    public static final int MIN_BUFFER_SIZE = 4 * 1024;
+
+    /** Capacity of the largest pooled buffers. Larger requests are allocated without pooling. */
+    public static final int MAX_BUFFER_SIZE = 256 * 1024;
+
+    private static final int MIN_BUFFER_SIZE_LOG2 = 12;
+    private static final int SIZE_CLASS_COUNT = 7;
+    private static final int DEFAULT_MAX_RETAINED_BYTES = 1024 * 1024;
+
+    private static final ByteBufferPool sDefaultPool =
+            new ByteBufferPool(DEFAULT_MAX_RETAINED_BYTES);
+
+    private final int mMaxRetainedBytes;
+
+    // Free buffers of each size class, most recently released last. Guarded by |this|.
+    private final List<ArrayDeque<ByteBuffer>> mFreeBuffers = new ArrayList<>(SIZE_CLASS_COUNT);
+
+    // Total capacity of the buffers in |mFreeBuffers|. Guarded by |this|.
+    private int mRetainedBytes;
+
+    /** Returns the pool shared by the callbacks in this package. */
+    public static ByteBufferPool getDefault() {
+        return sDefaultPool;
+    }
+
+    /**
+     * @param maxRetainedBytes The maximum total capacity of the released buffers kept for reuse.
+     */
+    public ByteBufferPool(int maxRetainedBytes) {
+        if (maxRetainedBytes < 0) {
+            throw new IllegalArgumentException("maxRetainedBytes must not be negative");
+        }
+        mMaxRetainedBytes = maxRetainedBytes;
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+            mFreeBuffers.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Returns a cleared direct buffer with a capacity of at least {@code minCapacity} bytes,
+     * rounded up to the next size class. The buffer should be given back with {@link #release}
+     * once the caller is done with it.
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        if (minCapacity <= 0) {
+            throw new IllegalArgumentException("minCapacity must be positive");
+        }
+        if (minCapacity > MAX_BUFFER_SIZE) {
+            return ByteBuffer.allocateDirect(minCapacity);
+        }
+        int sizeClass = getSizeClass(minCapacity);
+        synchronized (this) {
+            ByteBuffer buffer = mFreeBuffers.get(sizeClass).pollLast();
+            if (buffer != null) {
+                mRetainedBytes -= buffer.capacity();
+                buffer.clear();
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocateDirect(getSizeClassCapacity(sizeClass));
+    }
+
+    /**
+     * Gives a buffer back to the pool. Buffers that weren't handed out by a pool, or that don't fit
+     * in the retention budget, are dropped.
+     */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (!buffer.isDirect()
+                || buffer.isReadOnly()
+                || capacity < MIN_BUFFER_SIZE
+                || capacity > MAX_BUFFER_SIZE
+                || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        synchronized (this) {
+            if (mRetainedBytes + capacity > mMaxRetainedBytes) return;
+            mFreeBuffers.get(getSizeClass(capacity)).addLast(buffer);
+            mRetainedBytes += capacity;
+        }
+    }
+
+    /** Drops all the buffers retained for reuse. */
+    public synchronized void clear() {
+        for (ArrayDeque<ByteBuffer> buffers : mFreeBuffers) {
+            buffers.clear();
+        }
+        mRetainedBytes = 0;
+    }
+
+    /** Returns the total capacity of the buffers retained for reuse. */
+    public synchronized int getRetainedBytes() {
+        return mRetainedBytes;
+    }
+
+    private static int getSizeClass(int minCapacity) {
+        int log2 = 32 - Integer.numberOfLeadingZeros(minCapacity - 1);
+        return Math.max(0, log2 - MIN_BUFFER_SIZE_LOG2);
+    }
+
+    private static int getSizeClassCapacity(int sizeClass) {
+        return MIN_BUFFER_SIZE << sizeClass;
+    }
+}
@@ -16,10 +16,32 @@ import java.nio.ByteBuffer;
 /**
  * An implementation of {@link UrlRequest.Callback} that takes away the difficulty of managing the
  * request lifecycle away, and automatically proceeds to read the response entirely.
+ *
+ * <p>The response body is read into a buffer taken from a {@link ByteBufferPool}, which is given
+ * back to the pool once the request reaches a terminal state.
  */
 public abstract class ImplicitFlowControlCallback extends UrlRequest.Callback {
     private static final int BYTE_BUFFER_CAPACITY = 32 * 1024;
 
+    private final ByteBufferPool mBufferPool;
+
+    /** The buffer the body is currently read into, owned by this callback until released. */
+    @Nullable private ByteBuffer mReadBuffer;
+
+    /** Creates a callback reading into buffers from {@link ByteBufferPool#getDefault()}. */
+    public ImplicitFlowControlCallback() {
+        this(ByteBufferPool.getDefault());
+    }
+
+    /**
+     * Creates a callback reading into buffers from the given pool.
+     *
+     * @param bufferPool The pool to take read buffers from and give them back to.
+     */
+    protected ImplicitFlowControlCallback(ByteBufferPool bufferPool) {
+        mBufferPool = bufferPool;
+    }
+
     /**
      * Invoked whenever a redirect is encountered. This will only be invoked between the call to
      * {@link UrlRequest#start} and {@link UrlRequest.Callback#onResponseStarted
@@ -91,7 +113,8 @@ public abstract class ImplicitFlowControlCallback extends UrlRequest.Callback {
     @Override
     public final void onResponseStarted(UrlRequest request, UrlResponseInfo info) throws Exception {
         onResponseStarted(info);
-        request.read(ByteBuffer.allocateDirect(BYTE_BUFFER_CAPACITY));
+        mReadBuffer = mBufferPool.acquire(BYTE_BUFFER_CAPACITY);
+        request.read(mReadBuffer);
     }
 
     @Override
@@ -115,16 +138,35 @@ public abstract class ImplicitFlowControlCallback extends UrlRequest.Callback {
 
     @Override
     public final void onSucceeded(UrlRequest request, UrlResponseInfo info) {
-        onSucceeded(info);
+        try {
+            onSucceeded(info);
+        } finally {
+            releaseReadBuffer();
+        }
     }
 
     @Override
     public final void onFailed(UrlRequest request, UrlResponseInfo info, CronetException error) {
-        onFailed(info, error);
+        try {
+            onFailed(info, error);
+        } finally {
+            releaseReadBuffer();
+        }
     }
 
     @Override
     public final void onCanceled(UrlRequest request, UrlResponseInfo info) {
-        onCanceled(info);
+        try {
+            onCanceled(info);
+        } finally {
+            releaseReadBuffer();
+        }
+    }
+
+    /** Gives the read buffer back to the pool. Cronet no longer uses it in terminal states. */
+    private void releaseReadBuffer() {
+        if (mReadBuffer == null) return;
+        mBufferPool.release(mReadBuffer);
+        mReadBuffer = null;
     }
 }
@@ -25,6 +25,9 @@ import java.util.Set;
  * the callback. When the request reaches a terminal state, the mListeners are informed in order of
  * addition.
  *
+ * <p>Chunks are copied out of the pooled read buffer into a heap array, which is sized upfront
+ * when the response has a Content-Length.
+ *
  * @param <T> the response body type
  */
 public abstract class InMemoryTransformCronetCallback<T> extends ImplicitFlowControlCallback {
@@ -39,6 +42,18 @@ public abstract class InMemoryTransformCronetCallback<T> extends ImplicitFlowCon
     private final Set<CronetRequestCompletionListener<? super T>> mListeners =
             new LinkedHashSet<>();
 
+    /** Creates a callback reading into buffers from {@link ByteBufferPool#getDefault()}. */
+    public InMemoryTransformCronetCallback() {}
+
+    /**
+     * Creates a callback reading into buffers from the given pool.
+     *
+     * @param bufferPool The pool to take read buffers from and give them back to.
+     */
+    protected InMemoryTransformCronetCallback(ByteBufferPool bufferPool) {
+        super(bufferPool);
+    }
+
     /**
      * Transforms (deserializes) the plain full body into a user-defined object.
      *
@@ -13,11 +13,15 @@ import androidx.annotation.VisibleForTesting;
 
 import org.chromium.net.impl.CronetLogger.CronetSource;
 import org.chromium.net.telemetry.CronetLoggerImpl;
+import org.chromium.net.telemetry.RateLimiter;
 
 /** Takes care of instantiating the correct CronetLogger. */
 public final class CronetLoggerFactory {
     private static final String TAG = CronetLoggerFactory.class.getSimpleName();
     private static final int SAMPLE_RATE_PER_SECOND = 1;
+    // Traffic samples are flushed about once per second, so this leaves room for bursts well past
+    // the sample rate.
+    private static final int TRAFFIC_SAMPLE_RING_CAPACITY = 16;
 
     private CronetLoggerFactory() {}
 
@@ -34,7 +38,12 @@ public final class CronetLoggerFactory {
                     && Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
                     && CronetManifest.isAppOptedInForTelemetry(ctx, source)) {
                 try {
-                    sLogger = new CronetLoggerImpl(SAMPLE_RATE_PER_SECOND);
+                    // The logger is shared by all the engines of the process, and so is its
+                    // flush thread.
+                    sLogger =
+                            new CronetLoggerImpl(
+                                    new RateLimiter(SAMPLE_RATE_PER_SECOND),
+                                    TRAFFIC_SAMPLE_RING_CAPACITY);
                 } catch (Exception e) {
                     // Pass - since we dont want any failure, catch any exception that might
                     // arise.
@@ -186,6 +186,9 @@ public class CronetUrlRequestContext extends CronetEngineBase {
 
     private List<VersionSafeProxyCallback> mProxyCallbacks;
 
+    /** Shares network fetches between identical requests, if enabled by experimental options. */
+    private final UrlRequestCoalescer mRequestCoalescer;
+
     long getLogId() {
         return mLogId;
     }
@@ -270,6 +273,10 @@ public class CronetUrlRequestContext extends CronetEngineBase {
             if (builder.getProxyOptions() != null) {
                 mProxyCallbacks = builder.getProxyOptions().createProxyCallbackList();
             }
+            mRequestCoalescer =
+                    UrlRequestCoalescer.isEnabled(builder.experimentalOptions())
+                            ? new UrlRequestCoalescer(this)
+                            : null;
             synchronized (mLock) {
                 try (var adapterTraceEvent =
                         ScopedSysTraceEvent.scoped(
@@ -486,6 +493,31 @@ public class CronetUrlRequestContext extends CronetEngineBase {
         }
         synchronized (mLock) {
             checkHaveAdapter();
+            if (mRequestCoalescer != null
+                    && UrlRequestCoalescer.canCoalesce(
+                            method,
+                            disableCache,
+                            allowDirectExecutor,
+                            requestFinishedListener,
+                            idempotency,
+                            uploadDataProvider,
+                            sharedDictionaryHash)) {
+                return mRequestCoalescer.createRequest(
+                        url,
+                        callback,
+                        executor,
+                        priority,
+                        requestAnnotations,
+                        disableConnectionMigration,
+                        trafficStatsTagSet,
+                        trafficStatsTag,
+                        trafficStatsUidSet,
+                        trafficStatsUid,
+                        idempotency,
+                        networkHandle,
+                        method,
+                        requestHeaders);
+            }
             return new CronetUrlRequest(
                     this,
                     url,
@@ -513,6 +545,55 @@ public class CronetUrlRequestContext extends CronetEngineBase {
         }
     }
 
+    /**
+     * Creates a plain request that bypasses the request coalescer. Used by the coalescer for the
+     * network fetches it shares, and for requests it can't serve from a shared fetch.
+     */
+    CronetUrlRequest createUncoalescedRequest(
+            String url,
+            UrlRequest.Callback callback,
+            Executor executor,
+            int priority,
+            Collection<Object> requestAnnotations,
+            boolean disableConnectionMigration,
+            boolean allowDirectExecutor,
+            boolean trafficStatsTagSet,
+            int trafficStatsTag,
+            boolean trafficStatsUidSet,
+            int trafficStatsUid,
+            int idempotency,
+            long networkHandle,
+            String method,
+            ArrayList<Map.Entry<String, String>> requestHeaders) {
+        synchronized (mLock) {
+            checkHaveAdapter();
+            return new CronetUrlRequest(
+                    this,
+                    url,
+                    priority,
+                    callback,
+                    executor,
+                    requestAnnotations,
+                    /* disableCache= */ false,
+                    disableConnectionMigration,
+                    allowDirectExecutor,
+                    trafficStatsTagSet,
+                    trafficStatsTag,
+                    trafficStatsUidSet,
+                    trafficStatsUid,
+                    /* requestFinishedListener= */ null,
+                    idempotency,
+                    networkHandle,
+                    method,
+                    requestHeaders,
+                    /* uploadDataProvider= */ null,
+                    /* uploadDataProviderExecutor= */ null,
+                    /* dictionarySha256Hash= */ null,
+                    /* dictionary= */ null,
+                    /* dictionaryId= */ "");
+        }
+    }
+
     @Override
     protected ExperimentalBidirectionalStream createBidirectionalStream(
             String url,
@@ -1058,6 +1139,11 @@ public class CronetUrlRequestContext extends CronetEngineBase {
         }
 
         for (final VersionSafeCallbacks.RequestFinishedInfoListener listener : currentListeners) {
+            RequestFinishedInfoBatcher batcher = listener.getBatcher();
+            if (batcher != null) {
+                batcher.enqueue(requestInfo, inflightCallbackCount);
+                continue;
+            }
             Runnable task =
                     new Runnable() {
                         @Override
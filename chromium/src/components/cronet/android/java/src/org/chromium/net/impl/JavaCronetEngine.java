@@ -8,6 +8,11 @@ import android.content.Context;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
 
 import org.chromium.base.metrics.ScopedSysTraceEvent;
 import org.chromium.net.BidirectionalStream;
@@ -21,6 +26,7 @@ import org.chromium.net.UrlRequest;
 import org.chromium.net.impl.CronetLogger.CronetSource;
 import org.chromium.net.impl.CronetLogger.CronetVersion;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.Proxy;
 import java.net.URL;
@@ -44,16 +50,28 @@ import java.util.concurrent.atomic.AtomicInteger;
 /**
  * {@link java.net.HttpURLConnection} backed CronetEngine.
  *
- * <p>Does not support netlogs, transferred data measurement, bidistream, cache, or priority.
+ * <p>Does not support netlogs, transferred data measurement, bidistream, in-memory cache, or
+ * priority. The platform's HTTP response cache is process-wide, so the disk cache is kept by the
+ * engine in a {@link JavaHttpCache} instead.
+ *
+ * <p>The number of requests running concurrently is bounded by the size of the thread pool, which
+ * can be set with the experimental option {@code {"JavaCronetEngine": {"thread_pool_size": N}}}.
  */
 public final class JavaCronetEngine extends CronetEngineBase {
     private static final String TAG = JavaCronetEngine.class.getSimpleName();
 
+    @VisibleForTesting static final int DEFAULT_THREAD_POOL_SIZE = 10;
+    private static final int MAX_THREAD_POOL_SIZE = 64;
+    private static final String EXPERIMENTAL_OPTIONS_KEY = "JavaCronetEngine";
+    private static final String THREAD_POOL_SIZE_KEY = "thread_pool_size";
+    private static final String HTTP_CACHE_DIRECTORY = "java_http_cache";
+
     private final String mUserAgent;
     private final ExecutorService mExecutorService;
     private final int mCronetEngineId;
     private final CronetLogger mLogger;
     private final AtomicInteger mActiveRequestCount = new AtomicInteger();
+    @Nullable private final JavaHttpCache mHttpCache;
 
     /** The network handle to be used for requests that do not explicitly specify one. */
     private long mNetworkHandle = DEFAULT_NETWORK_HANDLE;
@@ -65,12 +83,21 @@ public final class JavaCronetEngine extends CronetEngineBase {
             mContext = builder.getContext();
             mCronetEngineId = hashCode();
             this.mUserAgent = builder.getUserAgent();
+            if (builder.httpCacheMode() == HttpCacheType.DISK && !builder.cacheDisabled()) {
+                mHttpCache =
+                        new JavaHttpCache(
+                                new File(builder.storagePath(), HTTP_CACHE_DIRECTORY),
+                                builder.httpCacheMaxSize());
+            } else {
+                mHttpCache = null;
+            }
+            int threadPoolSize = getThreadPoolSize(builder.experimentalOptions());
             // For unbounded work queues, the effective maximum pool size is
             // equivalent to the core pool size.
-            this.mExecutorService =
+            ThreadPoolExecutor threadPoolExecutor =
                     new ThreadPoolExecutor(
-                            10,
-                            10,
+                            threadPoolSize,
+                            threadPoolSize,
                             50,
                             TimeUnit.SECONDS,
                             new LinkedBlockingQueue<>(),
@@ -92,6 +119,9 @@ public final class JavaCronetEngine extends CronetEngineBase {
                                                     });
                                 }
                             });
+            // Let idle threads exit, so that a large pool doesn't cost memory while idle.
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            this.mExecutorService = threadPoolExecutor;
             mLogger =
                     CronetLoggerFactory.createLogger(mContext, CronetSource.CRONET_SOURCE_FALLBACK);
             try {
@@ -107,7 +137,25 @@ public final class JavaCronetEngine extends CronetEngineBase {
             Log.w(
                     TAG,
                     "using the fallback Cronet Engine implementation. Performance will suffer "
-                            + "and many HTTP client features, including caching, will not work.");
+                            + "and many HTTP client features will not work.");
+        }
+    }
+
+    /**
+     * @return the thread pool size set in |experimentalOptions|, or the default one.
+     */
+    @VisibleForTesting
+    static int getThreadPoolSize(@Nullable String experimentalOptions) {
+        if (experimentalOptions == null) return DEFAULT_THREAD_POOL_SIZE;
+        try {
+            JSONObject options = new JSONObject(experimentalOptions);
+            JSONObject engineOptions = options.optJSONObject(EXPERIMENTAL_OPTIONS_KEY);
+            if (engineOptions == null) return DEFAULT_THREAD_POOL_SIZE;
+            int size = engineOptions.optInt(THREAD_POOL_SIZE_KEY, DEFAULT_THREAD_POOL_SIZE);
+            return Math.max(1, Math.min(size, MAX_THREAD_POOL_SIZE));
+        } catch (JSONException e) {
+            Log.w(TAG, "Ignoring invalid experimental options", e);
+            return DEFAULT_THREAD_POOL_SIZE;
         }
     }
 
@@ -129,6 +177,12 @@ public final class JavaCronetEngine extends CronetEngineBase {
         return mLogger;
     }
 
+    /** Returns the engine's HTTP cache, or null if the disk cache isn't enabled. */
+    @Nullable
+    JavaHttpCache getHttpCache() {
+        return mHttpCache;
+    }
+
     Context getContext() {
         return mContext;
     }
@@ -173,6 +227,7 @@ public final class JavaCronetEngine extends CronetEngineBase {
                 trafficStatsUidSet,
                 trafficStatsUid,
                 mNetworkHandle,
+                disableCache,
                 method,
                 requestHeaders,
                 uploadDataProvider,
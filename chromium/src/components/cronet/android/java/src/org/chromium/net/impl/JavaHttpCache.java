@@ -0,0 +1,645 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net.impl;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * On-disk HTTP response cache owned by a single {@link JavaCronetEngine}.
+ *
+ * <p>The platform's {@link java.net.ResponseCache} is process-wide, so {@link JavaUrlRequest}
+ * consults this cache itself instead. It stores 200 responses to GET requests that have a
+ * freshness lifetime or a validator, serves them while they are fresh and revalidates them with
+ * {@code If-None-Match} or {@code If-Modified-Since} once they are stale. When the cache grows
+ * past its maximum size, the least recently used entries are evicted.
+ *
+ * <p>Each entry is stored as two files named after the SHA-256 of its URL: {@code <key>.0} holds
+ * the response metadata and {@code <key>.1} holds the body.
+ */
+final class JavaHttpCache {
+    private static final String TAG = JavaHttpCache.class.getSimpleName();
+
+    private static final int VERSION = 1;
+    private static final String METADATA_SUFFIX = ".0";
+    private static final String BODY_SUFFIX = ".1";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** Request headers that make the cache step aside and let the request go to the network. */
+    private static final String[] BYPASS_REQUEST_HEADERS = {
+        "Authorization",
+        "Cache-Control",
+        "If-Match",
+        "If-Modified-Since",
+        "If-None-Match",
+        "If-Range",
+        "If-Unmodified-Since",
+        "Pragma",
+        "Range"
+    };
+
+    /** Headers of a 304 response that must not replace the stored ones. */
+    private static final String[] NOT_UPDATED_HEADERS = {
+        "Content-Encoding", "Content-Length", "Content-Range", "Transfer-Encoding"
+    };
+
+    private final File mDirectory;
+    private final long mMaxSize;
+    private final Object mLock = new Object();
+
+    /** The size of each entry on disk, in least recently used order. */
+    @GuardedBy("mLock")
+    private final LinkedHashMap<String, Long> mEntrySizes =
+            new LinkedHashMap<>(16, 0.75f, /* accessOrder= */ true);
+
+    @GuardedBy("mLock")
+    private long mSize;
+
+    @GuardedBy("mLock")
+    private boolean mInitialized;
+
+    /** A cached response. The caller owns the body and must close it. */
+    static final class Entry {
+        private final String mKey;
+        private final int mHttpStatusCode;
+        private final String mHttpStatusText;
+        private final String mNegotiatedProtocol;
+        private final long mResponseTimeMs;
+        private final List<Map.Entry<String, String>> mHeaders;
+        private final FileChannel mBody;
+
+        private Entry(
+                String key,
+                int httpStatusCode,
+                String httpStatusText,
+                String negotiatedProtocol,
+                long responseTimeMs,
+                List<Map.Entry<String, String>> headers,
+                FileChannel body) {
+            mKey = key;
+            mHttpStatusCode = httpStatusCode;
+            mHttpStatusText = httpStatusText;
+            mNegotiatedProtocol = negotiatedProtocol;
+            mResponseTimeMs = responseTimeMs;
+            mHeaders = headers;
+            mBody = body;
+        }
+
+        int getHttpStatusCode() {
+            return mHttpStatusCode;
+        }
+
+        String getHttpStatusText() {
+            return mHttpStatusText;
+        }
+
+        String getNegotiatedProtocol() {
+            return mNegotiatedProtocol;
+        }
+
+        List<Map.Entry<String, String>> getHeaders() {
+            return mHeaders;
+        }
+
+        ReadableByteChannel getBody() {
+            return mBody;
+        }
+
+        @Nullable
+        String getETag() {
+            return getHeader(mHeaders, "ETag");
+        }
+
+        @Nullable
+        String getLastModified() {
+            return getHeader(mHeaders, "Last-Modified");
+        }
+
+        /** Whether the entry can be served at {@code nowMs} without revalidating it. */
+        boolean isFresh(long nowMs) {
+            long ageMs = Math.max(0, nowMs - mResponseTimeMs) + getAgeMs(mHeaders);
+            return ageMs < getFreshnessLifetimeMs(mHeaders, mResponseTimeMs);
+        }
+
+        void close() {
+            try {
+                mBody.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to close cached body", e);
+            }
+        }
+    }
+
+    /**
+     * @param directory The directory the entries are stored in. It's created on first use.
+     * @param maxSize The maximum number of bytes the entries may take on disk.
+     */
+    JavaHttpCache(File directory, long maxSize) {
+        mDirectory = directory;
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Whether a request may be served from and stored in the cache. Requests that carry their own
+     * caching, conditional or range headers, or credentials, always go to the network.
+     */
+    static boolean isCacheableRequest(
+            String method, Map<String, String> requestHeaders, boolean hasUploadData) {
+        if (!"GET".equalsIgnoreCase(method) || hasUploadData) return false;
+        for (String header : BYPASS_REQUEST_HEADERS) {
+            if (containsHeader(requestHeaders, header)) return false;
+        }
+        return true;
+    }
+
+    /** Whether a response to a cacheable request may be stored. */
+    @VisibleForTesting
+    static boolean isStorable(int httpStatusCode, List<Map.Entry<String, String>> headers) {
+        if (httpStatusCode != 200) return false;
+        String cacheControl = getHeader(headers, "Cache-Control");
+        if (cacheControl != null && getDirective(cacheControl, "no-store") != null) return false;
+        // The body HttpURLConnection hands out is already decoded, so a response that only
+        // varies on Accept-Encoding is the same for every request.
+        String vary = getHeader(headers, "Vary");
+        if (vary != null && !vary.trim().equalsIgnoreCase("Accept-Encoding")) return false;
+        return getFreshnessLifetimeMs(headers, System.currentTimeMillis()) > 0
+                || getHeader(headers, "ETag") != null
+                || getHeader(headers, "Last-Modified") != null;
+    }
+
+    /**
+     * Returns how long a response may be served without revalidation, from its {@code
+     * Cache-Control: max-age} or its {@code Expires} and {@code Date} headers. A missing {@code
+     * Date} is taken to be {@code responseTimeMs}.
+     */
+    @VisibleForTesting
+    static long getFreshnessLifetimeMs(
+            List<Map.Entry<String, String>> headers, long responseTimeMs) {
+        String cacheControl = getHeader(headers, "Cache-Control");
+        if (cacheControl != null) {
+            if (getDirective(cacheControl, "no-cache") != null) return 0;
+            String maxAge = getDirective(cacheControl, "max-age");
+            if (maxAge != null) return parseSeconds(maxAge) * 1000;
+        }
+        long expires = parseHttpDate(getHeader(headers, "Expires"));
+        if (expires < 0) return 0;
+        long date = parseHttpDate(getHeader(headers, "Date"));
+        return Math.max(0, expires - (date < 0 ? responseTimeMs : date));
+    }
+
+    private static long getAgeMs(List<Map.Entry<String, String>> headers) {
+        String age = getHeader(headers, "Age");
+        return age == null ? 0 : parseSeconds(age) * 1000;
+    }
+
+    /**
+     * Returns the entry stored for {@code url}, or null if there isn't one. The entry's body is
+     * opened before returning, so a concurrent update can't pair it with other metadata.
+     */
+    @Nullable
+    Entry get(String url) {
+        String key = getKey(url);
+        synchronized (mLock) {
+            initializeLocked();
+            if (!mEntrySizes.containsKey(key)) return null;
+            File metadataFile = new File(mDirectory, key + METADATA_SUFFIX);
+            try (DataInputStream in =
+                    new DataInputStream(
+                            new BufferedInputStream(new FileInputStream(metadataFile)))) {
+                if (in.readInt() != VERSION || !url.equals(in.readUTF())) {
+                    removeLocked(key);
+                    return null;
+                }
+                int httpStatusCode = in.readInt();
+                String httpStatusText = in.readUTF();
+                String negotiatedProtocol = in.readUTF();
+                long responseTimeMs = in.readLong();
+                int headerCount = in.readInt();
+                if (headerCount < 0) throw new IOException("Invalid header count " + headerCount);
+                List<Map.Entry<String, String>> headers = new ArrayList<>();
+                for (int i = 0; i < headerCount; i++) {
+                    headers.add(new SimpleEntry<>(in.readUTF(), in.readUTF()));
+                }
+                FileChannel body =
+                        new FileInputStream(new File(mDirectory, key + BODY_SUFFIX)).getChannel();
+                mEntrySizes.get(key);
+                metadataFile.setLastModified(System.currentTimeMillis());
+                return new Entry(
+                        key,
+                        httpStatusCode,
+                        httpStatusText,
+                        negotiatedProtocol,
+                        responseTimeMs,
+                        Collections.unmodifiableList(headers),
+                        body);
+            } catch (IOException e) {
+                Log.w(TAG, "Dropping unreadable cache entry", e);
+                removeLocked(key);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Refreshes {@code entry} with the headers of a 304 response to its revalidation. Returns the
+     * entry to serve, which takes over {@code entry}'s body.
+     */
+    Entry update(String url, Entry entry, List<Map.Entry<String, String>> notModifiedHeaders) {
+        List<Map.Entry<String, String>> headers = new ArrayList<>();
+        for (Map.Entry<String, String> header : entry.mHeaders) {
+            if (isNotUpdated(header.getKey())
+                    || getHeader(notModifiedHeaders, header.getKey()) == null) {
+                headers.add(header);
+            }
+        }
+        for (Map.Entry<String, String> header : notModifiedHeaders) {
+            if (!isNotUpdated(header.getKey())) headers.add(header);
+        }
+        Entry updated =
+                new Entry(
+                        entry.mKey,
+                        entry.mHttpStatusCode,
+                        entry.mHttpStatusText,
+                        entry.mNegotiatedProtocol,
+                        System.currentTimeMillis(),
+                        Collections.unmodifiableList(headers),
+                        entry.mBody);
+        synchronized (mLock) {
+            initializeLocked();
+            if (!mEntrySizes.containsKey(entry.mKey)) return updated;
+            try {
+                File metadataFile = writeMetadataLocked(url, updated);
+                File target = new File(mDirectory, entry.mKey + METADATA_SUFFIX);
+                long oldSize = target.length();
+                if (!metadataFile.renameTo(target)) {
+                    metadataFile.delete();
+                    throw new IOException("Failed to rename " + metadataFile);
+                }
+                long newSize = mEntrySizes.get(entry.mKey) - oldSize + target.length();
+                mSize += newSize - mEntrySizes.put(entry.mKey, newSize);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to update cache entry", e);
+                removeLocked(entry.mKey);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Returns a channel that reads {@code body} and, once it has been read to the end, stores the
+     * response for {@code url}. If the response can't be stored, any previous entry is removed
+     * and {@code body} is returned as is.
+     */
+    ReadableByteChannel store(
+            String url,
+            int httpStatusCode,
+            String httpStatusText,
+            String negotiatedProtocol,
+            List<Map.Entry<String, String>> headers,
+            ReadableByteChannel body) {
+        String key = getKey(url);
+        if (!isStorable(httpStatusCode, headers)) {
+            remove(url);
+            return body;
+        }
+        File bodyFile;
+        FileOutputStream out;
+        synchronized (mLock) {
+            initializeLocked();
+            try {
+                bodyFile = newTempFileLocked();
+                out = new FileOutputStream(bodyFile);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to create cache entry", e);
+                return body;
+            }
+        }
+        Entry entry =
+                new Entry(
+                        key,
+                        httpStatusCode,
+                        httpStatusText,
+                        negotiatedProtocol,
+                        System.currentTimeMillis(),
+                        headers,
+                        /* body= */ null);
+        return new CachingChannel(url, entry, body, bodyFile, out.getChannel());
+    }
+
+    /** Removes the entry stored for {@code url}, if any. */
+    void remove(String url) {
+        String key = getKey(url);
+        synchronized (mLock) {
+            initializeLocked();
+            removeLocked(key);
+        }
+    }
+
+    @VisibleForTesting
+    long getSize() {
+        synchronized (mLock) {
+            initializeLocked();
+            return mSize;
+        }
+    }
+
+    /** Copies the body to a temporary file as it is read and commits it at end of stream. */
+    private final class CachingChannel implements ReadableByteChannel {
+        private final String mUrl;
+        private final Entry mEntry;
+        private final ReadableByteChannel mSource;
+        private final File mBodyFile;
+        @Nullable private FileChannel mOut;
+        private long mBodySize;
+
+        CachingChannel(
+                String url,
+                Entry entry,
+                ReadableByteChannel source,
+                File bodyFile,
+                FileChannel out) {
+            mUrl = url;
+            mEntry = entry;
+            mSource = source;
+            mBodyFile = bodyFile;
+            mOut = out;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int start = dst.position();
+            int read = mSource.read(dst);
+            if (mOut == null) return read;
+            if (read == -1) {
+                commit();
+            } else if (read > 0) {
+                mBodySize += read;
+                if (mBodySize > mMaxSize) {
+                    abort();
+                } else {
+                    ByteBuffer copy = dst.duplicate();
+                    copy.limit(start + read).position(start);
+                    try {
+                        while (copy.hasRemaining()) mOut.write(copy);
+                    } catch (IOException e) {
+                        Log.w(TAG, "Failed to write cache entry", e);
+                        abort();
+                    }
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return mSource.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Closing before the end of the stream means the body is incomplete.
+            abort();
+            mSource.close();
+        }
+
+        private void commit() {
+            try {
+                mOut.close();
+                mOut = null;
+                commitEntry(mUrl, mEntry, mBodyFile);
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to commit cache entry", e);
+                abort();
+            }
+        }
+
+        private void abort() {
+            if (mOut != null) {
+                try {
+                    mOut.close();
+                } catch (IOException e) {
+                    // The file is deleted anyway.
+                }
+                mOut = null;
+            }
+            mBodyFile.delete();
+        }
+    }
+
+    private void commitEntry(String url, Entry entry, File bodyFile) throws IOException {
+        synchronized (mLock) {
+            initializeLocked();
+            File metadataFile = writeMetadataLocked(url, entry);
+            removeLocked(entry.mKey);
+            File bodyTarget = new File(mDirectory, entry.mKey + BODY_SUFFIX);
+            File metadataTarget = new File(mDirectory, entry.mKey + METADATA_SUFFIX);
+            if (!bodyFile.renameTo(bodyTarget) || !metadataFile.renameTo(metadataTarget)) {
+                metadataFile.delete();
+                bodyTarget.delete();
+                throw new IOException("Failed to rename cache entry files");
+            }
+            long size = bodyTarget.length() + metadataTarget.length();
+            mEntrySizes.put(entry.mKey, size);
+            mSize += size;
+            trimLocked();
+        }
+    }
+
+    @GuardedBy("mLock")
+    private File writeMetadataLocked(String url, Entry entry) throws IOException {
+        File file = newTempFileLocked();
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(VERSION);
+            out.writeUTF(url);
+            out.writeInt(entry.mHttpStatusCode);
+            out.writeUTF(entry.mHttpStatusText);
+            out.writeUTF(entry.mNegotiatedProtocol);
+            out.writeLong(entry.mResponseTimeMs);
+            out.writeInt(entry.mHeaders.size());
+            for (Map.Entry<String, String> header : entry.mHeaders) {
+                out.writeUTF(header.getKey());
+                out.writeUTF(header.getValue());
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        return file;
+    }
+
+    @GuardedBy("mLock")
+    private File newTempFileLocked() throws IOException {
+        return File.createTempFile("entry", TEMP_SUFFIX, mDirectory);
+    }
+
+    @GuardedBy("mLock")
+    private void removeLocked(String key) {
+        Long size = mEntrySizes.remove(key);
+        if (size != null) mSize -= size;
+        new File(mDirectory, key + METADATA_SUFFIX).delete();
+        new File(mDirectory, key + BODY_SUFFIX).delete();
+    }
+
+    @GuardedBy("mLock")
+    private void trimLocked() {
+        Iterator<Map.Entry<String, Long>> it = mEntrySizes.entrySet().iterator();
+        while (mSize > mMaxSize && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            mSize -= eldest.getValue();
+            new File(mDirectory, eldest.getKey() + METADATA_SUFFIX).delete();
+            new File(mDirectory, eldest.getKey() + BODY_SUFFIX).delete();
+        }
+    }
+
+    /** Rebuilds the index from the directory, oldest access first, on first use. */
+    @GuardedBy("mLock")
+    private void initializeLocked() {
+        if (mInitialized) return;
+        mInitialized = true;
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            Log.w(TAG, "Failed to create " + mDirectory);
+            return;
+        }
+        File[] files = mDirectory.listFiles();
+        if (files == null) return;
+        List<File> metadataFiles = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                // Left over by a process that died while writing an entry.
+                file.delete();
+            } else if (name.endsWith(METADATA_SUFFIX)) {
+                metadataFiles.add(file);
+            }
+        }
+        File[] sorted = metadataFiles.toArray(new File[0]);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File metadataFile : sorted) {
+            String name = metadataFile.getName();
+            String key = name.substring(0, name.length() - METADATA_SUFFIX.length());
+            File bodyFile = new File(mDirectory, key + BODY_SUFFIX);
+            if (!bodyFile.isFile()) {
+                metadataFile.delete();
+                continue;
+            }
+            long size = metadataFile.length() + bodyFile.length();
+            mEntrySizes.put(key, size);
+            mSize += size;
+        }
+        trimLocked();
+    }
+
+    private static String getKey(String url) {
+        try {
+            byte[] digest =
+                    MessageDigest.getInstance("SHA-256")
+                            .digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16));
+                key.append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static boolean isNotUpdated(String header) {
+        for (String notUpdated : NOT_UPDATED_HEADERS) {
+            if (notUpdated.equalsIgnoreCase(header)) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsHeader(Map<String, String> headers, String name) {
+        for (String header : headers.keySet()) {
+            if (header.equalsIgnoreCase(name)) return true;
+        }
+        return false;
+    }
+
+    @Nullable
+    private static String getHeader(List<Map.Entry<String, String>> headers, String name) {
+        for (Map.Entry<String, String> header : headers) {
+            if (name.equalsIgnoreCase(header.getKey())) return header.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of {@code directive} in a {@code Cache-Control} header, "" if it has no
+     * value, or null if it's absent.
+     */
+    @Nullable
+    private static String getDirective(String cacheControl, String directive) {
+        for (String part : cacheControl.split(",")) {
+            String trimmed = part.trim();
+            int equals = trimmed.indexOf('=');
+            String name = equals < 0 ? trimmed : trimmed.substring(0, equals).trim();
+            if (!name.equalsIgnoreCase(directive)) continue;
+            if (equals < 0) return "";
+            String value = trimmed.substring(equals + 1).trim();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            return value;
+        }
+        return null;
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** Parses an IMF-fixdate, returning -1 if {@code value} is null or malformed. */
+    private static long parseHttpDate(@Nullable String value) {
+        if (value == null) return -1;
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(value.trim()).getTime();
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+}
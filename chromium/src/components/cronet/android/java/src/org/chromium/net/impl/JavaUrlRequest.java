@@ -113,11 +113,14 @@ final class JavaUrlRequest extends ExperimentalUrlRequest {
     private String mPendingRedirectUrl;
     private HttpURLConnection mCurrentUrlConnection; // Only accessed on mExecutor.
     private OutputStreamDataSink mOutputStreamDataSink; // Only accessed on mExecutor.
+    // The stale entry being revalidated, if any. Only accessed on mExecutor.
+    @Nullable private JavaHttpCache.Entry mCacheEntry;
     private final JavaCronetEngine mEngine;
     private final int mCronetEngineId;
     private final CronetLogger mLogger;
 
     private final long mNetworkHandle;
+    @Nullable private final JavaHttpCache mCache;
 
     private int mReadCount;
     private int mNonfinalUserCallbackExceptionCount;
@@ -208,6 +211,7 @@ final class JavaUrlRequest extends ExperimentalUrlRequest {
             final boolean trafficStatsUidSet,
             final int trafficStatsUid,
             long networkHandle,
+            boolean disableCache,
             String method,
             ArrayList<Map.Entry<String, String>> requestHeaders,
             UploadDataProvider uploadDataProvider,
@@ -248,6 +252,7 @@ final class JavaUrlRequest extends ExperimentalUrlRequest {
             mCurrentUrl = url;
             mUserAgent = userAgent;
             mNetworkHandle = networkHandle;
+            mCache = disableCache ? null : engine.getHttpCache();
             mInitialMethod = checkedHttpMethod(method);
             setHeaders(requestHeaders);
             mUploadDataProvider = checkedUploadDataProvider(uploadDataProvider);
@@ -548,6 +553,13 @@ final class JavaUrlRequest extends ExperimentalUrlRequest {
                             }
 
                             int responseCode = mCurrentUrlConnection.getResponseCode();
+                            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED
+                                    && mCacheEntry != null) {
+                                fireResponseFromCache(
+                                        mCache.update(mCurrentUrl, mCacheEntry, headerList));
+                                return;
+                            }
+                            closeCacheEntry();
                             // Important to copy mUrlChain here, because although we never
                             // concurrently modify mUrlChain ourselves, user code might iterate
                             // over it while we're redirecting, and that would throw
@@ -574,6 +586,10 @@ final class JavaUrlRequest extends ExperimentalUrlRequest {
                             // Only assign mUrlResponseInfo when response is not a redirect. This
                             // aligns with CronetUrlRequest's behaviour.
                             mUrlResponseInfo = responseInfo;
+                            if (mCache != null && !isSafeMethod(mInitialMethod)) {
+                                // The request may have changed what the URL returns.
+                                mCache.remove(mCurrentUrl);
+                            }
                             fireCloseUploadDataProvider();
                             if (responseCode >= 400) {
                                 InputStream inputStream = mCurrentUrlConnection.getErrorStream();
@@ -586,12 +602,65 @@ final class JavaUrlRequest extends ExperimentalUrlRequest {
                                 mResponseChannel =
                                         InputStreamChannel.wrap(
                                                 mCurrentUrlConnection.getInputStream());
+                                if (isCacheable()) {
+                                    mResponseChannel =
+                                            mCache.store(
+                                                    mCurrentUrl,
+                                                    responseCode,
+                                                    responseInfo.getHttpStatusText(),
+                                                    selectedTransport,
+                                                    headerList,
+                                                    mResponseChannel);
+                                }
                                 mCallbackAsync.onResponseStarted();
                             }
                         }),
                 "fireGetHeaders");
     }
 
+    private boolean isCacheable() {
+        return mCache != null
+                && JavaHttpCache.isCacheableRequest(
+                        mInitialMethod, mRequestHeaders, mUploadDataProvider != null);
+    }
+
+    private static boolean isSafeMethod(String method) {
+        return "GET".equalsIgnoreCase(method)
+                || "HEAD".equalsIgnoreCase(method)
+                || "OPTIONS".equalsIgnoreCase(method)
+                || "TRACE".equalsIgnoreCase(method);
+    }
+
+    /** Starts the response with {@code entry}'s headers and body. Must run on mExecutor. */
+    private void fireResponseFromCache(JavaHttpCache.Entry entry) {
+        mCacheEntry = null;
+        if (mCurrentUrlConnection != null) {
+            mCurrentUrlConnection.disconnect();
+            mCurrentUrlConnection = null;
+        }
+        mUrlResponseInfo =
+                new UrlResponseInfoImpl(
+                        new ArrayList<>(mUrlChain),
+                        entry.getHttpStatusCode(),
+                        entry.getHttpStatusText(),
+                        entry.getHeaders(),
+                        /* wasCached= */ true,
+                        entry.getNegotiatedProtocol(),
+                        "",
+                        0);
+        fireCloseUploadDataProvider();
+        mResponseChannel = entry.getBody();
+        mCallbackAsync.onResponseStarted();
+    }
+
+    /** Releases the stale entry that was being revalidated, if any. Must run on mExecutor. */
+    private void closeCacheEntry() {
+        if (mCacheEntry != null) {
+            mCacheEntry.close();
+            mCacheEntry = null;
+        }
+    }
+
     private void fireCloseUploadDataProvider() {
         if (mUploadDataProvider != null
                 && mUploadProviderClosed.compareAndSet(
@@ -637,6 +706,16 @@ final class JavaUrlRequest extends ExperimentalUrlRequest {
                                 mCurrentUrlConnection = null;
                             }
 
+                            closeCacheEntry();
+                            if (isCacheable()) {
+                                mCacheEntry = mCache.get(mCurrentUrl);
+                                if (mCacheEntry != null
+                                        && mCacheEntry.isFresh(System.currentTimeMillis())) {
+                                    fireResponseFromCache(mCacheEntry);
+                                    return;
+                                }
+                            }
+
                             if (mNetworkHandle == CronetEngineBase.DEFAULT_NETWORK_HANDLE) {
                                 mCurrentUrlConnection = (HttpURLConnection) url.openConnection();
                             } else {
@@ -658,6 +737,18 @@ final class JavaUrlRequest extends ExperimentalUrlRequest {
                                 mCurrentUrlConnection.setRequestProperty(
                                         entry.getKey(), entry.getValue());
                             }
+                            if (mCacheEntry != null) {
+                                // Revalidate the stale entry instead of fetching it again.
+                                String etag = mCacheEntry.getETag();
+                                if (etag != null) {
+                                    mCurrentUrlConnection.setRequestProperty("If-None-Match", etag);
+                                }
+                                String lastModified = mCacheEntry.getLastModified();
+                                if (lastModified != null) {
+                                    mCurrentUrlConnection.setRequestProperty(
+                                            "If-Modified-Since", lastModified);
+                                }
+                            }
                             mCurrentUrlConnection.setRequestMethod(mInitialMethod);
                             if (mUploadDataProvider != null) {
                                 mOutputStreamDataSink =
@@ -756,6 +847,7 @@ final class JavaUrlRequest extends ExperimentalUrlRequest {
                         mCurrentUrlConnection.disconnect();
                         mCurrentUrlConnection = null;
                     }
+                    closeCacheEntry();
                 },
                 "fireDisconnect");
     }
@@ -0,0 +1,103 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net.impl;
+
+import androidx.annotation.Nullable;
+
+import org.chromium.base.Log;
+import org.chromium.net.BatchedRequestFinishedListener;
+import org.chromium.net.RequestFinishedInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Queues the requests finishing while a batch is pending for a {@link
+ * BatchedRequestFinishedListener}, so that its executor runs at most one delivery task at a time.
+ */
+final class RequestFinishedInfoBatcher {
+    private static final String TAG = RequestFinishedInfoBatcher.class.getSimpleName();
+
+    private final BatchedRequestFinishedListener mListener;
+
+    private final Object mLock = new Object();
+
+    @GuardedBy("mLock")
+    private List<RequestFinishedInfo> mPendingInfos = new ArrayList<>();
+
+    // Counts of the requests in |mPendingInfos| that are waiting for their listeners to run.
+    @GuardedBy("mLock")
+    private List<RefCountDelegate> mPendingCallbackCounts = new ArrayList<>();
+
+    @GuardedBy("mLock")
+    private boolean mDeliveryPosted;
+
+    RequestFinishedInfoBatcher(BatchedRequestFinishedListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Adds a finished request to the pending batch, and posts its delivery unless it is already
+     * posted.
+     *
+     * @param inflightCallbackCount Incremented until the batch holding the request is delivered.
+     */
+    void enqueue(
+            RequestFinishedInfo requestInfo, @Nullable RefCountDelegate inflightCallbackCount) {
+        synchronized (mLock) {
+            mPendingInfos.add(requestInfo);
+            if (inflightCallbackCount != null) {
+                inflightCallbackCount.increment();
+                mPendingCallbackCounts.add(inflightCallbackCount);
+            }
+            if (mDeliveryPosted) return;
+            mDeliveryPosted = true;
+        }
+        try {
+            mListener.getExecutor().execute(this::deliverPendingBatch);
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Exception posting task to executor", e);
+            List<RefCountDelegate> callbackCounts;
+            synchronized (mLock) {
+                mPendingInfos = new ArrayList<>();
+                callbackCounts = mPendingCallbackCounts;
+                mPendingCallbackCounts = new ArrayList<>();
+                mDeliveryPosted = false;
+            }
+            decrementAll(callbackCounts);
+        }
+    }
+
+    private void deliverPendingBatch() {
+        List<RequestFinishedInfo> requestInfos;
+        List<RefCountDelegate> callbackCounts;
+        synchronized (mLock) {
+            requestInfos = mPendingInfos;
+            callbackCounts = mPendingCallbackCounts;
+            mPendingInfos = new ArrayList<>();
+            mPendingCallbackCounts = new ArrayList<>();
+            mDeliveryPosted = false;
+        }
+        try {
+            if (!requestInfos.isEmpty()) {
+                mListener.onRequestsFinished(Collections.unmodifiableList(requestInfos));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Exception thrown from observation task", e);
+        } finally {
+            decrementAll(callbackCounts);
+        }
+    }
+
+    private static void decrementAll(List<RefCountDelegate> callbackCounts) {
+        for (RefCountDelegate callbackCount : callbackCounts) {
+            callbackCount.decrement();
+        }
+    }
+}
@@ -0,0 +1,1112 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net.impl;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import org.chromium.base.Log;
+import org.chromium.net.CallbackException;
+import org.chromium.net.CronetException;
+import org.chromium.net.ExperimentalUrlRequest;
+import org.chromium.net.RequestFinishedInfo;
+import org.chromium.net.UploadDataProvider;
+import org.chromium.net.UrlRequest;
+import org.chromium.net.UrlResponseInfo;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Shares a single network fetch between identical idempotent GET requests started while one is in
+ * flight. Enabled by the experimental option {@code {"RequestCoalescing": {"enable": true}}}.
+ *
+ * <p>The first request to start creates a {@link CronetUrlRequest}. Requests with the same URL,
+ * headers and settings that start before that fetch has received a redirect or its response
+ * headers join it rather than going to the network. The response then fans out to the callback of
+ * every joined request, on that request's executor: each gets its own {@link UrlResponseInfo} and
+ * reads the body at its own pace from a copy buffered in memory.
+ *
+ * <p>Bodies are buffered up to {@link #MAX_BUFFERED_BODY_BYTES}. When the length of the body isn't
+ * known up front, which is the case of compressed responses, only the first request gets the
+ * response while the body is buffered, and the others get it once the whole body is in memory. If
+ * the body turns out to be larger than the buffer, or if the response must not be shared, the first
+ * request left on the fetch reads the rest of the body straight from it, and each other request
+ * falls back to a private request for the URL the response came from.
+ *
+ * <p>A redirect is followed once every joined request has called {@link
+ * UrlRequest#followRedirect()}. Canceled requests are detached from the fetch, which is canceled
+ * when no request is left. The fetch carries the annotations of all the requests it serves, so the
+ * engine's {@link RequestFinishedInfo} listeners get a single report per network fetch.
+ *
+ * <p>The state of all the requests is guarded by a single lock, which is never held while calling
+ * into a {@link CronetUrlRequest} or an executor. Callbacks decided while holding the lock are
+ * queued, and posted to the executors of their requests in order once it is released.
+ */
+final class UrlRequestCoalescer {
+    private static final String TAG = UrlRequestCoalescer.class.getSimpleName();
+    private static final String EXPERIMENTAL_OPTIONS_KEY = "RequestCoalescing";
+    private static final String ENABLE_KEY = "enable";
+    private static final String CONTENT_LENGTH_HEADER_NAME = "Content-Length";
+    private static final String CONTENT_ENCODING_HEADER_NAME = "Content-Encoding";
+    private static final String CACHE_CONTROL_HEADER_NAME = "Cache-Control";
+    private static final String VARY_HEADER_NAME = "Vary";
+    private static final int READ_BUFFER_SIZE = 32 * 1024;
+
+    /** Largest response body buffered for the requests sharing a fetch. */
+    @VisibleForTesting static final long MAX_BUFFERED_BODY_BYTES = 1024 * 1024;
+
+    /** Runs the shared fetch's callbacks on the network thread, they only dispatch work. */
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    private final CronetUrlRequestContext mRequestContext;
+
+    // Guards the state of all fetches and coalesced requests of this engine.
+    private final Object mLock = new Object();
+
+    // Fetches that requests can still join, by request key.
+    @GuardedBy("mLock")
+    private final Map<String, SharedFetch> mJoinableFetches = new HashMap<>();
+
+    // Callbacks to post once the lock is released, see dispatchCallbacks().
+    @GuardedBy("mLock")
+    private final ArrayDeque<PendingCallback> mPendingCallbacks = new ArrayDeque<>();
+
+    // Whether a thread is posting |mPendingCallbacks|, which then posts the ones queued meanwhile.
+    @GuardedBy("mLock")
+    private boolean mDispatchingCallbacks;
+
+    UrlRequestCoalescer(CronetUrlRequestContext requestContext) {
+        mRequestContext = requestContext;
+    }
+
+    /** Returns whether |experimentalOptions| enable request coalescing. */
+    static boolean isEnabled(@Nullable String experimentalOptions) {
+        if (experimentalOptions == null) return false;
+        try {
+            JSONObject options = new JSONObject(experimentalOptions);
+            JSONObject coalescingOptions = options.optJSONObject(EXPERIMENTAL_OPTIONS_KEY);
+            return coalescingOptions != null && coalescingOptions.optBoolean(ENABLE_KEY);
+        } catch (JSONException e) {
+            // The native experimental options parser reports invalid options.
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether a request with these parameters may share its network fetch. Only plain
+     * cacheable GET requests are coalesced. Requests allowing direct execution are excluded, as
+     * their callbacks would hold back the callbacks of the other requests sharing the fetch.
+     */
+    static boolean canCoalesce(
+            String method,
+            boolean disableCache,
+            boolean allowDirectExecutor,
+            @Nullable RequestFinishedInfo.Listener requestFinishedListener,
+            int idempotency,
+            @Nullable UploadDataProvider uploadDataProvider,
+            @Nullable byte[] dictionarySha256Hash) {
+        return "GET".equals(method)
+                && !disableCache
+                && !allowDirectExecutor
+                && requestFinishedListener == null
+                && idempotency != ExperimentalUrlRequest.Builder.NOT_IDEMPOTENT
+                && uploadDataProvider == null
+                && dictionarySha256Hash == null;
+    }
+
+    /**
+     * Returns the length of the body of the response, or -1 if it isn't known up front. The
+     * network stack decodes the body, so Content-Length only gives it when there is no content
+     * encoding.
+     */
+    @VisibleForTesting
+    static long getBodyLength(UrlResponseInfo info) {
+        Map<String, List<String>> headers = info.getAllHeaders();
+        List<String> contentEncoding = headers.get(CONTENT_ENCODING_HEADER_NAME);
+        if (contentEncoding != null) {
+            for (String encoding : contentEncoding) {
+                if (!"identity".equalsIgnoreCase(encoding.trim())) return -1;
+            }
+        }
+        List<String> contentLength = headers.get(CONTENT_LENGTH_HEADER_NAME);
+        if (contentLength == null || contentLength.size() != 1) return -1;
+        try {
+            long length = Long.parseLong(contentLength.get(0).trim());
+            return length >= 0 ? length : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns whether the response may be handed to every request sharing the fetch. Responses
+     * that must not be stored aren't shared. Nor are responses that vary on request headers, since
+     * the requests only match on the headers they set, and the network stack adds others like
+     * cookies. Varying on Accept-Encoding is fine, as the network stack sets it the same way for
+     * identical requests.
+     */
+    @VisibleForTesting
+    static boolean isShareable(UrlResponseInfo info) {
+        Map<String, List<String>> headers = info.getAllHeaders();
+        List<String> cacheControl = headers.get(CACHE_CONTROL_HEADER_NAME);
+        if (cacheControl != null) {
+            for (String value : cacheControl) {
+                for (String directive : value.split(",")) {
+                    if ("no-store".equalsIgnoreCase(directive.trim())) return false;
+                }
+            }
+        }
+        List<String> vary = headers.get(VARY_HEADER_NAME);
+        if (vary != null) {
+            for (String value : vary) {
+                for (String headerName : value.split(",")) {
+                    String name = headerName.trim();
+                    if (!name.isEmpty() && !"Accept-Encoding".equalsIgnoreCase(name)) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Creates a request that joins or starts a shared fetch when started. */
+    ExperimentalUrlRequest createRequest(
+            String url,
+            UrlRequest.Callback callback,
+            Executor executor,
+            int priority,
+            Collection<Object> requestAnnotations,
+            boolean disableConnectionMigration,
+            boolean trafficStatsTagSet,
+            int trafficStatsTag,
+            boolean trafficStatsUidSet,
+            int trafficStatsUid,
+            int idempotency,
+            long networkHandle,
+            String method,
+            ArrayList<Map.Entry<String, String>> requestHeaders) {
+        return new CoalescedUrlRequest(
+                url,
+                callback,
+                executor,
+                priority,
+                requestAnnotations,
+                disableConnectionMigration,
+                trafficStatsTagSet,
+                trafficStatsTag,
+                trafficStatsUidSet,
+                trafficStatsUid,
+                idempotency,
+                networkHandle,
+                method,
+                requestHeaders);
+    }
+
+    @VisibleForTesting
+    int getJoinableFetchCountForTesting() {
+        synchronized (mLock) {
+            return mJoinableFetches.size();
+        }
+    }
+
+    private static @Nullable UrlResponseInfo copyResponseInfo(@Nullable UrlResponseInfo info) {
+        if (info == null) return null;
+        return copyResponseInfo(info, info.getUrlChain());
+    }
+
+    private static UrlResponseInfo copyResponseInfo(UrlResponseInfo info, List<String> urlChain) {
+        return new UrlResponseInfoImpl(
+                urlChain,
+                info.getHttpStatusCode(),
+                info.getHttpStatusText(),
+                info.getAllHeadersAsList(),
+                info.wasCached(),
+                info.getNegotiatedProtocol(),
+                info.getProxyServer(),
+                info.getReceivedByteCount());
+    }
+
+    /**
+     * Posts the callbacks queued while holding the lock to the executors of their requests. Must
+     * be called after releasing the lock by every thread that queued callbacks. Callbacks are
+     * posted in the order they were queued, by one thread at a time.
+     */
+    private void dispatchCallbacks() {
+        assert !Thread.holdsLock(mLock);
+        synchronized (mLock) {
+            if (mDispatchingCallbacks) return;
+            mDispatchingCallbacks = true;
+        }
+        while (true) {
+            PendingCallback callback;
+            synchronized (mLock) {
+                callback = mPendingCallbacks.poll();
+                if (callback == null) {
+                    mDispatchingCallbacks = false;
+                    return;
+                }
+            }
+            callback.mRequest.execute(callback);
+        }
+    }
+
+    /** A callback invocation that may throw, like the methods of {@link UrlRequest.Callback}. */
+    private interface CallbackTask {
+        void run() throws Exception;
+    }
+
+    /** A callback queued while holding the lock, to be posted to the executor of its request. */
+    private static final class PendingCallback {
+        final CoalescedUrlRequest mRequest;
+        final Runnable mRunnable;
+        final boolean mIsFinal;
+
+        PendingCallback(CoalescedUrlRequest request, Runnable runnable, boolean isFinal) {
+            mRequest = request;
+            mRunnable = runnable;
+            mIsFinal = isFinal;
+        }
+    }
+
+    /** One network fetch and the requests it serves. */
+    private final class SharedFetch extends UrlRequest.Callback {
+        private final String mKey;
+        private final CronetUrlRequest mRequest;
+
+        // Annotations of all the requests served. Changed while the fetch is in flight.
+        private final Collection<Object> mAnnotations = new CopyOnWriteArrayList<>();
+
+        @GuardedBy("mLock")
+        private final List<CoalescedUrlRequest> mRequests = new ArrayList<>();
+
+        @GuardedBy("mLock")
+        private final List<byte[]> mBodyChunks = new ArrayList<>();
+
+        @GuardedBy("mLock")
+        private long mBufferedBodyBytes;
+
+        // Whether the response is only handed to the first request until the whole body is
+        // buffered, as its length wasn't known up front.
+        @GuardedBy("mLock")
+        private boolean mHoldingBackResponse;
+
+        @GuardedBy("mLock")
+        private boolean mJoinable = true;
+
+        // Whether the body is read straight into the buffers of the only request left, once it
+        // has read what was buffered, rather than buffered for all of them.
+        @GuardedBy("mLock")
+        private boolean mPassThrough;
+
+        // Number of requests yet to follow the pending redirect.
+        @GuardedBy("mLock")
+        private int mPendingRedirectCount;
+
+        // Calls to make on |mRequest| once the lock is released, see runPendingCalls().
+        @GuardedBy("mLock")
+        private boolean mCancelPending;
+
+        @GuardedBy("mLock")
+        private boolean mFollowRedirectPending;
+
+        @GuardedBy("mLock")
+        private @Nullable UrlResponseInfo mResponseInfo;
+
+        @GuardedBy("mLock")
+        private boolean mSucceeded;
+
+        SharedFetch(CoalescedUrlRequest firstRequest) {
+            mKey = firstRequest.mKey;
+            mAnnotations.addAll(firstRequest.mAnnotations);
+            mRequest =
+                    mRequestContext.createUncoalescedRequest(
+                            firstRequest.mUrl,
+                            this,
+                            DIRECT_EXECUTOR,
+                            firstRequest.mPriority,
+                            mAnnotations,
+                            firstRequest.mDisableConnectionMigration,
+                            /* allowDirectExecutor= */ true,
+                            firstRequest.mTrafficStatsTagSet,
+                            firstRequest.mTrafficStatsTag,
+                            firstRequest.mTrafficStatsUidSet,
+                            firstRequest.mTrafficStatsUid,
+                            firstRequest.mIdempotency,
+                            firstRequest.mNetworkHandle,
+                            firstRequest.mMethod,
+                            firstRequest.mRequestHeaders);
+        }
+
+        @GuardedBy("mLock")
+        void joinLocked(CoalescedUrlRequest request) {
+            if (!mRequests.isEmpty()) mAnnotations.addAll(request.mAnnotations);
+            mRequests.add(request);
+            request.mFetch = this;
+        }
+
+        @GuardedBy("mLock")
+        private void stopJoinsLocked() {
+            if (!mJoinable) return;
+            mJoinable = false;
+            if (mJoinableFetches.get(mKey) == this) mJoinableFetches.remove(mKey);
+        }
+
+        /** Removes a canceled or failed request from the fetch. */
+        @GuardedBy("mLock")
+        void detachLocked(CoalescedUrlRequest request) {
+            if (!mRequests.remove(request)) return;
+            if (mRequests.isEmpty()) {
+                stopJoinsLocked();
+                mCancelPending = true;
+            } else if (request.mWaitingOnRedirect) {
+                onRedirectFollowedLocked();
+            }
+        }
+
+        @GuardedBy("mLock")
+        void onRedirectFollowedLocked() {
+            if (--mPendingRedirectCount == 0) mFollowRedirectPending = true;
+        }
+
+        /**
+         * Posts the queued callbacks, and makes the calls on the network request that were decided
+         * while holding the lock.
+         */
+        void runPendingCalls() {
+            assert !Thread.holdsLock(mLock);
+            dispatchCallbacks();
+            boolean cancel;
+            boolean followRedirect;
+            synchronized (mLock) {
+                cancel = mCancelPending;
+                followRedirect = mFollowRedirectPending;
+                mCancelPending = false;
+                mFollowRedirectPending = false;
+            }
+            if (cancel) {
+                mRequest.cancel();
+            } else if (followRedirect) {
+                mRequest.followRedirect();
+            }
+        }
+
+        /** Fills the pending read of |request| if there is data, or completes it at the end. */
+        @GuardedBy("mLock")
+        void serveReadLocked(CoalescedUrlRequest request) {
+            ByteBuffer buffer = request.mPendingRead;
+            if (buffer == null) return;
+            if (request.mChunkIndex < mBodyChunks.size()) {
+                while (buffer.hasRemaining() && request.mChunkIndex < mBodyChunks.size()) {
+                    byte[] chunk = mBodyChunks.get(request.mChunkIndex);
+                    int length = Math.min(buffer.remaining(), chunk.length - request.mChunkOffset);
+                    buffer.put(chunk, request.mChunkOffset, length);
+                    request.mChunkOffset += length;
+                    if (request.mChunkOffset == chunk.length) {
+                        request.mChunkIndex++;
+                        request.mChunkOffset = 0;
+                    }
+                }
+                request.mPendingRead = null;
+                request.mWaitingOnRead = true;
+                UrlResponseInfo info = copyResponseInfo(mResponseInfo);
+                request.postLocked(
+                        () -> request.mCallback.onReadCompleted(request, info, buffer));
+            } else if (mSucceeded) {
+                request.mPendingRead = null;
+                succeedLocked(request);
+            }
+        }
+
+        @GuardedBy("mLock")
+        private void succeedLocked(CoalescedUrlRequest request) {
+            request.mDone = true;
+            mRequests.remove(request);
+            UrlResponseInfo info = copyResponseInfo(mResponseInfo);
+            request.postFinalLocked(() -> request.mCallback.onSucceeded(request, info));
+        }
+
+        /** Posts onResponseStarted to |request|. */
+        @GuardedBy("mLock")
+        private void postResponseStartedLocked(CoalescedUrlRequest request, UrlResponseInfo info) {
+            request.mResponseStartedPosted = true;
+            request.mWaitingOnRead = true;
+            UrlResponseInfo copy = copyResponseInfo(info);
+            request.postLocked(() -> request.mCallback.onResponseStarted(request, copy));
+        }
+
+        /**
+         * Moves all the requests but the first one to private requests, as the body is too large
+         * to be buffered for all of them, or the response can't be shared. None of the moved
+         * requests got the response yet.
+         */
+        @GuardedBy("mLock")
+        private List<CoalescedUrlRequest> moveToPrivateRequestsLocked(UrlResponseInfo info) {
+            List<CoalescedUrlRequest> movedRequests =
+                    new ArrayList<>(mRequests.subList(1, mRequests.size()));
+            for (CoalescedUrlRequest request : movedRequests) {
+                mRequests.remove(request);
+                for (Object annotation : request.mAnnotations) {
+                    mAnnotations.remove(annotation);
+                }
+                request.mFetch = null;
+                request.mPrivateRequest = request.createPrivateRequest(info);
+            }
+            return movedRequests;
+        }
+
+        @Override
+        public void onRedirectReceived(
+                UrlRequest request, UrlResponseInfo info, String newLocationUrl) {
+            synchronized (mLock) {
+                stopJoinsLocked();
+                mResponseInfo = info;
+                mPendingRedirectCount = mRequests.size();
+                for (CoalescedUrlRequest coalescedRequest : mRequests) {
+                    coalescedRequest.mWaitingOnRedirect = true;
+                    UrlResponseInfo copy = copyResponseInfo(info);
+                    coalescedRequest.postLocked(
+                            () ->
+                                    coalescedRequest.mCallback.onRedirectReceived(
+                                            coalescedRequest, copy, newLocationUrl));
+                }
+            }
+            runPendingCalls();
+        }
+
+        @Override
+        public void onResponseStarted(UrlRequest request, UrlResponseInfo info) {
+            List<CoalescedUrlRequest> movedRequests = new ArrayList<>();
+            boolean passThrough;
+            synchronized (mLock) {
+                stopJoinsLocked();
+                mResponseInfo = info;
+                long bodyLength = getBodyLength(info);
+                passThrough = bodyLength > MAX_BUFFERED_BODY_BYTES || !isShareable(info);
+                mPassThrough = passThrough;
+                mHoldingBackResponse = !passThrough && bodyLength < 0;
+                if (passThrough && mRequests.size() > 1) {
+                    movedRequests = moveToPrivateRequestsLocked(info);
+                }
+                for (int i = 0; i < mRequests.size(); i++) {
+                    if (mHoldingBackResponse && i > 0) break;
+                    postResponseStartedLocked(mRequests.get(i), info);
+                }
+            }
+            startPrivateRequests(movedRequests);
+            runPendingCalls();
+            // Read ahead of the requests, buffering the body. Without buffering, the only request
+            // reads straight from the fetch.
+            if (!passThrough) request.read(ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+        }
+
+        private void startPrivateRequests(List<CoalescedUrlRequest> requests) {
+            for (CoalescedUrlRequest request : requests) {
+                request.startPrivateRequest();
+            }
+        }
+
+        /**
+         * Stops buffering a body that turned out to be too large: the first request left reads
+         * the rest of it straight from the fetch, and the others, which didn't get the response
+         * yet, are moved to private requests.
+         */
+        @GuardedBy("mLock")
+        private List<CoalescedUrlRequest> onBufferExceededLocked(UrlResponseInfo info) {
+            mHoldingBackResponse = false;
+            mPassThrough = true;
+            if (mRequests.isEmpty()) return new ArrayList<>();
+            List<CoalescedUrlRequest> movedRequests = moveToPrivateRequestsLocked(info);
+            CoalescedUrlRequest firstRequest = mRequests.get(0);
+            if (!firstRequest.mResponseStartedPosted) {
+                postResponseStartedLocked(firstRequest, info);
+            }
+            return movedRequests;
+        }
+
+        @Override
+        public void onReadCompleted(UrlRequest request, UrlResponseInfo info, ByteBuffer buffer) {
+            boolean passThrough;
+            synchronized (mLock) {
+                passThrough = mPassThrough;
+            }
+            if (passThrough) {
+                onPassThroughReadCompleted(info, buffer);
+                return;
+            }
+            buffer.flip();
+            byte[] chunk = new byte[buffer.remaining()];
+            buffer.get(chunk);
+            List<CoalescedUrlRequest> movedRequests = new ArrayList<>();
+            boolean readAhead;
+            synchronized (mLock) {
+                mResponseInfo = info;
+                mBodyChunks.add(chunk);
+                mBufferedBodyBytes += chunk.length;
+                if (mHoldingBackResponse && mBufferedBodyBytes > MAX_BUFFERED_BODY_BYTES) {
+                    movedRequests = onBufferExceededLocked(info);
+                }
+                readAhead = !mPassThrough;
+                for (CoalescedUrlRequest coalescedRequest : new ArrayList<>(mRequests)) {
+                    serveReadLocked(coalescedRequest);
+                }
+            }
+            startPrivateRequests(movedRequests);
+            runPendingCalls();
+            // Once the buffer is exceeded, the request left reads from the fetch itself.
+            if (!readAhead) return;
+            buffer.clear();
+            request.read(buffer);
+        }
+
+        /** Hands the buffer of the only request left back to it. */
+        private void onPassThroughReadCompleted(UrlResponseInfo info, ByteBuffer buffer) {
+            synchronized (mLock) {
+                mResponseInfo = info;
+                for (CoalescedUrlRequest coalescedRequest : mRequests) {
+                    coalescedRequest.mWaitingOnRead = true;
+                    UrlResponseInfo copy = copyResponseInfo(info);
+                    coalescedRequest.postLocked(
+                            () ->
+                                    coalescedRequest.mCallback.onReadCompleted(
+                                            coalescedRequest, copy, buffer));
+                }
+            }
+            runPendingCalls();
+        }
+
+        @Override
+        public void onSucceeded(UrlRequest request, UrlResponseInfo info) {
+            synchronized (mLock) {
+                mResponseInfo = info;
+                mSucceeded = true;
+                for (CoalescedUrlRequest coalescedRequest : new ArrayList<>(mRequests)) {
+                    if (mPassThrough) {
+                        succeedLocked(coalescedRequest);
+                    } else if (!coalescedRequest.mResponseStartedPosted) {
+                        // The whole body is buffered, so the requests held back get the response.
+                        postResponseStartedLocked(coalescedRequest, info);
+                    } else {
+                        serveReadLocked(coalescedRequest);
+                    }
+                }
+                mHoldingBackResponse = false;
+            }
+            dispatchCallbacks();
+        }
+
+        @Override
+        public void onFailed(
+                UrlRequest request, @Nullable UrlResponseInfo info, CronetException error) {
+            synchronized (mLock) {
+                stopJoinsLocked();
+                for (CoalescedUrlRequest coalescedRequest : mRequests) {
+                    coalescedRequest.mDone = true;
+                    UrlResponseInfo copy = copyResponseInfo(info);
+                    coalescedRequest.postFinalLocked(
+                            () ->
+                                    coalescedRequest.mCallback.onFailed(
+                                            coalescedRequest, copy, error));
+                }
+                mRequests.clear();
+            }
+            dispatchCallbacks();
+        }
+
+        @Override
+        public void onCanceled(UrlRequest request, @Nullable UrlResponseInfo info) {
+            // The fetch is only canceled once no request is left, but the engine may also cancel
+            // it while shutting down.
+            synchronized (mLock) {
+                stopJoinsLocked();
+                for (CoalescedUrlRequest coalescedRequest : mRequests) {
+                    coalescedRequest.mDone = true;
+                    UrlResponseInfo copy = copyResponseInfo(info);
+                    coalescedRequest.postFinalLocked(
+                            () -> coalescedRequest.mCallback.onCanceled(coalescedRequest, copy));
+                }
+                mRequests.clear();
+            }
+            dispatchCallbacks();
+        }
+    }
+
+    /**
+     * Forwards the callbacks of the private request of a {@link CoalescedUrlRequest} as if they
+     * came from that request. The private request starts at the URL the shared fetch ended at, so
+     * the redirects already followed are prepended to its URL chain.
+     */
+    private final class PrivateRequestCallback extends UrlRequest.Callback {
+        private final CoalescedUrlRequest mRequest;
+        private final List<String> mUrlChainPrefix;
+
+        PrivateRequestCallback(CoalescedUrlRequest request, List<String> urlChainPrefix) {
+            mRequest = request;
+            mUrlChainPrefix = urlChainPrefix;
+        }
+
+        private @Nullable UrlResponseInfo prependUrlChain(@Nullable UrlResponseInfo info) {
+            if (info == null || mUrlChainPrefix.isEmpty()) return info;
+            List<String> urlChain = new ArrayList<>(mUrlChainPrefix);
+            urlChain.addAll(info.getUrlChain());
+            return copyResponseInfo(info, urlChain);
+        }
+
+        @Override
+        public void onRedirectReceived(
+                UrlRequest request, UrlResponseInfo info, String newLocationUrl)
+                throws Exception {
+            mRequest.mCallback.onRedirectReceived(mRequest, prependUrlChain(info), newLocationUrl);
+        }
+
+        @Override
+        public void onResponseStarted(UrlRequest request, UrlResponseInfo info) throws Exception {
+            mRequest.mCallback.onResponseStarted(mRequest, prependUrlChain(info));
+        }
+
+        @Override
+        public void onReadCompleted(UrlRequest request, UrlResponseInfo info, ByteBuffer buffer)
+                throws Exception {
+            mRequest.mCallback.onReadCompleted(mRequest, prependUrlChain(info), buffer);
+        }
+
+        @Override
+        public void onSucceeded(UrlRequest request, UrlResponseInfo info) {
+            mRequest.mCallback.onSucceeded(mRequest, prependUrlChain(info));
+        }
+
+        @Override
+        public void onFailed(
+                UrlRequest request, @Nullable UrlResponseInfo info, CronetException error) {
+            mRequest.mCallback.onFailed(mRequest, prependUrlChain(info), error);
+        }
+
+        @Override
+        public void onCanceled(UrlRequest request, @Nullable UrlResponseInfo info) {
+            mRequest.mCallback.onCanceled(mRequest, prependUrlChain(info));
+        }
+    }
+
+    /**
+     * The request handed out to a caller, served by a {@link SharedFetch} or, once moved off it, by
+     * a private request.
+     */
+    private final class CoalescedUrlRequest extends ExperimentalUrlRequest {
+        final String mUrl;
+        final VersionSafeCallbacks.UrlRequestCallback mCallback;
+        final Executor mExecutor;
+        final int mPriority;
+        final Collection<Object> mAnnotations;
+        final boolean mDisableConnectionMigration;
+        final boolean mTrafficStatsTagSet;
+        final int mTrafficStatsTag;
+        final boolean mTrafficStatsUidSet;
+        final int mTrafficStatsUid;
+        final int mIdempotency;
+        final long mNetworkHandle;
+        final String mMethod;
+        final ArrayList<Map.Entry<String, String>> mRequestHeaders;
+        final String mKey;
+
+        @GuardedBy("mLock")
+        @Nullable
+        SharedFetch mFetch;
+
+        // Set once the request is moved off its shared fetch. All calls are then forwarded to it.
+        @GuardedBy("mLock")
+        @Nullable
+        CronetUrlRequest mPrivateRequest;
+
+        // Whether cancel() was called on a request that has a private request.
+        @GuardedBy("mLock")
+        boolean mPrivateRequestCanceled;
+
+        @GuardedBy("mLock")
+        boolean mStarted;
+
+        // Set once the final callback is posted, or the request is detached from its fetch.
+        @GuardedBy("mLock")
+        boolean mDone;
+
+        @GuardedBy("mLock")
+        boolean mWaitingOnRedirect;
+
+        @GuardedBy("mLock")
+        boolean mResponseStartedPosted;
+
+        @GuardedBy("mLock")
+        boolean mWaitingOnRead;
+
+        @GuardedBy("mLock")
+        @Nullable
+        ByteBuffer mPendingRead;
+
+        // Position of the next byte to read in the fetch's body chunks.
+        @GuardedBy("mLock")
+        int mChunkIndex;
+
+        @GuardedBy("mLock")
+        int mChunkOffset;
+
+        CoalescedUrlRequest(
+                String url,
+                UrlRequest.Callback callback,
+                Executor executor,
+                int priority,
+                Collection<Object> requestAnnotations,
+                boolean disableConnectionMigration,
+                boolean trafficStatsTagSet,
+                int trafficStatsTag,
+                boolean trafficStatsUidSet,
+                int trafficStatsUid,
+                int idempotency,
+                long networkHandle,
+                String method,
+                ArrayList<Map.Entry<String, String>> requestHeaders) {
+            mUrl = url;
+            mCallback = new VersionSafeCallbacks.UrlRequestCallback(callback);
+            mExecutor = executor;
+            mPriority = priority;
+            mAnnotations = requestAnnotations;
+            mDisableConnectionMigration = disableConnectionMigration;
+            mTrafficStatsTagSet = trafficStatsTagSet;
+            mTrafficStatsTag = trafficStatsTag;
+            mTrafficStatsUidSet = trafficStatsUidSet;
+            mTrafficStatsUid = trafficStatsUid;
+            mIdempotency = idempotency;
+            mNetworkHandle = networkHandle;
+            mMethod = method;
+            mRequestHeaders = requestHeaders;
+
+            // Everything but the priority and annotations must match to share a fetch.
+            StringBuilder key =
+                    new StringBuilder()
+                            .append(method)
+                            .append(' ')
+                            .append(url)
+                            .append('\n')
+                            .append(networkHandle)
+                            .append(disableConnectionMigration)
+                            .append(idempotency)
+                            .append(trafficStatsTagSet ? trafficStatsTag : "-")
+                            .append(trafficStatsUidSet ? trafficStatsUid : "-");
+            for (Map.Entry<String, String> header : requestHeaders) {
+                key.append('\n').append(header.getKey()).append(':').append(header.getValue());
+            }
+            mKey = key.toString();
+        }
+
+        @Override
+        public void start() {
+            synchronized (mLock) {
+                if (mStarted) throw new IllegalStateException("Request is already started.");
+                SharedFetch fetch = mJoinableFetches.get(mKey);
+                if (fetch != null) {
+                    mStarted = true;
+                    fetch.joinLocked(this);
+                    return;
+                }
+            }
+            // Join the new fetch before it starts, so that no callback is missed.
+            SharedFetch fetch = new SharedFetch(this);
+            synchronized (mLock) {
+                mStarted = true;
+                fetch.joinLocked(this);
+            }
+            try {
+                fetch.mRequest.start();
+            } catch (RuntimeException e) {
+                // Invalid requests throw before anything else could join the fetch.
+                synchronized (mLock) {
+                    fetch.mRequests.remove(this);
+                    fetch.mJoinable = false;
+                    mFetch = null;
+                    mStarted = false;
+                }
+                throw e;
+            }
+            synchronized (mLock) {
+                // Another identical request may have registered its fetch in the meantime.
+                if (fetch.mJoinable && !mJoinableFetches.containsKey(mKey)) {
+                    mJoinableFetches.put(mKey, fetch);
+                }
+            }
+        }
+
+        @Override
+        public void followRedirect() {
+            CronetUrlRequest privateRequest;
+            SharedFetch fetch;
+            synchronized (mLock) {
+                privateRequest = mPrivateRequest;
+                fetch = mFetch;
+                if (privateRequest == null) {
+                    if (!mWaitingOnRedirect) {
+                        throw new IllegalStateException("No redirect to follow.");
+                    }
+                    mWaitingOnRedirect = false;
+                    if (mDone) return;
+                    assert fetch != null;
+                    fetch.onRedirectFollowedLocked();
+                }
+            }
+            if (privateRequest != null) {
+                privateRequest.followRedirect();
+            } else {
+                fetch.runPendingCalls();
+            }
+        }
+
+        @Override
+        public void read(ByteBuffer buffer) {
+            Preconditions.checkHasRemaining(buffer);
+            Preconditions.checkDirect(buffer);
+            CronetUrlRequest directRequest = null;
+            SharedFetch fetch = null;
+            synchronized (mLock) {
+                if (mPrivateRequest != null) {
+                    directRequest = mPrivateRequest;
+                } else {
+                    if (!mWaitingOnRead) {
+                        throw new IllegalStateException("Unexpected read attempt.");
+                    }
+                    mWaitingOnRead = false;
+                    if (mDone) return;
+                    assert mFetch != null;
+                    fetch = mFetch;
+                    if (fetch.mPassThrough && mChunkIndex == fetch.mBodyChunks.size()) {
+                        // What was buffered before the body exceeded the buffer has been read.
+                        fetch.mBodyChunks.clear();
+                        mChunkIndex = 0;
+                        directRequest = fetch.mRequest;
+                    } else {
+                        mPendingRead = buffer;
+                        fetch.serveReadLocked(this);
+                    }
+                }
+            }
+            if (directRequest != null) {
+                directRequest.read(buffer);
+            } else if (fetch != null) {
+                fetch.runPendingCalls();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            CronetUrlRequest privateRequest;
+            SharedFetch fetch;
+            synchronized (mLock) {
+                privateRequest = mPrivateRequest;
+                fetch = mFetch;
+                if (privateRequest != null) {
+                    mPrivateRequestCanceled = true;
+                } else {
+                    if (!mStarted || mDone) return;
+                    assert fetch != null;
+                    UrlResponseInfo info = copyResponseInfo(fetch.mResponseInfo);
+                    detachLocked();
+                    postFinalLocked(() -> mCallback.onCanceled(this, info));
+                }
+            }
+            if (privateRequest != null) {
+                privateRequest.cancel();
+            } else {
+                fetch.runPendingCalls();
+            }
+        }
+
+        @Override
+        public boolean isDone() {
+            CronetUrlRequest privateRequest;
+            synchronized (mLock) {
+                privateRequest = mPrivateRequest;
+                if (privateRequest == null) return mStarted && mDone;
+            }
+            return privateRequest.isDone();
+        }
+
+        @Override
+        public void getStatus(UrlRequest.StatusListener unsafeListener) {
+            CronetUrlRequest privateRequest;
+            CronetUrlRequest fetchRequest = null;
+            synchronized (mLock) {
+                privateRequest = mPrivateRequest;
+                if (privateRequest == null && mStarted && !mDone) {
+                    assert mFetch != null;
+                    fetchRequest = mFetch.mRequest;
+                }
+            }
+            if (privateRequest != null) {
+                privateRequest.getStatus(unsafeListener);
+                return;
+            }
+            VersionSafeCallbacks.UrlRequestStatusListener listener =
+                    new VersionSafeCallbacks.UrlRequestStatusListener(unsafeListener);
+            if (fetchRequest == null) {
+                postStatus(listener, UrlRequest.Status.INVALID);
+                return;
+            }
+            // The fetch reports its status on the network thread.
+            fetchRequest.getStatus(
+                    new UrlRequest.StatusListener() {
+                        @Override
+                        public void onStatus(int status) {
+                            postStatus(listener, status);
+                        }
+                    });
+        }
+
+        private void postStatus(UrlRequest.StatusListener listener, int status) {
+            try {
+                mExecutor.execute(() -> listener.onStatus(status));
+            } catch (RejectedExecutionException e) {
+                Log.e(TAG, "Exception posting task to executor", e);
+            }
+        }
+
+        /** Creates the private request for the URL the shared fetch got |info| from. */
+        CronetUrlRequest createPrivateRequest(UrlResponseInfo info) {
+            List<String> urlChain = info.getUrlChain();
+            List<String> urlChainPrefix = new ArrayList<>(urlChain.subList(0, urlChain.size() - 1));
+            return mRequestContext.createUncoalescedRequest(
+                    urlChain.get(urlChain.size() - 1),
+                    new PrivateRequestCallback(this, urlChainPrefix),
+                    mExecutor,
+                    mPriority,
+                    mAnnotations,
+                    mDisableConnectionMigration,
+                    /* allowDirectExecutor= */ false,
+                    mTrafficStatsTagSet,
+                    mTrafficStatsTag,
+                    mTrafficStatsUidSet,
+                    mTrafficStatsUid,
+                    mIdempotency,
+                    mNetworkHandle,
+                    mMethod,
+                    mRequestHeaders);
+        }
+
+        /** Starts the private request, and cancels it if cancel() raced with starting it. */
+        void startPrivateRequest() {
+            CronetUrlRequest privateRequest;
+            synchronized (mLock) {
+                privateRequest = mPrivateRequest;
+            }
+            assert privateRequest != null;
+            try {
+                privateRequest.start();
+            } catch (RuntimeException e) {
+                // The shared fetch started with the same parameters, so this isn't expected.
+                Log.e(TAG, "Failed to start a private request", e);
+                CronetException error =
+                        new CronetExceptionImpl("Failed to start a private request", e);
+                try {
+                    mExecutor.execute(() -> mCallback.onFailed(this, null, error));
+                } catch (RejectedExecutionException rejected) {
+                    Log.e(TAG, "Exception posting task to executor", rejected);
+                }
+                return;
+            }
+            boolean canceled;
+            synchronized (mLock) {
+                canceled = mPrivateRequestCanceled;
+            }
+            if (canceled) privateRequest.cancel();
+        }
+
+        @GuardedBy("mLock")
+        private void detachLocked() {
+            mDone = true;
+            mPendingRead = null;
+            if (mFetch != null) mFetch.detachLocked(this);
+        }
+
+        /**
+         * Queues a callback that is skipped if the request is done by the time it runs. The
+         * callback is posted by {@link #dispatchCallbacks()}.
+         */
+        @GuardedBy("mLock")
+        void postLocked(CallbackTask task) {
+            Runnable runnable =
+                    () -> {
+                        synchronized (mLock) {
+                            if (mDone || mPrivateRequest != null) return;
+                        }
+                        try {
+                            task.run();
+                        } catch (Exception e) {
+                            onCallbackException(e);
+                        }
+                    };
+            mPendingCallbacks.add(new PendingCallback(this, runnable, /* isFinal= */ false));
+        }
+
+        /**
+         * Queues the final callback of the request. The callback is posted by {@link
+         * #dispatchCallbacks()}.
+         */
+        @GuardedBy("mLock")
+        void postFinalLocked(CallbackTask task) {
+            Runnable runnable =
+                    () -> {
+                        try {
+                            task.run();
+                        } catch (Exception e) {
+                            Log.e(TAG, "Exception in final callback", e);
+                        }
+                    };
+            mPendingCallbacks.add(new PendingCallback(this, runnable, /* isFinal= */ true));
+        }
+
+        /**
+         * Posts a queued callback to the executor. The request is detached from its fetch if the
+         * executor rejects a callback other than the final one.
+         */
+        void execute(PendingCallback callback) {
+            assert !Thread.holdsLock(mLock);
+            try {
+                mExecutor.execute(callback.mRunnable);
+            } catch (RejectedExecutionException e) {
+                Log.e(TAG, "Exception posting task to executor", e);
+                if (callback.mIsFinal) return;
+                SharedFetch fetch;
+                synchronized (mLock) {
+                    fetch = mFetch;
+                    if (mDone) return;
+                    detachLocked();
+                }
+                if (fetch != null) fetch.runPendingCalls();
+            }
+        }
+
+        private void onCallbackException(Exception e) {
+            Log.e(TAG, "Exception in UrlRequest.Callback", e);
+            CallbackException error =
+                    new CallbackExceptionImpl("Exception received from UrlRequest.Callback", e);
+            SharedFetch fetch;
+            synchronized (mLock) {
+                fetch = mFetch;
+                if (mDone || fetch == null) return;
+                UrlResponseInfo info = copyResponseInfo(fetch.mResponseInfo);
+                detachLocked();
+                postFinalLocked(() -> mCallback.onFailed(this, info, error));
+            }
+            fetch.runPendingCalls();
+        }
+    }
+}
@@ -4,6 +4,9 @@
 
 package org.chromium.net.impl;
 
+import androidx.annotation.Nullable;
+
+import org.chromium.net.BatchedRequestFinishedListener;
 import org.chromium.net.BidirectionalStream;
 import org.chromium.net.CronetEngine;
 import org.chromium.net.CronetException;
@@ -177,11 +180,27 @@ public class VersionSafeCallbacks {
 
     /** Wrap a {@link RequestFinishedInfo.Listener} in a version safe manner. */
     public static final class RequestFinishedInfoListener extends RequestFinishedInfo.Listener {
+        private static final int BATCHED_REQUEST_FINISHED_LISTENER_API_LEVEL = 39;
+
         private final RequestFinishedInfo.Listener mWrappedListener;
+        private final @Nullable RequestFinishedInfoBatcher mBatcher;
 
         public RequestFinishedInfoListener(RequestFinishedInfo.Listener listener) {
             super(listener.getExecutor());
             mWrappedListener = listener;
+            // BatchedRequestFinishedListener can't be loaded from older API versions, so the API
+            // level must be checked before the instanceof.
+            if (apiContainsBatchedListenerClass()
+                    && listener instanceof BatchedRequestFinishedListener) {
+                mBatcher = new RequestFinishedInfoBatcher((BatchedRequestFinishedListener) listener);
+            } else {
+                mBatcher = null;
+            }
+        }
+
+        private static boolean apiContainsBatchedListenerClass() {
+            return ApiVersion.getMaximumAvailableApiLevel()
+                    >= BATCHED_REQUEST_FINISHED_LISTENER_API_LEVEL;
         }
 
         @Override
@@ -193,6 +212,15 @@ public class VersionSafeCallbacks {
         public Executor getExecutor() {
             return mWrappedListener.getExecutor();
         }
+
+        /**
+         * Returns the batcher delivering to the wrapped listener if it takes batches of finished
+         * requests, or null.
+         */
+        @Nullable
+        RequestFinishedInfoBatcher getBatcher() {
+            return mBatcher;
+        }
     }
 
     /**
@@ -6,8 +6,10 @@ package org.chromium.net.telemetry;
 
 import android.os.Build;
 import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.VisibleForTesting;
 
@@ -15,25 +17,71 @@ import org.chromium.base.metrics.ScopedSysTraceEvent;
 import org.chromium.net.ConnectionCloseSource;
 import org.chromium.net.impl.CronetLogger;
 
+import java.util.Arrays;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /** Logger for logging cronet's telemetry */
 @RequiresApi(Build.VERSION_CODES.R)
 public class CronetLoggerImpl extends CronetLogger {
     private static final String TAG = CronetLoggerImpl.class.getSimpleName();
 
+    // How long the flush thread lets traffic samples accumulate before flushing them.
+    private static final long FLUSH_DELAY_MILLIS = 1000L;
+
     private final AtomicInteger mSamplesRateLimited = new AtomicInteger();
     private final RateLimiter mRateLimiter;
 
+    // Only set when traffic samples are flushed on a background thread.
+    private final @Nullable TrafficSampleRing mSampleRing;
+    private final @Nullable Thread mFlushThread;
+    private final AtomicBoolean mFlushThreadStarted = new AtomicBoolean();
+    private volatile boolean mFlushThreadStopped;
+
+    // Scratch space for the samples being flushed. Guarded by |mFlushLock|.
+    private final Object mFlushLock = new Object();
+    @Nullable private final long[] mFlushEngineIds;
+    @Nullable private final CronetTrafficInfo[] mFlushInfos;
+
     public CronetLoggerImpl(int sampleRatePerSecond) {
         this(new RateLimiter(sampleRatePerSecond));
     }
 
     @VisibleForTesting
     public CronetLoggerImpl(RateLimiter rateLimiter) {
+        this(rateLimiter, null);
+    }
+
+    /**
+     * Creates a logger that keeps the traffic samples out of the request completion path: samples
+     * are recorded into a preallocated ring of {@code ringCapacity} entries and flushed on a
+     * background thread about once per second. Samples recorded while the ring is full are counted
+     * as rate limited.
+     *
+     * <p>Each such logger owns a flush thread, which runs until {@link #stopFlushThread}. {@link
+     * org.chromium.net.impl.CronetLoggerFactory} creates a single logger shared by all the engines
+     * of the process.
+     */
+    public CronetLoggerImpl(RateLimiter rateLimiter, int ringCapacity) {
+        this(rateLimiter, new TrafficSampleRing(ringCapacity));
+    }
+
+    private CronetLoggerImpl(RateLimiter rateLimiter, @Nullable TrafficSampleRing sampleRing) {
         super();
         this.mRateLimiter = rateLimiter;
+        mSampleRing = sampleRing;
+        if (sampleRing == null) {
+            mFlushThread = null;
+            mFlushEngineIds = null;
+            mFlushInfos = null;
+            return;
+        }
+        mFlushEngineIds = new long[sampleRing.getCapacity()];
+        mFlushInfos = new CronetTrafficInfo[sampleRing.getCapacity()];
+        mFlushThread = new Thread(this::runFlushLoop, "CronetTelemetry");
+        mFlushThread.setDaemon(true);
     }
 
     @Override
@@ -118,9 +166,79 @@ public class CronetLoggerImpl extends CronetLogger {
             return;
         }
 
+        if (mSampleRing != null && !mFlushThreadStopped) {
+            recordTrafficSample(cronetEngineId, trafficInfo);
+            return;
+        }
+
         writeCronetTrafficReported(cronetEngineId, trafficInfo, mSamplesRateLimited.getAndSet(0));
     }
 
+    private void recordTrafficSample(long cronetEngineId, CronetTrafficInfo trafficInfo) {
+        int sampleCount = mSampleRing.offer(cronetEngineId, trafficInfo);
+        if (sampleCount == 0) {
+            mSamplesRateLimited.incrementAndGet();
+            return;
+        }
+        if (mFlushThreadStopped) {
+            // The flush thread may have done its last flush before this sample was recorded.
+            flushTrafficSamples();
+            return;
+        }
+        // The flush thread only parks once the ring is empty, so only the first sample wakes it.
+        if (sampleCount != 1) return;
+        if (mFlushThreadStarted.compareAndSet(false, true)) {
+            mFlushThread.start();
+        } else {
+            LockSupport.unpark(mFlushThread);
+        }
+    }
+
+    /**
+     * Stops the flush thread once it has flushed the samples recorded so far. Traffic samples
+     * logged afterwards are written synchronously. Does nothing if this logger doesn't flush on a
+     * background thread.
+     */
+    public void stopFlushThread() {
+        if (mSampleRing == null) return;
+        mFlushThreadStopped = true;
+        // Keep a thread that never started from starting later.
+        if (!mFlushThreadStarted.compareAndSet(false, true)) {
+            LockSupport.unpark(mFlushThread);
+        }
+    }
+
+    @VisibleForTesting
+    @Nullable
+    Thread getFlushThreadForTesting() {
+        return mFlushThread;
+    }
+
+    private void runFlushLoop() {
+        while (!mFlushThreadStopped) {
+            if (mSampleRing.isEmpty()) {
+                LockSupport.park(this);
+                continue;
+            }
+            SystemClock.sleep(FLUSH_DELAY_MILLIS);
+            flushTrafficSamples();
+        }
+        flushTrafficSamples();
+    }
+
+    /** Writes the traffic samples recorded since the previous flush. */
+    @VisibleForTesting
+    void flushTrafficSamples() {
+        synchronized (mFlushLock) {
+            int sampleCount = mSampleRing.drainTo(mFlushEngineIds, mFlushInfos);
+            for (int i = 0; i < sampleCount; i++) {
+                writeCronetTrafficReported(
+                        mFlushEngineIds[i], mFlushInfos[i], mSamplesRateLimited.getAndSet(0));
+            }
+            Arrays.fill(mFlushInfos, 0, sampleCount, null);
+        }
+    }
+
     @SuppressWarnings("CatchingUnchecked")
     public void writeCronetEngineCreation(
             long cronetEngineId,
@@ -0,0 +1,69 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net.telemetry;
+
+import org.chromium.net.impl.CronetLogger.CronetTrafficInfo;
+
+/**
+ * A fixed-capacity queue of traffic samples, preallocated so that recording a sample doesn't
+ * allocate. Samples offered while the ring is full are rejected.
+ */
+final class TrafficSampleRing {
+    private final long[] mEngineIds;
+    private final CronetTrafficInfo[] mInfos;
+
+    // Guarded by |this|.
+    private int mHead;
+    private int mSize;
+
+    TrafficSampleRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Expect ring capacity to be > 0");
+        }
+        mEngineIds = new long[capacity];
+        mInfos = new CronetTrafficInfo[capacity];
+    }
+
+    int getCapacity() {
+        return mInfos.length;
+    }
+
+    /**
+     * Appends a sample to the ring.
+     *
+     * @return The number of samples in the ring including this one, or 0 if the ring is full.
+     */
+    synchronized int offer(long cronetEngineId, CronetTrafficInfo trafficInfo) {
+        if (mSize == mInfos.length) return 0;
+        int tail = (mHead + mSize) % mInfos.length;
+        mEngineIds[tail] = cronetEngineId;
+        mInfos[tail] = trafficInfo;
+        return ++mSize;
+    }
+
+    /**
+     * Moves all the samples out of the ring, oldest first.
+     *
+     * @param engineIds Receives the engine IDs; must hold at least {@link #getCapacity} entries.
+     * @param infos Receives the samples; must hold at least {@link #getCapacity} entries.
+     * @return The number of samples moved.
+     */
+    synchronized int drainTo(long[] engineIds, CronetTrafficInfo[] infos) {
+        int count = mSize;
+        for (int i = 0; i < count; i++) {
+            int index = (mHead + i) % mInfos.length;
+            engineIds[i] = mEngineIds[index];
+            infos[i] = mInfos[index];
+            mInfos[index] = null;
+        }
+        mHead = 0;
+        mSize = 0;
+        return count;
+    }
+
+    synchronized boolean isEmpty() {
+        return mSize == 0;
+    }
+}
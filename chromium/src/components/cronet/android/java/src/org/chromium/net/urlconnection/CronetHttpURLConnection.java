@@ -65,7 +65,7 @@ public class CronetHttpURLConnection extends HttpURLConnection {
         try (var traceEvent =
                 ScopedSysTraceEvent.scoped("CronetHttpURLConnection#CronetHttpURLConnection")) {
             mCronetEngine = cronetEngine;
-            mMessageLoop = new MessageLoop();
+            mMessageLoop = MessageLoop.obtain();
             mInputStream = new CronetInputStream(this);
             mRequestHeaders = new ArrayList<>();
         }
@@ -587,6 +587,7 @@ public class CronetHttpURLConnection extends HttpURLConnection {
                             "CronetHttpURLConnection.CronetUrlRequestCallback#onSucceeded")) {
                 mResponseInfo = info;
                 setResponseDataCompleted(null);
+                recycleMessageLoop();
             }
         }
 
@@ -600,6 +601,7 @@ public class CronetHttpURLConnection extends HttpURLConnection {
                 }
                 mResponseInfo = info;
                 setResponseDataCompleted(exception);
+                recycleMessageLoop();
             }
         }
 
@@ -610,6 +612,7 @@ public class CronetHttpURLConnection extends HttpURLConnection {
                             "CronetHttpURLConnection.CronetUrlRequestCallback#onCanceled")) {
                 mResponseInfo = info;
                 setResponseDataCompleted(new IOException("disconnect() called"));
+                recycleMessageLoop();
             }
         }
 
@@ -630,6 +633,18 @@ public class CronetHttpURLConnection extends HttpURLConnection {
             mHasResponseHeadersOrCompleted = true;
             mMessageLoop.quit();
         }
+
+        /**
+         * Makes {@link #mMessageLoop} available to the next connection created on this thread. Must
+         * only be called from a final callback, after which the request posts nothing to the loop.
+         * Uploads post UploadDataProvider#close() to the loop after completion, so only loops of
+         * requests without a body are reused.
+         */
+        private void recycleMessageLoop() {
+            if (mOutputStream == null) {
+                mMessageLoop.recycle();
+            }
+        }
     }
 
     /** Blocks until the response headers are received. */
@@ -9,15 +9,32 @@ import org.chromium.base.metrics.ScopedSysTraceEvent;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.SocketTimeoutException;
-import java.util.concurrent.BlockingQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-
-/** A MessageLoop class for use in {@link CronetHttpURLConnection}. */
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A MessageLoop class for use in {@link CronetHttpURLConnection}.
+ *
+ * <p>Tasks are posted to a lock-free queue, and the thread running the loop parks with {@link
+ * LockSupport} while the queue is empty. Posting a task takes no lock and only unparks the loop's
+ * thread if it is waiting. Unlike monitor-based waits, parking doesn't pin the carrier thread of a
+ * virtual thread on runtimes that support them.
+ *
+ * <p>Loops are recycled per thread with {@link #obtain()} and {@link #recycle()}, so that issuing
+ * many connections from the same thread doesn't allocate a loop for each.
+ */
 class MessageLoop implements Executor {
-    private final BlockingQueue<Runnable> mQueue;
+    // The loop that can be reused by the next connection created on this thread.
+    private static final ThreadLocal<MessageLoop> sRecycledLoop = new ThreadLocal<>();
+
+    private final Queue<Runnable> mQueue;
+
+    // The thread parked in take() waiting for a task, if any.
+    private volatile Thread mWaitingThread;
 
     // Indicates whether this message loop is currently running.
     private boolean mLoopRunning;
@@ -39,7 +56,29 @@ class MessageLoop implements Executor {
     private long mThreadId = INVALID_THREAD_ID;
 
     MessageLoop() {
-        mQueue = new LinkedBlockingQueue<>();
+        mQueue = new ConcurrentLinkedQueue<>();
+    }
+
+    /** Returns the loop recycled on this thread if there is one, or a new loop. */
+    static MessageLoop obtain() {
+        MessageLoop loop = sRecycledLoop.get();
+        if (loop == null) return new MessageLoop();
+        sRecycledLoop.remove();
+        // The connection using the loop may run it on a different thread than the last one did.
+        loop.mThreadId = INVALID_THREAD_ID;
+        return loop;
+    }
+
+    /**
+     * Makes this loop available to the next {@link #obtain()} call on this thread. Must only be
+     * called once no task can be posted to the loop anymore, and the loop is no longer used by its
+     * current owner. Loops that have failed or still have tasks queued aren't recycled.
+     */
+    void recycle() {
+        assert calledOnValidThread();
+        if (mLoopFailed || !mQueue.isEmpty()) return;
+        mLoopRunning = false;
+        sRecycledLoop.set(this);
     }
 
     private boolean calledOnValidThread() {
@@ -58,24 +97,38 @@ class MessageLoop implements Executor {
      * @return A non-{@code null} Runnable from the queue.
      */
     private Runnable take(boolean useTimeout, long timeoutNano) throws InterruptedIOException {
-        Runnable task = null;
-        try {
+        long deadlineNano = System.nanoTime() + timeoutNano;
+        while (true) {
+            if (Thread.interrupted()) {
+                InterruptedIOException exception = new InterruptedIOException();
+                exception.initCause(new InterruptedException());
+                throw exception;
+            }
+            Runnable task = mQueue.poll();
+            if (task != null) return task;
+
+            // Publish the waiting thread before checking the queue again, so that a task posted in
+            // between either is seen by poll() or unparks this thread.
+            mWaitingThread = Thread.currentThread();
+            task = mQueue.poll();
+            if (task != null) {
+                mWaitingThread = null;
+                return task;
+            }
             if (!useTimeout) {
-                task = mQueue.take(); // Blocks if the queue is empty.
+                LockSupport.park(this);
             } else {
-                // poll returns null upon timeout.
-                task = mQueue.poll(timeoutNano, TimeUnit.NANOSECONDS);
+                long remainingNano = deadlineNano - System.nanoTime();
+                if (remainingNano <= 0) {
+                    mWaitingThread = null;
+                    // This will terminate the loop.
+                    throw new SocketTimeoutException();
+                }
+                LockSupport.parkNanos(this, remainingNano);
             }
-        } catch (InterruptedException e) {
-            InterruptedIOException exception = new InterruptedIOException();
-            exception.initCause(e);
-            throw exception;
-        }
-        if (task == null) {
-            // This will terminate the loop.
-            throw new SocketTimeoutException();
+            // Woken up by a task, an interrupt, the timeout, or spuriously: check again.
+            mWaitingThread = null;
         }
-        return task;
     }
 
     /**
@@ -151,13 +204,9 @@ class MessageLoop implements Executor {
         if (task == null) {
             throw new IllegalArgumentException();
         }
-        try {
-            mQueue.put(task);
-        } catch (InterruptedException e) {
-            // In theory this exception won't happen, since we have an blocking
-            // queue with Integer.MAX_Value capacity, put() call will not block.
-            throw new RejectedExecutionException(e);
-        }
+        mQueue.offer(task);
+        Thread waitingThread = mWaitingThread;
+        if (waitingThread != null) LockSupport.unpark(waitingThread);
     }
 
     /** Returns whether the loop is currently running. Used in testing. */
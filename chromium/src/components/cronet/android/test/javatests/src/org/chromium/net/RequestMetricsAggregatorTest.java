@@ -0,0 +1,124 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.util.Batch;
+import org.chromium.net.RequestMetricsAggregator.Histogram;
+import org.chromium.net.impl.CronetMetrics;
+import org.chromium.net.impl.RequestFinishedInfoImpl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/** Tests for {@link RequestMetricsAggregator}. */
+@Batch(Batch.UNIT_TESTS)
+@RunWith(AndroidJUnit4.class)
+public class RequestMetricsAggregatorTest {
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+    private static RequestFinishedInfo createRequestFinishedInfo(
+            String url, long ttfbMs, long totalTimeMs, long receivedBytes) {
+        CronetMetrics metrics =
+                new CronetMetrics(
+                        /* requestStartMs= */ 1000,
+                        -1,
+                        -1,
+                        -1,
+                        -1,
+                        -1,
+                        -1,
+                        -1,
+                        -1,
+                        -1,
+                        -1,
+                        /* responseStartMs= */ 1000 + ttfbMs,
+                        /* requestEndMs= */ 1000 + totalTimeMs,
+                        false,
+                        0,
+                        receivedBytes);
+        return new RequestFinishedInfoImpl(
+                url,
+                Collections.emptyList(),
+                metrics,
+                RequestFinishedInfo.SUCCEEDED,
+                /* responseInfo= */ null,
+                /* exception= */ null);
+    }
+
+    @Test
+    @SmallTest
+    public void testHistogramBuckets() {
+        for (long value = 0; value < 1 << 16; value++) {
+            int index = Histogram.getBucketIndex(value);
+            long lowerBound = Histogram.getBucketLowerBound(index);
+            assertThat(lowerBound).isAtMost(value);
+            // Buckets are at most a quarter of their lower bound wide.
+            assertThat(value - lowerBound).isAtMost(lowerBound / 4);
+        }
+        assertThat(Histogram.getBucketIndex(Long.MAX_VALUE))
+                .isEqualTo(Histogram.BUCKET_COUNT - 1);
+    }
+
+    @Test
+    @SmallTest
+    public void testHistogramPercentiles() {
+        Histogram histogram = new Histogram();
+        assertThat(histogram.getPercentile(50)).isEqualTo(-1);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertThat(histogram.getTotalCount()).isEqualTo(100);
+        assertThat(histogram.getPercentile(0)).isEqualTo(1);
+        assertThat(histogram.getPercentile(50)).isEqualTo(48);
+        assertThat(histogram.getPercentile(100)).isEqualTo(96);
+    }
+
+    @Test
+    @SmallTest
+    public void testAggregatesPerHost() {
+        RequestMetricsAggregator aggregator = new RequestMetricsAggregator(DIRECT_EXECUTOR);
+        assertThat(aggregator.getHosts()).isEmpty();
+        aggregator.onRequestsFinished(
+                List.of(
+                        createRequestFinishedInfo("https://a.test/1", 10, 20, 100),
+                        createRequestFinishedInfo("https://a.test/2", 10, 20, 100)));
+        aggregator.onRequestFinished(createRequestFinishedInfo("https://b.test/", 200, 400, 8192));
+
+        assertThat(aggregator.getHosts()).containsExactly("a.test", "b.test");
+        RequestMetricsAggregator.HostMetrics metrics = aggregator.getHostMetrics("a.test");
+        assertThat(metrics.getRequestCount()).isEqualTo(2);
+        assertThat(metrics.getTtfbMsPercentile(50)).isEqualTo(10);
+        assertThat(metrics.getTotalTimeMsPercentile(50)).isEqualTo(20);
+        assertThat(metrics.getReceivedBytesPercentile(50)).isEqualTo(96);
+        assertThat(aggregator.getHostMetrics("b.test").getReceivedBytesPercentile(50))
+                .isEqualTo(8192);
+        assertThat(aggregator.getHostMetrics("c.test")).isNull();
+
+        aggregator.reset();
+        assertThat(aggregator.getHosts()).isEmpty();
+    }
+
+    @Test
+    @SmallTest
+    public void testDropsLeastRecentlyActiveHost() {
+        RequestMetricsAggregator aggregator = new RequestMetricsAggregator(DIRECT_EXECUTOR, 2);
+        aggregator.onRequestsFinished(
+                List.of(
+                        createRequestFinishedInfo("https://a.test/", 1, 1, 1),
+                        createRequestFinishedInfo("https://b.test/", 1, 1, 1),
+                        createRequestFinishedInfo("https://a.test/", 1, 1, 1),
+                        createRequestFinishedInfo("https://c.test/", 1, 1, 1)));
+        assertThat(aggregator.getHosts()).containsExactly("a.test", "c.test").inOrder();
+    }
+}
@@ -0,0 +1,162 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net.apihelpers;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.util.Batch;
+import org.chromium.net.CronetException;
+import org.chromium.net.UrlRequest;
+import org.chromium.net.UrlResponseInfo;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Unit tests for {@link ByteBufferPool} and the callbacks reading into pooled buffers. */
+@RunWith(AndroidJUnit4.class)
+@Batch(Batch.UNIT_TESTS)
+public class ByteBufferPoolTest {
+    @Test
+    @SmallTest
+    public void testAcquireRoundsUpToSizeClass() {
+        ByteBufferPool pool = new ByteBufferPool(1024 * 1024);
+
+        ByteBuffer buffer = pool.acquire(1);
+        assertThat(buffer.isDirect()).isTrue();
+        assertThat(buffer.capacity()).isEqualTo(ByteBufferPool.MIN_BUFFER_SIZE);
+        assertThat(pool.acquire(ByteBufferPool.MIN_BUFFER_SIZE + 1).capacity())
+                .isEqualTo(2 * ByteBufferPool.MIN_BUFFER_SIZE);
+        assertThat(pool.acquire(ByteBufferPool.MAX_BUFFER_SIZE + 1).capacity())
+                .isEqualTo(ByteBufferPool.MAX_BUFFER_SIZE + 1);
+    }
+
+    @Test
+    @SmallTest
+    public void testReleasedBuffersAreReused() {
+        ByteBufferPool pool = new ByteBufferPool(1024 * 1024);
+        ByteBuffer buffer = pool.acquire(10000);
+        buffer.put((byte) 1);
+
+        pool.release(buffer);
+        assertThat(pool.getRetainedBytes()).isEqualTo(buffer.capacity());
+
+        ByteBuffer reused = pool.acquire(9000);
+        assertThat(reused).isSameInstanceAs(buffer);
+        assertThat(reused.position()).isEqualTo(0);
+        assertThat(reused.limit()).isEqualTo(reused.capacity());
+        assertThat(pool.getRetainedBytes()).isEqualTo(0);
+    }
+
+    @Test
+    @SmallTest
+    public void testRetentionIsBounded() {
+        ByteBufferPool pool = new ByteBufferPool(ByteBufferPool.MIN_BUFFER_SIZE);
+        ByteBuffer first = pool.acquire(1);
+        ByteBuffer second = pool.acquire(1);
+
+        pool.release(first);
+        pool.release(second);
+        assertThat(pool.getRetainedBytes()).isEqualTo(ByteBufferPool.MIN_BUFFER_SIZE);
+
+        // Buffers that weren't handed out by a pool are dropped.
+        pool.clear();
+        pool.release(ByteBuffer.allocate(ByteBufferPool.MIN_BUFFER_SIZE));
+        pool.release(ByteBuffer.allocateDirect(ByteBufferPool.MIN_BUFFER_SIZE + 1));
+        assertThat(pool.getRetainedBytes()).isEqualTo(0);
+    }
+
+    @Test
+    @SmallTest
+    public void testByteArrayCallbackReusesPooledReadBuffer() throws Exception {
+        readBodyThroughByteArrayCallback(/* sendContentLength= */ false);
+    }
+
+    @Test
+    @SmallTest
+    public void testByteArrayCallbackWithContentLength() throws Exception {
+        readBodyThroughByteArrayCallback(/* sendContentLength= */ true);
+    }
+
+    private static void readBodyThroughByteArrayCallback(boolean sendContentLength)
+            throws Exception {
+        ByteBufferPool pool = new ByteBufferPool(1024 * 1024);
+        List<byte[]> bodies = new ArrayList<>();
+        ByteArrayCronetCallback callback =
+                new ByteArrayCronetCallback(pool) {
+                    @Override
+                    protected boolean shouldFollowRedirect(
+                            UrlResponseInfo info, String newLocationUrl) {
+                        return false;
+                    }
+                };
+        callback.addCompletionListener(
+                new CronetRequestCompletionListener<byte[]>() {
+                    @Override
+                    public void onFailed(UrlResponseInfo info, CronetException exception) {}
+
+                    @Override
+                    public void onCanceled(UrlResponseInfo info) {}
+
+                    @Override
+                    public void onSucceeded(UrlResponseInfo info, byte[] body) {
+                        bodies.add(body);
+                    }
+                });
+        List<ByteBuffer> readBuffers = new ArrayList<>();
+        UrlRequest request = mock(UrlRequest.class);
+        doAnswer(
+                        invocation -> {
+                            readBuffers.add(invocation.getArgument(0));
+                            return null;
+                        })
+                .when(request)
+                .read(any(ByteBuffer.class));
+        byte[] expected = new byte[100 * 1024];
+        UrlResponseInfo info = mock(UrlResponseInfo.class);
+        when(info.getAllHeaders())
+                .thenReturn(
+                        sendContentLength
+                                ? Map.of("Content-Length", List.of(String.valueOf(expected.length)))
+                                : Map.of());
+
+        callback.onResponseStarted(request, info);
+        int written = 0;
+        while (written < expected.length) {
+            ByteBuffer buffer = readBuffers.get(readBuffers.size() - 1);
+            int length = Math.min(1000, Math.min(buffer.remaining(), expected.length - written));
+            for (int i = 0; i < length; i++) {
+                expected[written] = (byte) written;
+                buffer.put((byte) written);
+                written++;
+            }
+            callback.onReadCompleted(request, info, buffer);
+        }
+        callback.onSucceeded(request, info);
+
+        assertThat(bodies).hasSize(1);
+        assertThat(bodies.get(0)).isEqualTo(expected);
+        // The whole body went through a single read buffer, which went back to the pool.
+        Set<ByteBuffer> distinctBuffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinctBuffers.addAll(readBuffers);
+        assertThat(distinctBuffers).hasSize(1);
+        assertThat(pool.getRetainedBytes()).isEqualTo(readBuffers.get(0).capacity());
+    }
+}
@@ -0,0 +1,109 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.util.Batch;
+import org.chromium.net.CronetEngine;
+import org.chromium.net.CronetTestFramework.CronetImplementation;
+import org.chromium.net.CronetTestRule;
+import org.chromium.net.CronetTestRule.IgnoreFor;
+
+import java.net.ResponseCache;
+
+/** Tests for {@link JavaCronetEngine} configuration. */
+@RunWith(AndroidJUnit4.class)
+@Batch(Batch.UNIT_TESTS)
+@IgnoreFor(
+        implementations = {
+            CronetImplementation.AOSP_PLATFORM,
+            CronetImplementation.STATICALLY_LINKED
+        },
+        reason = "These tests only cover the fallback implementation.")
+public class JavaCronetEngineTest {
+    @Rule public final CronetTestRule mTestRule = CronetTestRule.withManualEngineStartup();
+
+    @Test
+    @SmallTest
+    public void testThreadPoolSizeFromExperimentalOptions() {
+        assertThat(JavaCronetEngine.getThreadPoolSize(null))
+                .isEqualTo(JavaCronetEngine.DEFAULT_THREAD_POOL_SIZE);
+        assertThat(JavaCronetEngine.getThreadPoolSize("{\"QUIC\": {}}"))
+                .isEqualTo(JavaCronetEngine.DEFAULT_THREAD_POOL_SIZE);
+        assertThat(JavaCronetEngine.getThreadPoolSize("not json"))
+                .isEqualTo(JavaCronetEngine.DEFAULT_THREAD_POOL_SIZE);
+        assertThat(
+                        JavaCronetEngine.getThreadPoolSize(
+                                "{\"JavaCronetEngine\": {\"thread_pool_size\": 24}}"))
+                .isEqualTo(24);
+        assertThat(
+                        JavaCronetEngine.getThreadPoolSize(
+                                "{\"JavaCronetEngine\": {\"thread_pool_size\": 0}}"))
+                .isEqualTo(1);
+    }
+
+    @Test
+    @SmallTest
+    public void testCacheModesDoNotInstallProcessWideCache() {
+        Context context = mTestRule.getTestFramework().getContext();
+        ResponseCache defaultCache = ResponseCache.getDefault();
+        int[] cacheModes = {
+            CronetEngine.Builder.HTTP_CACHE_DISABLED,
+            CronetEngine.Builder.HTTP_CACHE_IN_MEMORY,
+            CronetEngine.Builder.HTTP_CACHE_DISK_NO_HTTP,
+            CronetEngine.Builder.HTTP_CACHE_DISK
+        };
+        for (int cacheMode : cacheModes) {
+            JavaCronetEngineBuilderImpl builder = new JavaCronetEngineBuilderImpl(context);
+            builder.setStoragePath(CronetTestRule.getTestStorage(context));
+            builder.enableHttpCache(cacheMode, 1024 * 1024);
+            CronetEngine engine = builder.build();
+            try {
+                assertThat(engine).isInstanceOf(JavaCronetEngine.class);
+                assertThat(ResponseCache.getDefault()).isSameInstanceAs(defaultCache);
+            } finally {
+                engine.shutdown();
+            }
+            assertThat(ResponseCache.getDefault()).isSameInstanceAs(defaultCache);
+        }
+    }
+
+    @Test
+    @SmallTest
+    public void testOnlyDiskCacheModeCreatesEngineCache() {
+        Context context = mTestRule.getTestFramework().getContext();
+        int[] cacheModes = {
+            CronetEngine.Builder.HTTP_CACHE_DISABLED,
+            CronetEngine.Builder.HTTP_CACHE_IN_MEMORY,
+            CronetEngine.Builder.HTTP_CACHE_DISK_NO_HTTP,
+            CronetEngine.Builder.HTTP_CACHE_DISK
+        };
+        for (int cacheMode : cacheModes) {
+            JavaCronetEngineBuilderImpl builder = new JavaCronetEngineBuilderImpl(context);
+            builder.setStoragePath(CronetTestRule.getTestStorage(context));
+            builder.enableHttpCache(cacheMode, 1024 * 1024);
+            JavaCronetEngine engine = (JavaCronetEngine) builder.build();
+            try {
+                if (cacheMode == CronetEngine.Builder.HTTP_CACHE_DISK) {
+                    assertThat(engine.getHttpCache()).isNotNull();
+                } else {
+                    assertThat(engine.getHttpCache()).isNull();
+                }
+            } finally {
+                engine.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.FileUtils;
+import org.chromium.base.test.util.Batch;
+import org.chromium.net.CronetTestFramework.CronetImplementation;
+import org.chromium.net.CronetTestRule;
+import org.chromium.net.CronetTestRule.IgnoreFor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Tests for {@link JavaHttpCache}. */
+@RunWith(AndroidJUnit4.class)
+@Batch(Batch.UNIT_TESTS)
+@IgnoreFor(
+        implementations = {
+            CronetImplementation.AOSP_PLATFORM,
+            CronetImplementation.STATICALLY_LINKED
+        },
+        reason = "The cache is only used by the fallback implementation.")
+public class JavaHttpCacheTest {
+    private static final String URL = "https://example.com/resource";
+    private static final String OTHER_URL = "https://example.com/other";
+    private static final String THIRD_URL = "https://example.com/third";
+
+    @Rule public final CronetTestRule mTestRule = CronetTestRule.withManualEngineStartup();
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() {
+        mDirectory =
+                new File(mTestRule.getTestFramework().getContext().getCacheDir(), "JavaHttpCache");
+        FileUtils.recursivelyDeleteFile(mDirectory);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.recursivelyDeleteFile(mDirectory);
+    }
+
+    @Test
+    @SmallTest
+    public void testFreshnessLifetime() {
+        assertThat(JavaHttpCache.getFreshnessLifetimeMs(headers("Cache-Control", "max-age=60"), 0))
+                .isEqualTo(60_000);
+        assertThat(
+                        JavaHttpCache.getFreshnessLifetimeMs(
+                                headers("Cache-Control", "no-cache, max-age=60"), 0))
+                .isEqualTo(0);
+        List<Map.Entry<String, String>> expiring =
+                headers("Date", "Tue, 01 Apr 2025 10:00:00 GMT");
+        expiring.add(new SimpleEntry<>("Expires", "Tue, 01 Apr 2025 10:05:00 GMT"));
+        assertThat(JavaHttpCache.getFreshnessLifetimeMs(expiring, 0)).isEqualTo(300_000);
+        assertThat(JavaHttpCache.getFreshnessLifetimeMs(headers("Expires", "0"), 0)).isEqualTo(0);
+    }
+
+    @Test
+    @SmallTest
+    public void testOnlyStorableResponsesAreStored() {
+        assertThat(JavaHttpCache.isStorable(200, headers("Cache-Control", "max-age=60"))).isTrue();
+        assertThat(JavaHttpCache.isStorable(200, headers("ETag", "\"v1\""))).isTrue();
+        assertThat(JavaHttpCache.isStorable(200, headers("Content-Type", "text/plain"))).isFalse();
+        assertThat(JavaHttpCache.isStorable(404, headers("Cache-Control", "max-age=60")))
+                .isFalse();
+        assertThat(
+                        JavaHttpCache.isStorable(
+                                200, headers("Cache-Control", "max-age=60, no-store")))
+                .isFalse();
+        List<Map.Entry<String, String>> varying = headers("Cache-Control", "max-age=60");
+        varying.add(new SimpleEntry<>("Vary", "Cookie"));
+        assertThat(JavaHttpCache.isStorable(200, varying)).isFalse();
+    }
+
+    @Test
+    @SmallTest
+    public void testRequestsWithOwnCacheHeadersBypassTheCache() {
+        Map<String, String> requestHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        assertThat(JavaHttpCache.isCacheableRequest("GET", requestHeaders, false)).isTrue();
+        assertThat(JavaHttpCache.isCacheableRequest("POST", requestHeaders, false)).isFalse();
+        assertThat(JavaHttpCache.isCacheableRequest("GET", requestHeaders, true)).isFalse();
+        requestHeaders.put("range", "bytes=0-10");
+        assertThat(JavaHttpCache.isCacheableRequest("GET", requestHeaders, false)).isFalse();
+    }
+
+    @Test
+    @SmallTest
+    public void testStoresAndServesFreshResponse() throws IOException {
+        JavaHttpCache cache = new JavaHttpCache(mDirectory, 1024 * 1024);
+        assertThat(cache.get(URL)).isNull();
+        store(cache, URL, headers("Cache-Control", "max-age=60"), "hello");
+
+        // A new cache over the same directory sees the entry too.
+        JavaHttpCache.Entry entry = new JavaHttpCache(mDirectory, 1024 * 1024).get(URL);
+        assertThat(entry).isNotNull();
+        assertThat(entry.getHttpStatusCode()).isEqualTo(200);
+        assertThat(entry.getHeaders()).isEqualTo(headers("Cache-Control", "max-age=60"));
+        assertThat(entry.isFresh(System.currentTimeMillis())).isTrue();
+        assertThat(entry.isFresh(System.currentTimeMillis() + 61_000)).isFalse();
+        assertThat(readBody(entry)).isEqualTo("hello");
+    }
+
+    @Test
+    @SmallTest
+    public void testIncompleteBodyIsNotStored() throws IOException {
+        JavaHttpCache cache = new JavaHttpCache(mDirectory, 1024 * 1024);
+        ReadableByteChannel channel =
+                cache.store(
+                        URL,
+                        200,
+                        "OK",
+                        "http/1.1",
+                        headers("Cache-Control", "max-age=60"),
+                        channelOf("hello"));
+        channel.read(ByteBuffer.allocateDirect(2));
+        channel.close();
+        assertThat(cache.get(URL)).isNull();
+        assertThat(cache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    @SmallTest
+    public void testUpdateRefreshesStaleEntry() throws IOException {
+        JavaHttpCache cache = new JavaHttpCache(mDirectory, 1024 * 1024);
+        List<Map.Entry<String, String>> headers = headers("Cache-Control", "no-cache");
+        headers.add(new SimpleEntry<>("ETag", "\"v1\""));
+        headers.add(new SimpleEntry<>("Content-Length", "5"));
+        store(cache, URL, headers, "hello");
+        JavaHttpCache.Entry stale = cache.get(URL);
+        assertThat(stale.isFresh(System.currentTimeMillis())).isFalse();
+        assertThat(stale.getETag()).isEqualTo("\"v1\"");
+
+        List<Map.Entry<String, String>> notModifiedHeaders =
+                headers("Cache-Control", "max-age=60");
+        notModifiedHeaders.add(new SimpleEntry<>("Content-Length", "0"));
+        JavaHttpCache.Entry updated = cache.update(URL, stale, notModifiedHeaders);
+        assertThat(updated.isFresh(System.currentTimeMillis())).isTrue();
+        assertThat(updated.getHeaders())
+                .containsExactly(
+                        new SimpleEntry<>("ETag", "\"v1\""),
+                        new SimpleEntry<>("Content-Length", "5"),
+                        new SimpleEntry<>("Cache-Control", "max-age=60"));
+        assertThat(readBody(updated)).isEqualTo("hello");
+
+        JavaHttpCache.Entry reread = cache.get(URL);
+        assertThat(reread.isFresh(System.currentTimeMillis())).isTrue();
+        assertThat(readBody(reread)).isEqualTo("hello");
+    }
+
+    @Test
+    @SmallTest
+    public void testEvictsLeastRecentlyUsedEntry() throws IOException {
+        JavaHttpCache cache = new JavaHttpCache(mDirectory, 1024 * 1024);
+        store(cache, URL, headers("Cache-Control", "max-age=60"), "first");
+        long entrySize = cache.getSize();
+
+        cache = new JavaHttpCache(mDirectory, entrySize * 2 + entrySize / 2);
+        store(cache, OTHER_URL, headers("Cache-Control", "max-age=60"), "other");
+        cache.get(URL).close();
+        store(cache, THIRD_URL, headers("Cache-Control", "max-age=60"), "third");
+
+        assertThat(cache.get(OTHER_URL)).isNull();
+        JavaHttpCache.Entry first = cache.get(URL);
+        assertThat(first).isNotNull();
+        first.close();
+        JavaHttpCache.Entry third = cache.get(THIRD_URL);
+        assertThat(third).isNotNull();
+        third.close();
+    }
+
+    @Test
+    @SmallTest
+    public void testNoStoreResponseRemovesEntry() throws IOException {
+        JavaHttpCache cache = new JavaHttpCache(mDirectory, 1024 * 1024);
+        store(cache, URL, headers("Cache-Control", "max-age=60"), "hello");
+        store(cache, URL, headers("Cache-Control", "no-store"), "hello");
+        assertThat(cache.get(URL)).isNull();
+        assertThat(cache.getSize()).isEqualTo(0);
+    }
+
+    private static List<Map.Entry<String, String>> headers(String name, String value) {
+        List<Map.Entry<String, String>> headers = new ArrayList<>();
+        headers.add(new SimpleEntry<>(name, value));
+        return headers;
+    }
+
+    private static ReadableByteChannel channelOf(String body) {
+        return Channels.newChannel(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void store(
+            JavaHttpCache cache, String url, List<Map.Entry<String, String>> headers, String body)
+            throws IOException {
+        ReadableByteChannel channel =
+                cache.store(url, 200, "OK", "http/1.1", headers, channelOf(body));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2);
+        while (channel.read(buffer) != -1) buffer.clear();
+        channel.close();
+    }
+
+    private static String readBody(JavaHttpCache.Entry entry) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(2);
+        while (entry.getBody().read(buffer) != -1) {
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        entry.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
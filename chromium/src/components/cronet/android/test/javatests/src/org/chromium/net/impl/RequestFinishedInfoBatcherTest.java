@@ -0,0 +1,90 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.util.Batch;
+import org.chromium.net.BatchedRequestFinishedListener;
+import org.chromium.net.RequestFinishedInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Tests for {@link RequestFinishedInfoBatcher}. */
+@Batch(Batch.UNIT_TESTS)
+@RunWith(AndroidJUnit4.class)
+public class RequestFinishedInfoBatcherTest {
+    /** An executor that runs its tasks when asked to. */
+    private static class QueuedExecutor implements Executor {
+        final List<Runnable> mTasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            mTasks.add(task);
+        }
+
+        void runAll() {
+            while (!mTasks.isEmpty()) {
+                mTasks.remove(0).run();
+            }
+        }
+    }
+
+    private static RequestFinishedInfo createRequestFinishedInfo() {
+        CronetMetrics metrics =
+                new CronetMetrics(-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, false, 0, 0);
+        return new RequestFinishedInfoImpl(
+                "https://a.test/",
+                Collections.emptyList(),
+                metrics,
+                RequestFinishedInfo.SUCCEEDED,
+                /* responseInfo= */ null,
+                /* exception= */ null);
+    }
+
+    @Test
+    @SmallTest
+    public void testBatchesRequestsFinishedWhileDeliveryIsPending() {
+        QueuedExecutor executor = new QueuedExecutor();
+        List<Integer> batchSizes = new ArrayList<>();
+        BatchedRequestFinishedListener listener =
+                new BatchedRequestFinishedListener(executor) {
+                    @Override
+                    public void onRequestsFinished(List<RequestFinishedInfo> requestInfos) {
+                        batchSizes.add(requestInfos.size());
+                    }
+                };
+        RequestFinishedInfoBatcher batcher = new RequestFinishedInfoBatcher(listener);
+        AtomicInteger finishedCount = new AtomicInteger();
+        RefCountDelegate inflightCallbackCount =
+                new RefCountDelegate(finishedCount::incrementAndGet);
+
+        for (int i = 0; i < 3; i++) {
+            batcher.enqueue(createRequestFinishedInfo(), inflightCallbackCount);
+        }
+        assertThat(executor.mTasks).hasSize(1);
+        executor.runAll();
+        assertThat(batchSizes).containsExactly(3);
+
+        batcher.enqueue(createRequestFinishedInfo(), inflightCallbackCount);
+        executor.runAll();
+        assertThat(batchSizes).containsExactly(3, 1).inOrder();
+
+        // The initial count is only released once all the batches were delivered.
+        assertThat(finishedCount.get()).isEqualTo(0);
+        inflightCallbackCount.decrement();
+        assertThat(finishedCount.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,344 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.net.impl;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.filters.SmallTest;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.util.DoNotBatch;
+import org.chromium.net.CronetEngine;
+import org.chromium.net.CronetTestFramework.CronetImplementation;
+import org.chromium.net.CronetTestRule;
+import org.chromium.net.CronetTestRule.IgnoreFor;
+import org.chromium.net.ExperimentalUrlRequest;
+import org.chromium.net.NativeTestServer;
+import org.chromium.net.RequestFinishedInfo;
+import org.chromium.net.TestRequestFinishedListener;
+import org.chromium.net.TestUrlRequestCallback;
+import org.chromium.net.TestUrlRequestCallback.FailureType;
+import org.chromium.net.TestUrlRequestCallback.ResponseStep;
+import org.chromium.net.UrlRequest;
+import org.chromium.net.UrlResponseInfo;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/** Tests for {@link UrlRequestCoalescer}. */
+@DoNotBatch(reason = "Tests start engines with different experimental options.")
+@RunWith(AndroidJUnit4.class)
+@IgnoreFor(
+        implementations = {CronetImplementation.FALLBACK, CronetImplementation.AOSP_PLATFORM},
+        reason = "Request coalescing is only implemented by the native engine.")
+public class UrlRequestCoalescerTest {
+    @Rule public final CronetTestRule mTestRule = CronetTestRule.withManualEngineStartup();
+
+    private NativeTestServer mNativeTestServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mNativeTestServer =
+                NativeTestServer.createNativeTestServer(mTestRule.getTestFramework().getContext());
+        mNativeTestServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mNativeTestServer.close();
+    }
+
+    @Test
+    @SmallTest
+    public void testIsEnabled() {
+        assertThat(UrlRequestCoalescer.isEnabled(null)).isFalse();
+        assertThat(UrlRequestCoalescer.isEnabled("{\"QUIC\": {}}")).isFalse();
+        assertThat(UrlRequestCoalescer.isEnabled("{\"RequestCoalescing\": {\"enable\": false}}"))
+                .isFalse();
+        assertThat(UrlRequestCoalescer.isEnabled("{\"RequestCoalescing\": {\"enable\": true}}"))
+                .isTrue();
+    }
+
+    @Test
+    @SmallTest
+    public void testOnlyPlainGetRequestsAreCoalesced() {
+        int defaultIdempotency = ExperimentalUrlRequest.Builder.DEFAULT_IDEMPOTENCY;
+        assertThat(
+                        UrlRequestCoalescer.canCoalesce(
+                                "GET", false, false, null, defaultIdempotency, null, null))
+                .isTrue();
+        assertThat(
+                        UrlRequestCoalescer.canCoalesce(
+                                "POST", false, false, null, defaultIdempotency, null, null))
+                .isFalse();
+        assertThat(
+                        UrlRequestCoalescer.canCoalesce(
+                                "GET", true, false, null, defaultIdempotency, null, null))
+                .isFalse();
+        assertThat(
+                        UrlRequestCoalescer.canCoalesce(
+                                "GET", false, true, null, defaultIdempotency, null, null))
+                .isFalse();
+        assertThat(
+                        UrlRequestCoalescer.canCoalesce(
+                                "GET",
+                                false,
+                                false,
+                                null,
+                                ExperimentalUrlRequest.Builder.NOT_IDEMPOTENT,
+                                null,
+                                null))
+                .isFalse();
+    }
+
+    @Test
+    @SmallTest
+    public void testBodyLengthIsOnlyKnownWithoutContentEncoding() {
+        assertThat(UrlRequestCoalescer.getBodyLength(responseWithHeaders())).isEqualTo(-1);
+        assertThat(UrlRequestCoalescer.getBodyLength(responseWithHeaders("Content-Length", "3")))
+                .isEqualTo(3);
+        assertThat(
+                        UrlRequestCoalescer.getBodyLength(
+                                responseWithHeaders(
+                                        "Content-Length", "3", "Content-Encoding", "identity")))
+                .isEqualTo(3);
+        assertThat(
+                        UrlRequestCoalescer.getBodyLength(
+                                responseWithHeaders(
+                                        "Content-Length", "3", "Content-Encoding", "gzip")))
+                .isEqualTo(-1);
+    }
+
+    @Test
+    @SmallTest
+    public void testOnlyResponsesThatMayBeStoredAreShared() {
+        assertThat(UrlRequestCoalescer.isShareable(responseWithHeaders())).isTrue();
+        assertThat(
+                        UrlRequestCoalescer.isShareable(
+                                responseWithHeaders("Cache-Control", "max-age=60, no-store")))
+                .isFalse();
+        assertThat(UrlRequestCoalescer.isShareable(responseWithHeaders("Vary", "Accept-Encoding")))
+                .isTrue();
+        assertThat(UrlRequestCoalescer.isShareable(responseWithHeaders("Vary", "*"))).isFalse();
+        assertThat(
+                        UrlRequestCoalescer.isShareable(
+                                responseWithHeaders("Vary", "Accept-Encoding, Cookie")))
+                .isFalse();
+    }
+
+    @Test
+    @MediumTest
+    public void testConcurrentRequestsEachGetTheResponse() throws Exception {
+        CronetEngine engine = startEngineWithCoalescing();
+        String url = mNativeTestServer.getEchoMethodURL();
+
+        TestUrlRequestCallback firstCallback = new TestUrlRequestCallback();
+        TestUrlRequestCallback secondCallback = new TestUrlRequestCallback();
+        UrlRequest firstRequest =
+                engine.newUrlRequestBuilder(url, firstCallback, firstCallback.getExecutor())
+                        .build();
+        UrlRequest secondRequest =
+                engine.newUrlRequestBuilder(url, secondCallback, secondCallback.getExecutor())
+                        .build();
+        firstRequest.start();
+        secondRequest.start();
+        firstCallback.blockForDone();
+        secondCallback.blockForDone();
+
+        assertThat(firstCallback.getResponseInfoWithChecks().getHttpStatusCode()).isEqualTo(200);
+        assertThat(secondCallback.getResponseInfoWithChecks().getHttpStatusCode()).isEqualTo(200);
+        assertThat(firstCallback.mResponseAsString).isEqualTo("GET");
+        assertThat(secondCallback.mResponseAsString).isEqualTo("GET");
+        assertThat(firstCallback.getResponseInfoWithChecks())
+                .isNotSameInstanceAs(secondCallback.getResponseInfoWithChecks());
+        assertThat(firstRequest.isDone()).isTrue();
+        assertThat(secondRequest.isDone()).isTrue();
+    }
+
+    @Test
+    @MediumTest
+    public void testConcurrentRequestsShareOneNetworkFetch() throws Exception {
+        CronetEngine engine = startEngineWithCoalescing();
+        // Fails if more than one request is reported.
+        TestRequestFinishedListener requestFinishedListener = new TestRequestFinishedListener();
+        engine.addRequestFinishedListener(requestFinishedListener);
+        String url = mNativeTestServer.getEchoMethodURL();
+
+        TestUrlRequestCallback firstCallback = new TestUrlRequestCallback();
+        TestUrlRequestCallback secondCallback = new TestUrlRequestCallback();
+        buildRequest(engine, url, firstCallback, "first").start();
+        buildRequest(engine, url, secondCallback, "second").start();
+        firstCallback.blockForDone();
+        secondCallback.blockForDone();
+        requestFinishedListener.blockUntilDone();
+
+        RequestFinishedInfo requestInfo = requestFinishedListener.getRequestInfo();
+        assertThat(requestInfo.getFinishedReason()).isEqualTo(RequestFinishedInfo.SUCCEEDED);
+        assertThat(requestInfo.getAnnotations()).containsExactly("first", "second");
+        assertThat(firstCallback.mResponseAsString).isEqualTo("GET");
+        assertThat(secondCallback.mResponseAsString).isEqualTo("GET");
+    }
+
+    @Test
+    @MediumTest
+    public void testCanceledRequestDoesNotCancelSharedFetch() throws Exception {
+        CronetEngine engine = startEngineWithCoalescing();
+        String url = mNativeTestServer.getEchoMethodURL();
+
+        TestUrlRequestCallback canceledCallback = new TestUrlRequestCallback();
+        canceledCallback.setFailure(FailureType.CANCEL_SYNC, ResponseStep.ON_RESPONSE_STARTED);
+        TestUrlRequestCallback callback = new TestUrlRequestCallback();
+        UrlRequest canceledRequest = buildRequest(engine, url, canceledCallback, "canceled");
+        UrlRequest request = buildRequest(engine, url, callback, "kept");
+        canceledRequest.start();
+        request.start();
+        canceledCallback.blockForDone();
+        callback.blockForDone();
+
+        assertThat(canceledCallback.mResponseStep).isEqualTo(ResponseStep.ON_CANCELED);
+        assertThat(canceledCallback.mOnCanceledCalled).isTrue();
+        assertThat(canceledRequest.isDone()).isTrue();
+        assertThat(callback.mResponseStep).isEqualTo(ResponseStep.ON_SUCCEEDED);
+        assertThat(callback.mResponseAsString).isEqualTo("GET");
+    }
+
+    @Test
+    @MediumTest
+    public void testAllRequestsCanceled() throws Exception {
+        CronetEngine engine = startEngineWithCoalescing();
+        TestRequestFinishedListener requestFinishedListener = new TestRequestFinishedListener();
+        engine.addRequestFinishedListener(requestFinishedListener);
+        String url = mNativeTestServer.getEchoMethodURL();
+
+        TestUrlRequestCallback firstCallback = new TestUrlRequestCallback();
+        firstCallback.setFailure(FailureType.CANCEL_SYNC, ResponseStep.ON_RESPONSE_STARTED);
+        TestUrlRequestCallback secondCallback = new TestUrlRequestCallback();
+        secondCallback.setFailure(FailureType.CANCEL_SYNC, ResponseStep.ON_RESPONSE_STARTED);
+        buildRequest(engine, url, firstCallback, "first").start();
+        buildRequest(engine, url, secondCallback, "second").start();
+        firstCallback.blockForDone();
+        secondCallback.blockForDone();
+        requestFinishedListener.blockUntilDone();
+
+        assertThat(firstCallback.mOnCanceledCalled).isTrue();
+        assertThat(secondCallback.mOnCanceledCalled).isTrue();
+        // The fetch may have read the small body before both requests were canceled.
+        assertThat(requestFinishedListener.getRequestInfo().getAnnotations())
+                .containsExactly("first", "second");
+    }
+
+    @Test
+    @MediumTest
+    public void testRedirectIsFollowedOnceForAllRequests() throws Exception {
+        CronetEngine engine = startEngineWithCoalescing();
+        TestRequestFinishedListener requestFinishedListener = new TestRequestFinishedListener();
+        engine.addRequestFinishedListener(requestFinishedListener);
+        String url = mNativeTestServer.getRedirectToEchoBody();
+
+        TestUrlRequestCallback firstCallback = new TestUrlRequestCallback();
+        TestUrlRequestCallback secondCallback = new TestUrlRequestCallback();
+        buildRequest(engine, url, firstCallback, "first").start();
+        buildRequest(engine, url, secondCallback, "second").start();
+        firstCallback.blockForDone();
+        secondCallback.blockForDone();
+        requestFinishedListener.blockUntilDone();
+
+        assertThat(firstCallback.mRedirectCount).isEqualTo(1);
+        assertThat(secondCallback.mRedirectCount).isEqualTo(1);
+        assertThat(secondCallback.mRedirectUrlList).isEqualTo(firstCallback.mRedirectUrlList);
+        assertThat(firstCallback.getResponseInfoWithChecks().getHttpStatusCode()).isEqualTo(200);
+        assertThat(secondCallback.getResponseInfoWithChecks().getHttpStatusCode()).isEqualTo(200);
+        assertThat(secondCallback.getResponseInfoWithChecks().getUrlChain())
+                .isEqualTo(firstCallback.getResponseInfoWithChecks().getUrlChain());
+        assertThat(requestFinishedListener.getRequestInfo().getAnnotations())
+                .containsExactly("first", "second");
+    }
+
+    @Test
+    @MediumTest
+    public void testRequestCanceledAtRedirectDoesNotHoldBackOthers() throws Exception {
+        CronetEngine engine = startEngineWithCoalescing();
+        String url = mNativeTestServer.getRedirectToEchoBody();
+
+        TestUrlRequestCallback canceledCallback = new TestUrlRequestCallback();
+        canceledCallback.setFailure(FailureType.CANCEL_SYNC, ResponseStep.ON_RECEIVED_REDIRECT);
+        TestUrlRequestCallback callback = new TestUrlRequestCallback();
+        buildRequest(engine, url, canceledCallback, "canceled").start();
+        buildRequest(engine, url, callback, "kept").start();
+        canceledCallback.blockForDone();
+        callback.blockForDone();
+
+        assertThat(canceledCallback.mOnCanceledCalled).isTrue();
+        assertThat(callback.mRedirectCount).isEqualTo(1);
+        assertThat(callback.mResponseStep).isEqualTo(ResponseStep.ON_SUCCEEDED);
+    }
+
+    @Test
+    @MediumTest
+    public void testLargeBodyFallsBackToPrivateRequests() throws Exception {
+        CronetEngine engine = startEngineWithCoalescing();
+        // The body overflows the buffer, so the second request falls back to its own network fetch
+        // while the first one reads the rest of the shared one.
+        String url = mNativeTestServer.getExabyteResponseURL();
+
+        TestUrlRequestCallback firstCallback = new TestUrlRequestCallback();
+        firstCallback.setFailure(FailureType.CANCEL_SYNC, ResponseStep.ON_READ_COMPLETED);
+        TestUrlRequestCallback secondCallback = new TestUrlRequestCallback();
+        secondCallback.setFailure(FailureType.CANCEL_SYNC, ResponseStep.ON_READ_COMPLETED);
+        buildRequest(engine, url, firstCallback, "first").start();
+        buildRequest(engine, url, secondCallback, "second").start();
+        firstCallback.blockForDone();
+        secondCallback.blockForDone();
+
+        assertThat(firstCallback.getResponseInfoWithChecks().getHttpStatusCode()).isEqualTo(200);
+        assertThat(secondCallback.getResponseInfoWithChecks().getHttpStatusCode()).isEqualTo(200);
+        assertThat(secondCallback.getResponseInfoWithChecks().getUrlChain())
+                .containsExactly(url);
+        assertThat(firstCallback.mOnCanceledCalled).isTrue();
+        assertThat(secondCallback.mOnCanceledCalled).isTrue();
+    }
+
+    private CronetEngine startEngineWithCoalescing() {
+        mTestRule
+                .getTestFramework()
+                .applyEngineBuilderPatch(
+                        (builder) -> {
+                            JSONObject experimentalOptions =
+                                    new JSONObject()
+                                            .put(
+                                                    "RequestCoalescing",
+                                                    new JSONObject().put("enable", true));
+                            builder.setExperimentalOptions(experimentalOptions.toString());
+                        });
+        return mTestRule.getTestFramework().startEngine();
+    }
+
+    private static UrlRequest buildRequest(
+            CronetEngine engine, String url, TestUrlRequestCallback callback, Object annotation) {
+        return ((ExperimentalUrlRequest.Builder)
+                        engine.newUrlRequestBuilder(url, callback, callback.getExecutor()))
+                .addRequestAnnotation(annotation)
+                .build();
+    }
+
+    private static UrlResponseInfo responseWithHeaders(String... headers) {
+        List<Map.Entry<String, String>> headerList = new ArrayList<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            headerList.add(new AbstractMap.SimpleImmutableEntry<>(headers[i], headers[i + 1]));
+        }
+        return new UrlResponseInfoImpl(
+                List.of("http://example.com"), 200, "OK", headerList, false, "", "", 0);
+    }
+}
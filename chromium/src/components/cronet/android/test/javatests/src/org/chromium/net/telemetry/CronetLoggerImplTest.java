@@ -115,6 +115,45 @@ public final class CronetLoggerImplTest {
                 .writeCronetTrafficReported(CRONET_ENGINE_ID, mTrafficInfo, 0);
     }
 
+    @Test
+    public void testLogCronetTrafficInfo_sampleRing_shouldWriteOnFlush() {
+        mCronetLoggerImpl = spy(new CronetLoggerImpl(new RateLimiter(2), 1));
+
+        mCronetLoggerImpl.logCronetTrafficInfo(CRONET_ENGINE_ID, mTrafficInfo);
+        // The ring is full, so this sample is counted as rate limited.
+        mCronetLoggerImpl.logCronetTrafficInfo(CRONET_ENGINE_ID, mTrafficInfo);
+        verify(mCronetLoggerImpl, never())
+                .writeCronetTrafficReported(CRONET_ENGINE_ID, mTrafficInfo, 0);
+
+        mCronetLoggerImpl.flushTrafficSamples();
+        verify(mCronetLoggerImpl, times(1))
+                .writeCronetTrafficReported(CRONET_ENGINE_ID, mTrafficInfo, 1);
+    }
+
+    @Test
+    public void testStopFlushThread_shouldEndThread() throws InterruptedException {
+        // Not a spy: the flush thread runs the loop of the object it was created for.
+        CronetLoggerImpl logger = new CronetLoggerImpl(new RateLimiter(1), 16);
+        Thread flushThread = logger.getFlushThreadForTesting();
+
+        logger.logCronetTrafficInfo(CRONET_ENGINE_ID, mTrafficInfo);
+        logger.stopFlushThread();
+        flushThread.join();
+
+        assertThat(flushThread.isAlive()).isFalse();
+    }
+
+    @Test
+    public void testStopFlushThread_beforeAnySample_shouldNotStartThread() {
+        CronetLoggerImpl logger = new CronetLoggerImpl(new RateLimiter(1), 16);
+        Thread flushThread = logger.getFlushThreadForTesting();
+
+        logger.stopFlushThread();
+        logger.logCronetTrafficInfo(CRONET_ENGINE_ID, mTrafficInfo);
+
+        assertThat(flushThread.getState()).isEqualTo(Thread.State.NEW);
+    }
+
     static class LogThread extends Thread {
         final CronetLoggerImpl mLogger;
         final ConditionVariable mRunBlocker;
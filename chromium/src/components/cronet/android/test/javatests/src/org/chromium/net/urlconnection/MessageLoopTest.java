@@ -112,6 +112,56 @@ public class MessageLoopTest {
                 .get();
     }
 
+    @Test
+    @SmallTest
+    public void testTaskPostedFromOtherThreadWakesLoop() throws Exception {
+        final MessageLoop loop = new MessageLoop();
+        Future future =
+                mExecutorService.submit(
+                        () -> {
+                            loop.loop(10000);
+                            return null;
+                        });
+        Thread.sleep(100);
+        assertThat(loop.isRunning()).isTrue();
+        loop.execute(loop::quit);
+        future.get();
+        assertThat(loop.isRunning()).isFalse();
+        assertThat(loop.hasLoopFailed()).isFalse();
+    }
+
+    @Test
+    @SmallTest
+    public void testRecycle() throws Exception {
+        mExecutorService
+                .submit(
+                        () -> {
+                            MessageLoop loop = MessageLoop.obtain();
+                            loop.execute(
+                                    () -> {
+                                        loop.quit();
+                                        loop.recycle();
+                                    });
+                            loop.loop();
+                            assertThat(MessageLoop.obtain()).isSameInstanceAs(loop);
+                            // Only one loop is kept per thread.
+                            assertThat(MessageLoop.obtain()).isNotSameInstanceAs(loop);
+
+                            // Loops with pending tasks aren't recycled.
+                            MessageLoop busyLoop = MessageLoop.obtain();
+                            busyLoop.execute(
+                                    () -> {
+                                        busyLoop.quit();
+                                        busyLoop.execute(() -> {});
+                                        busyLoop.recycle();
+                                    });
+                            busyLoop.loop();
+                            assertThat(MessageLoop.obtain()).isNotSameInstanceAs(busyLoop);
+                            return null;
+                        })
+                .get();
+    }
+
     @Test
     @SmallTest
     public void testLoopWithTimeout() throws Exception {
@@ -166,6 +166,9 @@ public class AccessibilityNodeInfoBuilder {
 
         // Set of coordinates for providing the correct size and scroll of the View.
         AccessibilityDelegate.AccessibilityCoordinates getAccessibilityCoordinates();
+
+        // Called with the virtualViewIds of the children of a node being built.
+        default void onChildrenAdded(int[] childIds) {}
     }
 
     public final BuilderDelegate mDelegate;
@@ -180,6 +183,7 @@ public class AccessibilityNodeInfoBuilder {
         for (int childId : childIds) {
             node.addChild(mDelegate.getView(), childId);
         }
+        mDelegate.onChildrenAdded(childIds);
     }
 
     @CalledByNative
@@ -0,0 +1,68 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.content.browser.accessibility;
+
+import android.util.LruCache;
+
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+
+/**
+ * Cache of the {@link AccessibilityNodeInfoCompat} objects built for the virtual views of a web
+ * contents, keyed by virtualViewId. The cache is bounded and evicts the least recently used nodes
+ * first, so that large pages don't keep a node for every element they ever exposed. Nodes are
+ * recycled when they leave the cache.
+ */
+@NullMarked
+class AccessibilityNodeInfoCache {
+    private final LruCache<Integer, AccessibilityNodeInfoCompat> mNodes;
+
+    /**
+     * @param maxSize The maximum number of nodes in the cache.
+     */
+    AccessibilityNodeInfoCache(int maxSize) {
+        mNodes =
+                new LruCache<Integer, AccessibilityNodeInfoCompat>(maxSize) {
+                    @Override
+                    protected void entryRemoved(
+                            boolean evicted,
+                            Integer virtualViewId,
+                            AccessibilityNodeInfoCompat oldNode,
+                            @Nullable AccessibilityNodeInfoCompat newNode) {
+                        if (oldNode != newNode) oldNode.recycle();
+                    }
+                };
+    }
+
+    /** Returns the cached node for |virtualViewId|, and marks it as recently used. */
+    @Nullable AccessibilityNodeInfoCompat get(int virtualViewId) {
+        return mNodes.get(virtualViewId);
+    }
+
+    /** Caches |node| for |virtualViewId|. The cache takes ownership of |node|. */
+    void put(int virtualViewId, AccessibilityNodeInfoCompat node) {
+        mNodes.put(virtualViewId, node);
+    }
+
+    /** Removes and recycles the cached node for |virtualViewId|, if any. */
+    void remove(int virtualViewId) {
+        mNodes.remove(virtualViewId);
+    }
+
+    /** Removes and recycles all the cached nodes. */
+    void clear() {
+        mNodes.evictAll();
+    }
+
+    int size() {
+        return mNodes.size();
+    }
+
+    int maxSize() {
+        return mNodes.maxSize();
+    }
+}
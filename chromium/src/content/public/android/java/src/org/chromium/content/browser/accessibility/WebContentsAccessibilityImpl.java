@@ -66,8 +66,9 @@ import android.content.ReceiverCallNotAllowedException;
 import android.graphics.Rect;
 import android.graphics.RectF;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.os.Parcel;
-import android.util.SparseArray;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
@@ -92,6 +93,7 @@ import org.chromium.base.ContextUtils;
 import org.chromium.base.Log;
 import org.chromium.base.ResettersForTesting;
 import org.chromium.base.StrictModeContext;
+import org.chromium.base.ThreadUtils;
 import org.chromium.base.TraceEvent;
 import org.chromium.base.UserData;
 import org.chromium.base.task.PostTask;
@@ -120,6 +122,7 @@ import org.chromium.ui.accessibility.AccessibilityState;
 import org.chromium.ui.base.ViewAndroidDelegate;
 import org.chromium.ui.base.WindowAndroid;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -164,6 +167,14 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
     // Maximum number of times that the auto-disable feature can affect |this|.
     private static final int AUTO_DISABLE_SINGLE_INSTANCE_TOGGLE_LIMIT = 3;
 
+    // Maximum number of nodes kept in the node info cache.
+    private static final int MAX_CACHED_NODES = 1000;
+
+    // Maximum number of nodes built ahead of a request per idle period, and number of candidates
+    // kept for that.
+    private static final int PREFETCH_BATCH_SIZE = 8;
+    private static final int MAX_PREFETCH_CANDIDATES = 64;
+
     // Accessibility extras key for absolute drawing order (paint order among all
     // nodes in tree). Used to compute occlusion.
     // TODO(419600429): Update to retrieve this string from AccessibilityNodeInfo when possible.
@@ -229,9 +240,18 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
     // client, since we assert the value is changed with each call to the setter. (Default: null).
     private @Nullable Boolean mIsObscuredByAnotherView;
 
-    // This array maps a given virtualViewId to an |AccessibilityNodeInfoCompat| for that view. We
-    // use this to update a node quickly rather than building from one scratch each time.
-    private final SparseArray<AccessibilityNodeInfoCompat> mNodeInfoCache = new SparseArray<>();
+    // This cache maps a given virtualViewId to an |AccessibilityNodeInfoCompat| for that view. We
+    // use this to update a node quickly rather than building from one scratch each time. It only
+    // keeps the most recently used nodes.
+    private final AccessibilityNodeInfoCache mNodeInfoCache =
+            new AccessibilityNodeInfoCache(MAX_CACHED_NODES);
+
+    // The children of the nodes recently built, oldest first. They are likely to be requested
+    // next while traversing the tree, so they are built and cached when the UI thread is idle.
+    private final ArrayDeque<Integer> mPrefetchCandidates = new ArrayDeque<>();
+    private final MessageQueue.IdleHandler mPrefetchIdleHandler = this::prefetchNodes;
+    private boolean mIsPrefetchScheduled;
+    private boolean mIsPrefetching;
 
     // This handles the dispatching of accessibility events. It acts as an intermediary where we can
     // apply throttling rules, delay event construction, etc.
@@ -351,6 +371,11 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
                             public AccessibilityCoordinates getAccessibilityCoordinates() {
                                 return mDelegate.getAccessibilityCoordinates();
                             }
+
+                            @Override
+                            public void onChildrenAdded(int[] childIds) {
+                                addPrefetchCandidates(childIds);
+                            }
                         });
 
         mAutoDisableAccessibilityHandler =
@@ -374,7 +399,7 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
                                 WebContentsAccessibilityImplJni.get()
                                         .disableRendererAccessibility(mNativeObj);
                                 mEventDispatcher.clearQueue();
-                                mNodeInfoCache.clear();
+                                clearNodeInfoCache();
                                 mIsCurrentlyAutoDisabled = true;
                                 TraceEvent.end(
                                         "WebContentsAccessibilityImpl.AutoDisableAccessibilityHandler.onDisabled");
@@ -795,7 +820,7 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
         // recycle all nodes. Any other AccessibilityNodeInfo objects that were created would have
         // been passed to the Framework, which can handle clean-up on its end. We do not want to
         // delete |this| because the object is (largely) not WindowAndroid dependent.
-        mNodeInfoCache.clear();
+        clearNodeInfoCache();
         if (windowAndroid != null && windowAndroid.getContext().get() != null) {
             mContext = windowAndroid.getContext().get();
         }
@@ -811,7 +836,7 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
         // since some objects may still be referencing the old view as their parent or source. We
         // do not want to delete |this| because the object is (largely) not ContainerView dependent.
         mEventDispatcher.clearQueue();
-        mNodeInfoCache.clear();
+        clearNodeInfoCache();
         assumeNonNull(view);
         mView = view;
     }
@@ -819,7 +844,7 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
     @Override
     public void destroy() {
         TraceEvent.begin("WebContentsAccessibilityImpl.destroy");
-        mNodeInfoCache.clear();
+        clearNodeInfoCache();
         mEventDispatcher.clearQueue();
         mAutoDisableAccessibilityHandler.cancelDisableTimer();
         if (mDelegate.getWebContents() == null) {
@@ -978,15 +1003,80 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
     @CalledByNative
     public void clearNodeInfoCacheForGivenId(int virtualViewId) {
         // Recycle and remove the element in our cache for this |virtualViewId|.
-        AccessibilityNodeInfoCompat nodeInfo = mNodeInfoCache.get(virtualViewId);
-        if (nodeInfo != null) {
-            nodeInfo.recycle();
-            mNodeInfoCache.remove(virtualViewId);
-        }
+        mNodeInfoCache.remove(virtualViewId);
         // Remove this node from requested image data nodes in case data changed with update.
         mImageDataRequestedNodes.remove(virtualViewId);
     }
 
+    private void clearNodeInfoCache() {
+        mNodeInfoCache.clear();
+        mPrefetchCandidates.clear();
+    }
+
+    private boolean isNodeInfoCacheEnabled() {
+        return !ContentFeatureList.sAccessibilityDeprecateJavaNodeCacheDisableCache.getValue();
+    }
+
+    /** Queues the children of a node being built to be built ahead of their request. */
+    private void addPrefetchCandidates(int[] childIds) {
+        if (mIsPrefetching || !isNodeInfoCacheEnabled() || !ThreadUtils.runningOnUiThread()) {
+            return;
+        }
+        for (int childId : childIds) {
+            if (mPrefetchCandidates.size() == MAX_PREFETCH_CANDIDATES) {
+                mPrefetchCandidates.pollFirst();
+            }
+            mPrefetchCandidates.addLast(childId);
+        }
+        if (!mIsPrefetchScheduled && !mPrefetchCandidates.isEmpty()) {
+            mIsPrefetchScheduled = true;
+            Looper.myQueue().addIdleHandler(mPrefetchIdleHandler);
+        }
+    }
+
+    /**
+     * Builds and caches a batch of the prefetch candidates that aren't cached yet. Returns whether
+     * to run again on the next idle period.
+     */
+    private boolean prefetchNodes() {
+        if (!isAccessibilityEnabled() || !isFrameInfoInitialized() || !isNodeInfoCacheEnabled()) {
+            mPrefetchCandidates.clear();
+        }
+        mIsPrefetching = true;
+        try {
+            int builtNodes = 0;
+            while (builtNodes < PREFETCH_BATCH_SIZE && !mPrefetchCandidates.isEmpty()) {
+                int virtualViewId = assumeNonNull(mPrefetchCandidates.pollFirst());
+                if (mNodeInfoCache.get(virtualViewId) != null) continue;
+                AccessibilityNodeInfoCompat info = buildNodeInfoFromScratch(virtualViewId);
+                if (info != null) mNodeInfoCache.put(virtualViewId, info);
+                builtNodes++;
+            }
+        } finally {
+            mIsPrefetching = false;
+        }
+        mIsPrefetchScheduled = !mPrefetchCandidates.isEmpty();
+        return mIsPrefetchScheduled;
+    }
+
+    /** Builds a new node for |virtualViewId|, or returns null if the node isn't valid. */
+    private @Nullable AccessibilityNodeInfoCompat buildNodeInfoFromScratch(int virtualViewId) {
+        final AccessibilityNodeInfoCompat info = AccessibilityNodeInfoCompat.obtain(mView);
+        info.setPackageName(mContext.getPackageName());
+        info.setSource(mView, virtualViewId);
+
+        if (virtualViewId == mCurrentRootId) {
+            info.setParent(mView);
+        }
+
+        if (WebContentsAccessibilityImplJni.get()
+                .populateAccessibilityNodeInfo(mNativeObj, info, virtualViewId)) {
+            return info;
+        }
+        info.recycle();
+        return null;
+    }
+
     /**
      * Deep equality check of two {@link AccessibilityNodeInfoCompat} nodes.
      *
@@ -1048,9 +1138,10 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
         // We need to create an |AccessibilityNodeInfoCompat| object for this |virtualViewId|. If we
         // have one in our cache, then communicate this so web_contents_accessibility_android.cc
         // will update a fraction of the object and for the rest leverage what is already there.
-        if (mNodeInfoCache.get(virtualViewId) != null) {
+        AccessibilityNodeInfoCompat cachedNodeInfo = mNodeInfoCache.get(virtualViewId);
+        if (cachedNodeInfo != null) {
             AccessibilityNodeInfoCompat cachedNode =
-                    AccessibilityNodeInfoCompat.obtain(mNodeInfoCache.get(virtualViewId));
+                    AccessibilityNodeInfoCompat.obtain(cachedNodeInfo);
 
             // Always update the source node id to prevent potential infinite loop in framework.
             cachedNode.setSource(mView, virtualViewId);
@@ -1095,8 +1186,6 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
                 return cachedNode;
             } else {
                 // If the node is no longer valid, wipe it from the cache and return null
-                AccessibilityNodeInfoCompat nodeInfo = mNodeInfoCache.get(virtualViewId);
-                assumeNonNull(nodeInfo).recycle();
                 mNodeInfoCache.remove(virtualViewId);
                 mHistogramRecorder.endAccessibilityNodeInfoConstruction();
                 return null;
@@ -1104,26 +1193,16 @@ public class WebContentsAccessibilityImpl extends AccessibilityNodeProviderCompa
 
         } else {
             // If we have no copy of this node in our cache, build a new one from scratch.
-            final AccessibilityNodeInfoCompat info = AccessibilityNodeInfoCompat.obtain(mView);
-            info.setPackageName(mContext.getPackageName());
-            info.setSource(mView, virtualViewId);
-
-            if (virtualViewId == mCurrentRootId) {
-                info.setParent(mView);
-            }
-
-            if (WebContentsAccessibilityImplJni.get()
-                    .populateAccessibilityNodeInfo(mNativeObj, info, virtualViewId)) {
+            final AccessibilityNodeInfoCompat info = buildNodeInfoFromScratch(virtualViewId);
+            if (info != null) {
                 // After successfully populating this node, add it to our cache then return.
-                if (!ContentFeatureList.sAccessibilityDeprecateJavaNodeCacheDisableCache
-                        .getValue()) {
+                if (isNodeInfoCacheEnabled()) {
                     mNodeInfoCache.put(virtualViewId, AccessibilityNodeInfoCompat.obtain(info));
                 }
                 mHistogramRecorder.incrementNodeWasCreatedFromScratch();
                 mHistogramRecorder.endAccessibilityNodeInfoConstruction();
                 return info;
             } else {
-                info.recycle();
                 mHistogramRecorder.endAccessibilityNodeInfoConstruction();
                 return null;
             }
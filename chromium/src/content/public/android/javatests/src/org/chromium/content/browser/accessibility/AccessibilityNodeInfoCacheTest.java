@@ -0,0 +1,57 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.content.browser.accessibility;
+
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.BaseJUnit4ClassRunner;
+
+/** Test suite to ensure that |AccessibilityNodeInfoCache| behaves appropriately. */
+@RunWith(BaseJUnit4ClassRunner.class)
+public class AccessibilityNodeInfoCacheTest {
+    /** Test that the least recently used nodes are evicted once the cache is full. */
+    @Test
+    @SmallTest
+    public void testEvictsLeastRecentlyUsedNodes() {
+        AccessibilityNodeInfoCache cache = new AccessibilityNodeInfoCache(2);
+        AccessibilityNodeInfoCompat first = AccessibilityNodeInfoCompat.obtain();
+        AccessibilityNodeInfoCompat second = AccessibilityNodeInfoCompat.obtain();
+        cache.put(1, first);
+        cache.put(2, second);
+
+        // Using the first node makes the second one the least recently used.
+        Assert.assertSame(first, cache.get(1));
+        cache.put(3, AccessibilityNodeInfoCompat.obtain());
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertSame(first, cache.get(1));
+        Assert.assertNull(cache.get(2));
+        Assert.assertNotNull(cache.get(3));
+    }
+
+    /** Test that nodes can be removed individually or all at once. */
+    @Test
+    @SmallTest
+    public void testRemoveAndClear() {
+        AccessibilityNodeInfoCache cache = new AccessibilityNodeInfoCache(10);
+        for (int i = 0; i < 5; i++) {
+            cache.put(i, AccessibilityNodeInfoCompat.obtain());
+        }
+
+        cache.remove(2);
+        cache.remove(42);
+        Assert.assertEquals(4, cache.size());
+        Assert.assertNull(cache.get(2));
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(10, cache.maxSize());
+    }
+}
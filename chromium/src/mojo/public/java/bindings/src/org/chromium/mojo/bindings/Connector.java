@@ -89,6 +89,9 @@ public class Connector implements MessageReceiver, HandleOwner<MessagePipeHandle
         } catch (MojoException e) {
             onError(e);
             return false;
+        } finally {
+            // The data has been copied by the message pipe, so the buffer can be reused.
+            message.releasePooledBuffer();
         }
     }
 
@@ -156,17 +159,24 @@ public class Connector implements MessageReceiver, HandleOwner<MessagePipeHandle
 
     /** Read all available messages on the owned message pipe. */
     private void readOutstandingMessages() {
-        ResultAnd<Boolean> result;
+        // Messages are read one at a time: a receiver may pass or close the handle while
+        // dispatching, and any message read ahead of that would be lost.
+        int mojoResult;
+        boolean accepted;
         do {
             try {
-                result = readAndDispatchMessage(mMessagePipeHandle, mIncomingMessageReceiver);
+                ResultAnd<ReadMessageResult> result =
+                        mMessagePipeHandle.readMessage(MessagePipeHandle.ReadFlags.NONE);
+                mojoResult = result.getMojoResult();
+                if (mojoResult != MojoResult.OK) break;
+                accepted = dispatchMessage(result.getValue(), mIncomingMessageReceiver);
             } catch (MojoException e) {
                 onError(e);
                 return;
             }
-        } while (result.getValue());
-        if (result.getMojoResult() != MojoResult.SHOULD_WAIT) {
-            onError(new MojoException(result.getMojoResult()));
+        } while (accepted);
+        if (mojoResult != MojoResult.SHOULD_WAIT) {
+            onError(new MojoException(mojoResult));
         }
     }
 
@@ -188,23 +198,25 @@ public class Connector implements MessageReceiver, HandleOwner<MessagePipeHandle
         if (result.getMojoResult() != MojoResult.OK) {
             return new ResultAnd<Boolean>(result.getMojoResult(), false);
         }
-        ReadMessageResult readResult = result.getValue();
+        return new ResultAnd<Boolean>(
+                result.getMojoResult(), dispatchMessage(result.getValue(), receiver));
+    }
+
+    /**
+     * Pass a read message to the given |MessageReceiver| if not null, and return whether it was
+     * accepted. If the |MessageReceiver| is null, the message is lost.
+     */
+    private static boolean dispatchMessage(
+            @Nullable ReadMessageResult readResult, @Nullable MessageReceiver receiver) {
         assert readResult != null;
-        if (receiver != null) {
-            boolean accepted;
-            try {
-                accepted =
-                        receiver.accept(
-                                new Message(
-                                        ByteBuffer.wrap(readResult.mData), readResult.mHandles));
-            } catch (RuntimeException e) {
-                // The DefaultExceptionHandler will decide whether any uncaught exception will
-                // close the connection or not.
-                accepted =
-                        ExceptionHandler.DefaultExceptionHandler.getInstance().handleException(e);
-            }
-            return new ResultAnd<Boolean>(result.getMojoResult(), accepted);
+        if (receiver == null) return false;
+        try {
+            return receiver.accept(
+                    new Message(ByteBuffer.wrap(readResult.mData), readResult.mHandles));
+        } catch (RuntimeException e) {
+            // The DefaultExceptionHandler will decide whether any uncaught exception will
+            // close the connection or not.
+            return ExceptionHandler.DefaultExceptionHandler.getInstance().handleException(e);
         }
-        return new ResultAnd<Boolean>(result.getMojoResult(), false);
     }
 }
@@ -16,7 +16,11 @@ import org.chromium.mojo.system.UntypedHandle;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.charset.Charset;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
 
 /**
  * A Decoder is a helper class for deserializing a mojo struct. It enables deserialization of basic
@@ -636,11 +640,85 @@ public class Decoder {
     /** Deserializes a string at the given offset. */
     public @Nullable String readString(int offset, boolean nullable) {
         final int arrayNullability = nullable ? BindingsHelper.ARRAY_NULLABLE : 0;
-        byte[] bytes = readBytes(offset, arrayNullability, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
-        if (bytes == null) {
+        ByteBuffer utf8 =
+                readArrayView(offset, arrayNullability, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH, 1);
+        if (utf8 == null) {
             return null;
         }
-        return new String(bytes, Charset.forName("utf8"));
+        return LazyString.decodeUtf8(utf8);
+    }
+
+    /**
+     * Deserializes a string at the given offset, deferring its decoding until it is accessed. The
+     * result is a view of the message data.
+     */
+    public @Nullable LazyString readLazyString(int offset, boolean nullable) {
+        final int arrayNullability = nullable ? BindingsHelper.ARRAY_NULLABLE : 0;
+        ByteBuffer utf8 =
+                readArrayView(offset, arrayNullability, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH, 1);
+        if (utf8 == null) {
+            return null;
+        }
+        return new LazyString(utf8);
+    }
+
+    /**
+     * Deserializes an array of bytes at the given offset as a read-only view of the message data,
+     * without copying it.
+     */
+    public @Nullable ByteBuffer readBytesView(
+            int offset, int arrayNullability, int expectedLength) {
+        ByteBuffer view = readArrayView(offset, arrayNullability, expectedLength, 1);
+        return view == null ? null : asReadOnly(view);
+    }
+
+    /**
+     * Deserializes an array of shorts at the given offset as a read-only view of the message data,
+     * without copying it.
+     */
+    public @Nullable ShortBuffer readShortsView(
+            int offset, int arrayNullability, int expectedLength) {
+        ByteBuffer view = readArrayView(offset, arrayNullability, expectedLength, 2);
+        return view == null ? null : asReadOnly(view).asShortBuffer();
+    }
+
+    /**
+     * Deserializes an array of ints at the given offset as a read-only view of the message data,
+     * without copying it.
+     */
+    public @Nullable IntBuffer readIntsView(int offset, int arrayNullability, int expectedLength) {
+        ByteBuffer view = readArrayView(offset, arrayNullability, expectedLength, 4);
+        return view == null ? null : asReadOnly(view).asIntBuffer();
+    }
+
+    /**
+     * Deserializes an array of floats at the given offset as a read-only view of the message data,
+     * without copying it.
+     */
+    public @Nullable FloatBuffer readFloatsView(
+            int offset, int arrayNullability, int expectedLength) {
+        ByteBuffer view = readArrayView(offset, arrayNullability, expectedLength, 4);
+        return view == null ? null : asReadOnly(view).asFloatBuffer();
+    }
+
+    /**
+     * Deserializes an array of longs at the given offset as a read-only view of the message data,
+     * without copying it.
+     */
+    public @Nullable LongBuffer readLongsView(
+            int offset, int arrayNullability, int expectedLength) {
+        ByteBuffer view = readArrayView(offset, arrayNullability, expectedLength, 8);
+        return view == null ? null : asReadOnly(view).asLongBuffer();
+    }
+
+    /**
+     * Deserializes an array of doubles at the given offset as a read-only view of the message
+     * data, without copying it.
+     */
+    public @Nullable DoubleBuffer readDoublesView(
+            int offset, int arrayNullability, int expectedLength) {
+        ByteBuffer view = readArrayView(offset, arrayNullability, expectedLength, 8);
+        return view == null ? null : asReadOnly(view).asDoubleBuffer();
     }
 
     /** Deserializes an array of |Handle| at the given offset. */
@@ -813,6 +891,25 @@ public class Decoder {
         return null;
     }
 
+    /** Returns a little endian view of the elements of the array of primitives at the offset. */
+    private @Nullable ByteBuffer readArrayView(
+            int offset, int arrayNullability, int expectedLength, int elementSize) {
+        Decoder d = readPointer(offset, BindingsHelper.isArrayNullable(arrayNullability));
+        if (d == null) {
+            return null;
+        }
+        DataHeader si = d.readDataHeaderForArray(elementSize, expectedLength, false);
+        ByteBuffer view = d.mMessage.getData().duplicate();
+        int start = d.mBaseOffset + DataHeader.HEADER_SIZE;
+        view.limit(start + elementSize * si.elementsOrVersion);
+        view.position(start);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer asReadOnly(ByteBuffer view) {
+        return view.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
     /** Returns a view of this decoder at the offset |offset|. */
     private Decoder getDecoderAtPosition(int offset) {
         return new Decoder(mMessage, mValidator, offset);
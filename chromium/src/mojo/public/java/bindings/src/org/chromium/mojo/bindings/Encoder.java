@@ -43,21 +43,28 @@ public class Encoder {
         /** The current absolute position for the next data section. */
         public int dataEnd;
 
+        /** Whether the buffers come from the {@link MessageBufferPool}. */
+        public final boolean pooled;
+
         /**
          * @param core the |Core| implementation used to generate handles. Only used if the data
          *            structure being encoded contains interfaces, can be |null| otherwise.
          * @param bufferSize A hint on the size of the message. Used to build the initial byte
          *            buffer.
          */
-        private EncoderState(@Nullable Core core, int bufferSize) {
+        private EncoderState(@Nullable Core core, int bufferSize, boolean pooled) {
             assert bufferSize % BindingsHelper.ALIGNMENT == 0;
             this.core = core;
-            byteBuffer =
-                    ByteBuffer.allocateDirect(bufferSize > 0 ? bufferSize : INITIAL_BUFFER_SIZE);
-            byteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            this.pooled = pooled;
+            byteBuffer = allocate(bufferSize > 0 ? bufferSize : INITIAL_BUFFER_SIZE);
             dataEnd = 0;
         }
 
+        private ByteBuffer allocate(int size) {
+            if (pooled) return MessageBufferPool.acquire(size);
+            return ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
         /** Claim the given amount of memory at the end of the buffer, resizing it if needed. */
         public void claimMemory(int size) {
             dataEnd += size;
@@ -73,11 +80,11 @@ public class Encoder {
             while (targetSize < dataEnd) {
                 targetSize *= 2;
             }
-            ByteBuffer newBuffer = ByteBuffer.allocateDirect(targetSize);
-            newBuffer.order(ByteOrder.nativeOrder());
+            ByteBuffer newBuffer = allocate(targetSize);
             byteBuffer.position(0);
             byteBuffer.limit(byteBuffer.capacity());
             newBuffer.put(byteBuffer);
+            if (pooled) MessageBufferPool.release(byteBuffer);
             byteBuffer = newBuffer;
         }
     }
@@ -95,7 +102,10 @@ public class Encoder {
     public Message getMessage() {
         mEncoderState.byteBuffer.position(0);
         mEncoderState.byteBuffer.limit(mEncoderState.dataEnd);
-        return new Message(mEncoderState.byteBuffer, mEncoderState.handles);
+        return new Message(
+                mEncoderState.byteBuffer,
+                mEncoderState.handles,
+                /* ownsPooledBuffer= */ mEncoderState.pooled);
     }
 
     /**
@@ -106,7 +116,20 @@ public class Encoder {
      * @param sizeHint A hint on the size of the message. Used to build the initial byte buffer.
      */
     public Encoder(@Nullable Core core, int sizeHint) {
-        this(new EncoderState(core, sizeHint));
+        this(core, sizeHint, /* pooled= */ true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param core the |Core| implementation used to generate handles. Only used if the data
+     *            structure being encoded contains interfaces, can be |null| otherwise.
+     * @param sizeHint A hint on the size of the message. Used to build the initial byte buffer.
+     * @param pooled Whether to take the buffers from the {@link MessageBufferPool}. Only worth it
+     *            if the message is sent through a {@link Connector}, which gives the buffer back.
+     */
+    Encoder(@Nullable Core core, int sizeHint, boolean pooled) {
+        this(new EncoderState(core, sizeHint, pooled));
     }
 
     /** Private constructor for sub-encoders. */
@@ -39,7 +39,8 @@ public class ExecutorFactory {
      * on which it was created. Other threads can call execute with a {@link Runnable}, and the
      * executor will queue the {@link Runnable} and write a message on the other end of the handle.
      * This will wake up the executor which is waiting on the handle, which will then dequeue the
-     * {@link Runnable} and execute it on the original thread.
+     * {@link Runnable} and execute it on the original thread. Only one message is written until the
+     * executor wakes up, which then runs all the queued {@link Runnable}s.
      */
     private static class PipedExecutor implements Executor, Callback {
 
@@ -54,7 +55,13 @@ public class ExecutorFactory {
          */
         private final List<Runnable> mPendingActions;
 
-        /** Lock protecting access to |mWriteHandle| and |mPendingActions|. */
+        /**
+         * Whether a message has been written and not read yet. Access to this object must be
+         * protected with |mLock|.
+         */
+        private boolean mWakeupPending;
+
+        /** Lock protecting access to |mWriteHandle|, |mPendingActions| and |mWakeupPending|. */
         private final Object mLock;
 
         /** The {@link Watcher} to get notified of new message availability on |mReadHandle|. */
@@ -79,7 +86,7 @@ public class ExecutorFactory {
         @Override
         public void onResult(int result) {
             if (result == MojoResult.OK && readNotifyBufferMessage()) {
-                runNextAction();
+                runPendingActions();
             } else {
                 close();
             }
@@ -98,7 +105,7 @@ public class ExecutorFactory {
 
         /**
          * Read the next message on |mReadHandle|, and return |true| if successful, |false|
-         * otherwise.
+         * otherwise. Wakeups are coalesced, so there is at most one message to read.
          */
         private boolean readNotifyBufferMessage() {
             try {
@@ -113,13 +120,37 @@ public class ExecutorFactory {
             return false;
         }
 
-        /** Run the next action in the |mPendingActions| queue. */
-        private void runNextAction() {
-            Runnable toRun = null;
+        /** Run all the actions in the |mPendingActions| queue. */
+        private void runPendingActions() {
+            List<Runnable> toRun;
             synchronized (mLock) {
-                toRun = mPendingActions.remove(0);
+                toRun = new ArrayList<Runnable>(mPendingActions);
+                mPendingActions.clear();
+                mWakeupPending = false;
+            }
+            int next = 0;
+            try {
+                while (next < toRun.size()) {
+                    toRun.get(next++).run();
+                }
+            } finally {
+                if (next < toRun.size()) {
+                    // An action threw: keep the remaining ones ahead of the newly queued ones.
+                    synchronized (mLock) {
+                        if (mWriteHandle.isValid()) {
+                            mPendingActions.addAll(0, toRun.subList(next, toRun.size()));
+                            notifyLocked();
+                        }
+                    }
+                }
             }
-            toRun.run();
+        }
+
+        /** Wake up the executor thread, unless it is already due to wake up. */
+        private void notifyLocked() {
+            if (mWakeupPending) return;
+            mWriteHandle.writeMessage(NOTIFY_BUFFER, null, MessagePipeHandle.WriteFlags.NONE);
+            mWakeupPending = true;
         }
 
         /**
@@ -137,7 +168,7 @@ public class ExecutorFactory {
                             "Trying to execute an action on a closed executor.");
                 }
                 mPendingActions.add(command);
-                mWriteHandle.writeMessage(NOTIFY_BUFFER, null, MessagePipeHandle.WriteFlags.NONE);
+                notifyLocked();
             }
         }
     }
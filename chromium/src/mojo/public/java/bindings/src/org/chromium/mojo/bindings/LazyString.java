@@ -0,0 +1,97 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.mojo.bindings;
+
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A mojo string that is only decoded from UTF-8 when first accessed as characters. Until then it
+ * is a view of the bytes of the message it was read from, so it must not outlive the message's
+ * buffer.
+ *
+ * <p>The string may be decoded on any thread: decoding and dropping the bytes happen under the
+ * string's monitor, and the decoded string is then read without locking.
+ */
+@NullMarked
+public final class LazyString implements CharSequence {
+    /** The UTF-8 bytes of the string. Dropped once the string is decoded. Guarded by |this|. */
+    private @Nullable ByteBuffer mUtf8;
+
+    private final int mUtf8Length;
+
+    /** Written once, while holding |this|, before |mUtf8| is dropped. */
+    private volatile @Nullable String mDecoded;
+
+    LazyString(ByteBuffer utf8) {
+        mUtf8 = utf8;
+        mUtf8Length = utf8.remaining();
+    }
+
+    /** Returns the length of the string in UTF-8 bytes, without decoding it. */
+    public int getUtf8Length() {
+        return mUtf8Length;
+    }
+
+    /** Returns a read-only view of the UTF-8 bytes of the string, or null once it is decoded. */
+    public synchronized @Nullable ByteBuffer getUtf8Bytes() {
+        return mUtf8 == null ? null : mUtf8.asReadOnlyBuffer();
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        String decoded = mDecoded;
+        if (decoded != null) return decoded;
+        synchronized (this) {
+            decoded = mDecoded;
+            if (decoded == null) {
+                assert mUtf8 != null;
+                decoded = decodeUtf8(mUtf8);
+                mDecoded = decoded;
+                mUtf8 = null;
+            }
+            return decoded;
+        }
+    }
+
+    /** Decodes the remaining bytes of |utf8|, without changing its position. */
+    static String decodeUtf8(ByteBuffer utf8) {
+        int length = utf8.remaining();
+        if (utf8.hasArray()) {
+            return decodeUtf8(utf8.array(), utf8.arrayOffset() + utf8.position(), length);
+        }
+        byte[] bytes = new byte[length];
+        utf8.duplicate().get(bytes);
+        return decodeUtf8(bytes, 0, length);
+    }
+
+    private static String decodeUtf8(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] < 0) {
+                return new String(bytes, offset, length, StandardCharsets.UTF_8);
+            }
+        }
+        // ASCII is also valid Latin-1, which decodes without any lookups.
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -15,6 +15,12 @@ import java.util.List;
 /**
  * A raw message to be sent/received from a {@link MessagePipeHandle}. Note that this can contain
  * any data, not necessarily a Mojo message with a proper header. See also {@link ServiceMessage}.
+ *
+ * <p>Messages built by an {@link Encoder}, such as the results of {@link
+ * Struct#serialize(org.chromium.mojo.system.Core)} and {@link Struct#serializeWithHeader}, use a
+ * buffer of the {@link MessageBufferPool}. Once {@link Connector#accept} has written such a message
+ * to its pipe, the buffer is zeroed and reused for other messages, so the message must not be read
+ * or sent again. Messages built with the public constructor keep their buffer.
  */
 @NullMarked
 public class Message {
@@ -28,6 +34,12 @@ public class Message {
     /** This message interpreted as a message for a mojo service with an appropriate header. */
     private @Nullable ServiceMessage mWithHeader;
 
+    /** Whether |mBuffer| comes from the {@link MessageBufferPool} and is owned by this message. */
+    private boolean mOwnsPooledBuffer;
+
+    /** Whether |mBuffer| has been given back to the {@link MessageBufferPool}. */
+    private boolean mPooledBufferReleased;
+
     /**
      * Constructor.
      *
@@ -39,8 +51,37 @@ public class Message {
         mHandles = handles;
     }
 
+    /**
+     * Constructor for messages built by an {@link Encoder}, whose buffer goes back to the {@link
+     * MessageBufferPool} once the message has been sent.
+     */
+    Message(ByteBuffer buffer, List<? extends Handle> handles, boolean ownsPooledBuffer) {
+        this(buffer, handles);
+        mOwnsPooledBuffer = ownsPooledBuffer;
+    }
+
+    /** Takes over the pooled buffer of |message|, which shares its buffer with this message. */
+    void takePooledBuffer(Message message) {
+        assert message.mBuffer == mBuffer;
+        mOwnsPooledBuffer = message.mOwnsPooledBuffer;
+        message.mOwnsPooledBuffer = false;
+    }
+
+    /**
+     * Gives the buffer back to the {@link MessageBufferPool} if this message owns a pooled buffer.
+     * Called once the message has been written to a message pipe; the data of the message must not
+     * be accessed afterwards.
+     */
+    void releasePooledBuffer() {
+        if (!mOwnsPooledBuffer) return;
+        mOwnsPooledBuffer = false;
+        mPooledBufferReleased = true;
+        MessageBufferPool.release(mBuffer);
+    }
+
     /** The data of the message. */
     public ByteBuffer getData() {
+        assert !mPooledBufferReleased : "The buffer of a sent message has been recycled";
         return mBuffer;
     }
 
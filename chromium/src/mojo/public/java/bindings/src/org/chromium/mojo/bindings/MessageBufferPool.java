@@ -0,0 +1,107 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.mojo.bindings;
+
+import org.chromium.build.annotations.NullMarked;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+/**
+ * A pool of the direct buffers {@link Encoder} serializes messages into. Buffers come in power of
+ * two size classes, and are given back by {@link Connector} once their message has been written to
+ * the message pipe. Buffers larger than {@link #MAX_BUFFER_SIZE} aren't pooled.
+ *
+ * <p>Buffers handed out by the pool are zero-filled, like freshly allocated ones.
+ */
+@NullMarked
+final class MessageBufferPool {
+    /** Capacity of the smallest pooled buffers. */
+    static final int MIN_BUFFER_SIZE = 256;
+
+    /** Capacity of the largest pooled buffers. */
+    static final int MAX_BUFFER_SIZE = 64 * 1024;
+
+    private static final int MIN_BUFFER_SIZE_LOG2 = 8;
+    private static final int SIZE_CLASS_COUNT = 9;
+    private static final int MAX_RETAINED_BUFFERS_PER_SIZE_CLASS = 4;
+
+    // Free buffers of each size class, most recently released last. Guarded by |sFreeBuffers|.
+    @SuppressWarnings("unchecked")
+    private static final ArrayDeque<ByteBuffer>[] sFreeBuffers = new ArrayDeque[SIZE_CLASS_COUNT];
+
+    static {
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+            sFreeBuffers[i] = new ArrayDeque<>(MAX_RETAINED_BUFFERS_PER_SIZE_CLASS);
+        }
+    }
+
+    private MessageBufferPool() {}
+
+    /**
+     * Returns a zero-filled, little endian direct buffer with a capacity of at least {@code
+     * minCapacity} bytes.
+     */
+    static ByteBuffer acquire(int minCapacity) {
+        if (minCapacity > MAX_BUFFER_SIZE) {
+            return ByteBuffer.allocateDirect(minCapacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        int sizeClass = getSizeClass(minCapacity);
+        ByteBuffer buffer;
+        synchronized (sFreeBuffers) {
+            buffer = sFreeBuffers[sizeClass].pollLast();
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(MIN_BUFFER_SIZE << sizeClass);
+        }
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Gives a buffer obtained from {@link #acquire} back to the pool. The buffer must not be used
+     * afterwards.
+     */
+    static void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (!buffer.isDirect()
+                || buffer.isReadOnly()
+                || capacity < MIN_BUFFER_SIZE
+                || capacity > MAX_BUFFER_SIZE
+                || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        int sizeClass = getSizeClass(capacity);
+        synchronized (sFreeBuffers) {
+            if (sFreeBuffers[sizeClass].size() >= MAX_RETAINED_BUFFERS_PER_SIZE_CLASS) return;
+        }
+        // Capacities are multiples of 8, so the buffer can be cleared a long at a time.
+        buffer.clear();
+        for (int i = 0; i < capacity; i += 8) {
+            buffer.putLong(i, 0L);
+        }
+        synchronized (sFreeBuffers) {
+            if (sFreeBuffers[sizeClass].size() < MAX_RETAINED_BUFFERS_PER_SIZE_CLASS) {
+                sFreeBuffers[sizeClass].addLast(buffer);
+            }
+        }
+    }
+
+    /** Returns the number of buffers retained for reuse. */
+    static int getRetainedBufferCountForTesting() {
+        synchronized (sFreeBuffers) {
+            int count = 0;
+            for (ArrayDeque<ByteBuffer> buffers : sFreeBuffers) {
+                count += buffers.size();
+            }
+            return count;
+        }
+    }
+
+    private static int getSizeClass(int minCapacity) {
+        int log2 = 32 - Integer.numberOfLeadingZeros(Math.max(1, minCapacity) - 1);
+        return Math.max(0, log2 - MIN_BUFFER_SIZE_LOG2);
+    }
+}
@@ -28,6 +28,7 @@ public class ServiceMessage extends Message {
         super(baseMessage.getData(), baseMessage.getHandles());
         assert header.equals(new org.chromium.mojo.bindings.MessageHeader(baseMessage));
         this.mHeader = header;
+        takePooledBuffer(baseMessage);
     }
 
     /**
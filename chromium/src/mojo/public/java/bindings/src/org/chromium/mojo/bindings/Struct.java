@@ -9,6 +9,8 @@ import org.chromium.build.annotations.Nullable;
 import org.chromium.mojo.system.Core;
 
 import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** Base class for all mojo structs. */
 @NullMarked
@@ -19,6 +21,18 @@ public abstract class Struct {
     /** The version of the struct. */
     private final int mVersion;
 
+    /**
+     * A decaying maximum of the encoded sizes of each struct type, used as the initial buffer size
+     * of the following serializations to avoid growing the buffer. The hint jumps up to larger
+     * sizes and moves a quarter of the way down to smaller ones, so a single large message only
+     * inflates the buffers of the next few serializations. Sizes past what the {@link
+     * MessageBufferPool} retains aren't recorded.
+     */
+    private static final Map<Class<?>, Integer> sEncodedSizeHints = new ConcurrentHashMap<>();
+
+    /** The hint moves down by 1 / 2^SIZE_HINT_DECAY_SHIFT of its distance to a smaller size. */
+    private static final int SIZE_HINT_DECAY_SHIFT = 2;
+
     /** Constructor. */
     protected Struct(int encodedBaseSize, int version) {
         mEncodedBaseSize = encodedBaseSize;
@@ -40,9 +54,11 @@ public abstract class Struct {
      *            structure being encoded contains interfaces, can be |null| otherwise.
      */
     public Message serialize(@Nullable Core core) {
-        Encoder encoder = new Encoder(core, mEncodedBaseSize);
+        Encoder encoder = new Encoder(core, getEncodedSizeHint());
         encode(encoder);
-        return encoder.getMessage();
+        Message message = encoder.getMessage();
+        recordEncodedSize(message.getData().limit());
+        return message;
     }
 
     /**
@@ -52,9 +68,13 @@ public abstract class Struct {
      * @throws SerializationException on serialization failure.
      */
     public ByteBuffer serialize() {
+        // The buffer is handed over to the caller and never given back, so it doesn't come from the
+        // pool, and isn't sized from the hints, which are only worth it for recycled buffers.
         // If the struct contains interfaces which require a non-null |Core| instance, it will throw
         // UnsupportedOperationException.
-        Message message = serialize(null);
+        Encoder encoder = new Encoder(null, mEncodedBaseSize, /* pooled= */ false);
+        encode(encoder);
+        Message message = encoder.getMessage();
 
         if (!message.getHandles().isEmpty()) {
             throw new UnsupportedOperationException("Handles are discarded.");
@@ -71,10 +91,39 @@ public abstract class Struct {
      *            being encoded contains interfaces, can be |null| otherwise.
      */
     public ServiceMessage serializeWithHeader(Core core, MessageHeader header) {
-        Encoder encoder = new Encoder(core, mEncodedBaseSize + header.getSize());
+        Encoder encoder = new Encoder(core, getEncodedSizeHint() + header.getSize());
         header.encode(encoder);
         encode(encoder);
-        return new ServiceMessage(encoder.getMessage(), header);
+        Message message = encoder.getMessage();
+        recordEncodedSize(message.getData().limit() - header.getSize());
+        return new ServiceMessage(message, header);
+    }
+
+    private int getEncodedSizeHint() {
+        Integer sizeHint = sEncodedSizeHints.get(getClass());
+        return sizeHint == null ? mEncodedBaseSize : sizeHint;
+    }
+
+    private void recordEncodedSize(int size) {
+        if (size > MessageBufferPool.MAX_BUFFER_SIZE) return;
+        Integer sizeHint = sEncodedSizeHints.get(getClass());
+        int oldHint = sizeHint == null ? mEncodedBaseSize : sizeHint;
+        int newHint =
+                BindingsHelper.align(
+                        size >= oldHint
+                                ? size
+                                : oldHint - ((oldHint - size) >> SIZE_HINT_DECAY_SHIFT));
+        if (newHint == oldHint) return;
+        if (newHint <= mEncodedBaseSize) {
+            sEncodedSizeHints.remove(getClass());
+        } else {
+            sEncodedSizeHints.put(getClass(), newHint);
+        }
+    }
+
+    /** Returns the initial buffer size of the next serialization of this struct type. */
+    int getEncodedSizeHintForTesting() {
+        return getEncodedSizeHint();
     }
 
     /** Use the given encoder to serialize this data structure. */
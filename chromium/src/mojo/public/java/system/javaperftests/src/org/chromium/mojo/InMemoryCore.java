@@ -0,0 +1,384 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.mojo;
+
+import android.os.ParcelFileDescriptor;
+
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+import org.chromium.mojo.system.Core;
+import org.chromium.mojo.system.DataPipe;
+import org.chromium.mojo.system.DataPipe.ConsumerHandle;
+import org.chromium.mojo.system.DataPipe.ProducerHandle;
+import org.chromium.mojo.system.Handle;
+import org.chromium.mojo.system.MessagePipeHandle;
+import org.chromium.mojo.system.MojoException;
+import org.chromium.mojo.system.MojoResult;
+import org.chromium.mojo.system.Pair;
+import org.chromium.mojo.system.ResultAnd;
+import org.chromium.mojo.system.RunLoop;
+import org.chromium.mojo.system.SharedBufferHandle;
+import org.chromium.mojo.system.UntypedHandle;
+import org.chromium.mojo.system.Watcher;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link Core} that doesn't need the native mojo library, so that the bindings can run on a host
+ * JVM. Message pipes are in-memory queues, and watchers are only notified from {@link
+ * #runUntilIdle}. Data pipes, shared buffers and run loops aren't supported. This class is not
+ * thread safe.
+ */
+@NullMarked
+public class InMemoryCore implements Core {
+    private final long mStartNanos = System.nanoTime();
+
+    /** The started watchers, notified by {@link #runUntilIdle}. */
+    private final List<InMemoryWatcher> mWatchers = new ArrayList<InMemoryWatcher>();
+
+    /**
+     * Notifies the watchers of the readable or closed message pipes, until no watcher has anything
+     * left to handle.
+     */
+    public void runUntilIdle() {
+        boolean notified;
+        do {
+            notified = false;
+            // Callbacks may start or cancel watchers.
+            for (InMemoryWatcher watcher : new ArrayList<InMemoryWatcher>(mWatchers)) {
+                notified |= watcher.notifyIfReady();
+            }
+        } while (notified);
+    }
+
+    /**
+     * @see Core#getTimeTicksNow()
+     */
+    @Override
+    public long getTimeTicksNow() {
+        return (System.nanoTime() - mStartNanos) / 1000;
+    }
+
+    /**
+     * @see Core#createMessagePipe(MessagePipeHandle.CreateOptions)
+     */
+    @Override
+    public Pair<MessagePipeHandle, MessagePipeHandle> createMessagePipe(
+            MessagePipeHandle.@Nullable CreateOptions options) {
+        Endpoint first = new Endpoint();
+        Endpoint second = new Endpoint();
+        first.mPeer = second;
+        second.mPeer = first;
+        return Pair.<MessagePipeHandle, MessagePipeHandle>create(
+                new InMemoryMessagePipeHandle(first), new InMemoryMessagePipeHandle(second));
+    }
+
+    /**
+     * @see Core#createDataPipe(DataPipe.CreateOptions)
+     */
+    @Override
+    public Pair<ProducerHandle, ConsumerHandle> createDataPipe(DataPipe.CreateOptions options) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see Core#createSharedBuffer(SharedBufferHandle.CreateOptions, long)
+     */
+    @Override
+    public SharedBufferHandle createSharedBuffer(
+            SharedBufferHandle.CreateOptions options, long numBytes) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see Core#acquireNativeHandle(long)
+     */
+    @Override
+    public UntypedHandle acquireNativeHandle(long handle) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see Core#wrapFileDescriptor(ParcelFileDescriptor)
+     */
+    @Override
+    public UntypedHandle wrapFileDescriptor(ParcelFileDescriptor fd) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see Core#getWatcher()
+     */
+    @Override
+    public Watcher getWatcher() {
+        return new InMemoryWatcher();
+    }
+
+    /**
+     * @see Core#createDefaultRunLoop()
+     */
+    @Override
+    public RunLoop createDefaultRunLoop() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see Core#getCurrentRunLoop()
+     */
+    @Override
+    public RunLoop getCurrentRunLoop() {
+        throw new UnsupportedOperationException();
+    }
+
+    /** One end of an in-memory message pipe, shared by the successive handles owning it. */
+    private static class Endpoint {
+        private @Nullable Endpoint mPeer;
+        private final ArrayDeque<MessagePipeHandle.ReadMessageResult> mIncomingMessages =
+                new ArrayDeque<MessagePipeHandle.ReadMessageResult>();
+        private boolean mClosed;
+
+        private boolean isPeerClosed() {
+            return mPeer == null || mPeer.mClosed;
+        }
+    }
+
+    /** A handle to an {@link Endpoint}, which also serves as its untyped handle. */
+    private class InMemoryMessagePipeHandle implements MessagePipeHandle, UntypedHandle {
+        private @Nullable Endpoint mEndpoint;
+
+        private InMemoryMessagePipeHandle(Endpoint endpoint) {
+            mEndpoint = endpoint;
+        }
+
+        private Endpoint getEndpoint() {
+            if (mEndpoint == null) throw new MojoException(MojoResult.INVALID_ARGUMENT);
+            return mEndpoint;
+        }
+
+        /**
+         * @see Handle#close()
+         */
+        @Override
+        public void close() {
+            if (mEndpoint == null) return;
+            mEndpoint.mClosed = true;
+            mEndpoint.mIncomingMessages.clear();
+            mEndpoint = null;
+        }
+
+        /**
+         * @see Handle#querySignalsState()
+         */
+        @Override
+        public HandleSignalsState querySignalsState() {
+            Endpoint endpoint = getEndpoint();
+            HandleSignals satisfied =
+                    HandleSignals.none()
+                            .setReadable(!endpoint.mIncomingMessages.isEmpty())
+                            .setWritable(!endpoint.isPeerClosed())
+                            .setPeerClosed(endpoint.isPeerClosed());
+            HandleSignals satisfiable =
+                    HandleSignals.none()
+                            .setReadable(
+                                    !endpoint.mIncomingMessages.isEmpty()
+                                            || !endpoint.isPeerClosed())
+                            .setWritable(!endpoint.isPeerClosed())
+                            .setPeerClosed(true);
+            return new HandleSignalsState(satisfied, satisfiable);
+        }
+
+        /**
+         * @see Handle#isValid()
+         */
+        @Override
+        public boolean isValid() {
+            return mEndpoint != null;
+        }
+
+        /**
+         * @see Handle#getCore()
+         */
+        @Override
+        public Core getCore() {
+            return InMemoryCore.this;
+        }
+
+        /**
+         * @see Handle#releaseNativeHandle()
+         */
+        @Override
+        public long releaseNativeHandle() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @see Handle#pass()
+         */
+        @Override
+        public InMemoryMessagePipeHandle pass() {
+            InMemoryMessagePipeHandle result = new InMemoryMessagePipeHandle(getEndpoint());
+            mEndpoint = null;
+            return result;
+        }
+
+        /**
+         * @see Handle#toUntypedHandle()
+         */
+        @Override
+        public UntypedHandle toUntypedHandle() {
+            return pass();
+        }
+
+        /**
+         * @see UntypedHandle#toMessagePipeHandle()
+         */
+        @Override
+        public MessagePipeHandle toMessagePipeHandle() {
+            return pass();
+        }
+
+        /**
+         * @see UntypedHandle#toDataPipeConsumerHandle()
+         */
+        @Override
+        public ConsumerHandle toDataPipeConsumerHandle() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @see UntypedHandle#toDataPipeProducerHandle()
+         */
+        @Override
+        public ProducerHandle toDataPipeProducerHandle() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @see UntypedHandle#toSharedBufferHandle()
+         */
+        @Override
+        public SharedBufferHandle toSharedBufferHandle() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * @see MessagePipeHandle#writeMessage(ByteBuffer, List, MessagePipeHandle.WriteFlags)
+         */
+        @Override
+        public void writeMessage(
+                @Nullable ByteBuffer bytes,
+                @Nullable List<? extends Handle> handles,
+                WriteFlags flags) {
+            Endpoint endpoint = getEndpoint();
+            // Like the native implementation, the data is copied and the handles are transferred.
+            MessagePipeHandle.ReadMessageResult message = new MessagePipeHandle.ReadMessageResult();
+            message.mData = new byte[bytes == null ? 0 : bytes.limit()];
+            if (bytes != null) {
+                ByteBuffer data = bytes.duplicate();
+                data.position(0);
+                data.get(message.mData);
+            }
+            message.mHandles = new ArrayList<UntypedHandle>(handles == null ? 0 : handles.size());
+            if (handles != null) {
+                for (Handle handle : handles) {
+                    message.mHandles.add(handle.toUntypedHandle());
+                }
+            }
+            if (endpoint.isPeerClosed()) {
+                throw new MojoException(MojoResult.FAILED_PRECONDITION);
+            }
+            assert endpoint.mPeer != null;
+            endpoint.mPeer.mIncomingMessages.addLast(message);
+        }
+
+        /**
+         * @see MessagePipeHandle#readMessage(MessagePipeHandle.ReadFlags)
+         */
+        @Override
+        public ResultAnd<ReadMessageResult> readMessage(ReadFlags flags) {
+            Endpoint endpoint = getEndpoint();
+            ReadMessageResult message = endpoint.mIncomingMessages.pollFirst();
+            if (message != null) {
+                return new ResultAnd<ReadMessageResult>(MojoResult.OK, message);
+            }
+            if (endpoint.isPeerClosed()) {
+                throw new MojoException(MojoResult.FAILED_PRECONDITION);
+            }
+            return new ResultAnd<ReadMessageResult>(
+                    MojoResult.SHOULD_WAIT, new ReadMessageResult());
+        }
+    }
+
+    /** A {@link Watcher} notified by {@link #runUntilIdle}. */
+    private class InMemoryWatcher implements Watcher {
+        private @Nullable InMemoryMessagePipeHandle mHandle;
+        private @Nullable Callback mCallback;
+        private boolean mDestroyed;
+
+        /**
+         * @see Watcher#start(Handle, HandleSignals, Watcher.Callback)
+         */
+        @Override
+        public int start(Handle handle, HandleSignals signals, Callback callback) {
+            if (mDestroyed) throw new IllegalStateException("Watcher has been destroyed.");
+            if (!(handle instanceof InMemoryMessagePipeHandle) || !handle.isValid()) {
+                return MojoResult.INVALID_ARGUMENT;
+            }
+            mHandle = (InMemoryMessagePipeHandle) handle;
+            mCallback = callback;
+            mWatchers.add(this);
+            return MojoResult.OK;
+        }
+
+        /**
+         * @see Watcher#cancel()
+         */
+        @Override
+        public void cancel() {
+            mHandle = null;
+            mCallback = null;
+            mWatchers.remove(this);
+        }
+
+        /**
+         * @see Watcher#destroy()
+         */
+        @Override
+        public void destroy() {
+            cancel();
+            mDestroyed = true;
+        }
+
+        /**
+         * Calls the callback if the watched handle has messages to read or its peer is closed.
+         * Returns whether the callback has been called.
+         */
+        private boolean notifyIfReady() {
+            InMemoryMessagePipeHandle handle = mHandle;
+            Callback callback = mCallback;
+            if (handle == null || callback == null) return false;
+            if (!handle.isValid()) {
+                cancel();
+                callback.onResult(MojoResult.CANCELLED);
+                return true;
+            }
+            Endpoint endpoint = handle.getEndpoint();
+            if (!endpoint.mIncomingMessages.isEmpty()) {
+                callback.onResult(MojoResult.OK);
+                return true;
+            }
+            if (endpoint.isPeerClosed()) {
+                // The signal can't be satisfied anymore, so the watch is over.
+                cancel();
+                callback.onResult(MojoResult.FAILED_PRECONDITION);
+                return true;
+            }
+            return false;
+        }
+    }
+}
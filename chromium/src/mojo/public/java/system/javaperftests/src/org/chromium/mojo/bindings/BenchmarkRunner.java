@@ -0,0 +1,109 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.mojo.bindings;
+
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A minimal JMH-style harness: each benchmark is warmed up, then timed over several rounds, and
+ * reported as the median time per operation and the bytes allocated per operation by the
+ * benchmarking thread. Allocations are only reported on JVMs exposing per-thread allocation
+ * counters.
+ */
+@NullMarked
+final class BenchmarkRunner {
+    /** A benchmarked operation. Its result is consumed so that it can't be optimized away. */
+    interface Operation {
+        @Nullable Object run();
+    }
+
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long ROUND_NANOS = 200_000_000L;
+    private static final int ROUND_COUNT = 10;
+
+    /** Receives the results of the operations. */
+    private static volatile @Nullable Object sSink;
+
+    private final PrintStream mOut;
+    private final @Nullable Pattern mFilter;
+    private final com.sun.management.@Nullable ThreadMXBean mThreadBean;
+
+    /**
+     * @param out Receives the results.
+     * @param filter Only the benchmarks whose name matches this pattern are run, if not null.
+     */
+    BenchmarkRunner(PrintStream out, @Nullable Pattern filter) {
+        mOut = out;
+        mFilter = filter;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean)
+                        .isThreadAllocatedMemorySupported()) {
+            mThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+            mThreadBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            mThreadBean = null;
+        }
+        mOut.println(String.format(Locale.US, "%-40s %12s %12s", "Benchmark", "ns/op", "B/op"));
+    }
+
+    /** Runs |operation| and prints its results, unless it is filtered out. */
+    void run(String name, Operation operation) {
+        if (mFilter != null && !mFilter.matcher(name).find()) return;
+
+        // Warm up, and find how many operations fit in a round.
+        long operationsPerRound = 1;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < WARMUP_NANOS) {
+            long roundStart = System.nanoTime();
+            runOperations(operation, operationsPerRound);
+            long elapsed = System.nanoTime() - roundStart;
+            if (elapsed < ROUND_NANOS / 2) operationsPerRound *= 2;
+        }
+
+        double[] nanosPerOperation = new double[ROUND_COUNT];
+        long allocatedBytes = getAllocatedBytes();
+        for (int i = 0; i < ROUND_COUNT; i++) {
+            long roundStart = System.nanoTime();
+            runOperations(operation, operationsPerRound);
+            nanosPerOperation[i] =
+                    (System.nanoTime() - roundStart) / (double) operationsPerRound;
+        }
+        long bytesPerOperation =
+                allocatedBytes < 0
+                        ? -1
+                        : (getAllocatedBytes() - allocatedBytes)
+                                / (operationsPerRound * ROUND_COUNT);
+
+        Arrays.sort(nanosPerOperation);
+        mOut.println(
+                String.format(
+                        Locale.US,
+                        "%-40s %12.1f %12s",
+                        name,
+                        nanosPerOperation[ROUND_COUNT / 2],
+                        bytesPerOperation < 0 ? "n/a" : Long.toString(bytesPerOperation)));
+    }
+
+    private static void runOperations(Operation operation, long count) {
+        for (long i = 0; i < count; i++) {
+            sSink = operation.run();
+        }
+    }
+
+    /** Returns the bytes allocated by the current thread so far, or -1 if unknown. */
+    private long getAllocatedBytes() {
+        if (mThreadBean == null) return -1;
+        return mThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
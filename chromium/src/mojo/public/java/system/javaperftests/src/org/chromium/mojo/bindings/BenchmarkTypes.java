@@ -0,0 +1,286 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.mojo.bindings;
+
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+import org.chromium.mojo.system.InvalidHandle;
+import org.chromium.mojo.system.MessagePipeHandle;
+
+/**
+ * Mojo types used by the benchmarks, written the way the bindings generator writes them, so that
+ * the benchmarks don't depend on generated code:
+ *
+ * <pre>
+ * struct Point { int32 x; int32 y; int64 timestamp; double weight; bool visible; };
+ * union Value { int32 int_value; string string_value; };
+ * struct Record {
+ *   string name; array&lt;int32&gt; ids; array&lt;double&gt; samples; array&lt;uint8&gt; payload;
+ *   Point origin; Value value; array&lt;Value&gt; values;
+ * };
+ * struct Handles { handle&lt;message_pipe&gt; pipe; int32 count;
+ *                  array&lt;handle&lt;message_pipe&gt;&gt; pipes; };
+ * </pre>
+ */
+@NullMarked
+final class BenchmarkTypes {
+    private BenchmarkTypes() {}
+
+    /** A struct of values only. */
+    static final class Point extends Struct {
+        private static final int STRUCT_SIZE = 40;
+        private static final DataHeader[] VERSION_ARRAY =
+                new DataHeader[] {new DataHeader(STRUCT_SIZE, 0)};
+        private static final DataHeader DEFAULT_STRUCT_INFO = VERSION_ARRAY[0];
+
+        public int x;
+        public int y;
+        public long timestamp;
+        public double weight;
+        public boolean visible;
+
+        private Point(int version) {
+            super(STRUCT_SIZE, version);
+        }
+
+        Point() {
+            this(0);
+        }
+
+        static Point deserialize(Message message) {
+            return decode(new Decoder(message));
+        }
+
+        static Point decode(Decoder decoder0) {
+            decoder0.increaseStackDepth();
+            Point result;
+            try {
+                DataHeader mainDataHeader = decoder0.readAndValidateDataHeader(VERSION_ARRAY);
+                result = new Point(mainDataHeader.elementsOrVersion);
+                result.x = decoder0.readInt(8);
+                result.y = decoder0.readInt(12);
+                result.timestamp = decoder0.readLong(16);
+                result.weight = decoder0.readDouble(24);
+                result.visible = decoder0.readBoolean(32, 0);
+            } finally {
+                decoder0.decreaseStackDepth();
+            }
+            return result;
+        }
+
+        @Override
+        protected void encode(Encoder encoder) {
+            Encoder encoder0 = encoder.getEncoderAtDataOffset(DEFAULT_STRUCT_INFO);
+            encoder0.encode(this.x, 8);
+            encoder0.encode(this.y, 12);
+            encoder0.encode(this.timestamp, 16);
+            encoder0.encode(this.weight, 24);
+            encoder0.encode(this.visible, 32, 0);
+        }
+    }
+
+    /** A union of a value and a pointer. */
+    static final class Value extends Union {
+        static final class Tag {
+            static final int IntValue = 0;
+            static final int StringValue = 1;
+        }
+
+        private int mIntValue;
+        private @Nullable String mStringValue;
+
+        void setIntValue(int intValue) {
+            mTag = Tag.IntValue;
+            mIntValue = intValue;
+        }
+
+        int getIntValue() {
+            assert mTag == Tag.IntValue;
+            return mIntValue;
+        }
+
+        void setStringValue(String stringValue) {
+            mTag = Tag.StringValue;
+            mStringValue = stringValue;
+        }
+
+        @Nullable String getStringValue() {
+            assert mTag == Tag.StringValue;
+            return mStringValue;
+        }
+
+        static @Nullable Value deserialize(Message message) {
+            return decode(new Decoder(message).decoderForSerializedUnion(), 0);
+        }
+
+        static @Nullable Value decode(Decoder decoder0, int offset) {
+            DataHeader dataHeader = decoder0.readDataHeaderForUnion(offset);
+            if (dataHeader.size == 0) {
+                return null;
+            }
+            Value result = new Value();
+            switch (dataHeader.elementsOrVersion) {
+                case Tag.IntValue:
+                    result.mIntValue = decoder0.readInt(offset + DataHeader.HEADER_SIZE);
+                    result.mTag = Tag.IntValue;
+                    break;
+                case Tag.StringValue:
+                    result.mStringValue =
+                            decoder0.readString(offset + DataHeader.HEADER_SIZE, false);
+                    result.mTag = Tag.StringValue;
+                    break;
+                default:
+                    result.mTag = -1;
+                    break;
+            }
+            return result;
+        }
+
+        @Override
+        protected void encode(Encoder encoder0, int offset) {
+            encoder0.encode(BindingsHelper.UNION_SIZE, offset);
+            encoder0.encode(mTag, offset + 4);
+            switch (mTag) {
+                case Tag.IntValue:
+                    encoder0.encode(mIntValue, offset + 8);
+                    break;
+                case Tag.StringValue:
+                    encoder0.encode(mStringValue, offset + 8, false);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /** A struct of strings, arrays, a nested struct and unions. */
+    static final class Record extends Struct {
+        private static final int STRUCT_SIZE = 72;
+        private static final DataHeader[] VERSION_ARRAY =
+                new DataHeader[] {new DataHeader(STRUCT_SIZE, 0)};
+        private static final DataHeader DEFAULT_STRUCT_INFO = VERSION_ARRAY[0];
+
+        public String name = "";
+        public int[] ids = new int[0];
+        public double[] samples = new double[0];
+        public byte[] payload = new byte[0];
+        public Point origin = new Point();
+        public Value value = new Value();
+        public Value[] values = new Value[0];
+
+        private Record(int version) {
+            super(STRUCT_SIZE, version);
+        }
+
+        Record() {
+            this(0);
+        }
+
+        static Record deserialize(Message message) {
+            return decode(new Decoder(message));
+        }
+
+        @SuppressWarnings("NullAway") // Non-nullable fields are read as @Nullable.
+        static Record decode(Decoder decoder0) {
+            decoder0.increaseStackDepth();
+            Record result;
+            try {
+                DataHeader mainDataHeader = decoder0.readAndValidateDataHeader(VERSION_ARRAY);
+                result = new Record(mainDataHeader.elementsOrVersion);
+                result.name = decoder0.readString(8, false);
+                result.ids = decoder0.readInts(16, 0, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+                result.samples =
+                        decoder0.readDoubles(24, 0, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+                result.payload = decoder0.readBytes(32, 0, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+                result.origin = Point.decode(decoder0.readPointer(40, false));
+                result.value = Value.decode(decoder0, 48);
+                Decoder decoder1 = decoder0.readPointer(64, false);
+                DataHeader si1 =
+                        decoder1.readDataHeaderForUnionArray(
+                                BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+                result.values = new Value[si1.elementsOrVersion];
+                for (int i1 = 0; i1 < si1.elementsOrVersion; ++i1) {
+                    result.values[i1] =
+                            Value.decode(
+                                    decoder1,
+                                    DataHeader.HEADER_SIZE + BindingsHelper.UNION_SIZE * i1);
+                }
+            } finally {
+                decoder0.decreaseStackDepth();
+            }
+            return result;
+        }
+
+        @Override
+        protected void encode(Encoder encoder) {
+            Encoder encoder0 = encoder.getEncoderAtDataOffset(DEFAULT_STRUCT_INFO);
+            encoder0.encode(this.name, 8, false);
+            encoder0.encode(this.ids, 16, 0, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+            encoder0.encode(this.samples, 24, 0, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+            encoder0.encode(this.payload, 32, 0, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+            encoder0.encode(this.origin, 40, false);
+            encoder0.encode(this.value, 48, false);
+            Encoder encoder1 =
+                    encoder0.encodeUnionArray(
+                            this.values.length, 64, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+            for (int i0 = 0; i0 < this.values.length; ++i0) {
+                encoder1.encode(
+                        this.values[i0],
+                        DataHeader.HEADER_SIZE + BindingsHelper.UNION_SIZE * i0,
+                        false);
+            }
+        }
+    }
+
+    /** A struct carrying handles. */
+    static final class Handles extends Struct {
+        private static final int STRUCT_SIZE = 24;
+        private static final DataHeader[] VERSION_ARRAY =
+                new DataHeader[] {new DataHeader(STRUCT_SIZE, 0)};
+        private static final DataHeader DEFAULT_STRUCT_INFO = VERSION_ARRAY[0];
+
+        public MessagePipeHandle pipe = InvalidHandle.INSTANCE;
+        public int count;
+        public MessagePipeHandle[] pipes = new MessagePipeHandle[0];
+
+        private Handles(int version) {
+            super(STRUCT_SIZE, version);
+        }
+
+        Handles() {
+            this(0);
+        }
+
+        static Handles deserialize(Message message) {
+            return decode(new Decoder(message));
+        }
+
+        @SuppressWarnings("NullAway") // Non-nullable fields are read as @Nullable.
+        static Handles decode(Decoder decoder0) {
+            decoder0.increaseStackDepth();
+            Handles result;
+            try {
+                DataHeader mainDataHeader = decoder0.readAndValidateDataHeader(VERSION_ARRAY);
+                result = new Handles(mainDataHeader.elementsOrVersion);
+                result.pipe = decoder0.readMessagePipeHandle(8, false);
+                result.count = decoder0.readInt(12);
+                result.pipes =
+                        decoder0.readMessagePipeHandles(
+                                16, 0, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+            } finally {
+                decoder0.decreaseStackDepth();
+            }
+            return result;
+        }
+
+        @Override
+        protected void encode(Encoder encoder) {
+            Encoder encoder0 = encoder.getEncoderAtDataOffset(DEFAULT_STRUCT_INFO);
+            encoder0.encode(this.pipe, 8, false);
+            encoder0.encode(this.count, 12);
+            encoder0.encode(this.pipes, 16, 0, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.mojo.bindings;
+
+import org.chromium.build.annotations.NullMarked;
+import org.chromium.build.annotations.Nullable;
+import org.chromium.mojo.InMemoryCore;
+import org.chromium.mojo.bindings.BenchmarkTypes.Handles;
+import org.chromium.mojo.bindings.BenchmarkTypes.Point;
+import org.chromium.mojo.bindings.BenchmarkTypes.Record;
+import org.chromium.mojo.bindings.BenchmarkTypes.Value;
+import org.chromium.mojo.system.Handle;
+import org.chromium.mojo.system.MessagePipeHandle;
+import org.chromium.mojo.system.Pair;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Microbenchmarks of the hot paths of the mojo Java bindings: serialization and deserialization
+ * of structs, unions, arrays and handles, {@link Connector} dispatch and {@link RouterImpl}
+ * request/response round trips. They run on a host JVM, over the message pipes of an {@link
+ * InMemoryCore}.
+ *
+ * <p>Usage: {@code BindingsBenchmarks [name regex]}.
+ */
+@NullMarked
+public final class BindingsBenchmarks {
+    private static final int REQUEST_TYPE = 1;
+    private static final int HANDLE_COUNT = 4;
+
+    private final InMemoryCore mCore = new InMemoryCore();
+
+    private BindingsBenchmarks() {}
+
+    public static void main(String[] args) {
+        Pattern filter = args.length > 0 ? Pattern.compile(args[0]) : null;
+        new BindingsBenchmarks().runAll(new BenchmarkRunner(System.out, filter));
+    }
+
+    private void runAll(BenchmarkRunner runner) {
+        runSerializationBenchmarks(runner);
+        runHandlesBenchmarks(runner);
+        runConnectorBenchmarks(runner);
+        runRouterBenchmarks(runner);
+    }
+
+    private void runSerializationBenchmarks(BenchmarkRunner runner) {
+        Point point = createPoint();
+        Record record = createRecord();
+        Value value = new Value();
+        value.setStringValue("a string in a union");
+
+        // Encoded messages are released like the Connector does once they are written.
+        runner.run("encode.point", () -> release(point.serialize(null)));
+        runner.run("encode.record", () -> release(record.serialize(null)));
+        runner.run("encode.union", () -> release(value.serialize(mCore)));
+
+        Message pointMessage = received(point.serialize(null));
+        Message recordMessage = received(record.serialize(null));
+        Message valueMessage = received(value.serialize(mCore));
+        runner.run("decode.point", () -> Point.deserialize(pointMessage));
+        runner.run("decode.record", () -> Record.deserialize(recordMessage));
+        runner.run("decode.union", () -> Value.deserialize(valueMessage));
+    }
+
+    private void runHandlesBenchmarks(BenchmarkRunner runner) {
+        Handles handles = new Handles();
+        handles.count = HANDLE_COUNT;
+        handles.pipe = createPipeHandle();
+        handles.pipes = new MessagePipeHandle[HANDLE_COUNT];
+        for (int i = 0; i < HANDLE_COUNT; i++) {
+            handles.pipes[i] = createPipeHandle();
+        }
+        runner.run("encode.handles", () -> release(handles.serialize(null)));
+
+        // Decoding takes the handles out of the message, so they are put back after each
+        // operation, in the order they were encoded in.
+        Message encoded = handles.serialize(null);
+        Handle[] received = encoded.getHandles().toArray(new Handle[0]);
+        Message message = new Message(copyOf(encoded.getData()), Arrays.asList(received));
+        runner.run(
+                "decode.handles",
+                () -> {
+                    Handles result = Handles.deserialize(message);
+                    received[0] = result.pipe;
+                    System.arraycopy(result.pipes, 0, received, 1, result.pipes.length);
+                    return result;
+                });
+    }
+
+    private void runConnectorBenchmarks(BenchmarkRunner runner) {
+        Pair<MessagePipeHandle, MessagePipeHandle> pipe = mCore.createMessagePipe(null);
+        Connector sender = new Connector(pipe.first, mCore.getWatcher());
+        Connector receiver = new Connector(pipe.second, mCore.getWatcher());
+        ResultHolder holder = new ResultHolder();
+        receiver.setIncomingMessageReceiver(
+                new SimpleMessageReceiver() {
+                    @Override
+                    public boolean accept(Message message) {
+                        holder.mResult = Point.deserialize(message);
+                        return true;
+                    }
+                });
+        sender.start();
+        receiver.start();
+
+        // The message doesn't come from the pool, so it can be sent again and again.
+        Message message =
+                new Message(
+                        copyOf(createPoint().serialize(null).getData()), new ArrayList<Handle>());
+        runner.run(
+                "connector.dispatch.point",
+                () -> {
+                    sender.accept(message);
+                    mCore.runUntilIdle();
+                    return holder.mResult;
+                });
+        sender.close();
+        receiver.close();
+    }
+
+    private void runRouterBenchmarks(BenchmarkRunner runner) {
+        Pair<MessagePipeHandle, MessagePipeHandle> pipe = mCore.createMessagePipe(null);
+        RouterImpl client = new RouterImpl(pipe.first, mCore.getWatcher());
+        RouterImpl server = new RouterImpl(pipe.second, mCore.getWatcher());
+        server.setIncomingMessageReceiver(
+                new SimpleMessageReceiver() {
+                    @Override
+                    public boolean acceptWithResponder(
+                            Message message, MessageReceiver responder) {
+                        ServiceMessage request = message.asServiceMessage();
+                        Point point = Point.deserialize(request.getPayload());
+                        point.timestamp++;
+                        return responder.accept(
+                                point.serializeWithHeader(
+                                        mCore,
+                                        new MessageHeader(
+                                                REQUEST_TYPE,
+                                                MessageHeader.MESSAGE_IS_RESPONSE_FLAG,
+                                                request.getHeader().getRequestId())));
+                    }
+                });
+        ResultHolder holder = new ResultHolder();
+        MessageReceiver responseReceiver =
+                new SimpleMessageReceiver() {
+                    @Override
+                    public boolean accept(Message message) {
+                        holder.mResult =
+                                Point.deserialize(message.asServiceMessage().getPayload());
+                        return true;
+                    }
+                };
+        client.start();
+        server.start();
+
+        MessageHeader header =
+                new MessageHeader(REQUEST_TYPE, MessageHeader.MESSAGE_EXPECTS_RESPONSE_FLAG, 0);
+        // Each request gets a new request ID in place, so the request can be sent again and again.
+        ServiceMessage request =
+                new Message(
+                                copyOf(createPoint().serializeWithHeader(mCore, header).getData()),
+                                new ArrayList<Handle>())
+                        .asServiceMessage();
+        runner.run(
+                "router.roundtrip.point",
+                () -> {
+                    client.acceptWithResponder(request, responseReceiver);
+                    mCore.runUntilIdle();
+                    return holder.mResult;
+                });
+        client.close();
+        server.close();
+    }
+
+    private MessagePipeHandle createPipeHandle() {
+        Pair<MessagePipeHandle, MessagePipeHandle> pipe = mCore.createMessagePipe(null);
+        pipe.second.close();
+        return pipe.first;
+    }
+
+    private static Point createPoint() {
+        Point point = new Point();
+        point.x = 1920;
+        point.y = 1080;
+        point.timestamp = 1234567890123L;
+        point.weight = 0.5;
+        point.visible = true;
+        return point;
+    }
+
+    private static Record createRecord() {
+        Record record = new Record();
+        record.name = "A representative record name";
+        record.ids = new int[64];
+        record.samples = new double[64];
+        for (int i = 0; i < 64; i++) {
+            record.ids[i] = i * 31;
+            record.samples[i] = i / 3.0;
+        }
+        record.payload = new byte[1024];
+        Arrays.fill(record.payload, (byte) 42);
+        record.origin = createPoint();
+        record.value.setIntValue(7);
+        List<Value> values = new ArrayList<Value>();
+        for (int i = 0; i < 8; i++) {
+            Value value = new Value();
+            if (i % 2 == 0) {
+                value.setIntValue(i);
+            } else {
+                value.setStringValue("value " + i);
+            }
+            values.add(value);
+        }
+        record.values = values.toArray(new Value[0]);
+        return record;
+    }
+
+    /** Gives the buffer of an encoded message back to the pool, as the Connector does. */
+    private static Message release(Message message) {
+        message.releasePooledBuffer();
+        return message;
+    }
+
+    /** Returns |message| as the Connector receives it, in a heap buffer. */
+    private static Message received(Message message) {
+        ByteBuffer data = message.getData().duplicate();
+        data.position(0);
+        byte[] bytes = new byte[data.limit()];
+        data.get(bytes);
+        return new Message(ByteBuffer.wrap(bytes), new ArrayList<Handle>());
+    }
+
+    /** Returns a direct copy of |data|, which doesn't belong to the buffer pool. */
+    private static ByteBuffer copyOf(ByteBuffer data) {
+        ByteBuffer source = data.duplicate();
+        source.position(0);
+        ByteBuffer copy = ByteBuffer.allocateDirect(source.limit());
+        copy.put(source);
+        copy.flip();
+        return copy;
+    }
+
+    private static class ResultHolder {
+        private @Nullable Object mResult;
+    }
+
+    /** A receiver ignoring the messages it isn't expected to get. */
+    private static class SimpleMessageReceiver implements MessageReceiverWithResponder {
+        @Override
+        public boolean accept(Message message) {
+            return false;
+        }
+
+        @Override
+        public boolean acceptWithResponder(Message message, MessageReceiver responder) {
+            return false;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
@@ -14,9 +14,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import org.chromium.base.test.BaseJUnit4ClassRunner;
+import org.chromium.build.BuildConfig;
 import org.chromium.mojo.MojoTestRule;
 import org.chromium.mojo.bindings.BindingsTestUtils.CapturingErrorHandler;
 import org.chromium.mojo.bindings.BindingsTestUtils.RecordingMessageReceiver;
+import org.chromium.mojo.bindings.test.mojom.imported.Point;
 import org.chromium.mojo.system.Core;
 import org.chromium.mojo.system.Handle;
 import org.chromium.mojo.system.MessagePipeHandle;
@@ -83,6 +85,56 @@ public class ConnectorTest {
         Assert.assertEquals(mTestMessage.getData(), ByteBuffer.wrap(result.getValue().mData));
     }
 
+    /** Test that sending an encoded message gives its buffer back to the pool. */
+    @Test
+    @SmallTest
+    public void testSendingEncodedMessageReleasesBuffer() {
+        Point point = new Point();
+        point.x = 1;
+        point.y = 2;
+        ServiceMessage message = point.serializeWithHeader(null, new MessageHeader(0));
+        ByteBuffer buffer = message.getData();
+        ByteBuffer expectedData = ByteBuffer.allocate(buffer.limit());
+        expectedData.put(buffer.duplicate()).flip();
+
+        // Empty the size class of the buffer, so that it is the next one handed out.
+        ArrayList<ByteBuffer> pooledBuffers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pooledBuffers.add(MessageBufferPool.acquire(buffer.capacity()));
+        }
+        mConnector.accept(message);
+        ByteBuffer reusedBuffer = MessageBufferPool.acquire(buffer.capacity());
+        for (ByteBuffer pooledBuffer : pooledBuffers) {
+            MessageBufferPool.release(pooledBuffer);
+        }
+
+        Assert.assertSame(buffer, reusedBuffer);
+        for (int i = 0; i < reusedBuffer.capacity(); i++) {
+            Assert.assertEquals(0, reusedBuffer.get(i));
+        }
+        ResultAnd<MessagePipeHandle.ReadMessageResult> result =
+                mHandle.readMessage(MessagePipeHandle.ReadFlags.NONE);
+        Assert.assertEquals(MojoResult.OK, result.getMojoResult());
+        Assert.assertEquals(expectedData, ByteBuffer.wrap(result.getValue().mData));
+    }
+
+    /** Test that a sent message can't be read once its buffer has been recycled. */
+    @Test
+    @SmallTest
+    public void testSentEncodedMessageCannotBeReused() {
+        if (!BuildConfig.ENABLE_ASSERTS) return;
+        Point point = new Point();
+        ServiceMessage message = point.serializeWithHeader(null, new MessageHeader(0));
+        mConnector.accept(message);
+
+        try {
+            message.getData();
+            Assert.fail("Reading a recycled message should have asserted.");
+        } catch (AssertionError e) {
+            // Expected.
+        }
+    }
+
     /** Test receiving a message through a {@link Connector} */
     @Test
     @SmallTest
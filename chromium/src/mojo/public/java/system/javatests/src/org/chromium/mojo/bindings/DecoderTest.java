@@ -0,0 +1,74 @@
+// Copyright 2025 The Chromium Authors
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package org.chromium.mojo.bindings;
+
+import androidx.test.filters.SmallTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.chromium.base.test.BaseJUnit4ClassRunner;
+import org.chromium.base.test.util.Batch;
+
+import java.nio.IntBuffer;
+
+/** Tests for the lazy and zero-copy accessors of {@link Decoder}. */
+@RunWith(BaseJUnit4ClassRunner.class)
+@Batch(Batch.UNIT_TESTS)
+public class DecoderTest {
+    private static final int STRUCT_SIZE = DataHeader.HEADER_SIZE + 3 * 8;
+    private static final int STRING_OFFSET = DataHeader.HEADER_SIZE;
+    private static final int OTHER_STRING_OFFSET = DataHeader.HEADER_SIZE + 8;
+    private static final int INTS_OFFSET = DataHeader.HEADER_SIZE + 16;
+
+    private static Decoder encode(String string, String otherString, int[] ints) {
+        Encoder encoder = new Encoder(null, STRUCT_SIZE);
+        encoder.encode(new DataHeader(STRUCT_SIZE, 0));
+        encoder.encode(string, STRING_OFFSET, false);
+        encoder.encode(otherString, OTHER_STRING_OFFSET, false);
+        encoder.encode(ints, INTS_OFFSET, 0, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+        Decoder decoder = new Decoder(encoder.getMessage());
+        decoder.readDataHeader();
+        return decoder;
+    }
+
+    /** Testing that lazy strings decode ASCII and non-ASCII strings on access. */
+    @Test
+    @SmallTest
+    public void testLazyString() {
+        Decoder decoder = encode("hello", "héllo ☺", new int[0]);
+
+        LazyString ascii = decoder.readLazyString(STRING_OFFSET, false);
+        LazyString nonAscii = decoder.readLazyString(OTHER_STRING_OFFSET, false);
+
+        Assert.assertEquals(5, ascii.getUtf8Length());
+        Assert.assertEquals(5, ascii.getUtf8Bytes().remaining());
+        Assert.assertEquals("hello", ascii.toString());
+        Assert.assertNull(ascii.getUtf8Bytes());
+        Assert.assertEquals(10, nonAscii.getUtf8Length());
+        Assert.assertEquals("héllo ☺", nonAscii.toString());
+        Assert.assertEquals('☺', nonAscii.charAt(6));
+    }
+
+    /** Testing that array views expose the elements without copying them. */
+    @Test
+    @SmallTest
+    public void testIntsView() {
+        int[] ints = {1, -2, Integer.MAX_VALUE};
+        Decoder decoder = encode("", "", ints);
+        Assert.assertEquals("", decoder.readString(STRING_OFFSET, false));
+        Assert.assertEquals("", decoder.readString(OTHER_STRING_OFFSET, false));
+
+        IntBuffer view =
+                decoder.readIntsView(INTS_OFFSET, 0, BindingsHelper.UNSPECIFIED_ARRAY_LENGTH);
+
+        Assert.assertTrue(view.isReadOnly());
+        Assert.assertEquals(ints.length, view.remaining());
+        for (int i = 0; i < ints.length; i++) {
+            Assert.assertEquals(ints[i], view.get(i));
+        }
+    }
+}
@@ -66,6 +66,38 @@ public class ExecutorFactoryTest {
         }
     }
 
+    /** Testing that actions coalesced into a single wakeup run in order. */
+    @Test
+    @SmallTest
+    public void testExecutorRunsCoalescedActionsInOrder() {
+        final List<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < 3; ++i) {
+            final int index = i;
+            mExecutor.execute(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            order.add(index);
+                            if (index == 0) {
+                                // Queued while the wakeup is being handled.
+                                mExecutor.execute(
+                                        new Runnable() {
+                                            @Override
+                                            public void run() {
+                                                order.add(3);
+                                            }
+                                        });
+                            }
+                        }
+                    });
+        }
+        mTestRule.runLoop(RUN_LOOP_TIMEOUT_MS);
+        Assert.assertEquals(4, order.size());
+        for (int i = 0; i < order.size(); ++i) {
+            Assert.assertEquals(i, (int) order.get(i));
+        }
+    }
+
     /** Testing the {@link Executor} when called from another thread. */
     @Test
     @SmallTest
@@ -176,4 +176,39 @@ public class SerializationTest {
             // Expected.
         }
     }
+
+    /** Verifies that the size hint of a struct type decays after a large message. */
+    @Test
+    @SmallTest
+    public void testEncodedSizeHintDecays() {
+        StructOfNullables struct = new StructOfNullables();
+        struct.str = new String(new char[8192]).replace('\0', 'a');
+        struct.serialize(null);
+        int largeHint = struct.getEncodedSizeHintForTesting();
+        Assert.assertTrue(largeHint > 8192);
+
+        struct.str = null;
+        struct.serialize(null);
+        int decayedHint = struct.getEncodedSizeHintForTesting();
+        Assert.assertTrue(decayedHint < largeHint);
+        Assert.assertTrue(decayedHint > largeHint / 2);
+        for (int i = 0; i < 64; i++) {
+            struct.serialize(null);
+        }
+        Assert.assertTrue(struct.getEncodedSizeHintForTesting() < 256);
+    }
+
+    /** Verifies that serializing to a ByteBuffer doesn't take buffers from the pool. */
+    @Test
+    @SmallTest
+    public void testByteBufferSerializationIsNotPooled() {
+        Struct1 input = new Struct1();
+        MessageBufferPool.release(MessageBufferPool.acquire(MessageBufferPool.MIN_BUFFER_SIZE));
+        int retainedBufferCount = MessageBufferPool.getRetainedBufferCountForTesting();
+
+        input.serialize();
+
+        Assert.assertEquals(
+                retainedBufferCount, MessageBufferPool.getRetainedBufferCountForTesting());
+    }
 }